@@ -0,0 +1,101 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package net.luckperms.api.actionlog;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.jetbrains.annotations.ApiStatus.Internal;
+
+import java.util.UUID;
+
+/**
+ * A factory which creates {@link ActionFilter}s.
+ *
+ * @since 5.5
+ */
+@Internal
+public interface ActionFilterFactory {
+
+    /**
+     * Gets an {@link ActionFilter} which matches any action.
+     *
+     * <p>Prefer using the {@link ActionFilter#any()} accessor.</p>
+     *
+     * @return the filter
+     */
+    @NonNull ActionFilter any();
+
+    /**
+     * Gets an {@link ActionFilter} which matches actions with a specific source user.
+     *
+     * <p>Prefer using the {@link ActionFilter#source(UUID)} accessor.</p>
+     *
+     * @param uniqueId the source user unique id
+     * @return the filter
+     */
+    @NonNull ActionFilter source(@NonNull UUID uniqueId);
+
+    /**
+     * Gets an {@link ActionFilter} which matches actions which target a specific user.
+     *
+     * <p>Prefer using the {@link ActionFilter#user(UUID)} accessor.</p>
+     *
+     * @param uniqueId the target user unique id
+     * @return the filter
+     */
+    @NonNull ActionFilter user(@NonNull UUID uniqueId);
+
+    /**
+     * Gets an {@link ActionFilter} which matches actions which target a specific group.
+     *
+     * <p>Prefer using the {@link ActionFilter#group(String)} accessor.</p>
+     *
+     * @param name the target group name
+     * @return the filter
+     */
+    @NonNull ActionFilter group(@NonNull String name);
+
+    /**
+     * Gets an {@link ActionFilter} which matches actions which target a specific track.
+     *
+     * <p>Prefer using the {@link ActionFilter#track(String)} accessor.</p>
+     *
+     * @param name the target track name
+     * @return the filter
+     */
+    @NonNull ActionFilter track(@NonNull String name);
+
+    /**
+     * Gets an {@link ActionFilter} which matches actions which contain a specific search query
+     * in the source name, target name or description.
+     *
+     * <p>Prefer using the {@link ActionFilter#search(String)} accessor.</p>
+     *
+     * @param query the search query
+     * @return the filter
+     */
+    @NonNull ActionFilter search(@NonNull String query);
+
+}
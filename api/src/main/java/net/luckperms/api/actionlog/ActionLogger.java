@@ -27,7 +27,9 @@ package net.luckperms.api.actionlog;
 
 import net.luckperms.api.messaging.MessagingService;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.jetbrains.annotations.ApiStatus.Internal;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -46,9 +48,49 @@ public interface ActionLogger {
      * Gets a {@link ActionLog} instance from the plugin storage.
      *
      * @return a log instance
+     * @deprecated loads the entire log into memory, use {@link #queryActions(ActionFilter)}
+     * or {@link #queryActions(ActionFilter, int, int)} instead
      */
+    @Deprecated
     @NonNull CompletableFuture<ActionLog> getLog();
 
+    /**
+     * Gets all actions from the action log matching the given {@code filter}.
+     *
+     * <p>The returned list is ordered from most recent to least recent.</p>
+     *
+     * @param filter the filter
+     * @return the actions
+     * @since 5.5
+     */
+    @NonNull CompletableFuture<List<Action>> queryActions(@NonNull ActionFilter filter);
+
+    /**
+     * Gets a page of actions from the action log matching the given {@code filter}.
+     *
+     * <p>Pages are ordered from most recent to least recent, so page {@code 1}
+     * contains the {@code pageSize} most recent matching actions.</p>
+     *
+     * <p>The matching is performed by the storage implementation, so only the
+     * requested page is loaded.</p>
+     *
+     * @param filter the filter
+     * @param pageSize the size of each page
+     * @param pageNumber the page number, starting at {@code 1}
+     * @return the actions on the page
+     * @since 5.5
+     */
+    @NonNull CompletableFuture<List<Action>> queryActions(@NonNull ActionFilter filter, int pageSize, int pageNumber);
+
+    /**
+     * Gets the {@link ActionFilterFactory}.
+     *
+     * @return the action filter factory
+     * @since 5.5
+     */
+    @Internal
+    @NonNull ActionFilterFactory getFilterFactory();
+
     /**
      * Submits a log entry to the plugin to be handled.
      *
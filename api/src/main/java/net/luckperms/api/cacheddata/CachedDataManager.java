@@ -111,6 +111,11 @@ public interface CachedDataManager {
     /**
      * Invalidates all cached {@link CachedPermissionData} and {@link CachedMetaData}
      * instances.
+     *
+     * <p>The instances are always discarded immediately, even if the server is
+     * configured to refresh cached data in the background after changes. Callers
+     * which need subsequent lookups to reflect a change they have just made can
+     * call this method to guarantee it.</p>
      */
     void invalidate();
 
@@ -26,8 +26,10 @@
 package net.luckperms.api.context;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 
 /**
@@ -107,4 +109,23 @@ public interface ContextCalculator<T> {
         return ImmutableContextSet.empty();
     }
 
+    /**
+     * Gets the inputs which the contexts submitted by this calculator depend on.
+     *
+     * <p>If every registered calculator declares its inputs, LuckPerms may
+     * cache the contexts of a subject until one of those inputs changes,
+     * instead of recalculating them roughly once per tick. Any change not
+     * covered by one of the declared triggers will then go unnoticed.</p>
+     *
+     * <p>An empty set indicates the contexts never change for a given
+     * subject. The default, {@code null}, indicates that the inputs are not
+     * known, and that the contexts should be recalculated regularly.</p>
+     *
+     * @return the update triggers, or null if not declared
+     * @since 5.5
+     */
+    default @Nullable Set<ContextUpdateTrigger> getUpdateTriggers() {
+        return null;
+    }
+
 }
@@ -0,0 +1,63 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package net.luckperms.api.context;
+
+/**
+ * Represents an input which the contexts provided by a {@link ContextCalculator}
+ * may depend on.
+ *
+ * <p>Calculators declare the inputs they depend on using
+ * {@link ContextCalculator#getUpdateTriggers()}.</p>
+ *
+ * @since 5.5
+ */
+public enum ContextUpdateTrigger {
+
+    /**
+     * The subject moving to a different world.
+     */
+    WORLD_CHANGE,
+
+    /**
+     * The subject changing gamemode.
+     */
+    GAMEMODE_CHANGE,
+
+    /**
+     * The subject switching to a different backend server (on a proxy).
+     */
+    SERVER_SWITCH,
+
+    /**
+     * An explicit call to {@link ContextManager#signalContextUpdate(Object)}
+     * for the subject.
+     *
+     * <p>Calculators declaring this trigger are responsible for making the
+     * call themselves whenever their inputs change.</p>
+     */
+    SIGNAL
+
+}
@@ -0,0 +1,60 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package net.luckperms.api.metrics;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.Collection;
+
+/**
+ * Provides access to the metrics recorded by the plugin.
+ *
+ * <p>Metrics are recorded for the lifetime of the process, and are never reset.
+ * The values returned reflect the state at the time they are read.</p>
+ *
+ * @since 5.5
+ */
+public interface Metrics {
+
+    /**
+     * Gets the counters recorded by the plugin.
+     *
+     * <p>Each cache is represented by a pair of counters, {@code cache_hits} and
+     * {@code cache_misses}, labelled with the name of the cache.</p>
+     *
+     * @return the counters
+     */
+    @NonNull @Unmodifiable Collection<Counter> getCounters();
+
+    /**
+     * Gets the timers recorded by the plugin.
+     *
+     * @return the timers
+     */
+    @NonNull @Unmodifiable Collection<Timer> getTimers();
+
+}
@@ -0,0 +1,73 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package net.luckperms.api.metrics;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.time.Duration;
+import java.util.SortedMap;
+
+/**
+ * A metric which records the distribution of the time taken by an operation.
+ *
+ * <p>Instances are a snapshot of the timer at the point they were obtained
+ * from {@link Metrics#getTimers()}, so the count, total time and buckets are
+ * consistent with each other.</p>
+ *
+ * @since 5.5
+ */
+public interface Timer extends Metric {
+
+    /**
+     * Gets the number of times the operation has been timed.
+     *
+     * <p>This includes operations which took longer than the largest bound
+     * in {@link #getBuckets()}.</p>
+     *
+     * @return the count
+     */
+    long getCount();
+
+    /**
+     * Gets the total time taken by all timed operations.
+     *
+     * @return the total time
+     */
+    @NonNull Duration getTotalTime();
+
+    /**
+     * Gets the distribution of the recorded times.
+     *
+     * <p>Each entry maps an upper bound to the number of operations which took
+     * at most that long. The counts are cumulative, so the count for the largest
+     * bound is at most {@link #getCount()}.</p>
+     *
+     * @return the distribution
+     */
+    @NonNull @Unmodifiable SortedMap<Duration, Long> getBuckets();
+
+}
@@ -0,0 +1,103 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.benchmarks.cacheddata;
+
+import com.google.common.collect.ImmutableMap;
+
+import me.lucko.luckperms.benchmarks.calculator.ProcessorStack;
+import me.lucko.luckperms.benchmarks.plugin.BenchmarkPlugin;
+import me.lucko.luckperms.benchmarks.plugin.HolderFixtures;
+import me.lucko.luckperms.common.cacheddata.AbstractCachedDataManager;
+import me.lucko.luckperms.common.model.User;
+import net.luckperms.api.cacheddata.CachedMetaData;
+import net.luckperms.api.cacheddata.CachedPermissionData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building the cached data of a user in {@link AbstractCachedDataManager}
+ * for inheritance trees of increasing depth.
+ *
+ * <p>The "warm" benchmarks only rebuild the user's data, so can reuse anything cached
+ * by the groups above them. The "cold" benchmarks invalidate every group first.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CachedDataBuildBenchmark {
+
+    @Param({"5", "20", "50"})
+    public int depth;
+
+    @Param({"50", "500"})
+    public int permissionsPerGroup;
+
+    private BenchmarkPlugin plugin;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.plugin = new BenchmarkPlugin(ImmutableMap.of(), ProcessorStack.STANDALONE::createFactory);
+        this.user = HolderFixtures.createUser(this.plugin, this.depth, this.permissionsPerGroup);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.plugin.close();
+    }
+
+    @Benchmark
+    public CachedPermissionData permissionDataWarm() {
+        return this.user.getCachedData().permissionData().calculate(HolderFixtures.QUERY_OPTIONS);
+    }
+
+    @Benchmark
+    public CachedPermissionData permissionDataCold() {
+        this.plugin.getGroupManager().invalidateAllGroupCaches();
+        return this.user.getCachedData().permissionData().calculate(HolderFixtures.QUERY_OPTIONS);
+    }
+
+    @Benchmark
+    public CachedMetaData metaData() {
+        return this.user.getCachedData().metaData().calculate(HolderFixtures.QUERY_OPTIONS);
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.benchmarks.cacheddata;
+
+import com.google.common.collect.ImmutableMap;
+
+import me.lucko.luckperms.benchmarks.calculator.ProcessorStack;
+import me.lucko.luckperms.benchmarks.plugin.BenchmarkPlugin;
+import me.lucko.luckperms.common.cacheddata.result.IntegerResult;
+import me.lucko.luckperms.common.cacheddata.type.MetaAccumulator;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.node.types.Meta;
+import me.lucko.luckperms.common.node.types.Prefix;
+import me.lucko.luckperms.common.node.types.Suffix;
+import me.lucko.luckperms.common.node.types.Weight;
+import net.luckperms.api.metastacking.MetaStackDefinition;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.types.WeightNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks accumulating the meta of a holder using {@link MetaAccumulator}.
+ *
+ * <p>The nodes are shaped like those inherited through a group hierarchy -
+ * each "group" sets a prefix, suffix, weight and some meta, with some keys
+ * repeated between groups.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MetaAccumulatorBenchmark {
+
+    @Param({"5", "20", "50"})
+    public int groups;
+
+    private MetaStackDefinition prefixDefinition;
+    private MetaStackDefinition suffixDefinition;
+    private List<Node> nodes;
+    private List<WeightNode> weights;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkPlugin plugin = new BenchmarkPlugin(ImmutableMap.of(), ProcessorStack.STANDALONE::createFactory);
+        this.prefixDefinition = plugin.getConfiguration().get(ConfigKeys.PREFIX_FORMATTING_OPTIONS);
+        this.suffixDefinition = plugin.getConfiguration().get(ConfigKeys.SUFFIX_FORMATTING_OPTIONS);
+        plugin.close();
+
+        this.nodes = new ArrayList<>();
+        this.weights = new ArrayList<>();
+        for (int i = 0; i < this.groups; i++) {
+            this.nodes.add(Prefix.builder("[Group " + i + "] ", i).build());
+            this.nodes.add(Suffix.builder(" (" + i + ")", i % 10).build());
+            this.nodes.add(Meta.builder("rank", Integer.toString(i)).build());
+            this.nodes.add(Meta.builder("group" + i + "-option", "value").build());
+            this.nodes.add(Meta.builder("shared-option", Integer.toString(i % 3)).build());
+            this.weights.add(Weight.builder(i).build());
+        }
+    }
+
+    @Benchmark
+    public MetaAccumulator accumulate() {
+        MetaAccumulator accumulator = new MetaAccumulator(this.prefixDefinition, this.suffixDefinition);
+        for (Node node : this.nodes) {
+            accumulator.accumulateNode(node);
+        }
+        for (WeightNode weight : this.weights) {
+            accumulator.accumulateWeight(IntegerResult.of(weight));
+        }
+        accumulator.complete();
+
+        // read the results which are computed lazily
+        accumulator.getPrefix();
+        accumulator.getSuffix();
+        return accumulator;
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.benchmarks.calculator;
+
+import com.google.common.collect.ImmutableMap;
+
+import me.lucko.luckperms.benchmarks.plugin.BenchmarkPlugin;
+import me.lucko.luckperms.benchmarks.plugin.HolderFixtures;
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.cacheddata.type.PermissionCache;
+import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.verbose.event.CheckOrigin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link PermissionCalculator} lookups for each platform's processor stack.
+ *
+ * <p>The "hit" benchmarks go through {@link PermissionCalculator#checkPermission(String, CheckOrigin)},
+ * and are answered by the calculator's lookup cache after the first iteration. The "miss"
+ * benchmarks call {@link PermissionCalculator#apply(String)} directly, which is the work done
+ * on a cache miss - i.e. running the permission through each processor in the stack.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PermissionCheckBenchmark {
+
+    @Param({"BUKKIT", "SPONGE", "VELOCITY", "STANDALONE"})
+    public ProcessorStack stack;
+
+    @Param({"false", "true"})
+    public boolean compiled;
+
+    private BenchmarkPlugin plugin;
+    private PermissionCalculator calculator;
+
+    private String directPermission;
+    private String childPermission;
+    private String wildcardPermission;
+    private String defaultPermission;
+    private String undefinedPermission;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.plugin = new BenchmarkPlugin(
+                ImmutableMap.of("compile-permission-calculators", Boolean.toString(this.compiled)),
+                this.stack::createFactory
+        );
+
+        User user = HolderFixtures.createUser(this.plugin, 10, 200);
+        PermissionCache cache = user.getCachedData().getPermissionData(HolderFixtures.QUERY_OPTIONS);
+        this.calculator = cache.getCalculator();
+
+        // a permission from the middle of the hierarchy
+        this.directPermission = HolderFixtures.permission(5, 101);
+        // a child of "pluginX.commands", granted by group 3
+        this.childPermission = PlatformPermissions.permission(3, 7);
+        // matched by "group4.wild.*"
+        this.wildcardPermission = "group4.wild.some.deep.permission";
+        // granted by the platform defaults
+        this.defaultPermission = PlatformPermissions.permission(PlatformPermissions.PLUGINS - 1, 5);
+        // not set anywhere
+        this.undefinedPermission = "some.unknown.plugin.permission";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.plugin.close();
+    }
+
+    @Benchmark
+    public TristateResult hitDirect() {
+        return this.calculator.checkPermission(this.directPermission, CheckOrigin.INTERNAL);
+    }
+
+    @Benchmark
+    public TristateResult hitUndefined() {
+        return this.calculator.checkPermission(this.undefinedPermission, CheckOrigin.INTERNAL);
+    }
+
+    @Benchmark
+    public TristateResult missDirect() {
+        return this.calculator.apply(this.directPermission);
+    }
+
+    @Benchmark
+    public TristateResult missChild() {
+        return this.calculator.apply(this.childPermission);
+    }
+
+    @Benchmark
+    public TristateResult missWildcard() {
+        return this.calculator.apply(this.wildcardPermission);
+    }
+
+    @Benchmark
+    public TristateResult missDefault() {
+        return this.calculator.apply(this.defaultPermission);
+    }
+
+    @Benchmark
+    public TristateResult missUndefined() {
+        return this.calculator.apply(this.undefinedPermission);
+    }
+
+}
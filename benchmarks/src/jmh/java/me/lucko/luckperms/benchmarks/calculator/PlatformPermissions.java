@@ -0,0 +1,93 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.benchmarks.calculator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Synthetic platform permission data, shaped like the permissions registered
+ * by a typical set of server plugins.
+ */
+public final class PlatformPermissions {
+    private PlatformPermissions() {}
+
+    /** The number of simulated plugins */
+    public static final int PLUGINS = 40;
+
+    /** The number of permissions registered by each simulated plugin */
+    public static final int PERMISSIONS_PER_PLUGIN = 25;
+
+    /**
+     * Permissions registered by plugins, mapped to their default value for a non-op player.
+     */
+    public static final Map<String, Boolean> REGISTERED;
+
+    /**
+     * Permissions which are granted to all players by default.
+     */
+    public static final Map<String, Boolean> DEFAULTS;
+
+    /**
+     * The child permissions of each "plugin.*" style parent permission.
+     */
+    public static final Map<String, List<String>> CHILDREN;
+
+    static {
+        ImmutableMap.Builder<String, Boolean> registered = ImmutableMap.builder();
+        ImmutableMap.Builder<String, Boolean> defaults = ImmutableMap.builder();
+        ImmutableMap.Builder<String, List<String>> children = ImmutableMap.builder();
+
+        for (int i = 0; i < PLUGINS; i++) {
+            ImmutableList.Builder<String> pluginChildren = ImmutableList.builder();
+            for (int j = 0; j < PERMISSIONS_PER_PLUGIN; j++) {
+                String permission = permission(i, j);
+                boolean def = j % 5 == 0;
+                registered.put(permission, def);
+                if (def) {
+                    defaults.put(permission, true);
+                }
+                pluginChildren.add(permission);
+            }
+            children.put(parent(i), pluginChildren.build());
+        }
+
+        REGISTERED = registered.build();
+        DEFAULTS = defaults.build();
+        CHILDREN = children.build();
+    }
+
+    public static String permission(int plugin, int index) {
+        return "plugin" + plugin + ".command.action" + index;
+    }
+
+    public static String parent(int plugin) {
+        return "plugin" + plugin + ".commands";
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.benchmarks.calculator;
+
+import me.lucko.luckperms.common.cacheddata.CacheMetadata;
+import me.lucko.luckperms.common.calculator.CalculatorFactory;
+import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.calculator.processor.DirectProcessor;
+import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
+import me.lucko.luckperms.common.calculator.processor.RegexProcessor;
+import me.lucko.luckperms.common.calculator.processor.SpongeWildcardProcessor;
+import me.lucko.luckperms.common.calculator.processor.WildcardProcessor;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.model.HolderType;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import net.luckperms.api.query.QueryOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The permission processor stacks used by each platform's {@link CalculatorFactory}.
+ *
+ * <p>Platform specific processors are replaced by stand-ins which do the same
+ * kind of work against the synthetic {@link PlatformPermissions} data.</p>
+ */
+public enum ProcessorStack {
+
+    /**
+     * Mirrors {@code BukkitCalculatorFactory} for a non-op player.
+     */
+    BUKKIT {
+        @Override
+        protected void addPlatformProcessors(List<PermissionProcessor> processors, LuckPermsConfiguration config, CacheMetadata metadata) {
+            if (config.get(ConfigKeys.APPLY_BUKKIT_CHILD_PERMISSIONS)) {
+                processors.add(1, new ChildPermissionProcessor());
+            }
+            if (metadata.getHolderType() == HolderType.USER && config.get(ConfigKeys.APPLY_BUKKIT_DEFAULT_PERMISSIONS)) {
+                boolean overrideWildcards = config.get(ConfigKeys.APPLY_DEFAULT_NEGATIONS_BEFORE_WILDCARDS);
+                processors.add(new DefaultPermissionProcessor(PlatformPermissions.DEFAULTS, overrideWildcards));
+                processors.add(new DefaultPermissionProcessor(PlatformPermissions.REGISTERED, overrideWildcards));
+            }
+        }
+    },
+
+    /**
+     * Mirrors {@code SpongeCalculatorFactory}.
+     */
+    SPONGE {
+        @Override
+        protected boolean spongeWildcardsByDefault() {
+            return true;
+        }
+
+        @Override
+        protected void addPlatformProcessors(List<PermissionProcessor> processors, LuckPermsConfiguration config, CacheMetadata metadata) {
+            if (config.get(ConfigKeys.APPLY_SPONGE_DEFAULT_SUBJECTS)) {
+                boolean overrideWildcards = config.get(ConfigKeys.APPLY_DEFAULT_NEGATIONS_BEFORE_WILDCARDS);
+                processors.add(new DefaultPermissionProcessor(PlatformPermissions.DEFAULTS, overrideWildcards));
+                processors.add(new DefaultPermissionProcessor(PlatformPermissions.REGISTERED, overrideWildcards));
+            }
+        }
+    },
+
+    /**
+     * Mirrors {@code VelocityCalculatorFactory}.
+     */
+    VELOCITY,
+
+    /**
+     * Mirrors {@code StandaloneCalculatorFactory}.
+     */
+    STANDALONE;
+
+    /**
+     * Gets if sponge implicit wildcards are enabled by default for this stack.
+     *
+     * @return if sponge wildcards are applied by default
+     */
+    protected boolean spongeWildcardsByDefault() {
+        return false;
+    }
+
+    /**
+     * Adds the platform specific processors to the common stack.
+     *
+     * @param processors the processors
+     * @param config the plugin configuration
+     * @param metadata the cache metadata
+     */
+    protected void addPlatformProcessors(List<PermissionProcessor> processors, LuckPermsConfiguration config, CacheMetadata metadata) {
+
+    }
+
+    /**
+     * Creates a {@link CalculatorFactory} for this stack.
+     *
+     * @param plugin the plugin
+     * @return a calculator factory
+     */
+    public CalculatorFactory createFactory(LuckPermsPlugin plugin) {
+        return (queryOptions, metadata) -> build(plugin, queryOptions, metadata);
+    }
+
+    private PermissionCalculator build(LuckPermsPlugin plugin, QueryOptions queryOptions, CacheMetadata metadata) {
+        LuckPermsConfiguration config = plugin.getConfiguration();
+        List<PermissionProcessor> processors = new ArrayList<>(8);
+
+        processors.add(new DirectProcessor());
+
+        if (config.get(ConfigKeys.APPLYING_REGEX)) {
+            processors.add(new RegexProcessor());
+        }
+
+        if (config.get(ConfigKeys.APPLYING_WILDCARDS)) {
+            processors.add(new WildcardProcessor());
+        }
+
+        if (config.get(ConfigKeys.APPLYING_WILDCARDS_SPONGE) || spongeWildcardsByDefault()) {
+            processors.add(new SpongeWildcardProcessor());
+        }
+
+        addPlatformProcessors(processors, config, metadata);
+
+        boolean compile = config.get(ConfigKeys.COMPILE_PERMISSION_CALCULATORS);
+        return new PermissionCalculator(plugin, metadata, processors, compile);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.benchmarks.context;
+
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
+import me.lucko.luckperms.common.context.comparator.ContextSetComparator;
+import net.luckperms.api.context.ImmutableContextSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks constructing and comparing {@link ImmutableContextSetImpl}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ContextSetBenchmark {
+    private static final Comparator<ImmutableContextSet> COMPARATOR = ContextSetComparator.normal();
+
+    @Param({"1", "4", "8"})
+    public int contexts;
+
+    private String[] keys;
+    private String[] values;
+
+    private ImmutableContextSet set;
+    private ImmutableContextSet equalSet;
+    private ImmutableContextSet differentSet;
+    private ImmutableContextSet subset;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.keys = new String[this.contexts];
+        this.values = new String[this.contexts];
+        for (int i = 0; i < this.contexts; i++) {
+            // keys are added out of order, so the builder has to sort them
+            this.keys[i] = "key" + ((i * 7) % this.contexts);
+            this.values[i] = "value" + i;
+        }
+
+        this.set = build();
+        this.equalSet = build();
+        this.differentSet = new ImmutableContextSetImpl.BuilderImpl()
+                .addAll(this.set)
+                .add("other", "value")
+                .build();
+        this.subset = ImmutableContextSetImpl.of(this.keys[0], this.values[0]);
+    }
+
+    private ImmutableContextSet build() {
+        ImmutableContextSetImpl.BuilderImpl builder = new ImmutableContextSetImpl.BuilderImpl();
+        for (int i = 0; i < this.contexts; i++) {
+            builder.add(this.keys[i], this.values[i]);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public ImmutableContextSet constructBuilder() {
+        return build();
+    }
+
+    @Benchmark
+    public ImmutableContextSet constructSingleton() {
+        return ImmutableContextSetImpl.of(this.keys[0], this.values[0]);
+    }
+
+    @Benchmark
+    public boolean equalsEqual() {
+        return this.set.equals(this.equalSet);
+    }
+
+    @Benchmark
+    public boolean equalsDifferent() {
+        return this.set.equals(this.differentSet);
+    }
+
+    @Benchmark
+    public int hashCodeFresh() {
+        return build().hashCode();
+    }
+
+    @Benchmark
+    public int compareEqual() {
+        return COMPARATOR.compare(this.set, this.equalSet);
+    }
+
+    @Benchmark
+    public int compareDifferent() {
+        return COMPARATOR.compare(this.set, this.differentSet);
+    }
+
+    @Benchmark
+    public boolean isSatisfiedBy() {
+        return this.subset.isSatisfiedBy(this.set);
+    }
+
+}
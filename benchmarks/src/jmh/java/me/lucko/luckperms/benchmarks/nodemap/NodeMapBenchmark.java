@@ -0,0 +1,162 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.benchmarks.nodemap;
+
+import com.google.common.collect.ImmutableMap;
+
+import me.lucko.luckperms.benchmarks.calculator.ProcessorStack;
+import me.lucko.luckperms.benchmarks.plugin.BenchmarkPlugin;
+import me.lucko.luckperms.benchmarks.plugin.HolderFixtures;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.model.nodemap.NodeMapMutable;
+import me.lucko.luckperms.common.node.types.Permission;
+import net.luckperms.api.model.data.DataType;
+import net.luckperms.api.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks mutating a {@link NodeMapMutable}, both on its own and whilst
+ * other threads are mutating and reading the same map.
+ *
+ * <p>Compact maps are included, as they copy the whole map for each mutation.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class NodeMapBenchmark {
+
+    /**
+     * The map being benchmarked, shared between the threads in each benchmark group.
+     */
+    @State(Scope.Group)
+    public static class MapState {
+
+        @Param({"100", "1000"})
+        public int size;
+
+        @Param({"false", "true"})
+        public boolean compact;
+
+        private BenchmarkPlugin plugin;
+        private NodeMapMutable map;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            this.plugin = new BenchmarkPlugin(ImmutableMap.of(), ProcessorStack.STANDALONE::createFactory);
+            User user = HolderFixtures.createUser(this.plugin, 1, 0);
+
+            this.map = new NodeMapMutable(user, DataType.NORMAL, this.compact);
+            for (int i = 0; i < this.size; i++) {
+                this.map.add(Permission.builder()
+                        .permission("existing.permission." + i)
+                        .withContext("server", "server" + (i % 4))
+                        .build());
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            this.plugin.close();
+        }
+    }
+
+    /**
+     * The nodes added and removed by each writer thread. Each thread uses its
+     * own nodes so that adds and removes always change the map.
+     */
+    @State(Scope.Thread)
+    public static class WriterState {
+        private static final int NODES = 64;
+
+        private final List<Node> nodes = new ArrayList<>(NODES);
+
+        @Setup(Level.Trial)
+        public void setup(ThreadParams threadParams) {
+            int thread = threadParams.getThreadIndex();
+            for (int i = 0; i < NODES; i++) {
+                this.nodes.add(Permission.builder()
+                        .permission("thread" + thread + ".permission." + i)
+                        .withContext("server", "server" + (i % 4))
+                        .build());
+            }
+        }
+
+        Node next() {
+            return this.nodes.get(ThreadLocalRandom.current().nextInt(NODES));
+        }
+    }
+
+    private static Object addThenRemove(MapState state, WriterState writer) {
+        Node node = writer.next();
+        state.map.add(node);
+        return state.map.remove(node);
+    }
+
+    @Benchmark
+    @Group("uncontended")
+    @GroupThreads(1)
+    public Object uncontended(MapState state, WriterState writer) {
+        return addThenRemove(state, writer);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(2)
+    public Object contendedWriters(MapState state, WriterState writer) {
+        return addThenRemove(state, writer);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(2)
+    public Object contendedReaders(MapState state) {
+        List<Node> nodes = new ArrayList<>(state.size);
+        state.map.copyTo(nodes, HolderFixtures.QUERY_OPTIONS);
+        return nodes;
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.benchmarks.plugin;
+
+import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
+import me.lucko.luckperms.common.plugin.classpath.ClassPathAppender;
+import me.lucko.luckperms.common.plugin.logging.JavaPluginLogger;
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.plugin.scheduler.AbstractJavaScheduler;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import net.luckperms.api.platform.Platform;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * A minimal {@link LuckPermsBootstrap} with no server attached.
+ */
+public class BenchmarkBootstrap implements LuckPermsBootstrap {
+    private final PluginLogger logger = new JavaPluginLogger(Logger.getLogger("luckperms-benchmarks"));
+    private final SchedulerAdapter scheduler = new Scheduler(this);
+    private final CountDownLatch loadLatch = new CountDownLatch(0);
+    private final CountDownLatch enableLatch = new CountDownLatch(0);
+    private final Instant startupTime = Instant.now();
+    private final Path dataDirectory;
+
+    public BenchmarkBootstrap() {
+        try {
+            this.dataDirectory = Files.createTempDirectory("luckperms-benchmarks");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public PluginLogger getPluginLogger() {
+        return this.logger;
+    }
+
+    @Override
+    public SchedulerAdapter getScheduler() {
+        return this.scheduler;
+    }
+
+    @Override
+    public ClassPathAppender getClassPathAppender() {
+        // dependencies are already on the benchmark classpath
+        return file -> {};
+    }
+
+    @Override
+    public CountDownLatch getLoadLatch() {
+        return this.loadLatch;
+    }
+
+    @Override
+    public CountDownLatch getEnableLatch() {
+        return this.enableLatch;
+    }
+
+    @Override
+    public String getVersion() {
+        return "benchmark";
+    }
+
+    @Override
+    public Instant getStartupTime() {
+        return this.startupTime;
+    }
+
+    @Override
+    public Platform.Type getType() {
+        return Platform.Type.STANDALONE;
+    }
+
+    @Override
+    public String getServerBrand() {
+        return "benchmarks";
+    }
+
+    @Override
+    public String getServerVersion() {
+        return "benchmark";
+    }
+
+    @Override
+    public Path getDataDirectory() {
+        return this.dataDirectory;
+    }
+
+    @Override
+    public Optional<?> getPlayer(UUID uniqueId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<UUID> lookupUniqueId(String username) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<String> lookupUsername(UUID uniqueId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public int getPlayerCount() {
+        return 0;
+    }
+
+    @Override
+    public Collection<String> getPlayerList() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<UUID> getOnlinePlayers() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isPlayerOnline(UUID uniqueId) {
+        return false;
+    }
+
+    private static final class Scheduler extends AbstractJavaScheduler {
+        Scheduler(LuckPermsBootstrap bootstrap) {
+            super(bootstrap);
+        }
+
+        @Override
+        public Executor sync() {
+            return async();
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.benchmarks.plugin;
+
+import me.lucko.luckperms.common.context.manager.ContextManager;
+import me.lucko.luckperms.common.context.manager.QueryOptionsSupplier;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.query.QueryOptions;
+
+import java.util.UUID;
+
+/**
+ * A context manager for a platform without any players.
+ */
+public class BenchmarkContextManager extends ContextManager<Object, Object> {
+
+    public BenchmarkContextManager(LuckPermsPlugin plugin) {
+        super(plugin, Object.class, Object.class);
+    }
+
+    @Override
+    public UUID getUniqueId(Object player) {
+        // there are never any players to pass in
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public QueryOptionsSupplier getCacheFor(Object subject) {
+        // subjects have no contexts of their own
+        return this::getStaticQueryOptions;
+    }
+
+    @Override
+    protected void invalidateCache(Object subject) {
+        // no-op
+    }
+
+    @Override
+    public QueryOptions formQueryOptions(Object subject, ImmutableContextSet contextSet) {
+        return formQueryOptions(contextSet);
+    }
+}
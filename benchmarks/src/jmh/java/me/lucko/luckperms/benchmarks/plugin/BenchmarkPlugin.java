@@ -0,0 +1,380 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.benchmarks.plugin;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import me.lucko.luckperms.common.actionlog.LogDispatcher;
+import me.lucko.luckperms.common.api.LuckPermsApiProvider;
+import me.lucko.luckperms.common.cacheddata.CachedDataLimits;
+import me.lucko.luckperms.common.calculator.CalculatorFactory;
+import me.lucko.luckperms.common.command.CommandManager;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.context.manager.ContextManager;
+import me.lucko.luckperms.common.dependencies.Dependency;
+import me.lucko.luckperms.common.dependencies.DependencyManager;
+import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.extension.SimpleExtensionManager;
+import me.lucko.luckperms.common.http.BytebinClient;
+import me.lucko.luckperms.common.http.BytesocksClient;
+import me.lucko.luckperms.common.inheritance.InheritanceDependencyIndex;
+import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
+import me.lucko.luckperms.common.locale.TranslationManager;
+import me.lucko.luckperms.common.locale.TranslationRepository;
+import me.lucko.luckperms.common.messaging.InternalMessagingService;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.model.manager.group.StandardGroupManager;
+import me.lucko.luckperms.common.model.manager.track.StandardTrackManager;
+import me.lucko.luckperms.common.model.manager.user.StandardUserManager;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.plugin.util.AbstractConnectionListener;
+import me.lucko.luckperms.common.sender.DummyConsoleSender;
+import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.LocalSnapshot;
+import me.lucko.luckperms.common.storage.Storage;
+import me.lucko.luckperms.common.storage.StorageType;
+import me.lucko.luckperms.common.storage.implementation.binary.BinaryStorage;
+import me.lucko.luckperms.common.storage.implementation.file.watcher.FileWatcher;
+import me.lucko.luckperms.common.tasks.SyncTask;
+import me.lucko.luckperms.common.treeview.PermissionRegistry;
+import me.lucko.luckperms.common.verbose.VerboseHandler;
+import me.lucko.luckperms.common.webeditor.store.WebEditorStore;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.plain.PlainComponentSerializer;
+import net.luckperms.api.query.QueryOptions;
+import okhttp3.OkHttpClient;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A {@link LuckPermsPlugin} which sets up just enough of the plugin to exercise
+ * the permission calculation and caching code paths in isolation.
+ *
+ * <p>The remaining services (storage, API, commands, etc) are not used by the
+ * benchmarks. They are created with minimal settings when first requested, so
+ * that they don't add to the cost of setting up each benchmark. Storage is a
+ * {@link BinaryStorage} in a temporary directory, and there is no messaging
+ * service unless one is set.</p>
+ */
+public class BenchmarkPlugin implements LuckPermsPlugin {
+    private final BenchmarkBootstrap bootstrap;
+    private final LuckPermsConfiguration configuration;
+    private final EventDispatcher eventDispatcher;
+    private final StandardUserManager userManager;
+    private final StandardGroupManager groupManager;
+    private final StandardTrackManager trackManager;
+    private final BenchmarkContextManager contextManager;
+    private final InheritanceGraphFactory inheritanceGraphFactory;
+    private final InheritanceDependencyIndex inheritanceDependencyIndex;
+    private final CalculatorFactory calculatorFactory;
+    private final VerboseHandler verboseHandler;
+    private final PermissionRegistry permissionRegistry;
+    private final DependencyManager dependencyManager;
+    private final AbstractConnectionListener connectionListener;
+    private final Sender consoleSender;
+
+    private final Supplier<LuckPermsApiProvider> apiProvider = Suppliers.memoize(() -> new LuckPermsApiProvider(this));
+    private final Supplier<SimpleExtensionManager> extensionManager = Suppliers.memoize(() -> new SimpleExtensionManager(this));
+    private final Supplier<CommandManager> commandManager = Suppliers.memoize(() -> new CommandManager(this));
+    private final Supplier<TranslationManager> translationManager = Suppliers.memoize(() -> new TranslationManager(this));
+    private final Supplier<TranslationRepository> translationRepository = Suppliers.memoize(() -> new TranslationRepository(this));
+    private final Supplier<LogDispatcher> logDispatcher = Suppliers.memoize(() -> new LogDispatcher(this));
+    private final Supplier<OkHttpClient> httpClient = Suppliers.memoize(() -> new OkHttpClient.Builder().build());
+    private final Supplier<BytebinClient> bytebin = Suppliers.memoize(() -> new BytebinClient(this.httpClient.get(), getConfiguration().get(ConfigKeys.BYTEBIN_URL), "luckperms-benchmarks"));
+    private final Supplier<BytesocksClient> bytesocks = Suppliers.memoize(() -> new BytesocksClient(this.httpClient.get(), getConfiguration().get(ConfigKeys.BYTESOCKS_HOST), "luckperms-benchmarks/editor"));
+    private final Supplier<WebEditorStore> webEditorStore = Suppliers.memoize(() -> new WebEditorStore(this));
+    private final Supplier<SyncTask.Buffer> syncTaskBuffer = Suppliers.memoize(() -> new SyncTask.Buffer(this));
+
+    private Storage storage;
+    private InternalMessagingService messagingService;
+
+    /**
+     * Creates a new benchmark plugin.
+     *
+     * @param config config values to use instead of the defaults
+     * @param calculatorFactory a function creating the calculator factory for the plugin
+     */
+    public BenchmarkPlugin(Map<String, String> config, Function<LuckPermsPlugin, CalculatorFactory> calculatorFactory) {
+        this.bootstrap = new BenchmarkBootstrap();
+        this.configuration = new LuckPermsConfiguration(this, new BenchmarkConfigAdapter(this, config));
+        this.eventDispatcher = new EventDispatcher(new BenchmarkEventBus(this));
+        this.verboseHandler = new VerboseHandler(this.bootstrap.getScheduler());
+        this.permissionRegistry = new PermissionRegistry(this.bootstrap.getScheduler());
+        this.inheritanceGraphFactory = new InheritanceGraphFactory(this);
+        this.inheritanceDependencyIndex = new InheritanceDependencyIndex(this);
+        this.contextManager = new BenchmarkContextManager(this);
+        this.calculatorFactory = calculatorFactory.apply(this);
+        this.userManager = new StandardUserManager(this);
+        this.groupManager = new StandardGroupManager(this);
+        this.trackManager = new StandardTrackManager(this);
+        this.dependencyManager = new BenchmarkDependencyManager();
+        this.connectionListener = new AbstractConnectionListener(this) {};
+        this.consoleSender = new DummyConsoleSender(this) {
+            @Override
+            public void sendMessage(Component message) {
+                getLogger().info(PlainComponentSerializer.plain().serialize(TranslationManager.render(message)));
+            }
+        };
+    }
+
+    /**
+     * Stops the background tasks started by the plugin.
+     */
+    public void close() {
+        synchronized (this) {
+            if (this.storage != null) {
+                this.storage.shutdown();
+            }
+        }
+        this.permissionRegistry.close();
+        this.verboseHandler.close();
+        this.bootstrap.getScheduler().shutdownScheduler();
+        this.bootstrap.getScheduler().shutdownExecutor();
+    }
+
+    @Override
+    public LuckPermsBootstrap getBootstrap() {
+        return this.bootstrap;
+    }
+
+    @Override
+    public StandardUserManager getUserManager() {
+        return this.userManager;
+    }
+
+    @Override
+    public StandardGroupManager getGroupManager() {
+        return this.groupManager;
+    }
+
+    @Override
+    public StandardTrackManager getTrackManager() {
+        return this.trackManager;
+    }
+
+    @Override
+    public LuckPermsConfiguration getConfiguration() {
+        return this.configuration;
+    }
+
+    @Override
+    public EventDispatcher getEventDispatcher() {
+        return this.eventDispatcher;
+    }
+
+    @Override
+    public PluginLogger getLogger() {
+        return this.bootstrap.getPluginLogger();
+    }
+
+    @Override
+    public ContextManager<?, ?> getContextManager() {
+        return this.contextManager;
+    }
+
+    @Override
+    public InheritanceGraphFactory getInheritanceGraphFactory() {
+        return this.inheritanceGraphFactory;
+    }
+
+    @Override
+    public InheritanceDependencyIndex getInheritanceDependencyIndex() {
+        return this.inheritanceDependencyIndex;
+    }
+
+    @Override
+    public CachedDataLimits getCachedDataLimits() {
+        return null;
+    }
+
+    @Override
+    public CalculatorFactory getCalculatorFactory() {
+        return this.calculatorFactory;
+    }
+
+    @Override
+    public VerboseHandler getVerboseHandler() {
+        return this.verboseHandler;
+    }
+
+    @Override
+    public PermissionRegistry getPermissionRegistry() {
+        return this.permissionRegistry;
+    }
+
+    @Override
+    public Optional<QueryOptions> getQueryOptionsForUser(User user) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<UUID> lookupUniqueId(String username) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<String> lookupUsername(UUID uniqueId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean testUsernameValidity(String username) {
+        return true;
+    }
+
+    @Override
+    public Stream<Sender> getOnlineSenders() {
+        return Stream.empty();
+    }
+
+    @Override
+    public Optional<InternalMessagingService> getMessagingService() {
+        return Optional.ofNullable(this.messagingService);
+    }
+
+    @Override
+    public Optional<FileWatcher> getFileWatcher() {
+        return Optional.empty();
+    }
+
+    @Override
+    public void setMessagingService(InternalMessagingService service) {
+        this.messagingService = service;
+    }
+
+    @Override
+    public synchronized Storage getStorage() {
+        if (this.storage == null) {
+            this.storage = new Storage(this, new BinaryStorage(this, "binary-storage"));
+            this.storage.init();
+        }
+        return this.storage;
+    }
+
+    @Override
+    public LuckPermsApiProvider getApiProvider() {
+        return this.apiProvider.get();
+    }
+
+    @Override
+    public SimpleExtensionManager getExtensionManager() {
+        return this.extensionManager.get();
+    }
+
+    @Override
+    public CommandManager getCommandManager() {
+        return this.commandManager.get();
+    }
+
+    @Override
+    public AbstractConnectionListener getConnectionListener() {
+        return this.connectionListener;
+    }
+
+    @Override
+    public TranslationManager getTranslationManager() {
+        return this.translationManager.get();
+    }
+
+    @Override
+    public TranslationRepository getTranslationRepository() {
+        return this.translationRepository.get();
+    }
+
+    @Override
+    public DependencyManager getDependencyManager() {
+        return this.dependencyManager;
+    }
+
+    @Override
+    public LogDispatcher getLogDispatcher() {
+        return this.logDispatcher.get();
+    }
+
+    @Override
+    public BytebinClient getBytebin() {
+        return this.bytebin.get();
+    }
+
+    @Override
+    public BytesocksClient getBytesocks() {
+        return this.bytesocks.get();
+    }
+
+    @Override
+    public WebEditorStore getWebEditorStore() {
+        return this.webEditorStore.get();
+    }
+
+    @Override
+    public Sender getConsoleSender() {
+        return this.consoleSender;
+    }
+
+    @Override
+    public SyncTask.Buffer getSyncTaskBuffer() {
+        return this.syncTaskBuffer.get();
+    }
+
+    @Override
+    public LocalSnapshot getLocalSnapshot() {
+        return null;
+    }
+
+    /**
+     * A {@link DependencyManager} which loads nothing - all dependencies are
+     * already on the benchmark classpath.
+     */
+    private static final class BenchmarkDependencyManager implements DependencyManager {
+
+        @Override
+        public void loadDependencies(Set<Dependency> dependencies) {
+
+        }
+
+        @Override
+        public void loadStorageDependencies(Set<StorageType> storageTypes, boolean redis, boolean rabbitmq, boolean nats) {
+
+        }
+
+        @Override
+        public ClassLoader obtainClassLoaderWith(Set<Dependency> dependencies) {
+            return getClass().getClassLoader();
+        }
+
+        @Override
+        public void close() {
+
+        }
+    }
+}
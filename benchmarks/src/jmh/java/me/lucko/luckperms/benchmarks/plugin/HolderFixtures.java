@@ -0,0 +1,145 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.benchmarks.plugin;
+
+import me.lucko.luckperms.benchmarks.calculator.PlatformPermissions;
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.node.types.Inheritance;
+import me.lucko.luckperms.common.node.types.Meta;
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.node.types.Prefix;
+import me.lucko.luckperms.common.node.types.Suffix;
+import me.lucko.luckperms.common.node.types.Weight;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.types.PermissionNode;
+import net.luckperms.api.query.QueryOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Populates a {@link BenchmarkPlugin} with a synthetic group hierarchy.
+ *
+ * <p>Nodes are written directly to the holders' node maps, bypassing the
+ * event bus which isn't available in the benchmark environment.</p>
+ */
+public final class HolderFixtures {
+    private HolderFixtures() {}
+
+    /** The query options used for lookups - a player on the "survival" server */
+    public static final QueryOptions QUERY_OPTIONS = QueryOptionsImpl.DEFAULT_CONTEXTUAL.toBuilder()
+            .context(new ImmutableContextSetImpl.BuilderImpl()
+                    .add("server", "survival")
+                    .add("world", "world_nether")
+                    .build())
+            .build();
+
+    /**
+     * Gets the name of the group at the given depth in the hierarchy.
+     *
+     * @param depth the depth
+     * @return the group name
+     */
+    public static String groupName(int depth) {
+        return "group" + depth;
+    }
+
+    /**
+     * Gets a permission granted by the group at the given depth.
+     *
+     * @param depth the depth of the group
+     * @param index the index of the permission
+     * @return the permission
+     */
+    public static String permission(int depth, int index) {
+        return "group" + depth + ".feature" + (index % 8) + ".perm" + index;
+    }
+
+    /**
+     * Creates a chain of groups, where each group inherits the one before it,
+     * and a user which is a member of the last group in the chain.
+     *
+     * @param plugin the plugin
+     * @param depth the number of groups in the chain
+     * @param permissionsPerGroup the number of permissions set on each group
+     * @return the user
+     */
+    public static User createUser(BenchmarkPlugin plugin, int depth, int permissionsPerGroup) {
+        for (int i = 0; i < depth; i++) {
+            Group group = plugin.getGroupManager().getOrMake(groupName(i));
+            List<Node> nodes = createNodes(i, permissionsPerGroup);
+            if (i > 0) {
+                nodes.add(Inheritance.builder(groupName(i - 1)).build());
+            }
+            setNodes(group, nodes);
+        }
+
+        User user = plugin.getUserManager().getOrMake(new UUID(0, depth), "benchmark");
+        List<Node> nodes = createNodes(depth, permissionsPerGroup / 4);
+        nodes.add(Inheritance.builder(groupName(depth - 1)).build());
+        setNodes(user, nodes);
+        return user;
+    }
+
+    /**
+     * Replaces the nodes of a holder and invalidates its cached data.
+     *
+     * @param holder the holder
+     * @param nodes the new nodes
+     */
+    public static void setNodes(PermissionHolder holder, List<Node> nodes) {
+        holder.normalData().bypass().setContent(nodes);
+        holder.getCachedData().invalidate();
+    }
+
+    private static List<Node> createNodes(int depth, int permissions) {
+        List<Node> nodes = new ArrayList<>(permissions + 8);
+        for (int i = 0; i < permissions; i++) {
+            PermissionNode.Builder builder = Permission.builder()
+                    .permission(permission(depth, i))
+                    .value(i % 7 != 0);
+            if (i % 5 == 0) {
+                builder.withContext("server", i % 10 == 0 ? "survival" : "creative");
+            }
+            nodes.add(builder.build());
+        }
+
+        int plugin = depth % PlatformPermissions.PLUGINS;
+        nodes.add(Permission.builder().permission(PlatformPermissions.parent(plugin)).build());
+        nodes.add(Permission.builder().permission("group" + depth + ".wild.*").build());
+        nodes.add(Prefix.builder("[Group " + depth + "] ", depth).build());
+        nodes.add(Suffix.builder(" (" + depth + ")", depth).build());
+        nodes.add(Meta.builder("rank", Integer.toString(depth)).build());
+        nodes.add(Meta.builder("group" + depth + "-option", "value").withContext("server", "survival").build());
+        nodes.add(Weight.builder(depth).build());
+        return nodes;
+    }
+
+}
@@ -42,6 +42,7 @@ import me.lucko.luckperms.bukkit.listeners.BukkitAutoOpListener;
 import me.lucko.luckperms.bukkit.listeners.BukkitCommandListUpdater;
 import me.lucko.luckperms.bukkit.listeners.BukkitConnectionListener;
 import me.lucko.luckperms.bukkit.listeners.BukkitPlatformListener;
+import me.lucko.luckperms.bukkit.listeners.BukkitSubscriptionMapUpdater;
 import me.lucko.luckperms.bukkit.messaging.BukkitMessagingFactory;
 import me.lucko.luckperms.bukkit.util.PluginManagerUtil;
 import me.lucko.luckperms.bukkit.vault.VaultHookManager;
@@ -285,6 +286,9 @@ public class LPBukkitPlugin extends AbstractLuckPermsPlugin {
             getApiProvider().getEventBus().subscribe(new BukkitCommandListUpdater(this));
         }
 
+        // register subscription map updater
+        getApiProvider().getEventBus().subscribe(new BukkitSubscriptionMapUpdater(this));
+
         // Load any online users (in the case of a reload)
         for (Player player : this.bootstrap.getServer().getOnlinePlayers()) {
             this.bootstrap.getScheduler().executeAsync(() -> {
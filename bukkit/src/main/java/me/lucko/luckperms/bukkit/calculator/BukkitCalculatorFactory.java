@@ -82,6 +82,7 @@ public class BukkitCalculatorFactory implements CalculatorFactory {
             processors.add(OpProcessor.INSTANCE);
         }
 
-        return new PermissionCalculator(this.plugin, metadata, processors);
+        boolean compile = this.plugin.getConfiguration().get(ConfigKeys.COMPILE_PERMISSION_CALCULATORS);
+        return new PermissionCalculator(this.plugin, metadata, processors, compile);
     }
 }
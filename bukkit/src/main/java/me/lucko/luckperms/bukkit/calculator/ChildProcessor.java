@@ -26,53 +26,44 @@
 package me.lucko.luckperms.bukkit.calculator;
 
 import me.lucko.luckperms.bukkit.LPBukkitPlugin;
-import me.lucko.luckperms.common.cacheddata.result.TristateResult;
-import me.lucko.luckperms.common.calculator.processor.AbstractSourceBasedProcessor;
+import me.lucko.luckperms.bukkit.inject.server.LuckPermsPermissionMap;
+import me.lucko.luckperms.common.calculator.processor.AbstractChildProcessor;
 import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
-import net.luckperms.api.util.Tristate;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Set;
 
 /**
  * Permission Processor for Bukkits "child" permission system.
  */
-public class ChildProcessor extends AbstractSourceBasedProcessor implements PermissionProcessor {
-    private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(ChildProcessor.class);
-
+public class ChildProcessor extends AbstractChildProcessor implements PermissionProcessor {
     private final LPBukkitPlugin plugin;
-    private final AtomicBoolean needsRefresh = new AtomicBoolean(false);
-    private Map<String, TristateResult> childPermissions = Collections.emptyMap();
+
+    /** The epoch of the permission map when the child permissions were last resolved */
+    private long epoch;
 
     public ChildProcessor(LPBukkitPlugin plugin) {
         this.plugin = plugin;
     }
 
     @Override
-    public TristateResult hasPermission(String permission) {
-        if (this.needsRefresh.compareAndSet(true, false)) {
-            refresh();
-        }
-        return this.childPermissions.getOrDefault(permission, TristateResult.UNDEFINED);
+    protected Map<String, Boolean> resolveChildPermissions(String permission, boolean value) {
+        return this.plugin.getPermissionMap().getChildPermissions(permission, value);
     }
 
     @Override
-    public void refresh() {
-        Map<String, TristateResult> childPermissions = new HashMap<>();
-        this.sourceMap.forEach((key, node) -> {
-            Map<String, Boolean> children = this.plugin.getPermissionMap().getChildPermissions(key, node.getValue());
-            children.forEach((childKey, childValue) -> {
-                childPermissions.put(childKey, RESULT_FACTORY.resultWithOverride(node, Tristate.of(childValue)));
-            });
-        });
-        this.childPermissions = childPermissions;
-        this.needsRefresh.set(false);
+    public synchronized void refresh() {
+        this.epoch = this.plugin.getPermissionMap().getEpoch();
+        super.refresh();
     }
 
     @Override
-    public void invalidate() {
-        this.needsRefresh.set(true);
+    protected @Nullable Set<String> getChangedPermissions() {
+        LuckPermsPermissionMap permissionMap = this.plugin.getPermissionMap();
+        long epoch = permissionMap.getEpoch();
+        Set<String> changed = permissionMap.getChangedPermissions(this.epoch);
+        this.epoch = epoch;
+        return changed;
     }
 }
@@ -34,6 +34,7 @@ import net.luckperms.api.context.Context;
 import net.luckperms.api.context.ContextCalculator;
 import net.luckperms.api.context.ContextConsumer;
 import net.luckperms.api.context.ContextSet;
+import net.luckperms.api.context.ContextUpdateTrigger;
 import net.luckperms.api.context.DefaultContextKeys;
 import net.luckperms.api.context.ImmutableContextSet;
 import org.bukkit.GameMode;
@@ -48,6 +49,7 @@ import org.bukkit.event.player.PlayerGameModeChangeEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.util.EnumSet;
 import java.util.Set;
 
 public class BukkitPlayerCalculator implements ContextCalculator<Player>, Listener {
@@ -125,24 +127,39 @@ public class BukkitPlayerCalculator implements ContextCalculator<Player>, Listen
         return builder.build();
     }
 
+    @Override
+    public @NonNull Set<ContextUpdateTrigger> getUpdateTriggers() {
+        Set<ContextUpdateTrigger> triggers = EnumSet.noneOf(ContextUpdateTrigger.class);
+        if (this.gamemode) {
+            triggers.add(ContextUpdateTrigger.GAMEMODE_CHANGE);
+        }
+        if (this.world || this.dimensionType) {
+            triggers.add(ContextUpdateTrigger.WORLD_CHANGE);
+        }
+        return triggers;
+    }
+
     @EventHandler(priority = EventPriority.LOWEST)
     public void onWorldChange(PlayerChangedWorldEvent e) {
-        if (this.world || this.dimensionType) {
+        if (this.plugin.getContextManager().isUpdateTriggerDeclared(ContextUpdateTrigger.WORLD_CHANGE)) {
             this.plugin.getContextManager().signalContextUpdate(e.getPlayer());
         }
     }
 
     @EventHandler(priority = EventPriority.LOWEST)
     public void onPlayerJoinWorld(PlayerJoinEvent e) {
-        if (this.world || this.dimensionType) {
+        if (this.plugin.getContextManager().isUpdateTriggerDeclared(ContextUpdateTrigger.WORLD_CHANGE)) {
             this.plugin.getContextManager().signalContextUpdate(e.getPlayer());
         }
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onGameModeChange(PlayerGameModeChangeEvent e) {
-        if (this.gamemode) {
-            this.plugin.getContextManager().signalContextUpdate(e.getPlayer());
+        if (this.plugin.getContextManager().isUpdateTriggerDeclared(ContextUpdateTrigger.GAMEMODE_CHANGE)) {
+            // the event is called before the gamemode is changed, so signal on the next tick
+            // to avoid a cached lookup made in between outliving the change
+            Player player = e.getPlayer();
+            this.plugin.getBootstrap().getScheduler().executeSync(() -> this.plugin.getContextManager().signalContextUpdate(player));
         }
     }
 }
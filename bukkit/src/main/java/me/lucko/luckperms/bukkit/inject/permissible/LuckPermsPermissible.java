@@ -30,6 +30,7 @@ import com.google.common.collect.ImmutableSet;
 import me.lucko.luckperms.bukkit.LPBukkitPlugin;
 import me.lucko.luckperms.bukkit.calculator.OpProcessor;
 import me.lucko.luckperms.bukkit.calculator.PermissionMapProcessor;
+import me.lucko.luckperms.bukkit.inject.server.LuckPermsSubscriptionMap;
 import me.lucko.luckperms.common.cacheddata.result.TristateResult;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.context.manager.QueryOptionsCache;
@@ -140,7 +141,7 @@ public class LuckPermsPermissible extends PermissibleBase {
         }
 
         QueryOptions queryOptions = this.queryOptionsSupplier.getQueryOptions();
-        TristateResult result = this.user.getCachedData().getPermissionData(queryOptions).checkPermission(permission, CheckOrigin.PLATFORM_API_HAS_PERMISSION_SET);
+        TristateResult result = this.user.getCachedData().checkPermission(queryOptions, permission, CheckOrigin.PLATFORM_API_HAS_PERMISSION_SET);
         if (result.result() == Tristate.UNDEFINED) {
             return false;
         }
@@ -170,7 +171,7 @@ public class LuckPermsPermissible extends PermissibleBase {
         }
 
         QueryOptions queryOptions = this.queryOptionsSupplier.getQueryOptions();
-        return this.user.getCachedData().getPermissionData(queryOptions).checkPermission(permission, CheckOrigin.PLATFORM_API_HAS_PERMISSION).result().asBoolean();
+        return this.user.getCachedData().checkPermission(queryOptions, permission, CheckOrigin.PLATFORM_API_HAS_PERMISSION).result().asBoolean();
     }
 
     @Override
@@ -180,7 +181,7 @@ public class LuckPermsPermissible extends PermissibleBase {
         }
 
         QueryOptions queryOptions = this.queryOptionsSupplier.getQueryOptions();
-        TristateResult result = this.user.getCachedData().getPermissionData(queryOptions).checkPermission(permission.getName(), CheckOrigin.PLATFORM_API_HAS_PERMISSION);
+        TristateResult result = this.user.getCachedData().checkPermission(queryOptions, permission.getName(), CheckOrigin.PLATFORM_API_HAS_PERMISSION);
 
         // override default op handling using the Permission class we have
         if (result.processorClass() == OpProcessor.class && this.plugin.getConfiguration().get(ConfigKeys.APPLY_BUKKIT_DEFAULT_PERMISSIONS)) {
@@ -294,6 +295,12 @@ public class LuckPermsPermissible extends PermissibleBase {
         // (#invalidate is a fast call)
         if (this.queryOptionsSupplier != null) { // this method is called by the super class constructor, before this class has fully initialised
             this.queryOptionsSupplier.invalidate();
+
+            // op status may also change which permissions the player is subscribed to
+            LuckPermsSubscriptionMap subscriptionMap = this.plugin.getSubscriptionMap();
+            if (subscriptionMap != null) {
+                subscriptionMap.updateSubscriptions(this.player);
+            }
         }
 
         // but we don't need to do anything else in this method, unlike the CB impl.
@@ -27,8 +27,8 @@ package me.lucko.luckperms.bukkit.inject.server;
 
 import com.google.common.collect.ForwardingMap;
 import com.google.common.collect.ImmutableMap;
+import me.lucko.luckperms.bukkit.LPBukkitPlugin;
 import me.lucko.luckperms.common.cache.LoadingMap;
-import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.treeview.PermissionRegistry;
 import org.bukkit.permissions.Permission;
 import org.bukkit.plugin.PluginManager;
@@ -38,10 +38,16 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import java.lang.reflect.Field;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 /**
@@ -54,10 +60,22 @@ import java.util.function.Function;
  *
  * It also allows us to pre-determine child permission relationships.
  *
+ * Changes are buffered and applied together at most once per update window,
+ * so that a plugin registering a large number of permissions at once only
+ * causes a single invalidation of the permission calculators. Each time changes are applied, the "epoch" of
+ * the map is incremented, and the parent permissions whose children may have
+ * changed are recorded, so that child processors can resolve only those again.
+ *
  * Injected by {@link InjectorPermissionMap}.
  */
 public final class LuckPermsPermissionMap extends ForwardingMap<String, Permission> {
 
+    /** The number of milliseconds to buffer changes for before applying them (roughly one server tick) */
+    private static final long UPDATE_WINDOW_MILLIS = 50;
+
+    /** The number of epochs to retain the changed permissions for */
+    private static final int MAX_CHANGE_HISTORY = 32;
+
     private static final Field PERMISSION_CHILDREN_FIELD;
 
     static {
@@ -76,12 +94,20 @@ public final class LuckPermsPermissionMap extends ForwardingMap<String, Permissi
     private final Map<String, Map<String, Boolean>> trueChildPermissions = LoadingMap.of(new ChildPermissionResolver(true));
     private final Map<String, Map<String, Boolean>> falseChildPermissions = LoadingMap.of(new ChildPermissionResolver(false));
 
+    // permissions which have changed since the last update
+    private final Set<String> pendingChanges = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean updateScheduled = new AtomicBoolean(false);
+
+    // epoch --> the permissions whose children may have changed in that epoch
+    private final ConcurrentSkipListMap<Long, Set<String>> changeHistory = new ConcurrentSkipListMap<>();
+    private volatile long epoch = 0;
+
     /**
      * The plugin instance
      */
-    final LuckPermsPlugin plugin;
+    final LPBukkitPlugin plugin;
 
-    public LuckPermsPermissionMap(LuckPermsPlugin plugin, Map<String, Permission> existingData) {
+    public LuckPermsPermissionMap(LPBukkitPlugin plugin, Map<String, Permission> existingData) {
         this.plugin = plugin;
         putAll(existingData);
     }
@@ -90,11 +116,93 @@ public final class LuckPermsPermissionMap extends ForwardingMap<String, Permissi
         return value ? this.trueChildPermissions.get(permission) : this.falseChildPermissions.get(permission);
     }
 
-    private void update() {
-        this.trueChildPermissions.clear();
-        this.falseChildPermissions.clear();
+    /**
+     * Gets the current epoch of the map.
+     *
+     * @return the epoch
+     */
+    public long getEpoch() {
+        return this.epoch;
+    }
+
+    /**
+     * Gets the permissions whose children may have changed since the given epoch.
+     *
+     * @param sinceEpoch the epoch
+     * @return the changed permissions, or null if they are no longer known
+     */
+    public @Nullable Set<String> getChangedPermissions(long sinceEpoch) {
+        if (sinceEpoch == this.epoch) {
+            return Collections.emptySet();
+        }
+
+        Long oldestEpoch = this.changeHistory.isEmpty() ? null : this.changeHistory.firstKey();
+        if (oldestEpoch == null || oldestEpoch > sinceEpoch + 1) {
+            return null;
+        }
+
+        Set<String> changed = new HashSet<>();
+        for (Set<String> permissions : this.changeHistory.tailMap(sinceEpoch, false).values()) {
+            changed.addAll(permissions);
+        }
+        return changed;
+    }
+
+    private void update(String permission) {
+        this.pendingChanges.add(permission.toLowerCase(Locale.ROOT));
+
+        // schedule the changes to be applied at the end of the current window, without
+        // pushing it back for each further change, so updates can't be postponed indefinitely
+        if (this.updateScheduled.compareAndSet(false, true)) {
+            this.plugin.getBootstrap().getScheduler().asyncLater(this::applyScheduledChanges, UPDATE_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void applyScheduledChanges() {
+        // reset first, so that changes made whilst applying open a new window
+        this.updateScheduled.set(false);
+        applyPendingChanges();
+    }
+
+    private synchronized void applyPendingChanges() {
+        Set<String> changed = new HashSet<>();
+        for (Iterator<String> it = this.pendingChanges.iterator(); it.hasNext(); ) {
+            changed.add(it.next());
+            it.remove();
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        // only the resolved children which pass through a changed permission need to be resolved again
+        Set<String> affected = new HashSet<>(changed);
+        invalidateChildPermissions(this.trueChildPermissions, changed, affected);
+        invalidateChildPermissions(this.falseChildPermissions, changed, affected);
+
+        long epoch = this.epoch + 1;
+        this.changeHistory.put(epoch, affected);
+        while (this.changeHistory.size() > MAX_CHANGE_HISTORY) {
+            this.changeHistory.pollFirstEntry();
+        }
+        this.epoch = epoch;
+
         this.plugin.getUserManager().invalidateAllPermissionCalculators();
         this.plugin.getGroupManager().invalidateAllPermissionCalculators();
+
+        LuckPermsSubscriptionMap subscriptionMap = this.plugin.getSubscriptionMap();
+        if (subscriptionMap != null) {
+            subscriptionMap.invalidateSubscriptions();
+        }
+    }
+
+    private static void invalidateChildPermissions(Map<String, Map<String, Boolean>> childPermissions, Set<String> changed, Set<String> affected) {
+        childPermissions.entrySet().removeIf(e -> {
+            if (changed.contains(e.getKey()) || !Collections.disjoint(e.getValue().keySet(), changed)) {
+                affected.add(e.getKey());
+                return true;
+            }
+            return false;
+        });
     }
 
     @Override
@@ -108,8 +216,8 @@ public final class LuckPermsPermissionMap extends ForwardingMap<String, Permissi
         Objects.requireNonNull(value, "value");
 
         this.plugin.getPermissionRegistry().insert(key);
-        Permission ret = super.put(key, inject(value));
-        update();
+        Permission ret = super.put(key, inject(key, value));
+        update(key);
         return ret;
     }
 
@@ -117,9 +225,9 @@ public final class LuckPermsPermissionMap extends ForwardingMap<String, Permissi
     public void putAll(@NonNull Map<? extends String, ? extends Permission> m) {
         for (Map.Entry<? extends String, ? extends Permission> e : m.entrySet()) {
             this.plugin.getPermissionRegistry().insert(e.getKey());
-            super.put(e.getKey(), inject(e.getValue()));
+            super.put(e.getKey(), inject(e.getKey(), e.getValue()));
+            update(e.getKey());
         }
-        update();
     }
 
     @Override
@@ -127,12 +235,20 @@ public final class LuckPermsPermissionMap extends ForwardingMap<String, Permissi
         if (object == null) {
             return null;
         }
-        return uninject(super.remove(object));
+        Permission ret = uninject(super.remove(object));
+        if (ret != null) {
+            update((String) object);
+        }
+        return ret;
     }
 
     @Override
     public boolean remove(Object key, Object value) {
-        return key != null && value != null && super.remove(key, uninject((Permission) value));
+        if (key != null && value != null && super.remove(key, uninject((Permission) value))) {
+            update((String) key);
+            return true;
+        }
+        return false;
     }
 
     // check for null
@@ -197,7 +313,7 @@ public final class LuckPermsPermissionMap extends ForwardingMap<String, Permissi
         }
     }
 
-    private Permission inject(Permission permission) {
+    private Permission inject(String key, Permission permission) {
         if (permission == null) {
             return null;
         }
@@ -209,7 +325,7 @@ public final class LuckPermsPermissionMap extends ForwardingMap<String, Permissi
                 children = ((NotifyingChildrenMap) children).delegate;
             }
 
-            NotifyingChildrenMap notifyingChildren = new NotifyingChildrenMap(children);
+            NotifyingChildrenMap notifyingChildren = new NotifyingChildrenMap(key, children);
             PERMISSION_CHILDREN_FIELD.set(permission, notifyingChildren);
         } catch (Exception e) {
             e.printStackTrace();
@@ -236,9 +352,11 @@ public final class LuckPermsPermissionMap extends ForwardingMap<String, Permissi
     }
 
     private final class NotifyingChildrenMap extends ForwardingMap<String, Boolean> {
+        private final String permission;
         private final Map<String, Boolean> delegate;
 
-        NotifyingChildrenMap(Map<String, Boolean> delegate) {
+        NotifyingChildrenMap(String permission, Map<String, Boolean> delegate) {
+            this.permission = permission;
             this.delegate = delegate;
 
             for (String key : this.delegate.keySet()) {
@@ -255,7 +373,7 @@ public final class LuckPermsPermissionMap extends ForwardingMap<String, Permissi
         public Boolean put(@NonNull String key, @NonNull Boolean value) {
             Boolean ret = super.put(key, value);
             LuckPermsPermissionMap.this.plugin.getPermissionRegistry().insert(key);
-            LuckPermsPermissionMap.this.update();
+            LuckPermsPermissionMap.this.update(this.permission);
             return ret;
         }
 
@@ -265,20 +383,20 @@ public final class LuckPermsPermissionMap extends ForwardingMap<String, Permissi
             for (String key : map.keySet()) {
                 LuckPermsPermissionMap.this.plugin.getPermissionRegistry().insert(key);
             }
-            LuckPermsPermissionMap.this.update();
+            LuckPermsPermissionMap.this.update(this.permission);
         }
 
         @Override
         public Boolean remove(@NonNull Object object) {
             Boolean ret = super.remove(object);
-            LuckPermsPermissionMap.this.update();
+            LuckPermsPermissionMap.this.update(this.permission);
             return ret;
         }
 
         @Override
         public void clear() {
             super.clear();
-            LuckPermsPermissionMap.this.update();
+            LuckPermsPermissionMap.this.update(this.permission);
         }
     }
 
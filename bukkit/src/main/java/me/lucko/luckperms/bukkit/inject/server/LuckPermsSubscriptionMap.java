@@ -26,6 +26,7 @@
 package me.lucko.luckperms.bukkit.inject.server;
 
 import me.lucko.luckperms.bukkit.LPBukkitPlugin;
+import me.lucko.luckperms.common.cache.SubscriptionIndex;
 import org.bukkit.entity.Player;
 import org.bukkit.permissions.Permissible;
 import org.bukkit.plugin.PluginManager;
@@ -38,6 +39,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A replacement map for the 'permSubs' instance in Bukkit's SimplePluginManager.
@@ -59,6 +61,16 @@ import java.util.WeakHashMap;
  *
  * This class implements option 2 above. It is preferred because it is faster & uses less memory
  *
+ * To avoid checking every online player each time the subscribers of a permission
+ * are requested, a reverse index from permission to the players who are subscribed
+ * is maintained for recently requested permissions. A player is re-checked when
+ * their permissions, contexts or op status change, and the whole index is dropped
+ * when a group or the registered Bukkit permissions change.
+ *
+ * The index is only used when contexts are event driven - otherwise a player's
+ * contexts can change without them being re-checked, so every online player is
+ * checked instead.
+ *
  * Injected by {@link InjectorSubscriptionMap}.
  */
 public final class LuckPermsSubscriptionMap implements Map<String, Map<Permissible, Boolean>> {
@@ -66,10 +78,15 @@ public final class LuckPermsSubscriptionMap implements Map<String, Map<Permissib
     // the plugin instance
     final LPBukkitPlugin plugin;
 
-    private final Map<Permissible, Set<String>> subscriptions = Collections.synchronizedMap(new WeakHashMap<>());
+    // permission --> the (non-player) permissibles subscribed to it
+    private final Map<String, Set<Permissible>> subscriptions = new ConcurrentHashMap<>();
+
+    // permission --> the online players who have or have set the permission
+    private final SubscriptionIndex<Player> playerSubscriptions;
 
     public LuckPermsSubscriptionMap(LPBukkitPlugin plugin, Map<String, Map<Permissible, Boolean>> existingData) {
         this.plugin = plugin;
+        this.playerSubscriptions = new SubscriptionIndex<>(() -> plugin.getBootstrap().getServer().getOnlinePlayers(), LuckPermsSubscriptionMap::isSubscribed);
         for (Entry<String, Map<Permissible, Boolean>> entry : existingData.entrySet()) {
             entry.getValue().keySet().forEach(permissible -> subscribe(permissible, entry.getKey()));
         }
@@ -92,8 +109,8 @@ public final class LuckPermsSubscriptionMap implements Map<String, Map<Permissib
             return;
         }
 
-        Set<String> perms = this.subscriptions.computeIfAbsent(permissible, x -> Collections.synchronizedSet(new HashSet<>()));
-        perms.add(permission);
+        Set<Permissible> permissibles = this.subscriptions.computeIfAbsent(permission, x -> Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>())));
+        permissibles.add(permissible);
     }
 
     public boolean unsubscribe(Permissible permissible, String permission) {
@@ -101,36 +118,73 @@ public final class LuckPermsSubscriptionMap implements Map<String, Map<Permissib
             return false; // ignore calls for players
         }
 
-        Set<String> perms = this.subscriptions.get(permissible);
+        Set<Permissible> permissibles = this.subscriptions.get(permission);
 
-        if (perms == null) {
+        if (permissibles == null) {
             return false;
         }
 
-        return perms.remove(permission);
+        return permissibles.remove(permissible);
     }
 
     public @NonNull Set<Permissible> subscribers(String permission) {
-        Collection<? extends Player> onlinePlayers = this.plugin.getBootstrap().getServer().getOnlinePlayers();
-        Set<Permissible> set = new HashSet<>(onlinePlayers.size() + this.subscriptions.size());
-
-        // add permissibles from the subscriptions map
-        this.subscriptions.forEach((permissible, perms) -> {
-            if (perms.contains(permission)) {
-                set.add(permissible);
+        Set<Permissible> set = new HashSet<>();
+        if (this.plugin.getContextManager().isEventDriven()) {
+            set.addAll(this.playerSubscriptions.get(permission));
+        } else {
+            // contexts from polling calculators change without a signal, so the index
+            // can't be kept up to date - drop anything indexed while it could be
+            this.playerSubscriptions.invalidate();
+            for (Player player : this.plugin.getBootstrap().getServer().getOnlinePlayers()) {
+                if (isSubscribed(player, permission)) {
+                    set.add(player);
+                }
             }
-        });
+        }
 
-        // add any online players who meet requirements
-        for (Player player : onlinePlayers) {
-            if (player.hasPermission(permission) || player.isPermissionSet(permission)) {
-                set.add(player);
+        Set<Permissible> permissibles = this.subscriptions.get(permission);
+        if (permissibles != null) {
+            synchronized (permissibles) {
+                set.addAll(permissibles);
             }
         }
-
         return set;
     }
 
+    private static boolean isSubscribed(Player player, String permission) {
+        return player.isOnline() && (player.hasPermission(permission) || player.isPermissionSet(permission));
+    }
+
+    /**
+     * Updates the indexed subscriptions of a player, following a change to their
+     * permissions, contexts or op status.
+     *
+     * <p>The player is re-checked the next time the subscribers of each permission
+     * are requested.</p>
+     *
+     * @param player the player
+     */
+    public void updateSubscriptions(Player player) {
+        this.playerSubscriptions.update(player);
+    }
+
+    /**
+     * Removes a player from the indexed subscriptions, after they disconnect.
+     *
+     * @param player the player
+     */
+    public void removeSubscriptions(Player player) {
+        this.playerSubscriptions.remove(player);
+    }
+
+    /**
+     * Drops the indexed subscriptions of all players, following a change which may
+     * affect any of them - for example to a group, or to the registered permissions.
+     */
+    public void invalidateSubscriptions() {
+        this.playerSubscriptions.invalidate();
+    }
+
     /**
      * Converts this map back to a standard HashMap
      *
@@ -138,9 +192,11 @@ public final class LuckPermsSubscriptionMap implements Map<String, Map<Permissib
      */
     public Map<String, Map<Permissible, Boolean>> detach() {
         Map<String, Map<Permissible, Boolean>> map = new HashMap<>();
-        this.subscriptions.forEach((permissible, perms) -> {
-            for (String perm : perms) {
-                map.computeIfAbsent(perm, x -> new WeakHashMap<>()).put(permissible, true);
+        this.subscriptions.forEach((permission, permissibles) -> {
+            synchronized (permissibles) {
+                for (Permissible permissible : permissibles) {
+                    map.computeIfAbsent(permission, x -> new WeakHashMap<>()).put(permissible, true);
+                }
             }
         });
         return map;
@@ -28,6 +28,7 @@ package me.lucko.luckperms.bukkit.listeners;
 import me.lucko.luckperms.bukkit.LPBukkitPlugin;
 import me.lucko.luckperms.bukkit.inject.permissible.LuckPermsPermissible;
 import me.lucko.luckperms.bukkit.inject.permissible.PermissibleInjector;
+import me.lucko.luckperms.bukkit.inject.server.LuckPermsSubscriptionMap;
 import me.lucko.luckperms.bukkit.util.PlayerLocaleUtil;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.locale.Message;
@@ -41,6 +42,7 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerLoginEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
@@ -232,6 +234,15 @@ public class BukkitConnectionListener extends AbstractConnectionListener impleme
         PermissibleInjector.checkInjected(e.getPlayer(), this.plugin.getLogger());
     }
 
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent e) {
+        // The player is now online, so add them to the indexed permission subscriptions
+        LuckPermsSubscriptionMap subscriptionMap = this.plugin.getSubscriptionMap();
+        if (subscriptionMap != null) {
+            subscriptionMap.updateSubscriptions(e.getPlayer());
+        }
+    }
+
     // Wait until the last priority to unload, so plugins can still perform permission checks on this event
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerQuit(PlayerQuitEvent e) {
@@ -256,6 +267,12 @@ public class BukkitConnectionListener extends AbstractConnectionListener impleme
 
             // remove their contexts cache
             this.plugin.getContextManager().onPlayerQuit(player);
+
+            // remove them from the indexed permission subscriptions
+            LuckPermsSubscriptionMap subscriptionMap = this.plugin.getSubscriptionMap();
+            if (subscriptionMap != null) {
+                subscriptionMap.removeSubscriptions(player);
+            }
         }, 1L);
     }
 
@@ -0,0 +1,77 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.bukkit.listeners;
+
+import me.lucko.luckperms.bukkit.LPBukkitPlugin;
+import me.lucko.luckperms.bukkit.inject.server.LuckPermsSubscriptionMap;
+import me.lucko.luckperms.common.event.LuckPermsEventListener;
+import net.luckperms.api.event.EventBus;
+import net.luckperms.api.event.context.ContextUpdateEvent;
+import net.luckperms.api.event.group.GroupDataRecalculateEvent;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
+import org.bukkit.entity.Player;
+
+/**
+ * Updates the indexed subscriptions in the {@link LuckPermsSubscriptionMap}
+ * when a players permissions or contexts change, or when a group changes.
+ */
+public class BukkitSubscriptionMapUpdater implements LuckPermsEventListener {
+    private final LPBukkitPlugin plugin;
+
+    public BukkitSubscriptionMapUpdater(LPBukkitPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void bind(EventBus bus) {
+        bus.subscribe(UserDataRecalculateEvent.class, this::onUserDataRecalculate);
+        bus.subscribe(ContextUpdateEvent.class, this::onContextUpdate);
+        bus.subscribe(GroupDataRecalculateEvent.class, this::onGroupDataRecalculate);
+    }
+
+    private void onUserDataRecalculate(UserDataRecalculateEvent e) {
+        this.plugin.getBootstrap().getPlayer(e.getUser().getUniqueId()).ifPresent(this::updateSubscriptions);
+    }
+
+    private void onContextUpdate(ContextUpdateEvent e) {
+        e.getSubject(Player.class).ifPresent(this::updateSubscriptions);
+    }
+
+    private void onGroupDataRecalculate(GroupDataRecalculateEvent e) {
+        // the change is inherited by any number of players without them being recalculated
+        LuckPermsSubscriptionMap subscriptionMap = this.plugin.getSubscriptionMap();
+        if (subscriptionMap != null) {
+            subscriptionMap.invalidateSubscriptions();
+        }
+    }
+
+    private void updateSubscriptions(Player player) {
+        LuckPermsSubscriptionMap subscriptionMap = this.plugin.getSubscriptionMap();
+        if (subscriptionMap != null) {
+            subscriptionMap.updateSubscriptions(player);
+        }
+    }
+}
@@ -93,7 +93,7 @@ public class LuckPermsVaultChat extends AbstractVaultChat {
     public String getUserChatPrefix(String world, UUID uuid) {
         Objects.requireNonNull(uuid, "uuid");
 
-        PermissionHolder user = this.vaultPermission.lookupUser(uuid);
+        PermissionHolder user = this.vaultPermission.lookupUserForRead(uuid);
         QueryOptions queryOptions = this.vaultPermission.getQueryOptions(uuid, world);
         MetaCache metaData = user.getCachedData().getMetaData(queryOptions);
         return Strings.nullToEmpty(metaData.getPrefix(CheckOrigin.THIRD_PARTY_API).result());
@@ -103,7 +103,7 @@ public class LuckPermsVaultChat extends AbstractVaultChat {
     public String getUserChatSuffix(String world, UUID uuid) {
         Objects.requireNonNull(uuid, "uuid");
 
-        PermissionHolder user = this.vaultPermission.lookupUser(uuid);
+        PermissionHolder user = this.vaultPermission.lookupUserForRead(uuid);
         QueryOptions queryOptions = this.vaultPermission.getQueryOptions(uuid, world);
         MetaCache metaData = user.getCachedData().getMetaData(queryOptions);
         return Strings.nullToEmpty(metaData.getSuffix(CheckOrigin.THIRD_PARTY_API).result());
@@ -136,7 +136,7 @@ public class LuckPermsVaultChat extends AbstractVaultChat {
         Objects.requireNonNull(uuid, "uuid");
         Objects.requireNonNull(key, "key");
 
-        PermissionHolder user = this.vaultPermission.lookupUser(uuid);
+        PermissionHolder user = this.vaultPermission.lookupUserForRead(uuid);
         QueryOptions queryOptions = this.vaultPermission.getQueryOptions(uuid, world);
         MonitoredMetaCache metaData = user.getCachedData().getMetaData(queryOptions);
         return metaData.getMetaValue(key, CheckOrigin.THIRD_PARTY_API).result();
@@ -33,12 +33,14 @@ import me.lucko.luckperms.common.cacheddata.type.MonitoredMetaCache;
 import me.lucko.luckperms.common.cacheddata.type.PermissionCache;
 import me.lucko.luckperms.common.calculator.processor.DirectProcessor;
 import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.generic.key.ConfigKey;
 import me.lucko.luckperms.common.config.LuckPermsConfiguration;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.HolderType;
 import me.lucko.luckperms.common.model.PermissionHolder;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.model.manager.group.GroupManager;
+import me.lucko.luckperms.common.model.manager.user.OfflineUserCache;
 import me.lucko.luckperms.common.node.factory.NodeBuilders;
 import me.lucko.luckperms.common.node.types.Inheritance;
 import me.lucko.luckperms.common.query.QueryOptionsImpl;
@@ -57,10 +59,12 @@ import net.milkbowl.vault.permission.Permission;
 import org.bukkit.entity.Player;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.Collections;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * An implementation of the Vault {@link Permission} API using LuckPerms.
@@ -74,14 +78,22 @@ import java.util.UUID;
  * from the main thread. Users of the Vault API expect these methods to be "main thread friendly",
  * which they simply cannot be, as LP utilises databases for data storage. Server admins
  * willing to take the risk of lagging their server can disable these exceptions in the config file.
+ *
+ * Alternatively, lookups which only read data can be served from an {@link OfflineUserCache}.
  */
 public class LuckPermsVaultPermission extends AbstractVaultPermission {
 
     // the plugin instance
     private final LPBukkitPlugin plugin;
 
+    // the offline user cache, if enabled
+    private final @Nullable OfflineUserCache offlineUserCache;
+
     public LuckPermsVaultPermission(LPBukkitPlugin plugin) {
         this.plugin = plugin;
+        int offlineCacheSize = plugin.getConfiguration().get(ConfigKeys.VAULT_OFFLINE_CACHE_SIZE);
+        this.offlineUserCache = offlineCacheSize == 0 ? null
+                : new OfflineUserCache(plugin, offlineCacheSize, plugin.getConfiguration().get(ConfigKeys.VAULT_OFFLINE_CACHE_EXPIRY_SECONDS));
     }
 
     @Override
@@ -111,7 +123,7 @@ public class LuckPermsVaultPermission extends AbstractVaultPermission {
         }
 
         // are we on the main thread?
-        if (!this.plugin.getBootstrap().isServerStarting() && this.plugin.getBootstrap().getServer().isPrimaryThread() && !this.plugin.getConfiguration().get(ConfigKeys.VAULT_UNSAFE_LOOKUPS)) {
+        if (isUnsafeLookup()) {
             throw new ServerThreadLookupException(player);
         }
 
@@ -136,20 +148,12 @@ public class LuckPermsVaultPermission extends AbstractVaultPermission {
         }
 
         // is it an npc?
-        if (UniqueIdType.determineType(uuid, this.plugin).getType().equals("npc")) {
-            String npcGroupName = this.plugin.getConfiguration().get(ConfigKeys.VAULT_NPC_GROUP);
-            Group npcGroup = this.plugin.getGroupManager().getIfLoaded(npcGroupName);
-            if (npcGroup == null) {
-                npcGroup = this.plugin.getGroupManager().getIfLoaded(GroupManager.DEFAULT_GROUP_NAME);
-                if (npcGroup == null) {
-                    throw new IllegalStateException("unable to get default group");
-                }
-            }
-            return npcGroup;
+        if (isNpc(uuid)) {
+            return getFallbackGroup(ConfigKeys.VAULT_NPC_GROUP);
         }
 
         // are we on the main thread?
-        if (!this.plugin.getBootstrap().isServerStarting() && this.plugin.getBootstrap().getServer().isPrimaryThread() && !this.plugin.getConfiguration().get(ConfigKeys.VAULT_UNSAFE_LOOKUPS)) {
+        if (isUnsafeLookup()) {
             throw new ServerThreadLookupException(uuid);
         }
 
@@ -157,6 +161,59 @@ public class LuckPermsVaultPermission extends AbstractVaultPermission {
         return this.plugin.getStorage().loadUser(uuid, null).join();
     }
 
+    /**
+     * Looks up a user in order to read (but not modify) their data.
+     *
+     * <p>If the offline user cache is enabled, offline users are loaded in the background.
+     * Lookups made on the main thread in the meantime return the offline default group,
+     * instead of blocking or throwing an exception.</p>
+     *
+     * @param uuid the uuid of the user
+     * @return the user, or a group standing in for them
+     */
+    public PermissionHolder lookupUserForRead(UUID uuid) {
+        Objects.requireNonNull(uuid, "uuid");
+
+        if (this.offlineUserCache == null || isNpc(uuid)) {
+            return lookupUser(uuid);
+        }
+
+        // loaded already?
+        User user = this.offlineUserCache.getIfLoaded(uuid);
+        if (user != null) {
+            return user;
+        }
+
+        CompletableFuture<User> future = this.offlineUserCache.load(uuid);
+
+        // are we on the main thread?
+        if (!this.plugin.getBootstrap().isServerStarting() && this.plugin.getBootstrap().getServer().isPrimaryThread()) {
+            return getFallbackGroup(ConfigKeys.VAULT_OFFLINE_DEFAULT_GROUP);
+        }
+
+        return future.join();
+    }
+
+    private boolean isUnsafeLookup() {
+        return !this.plugin.getBootstrap().isServerStarting() && this.plugin.getBootstrap().getServer().isPrimaryThread() && !this.plugin.getConfiguration().get(ConfigKeys.VAULT_UNSAFE_LOOKUPS);
+    }
+
+    private boolean isNpc(UUID uuid) {
+        return UniqueIdType.determineType(uuid, this.plugin).getType().equals("npc");
+    }
+
+    private Group getFallbackGroup(ConfigKey<String> key) {
+        String groupName = this.plugin.getConfiguration().get(key);
+        Group group = this.plugin.getGroupManager().getIfLoaded(groupName);
+        if (group == null) {
+            group = this.plugin.getGroupManager().getIfLoaded(GroupManager.DEFAULT_GROUP_NAME);
+            if (group == null) {
+                throw new IllegalStateException("unable to get default group");
+            }
+        }
+        return group;
+    }
+
     @Override
     public String[] getGroups() {
         return this.plugin.getGroupManager().getAll().values().stream()
@@ -169,7 +226,7 @@ public class LuckPermsVaultPermission extends AbstractVaultPermission {
         Objects.requireNonNull(uuid, "uuid");
         Objects.requireNonNull(permission, "permission");
 
-        PermissionHolder user = lookupUser(uuid);
+        PermissionHolder user = lookupUserForRead(uuid);
         QueryOptions queryOptions = getQueryOptions(uuid, world);
         PermissionCache permissionData = user.getCachedData().getPermissionData(queryOptions);
         return permissionData.checkPermission(permission, CheckOrigin.THIRD_PARTY_API).result().asBoolean();
@@ -228,7 +285,11 @@ public class LuckPermsVaultPermission extends AbstractVaultPermission {
         Objects.requireNonNull(uuid, "uuid");
         Objects.requireNonNull(group, "group");
 
-        PermissionHolder user = lookupUser(uuid);
+        PermissionHolder user = lookupUserForRead(uuid);
+        if (user instanceof Group && !isNpc(uuid)) { // offline player whose data is still loading
+            return ((Group) user).getName().equals(rewriteGroupName(group));
+        }
+
         QueryOptions queryOptions = getQueryOptions(uuid, world);
         PermissionCache permissionData = user.getCachedData().getPermissionData(queryOptions);
 
@@ -254,7 +315,11 @@ public class LuckPermsVaultPermission extends AbstractVaultPermission {
     public String[] userGetGroups(String world, UUID uuid) {
         Objects.requireNonNull(uuid, "uuid");
 
-        PermissionHolder user = lookupUser(uuid);
+        PermissionHolder user = lookupUserForRead(uuid);
+        if (user instanceof Group && !isNpc(uuid)) { // offline player whose data is still loading
+            return new String[]{groupName((Group) user)};
+        }
+
         QueryOptions queryOptions = getQueryOptions(uuid, world);
 
         return user.getOwnNodes(NodeType.INHERITANCE, queryOptions).stream()
@@ -269,9 +334,13 @@ public class LuckPermsVaultPermission extends AbstractVaultPermission {
     public String userGetPrimaryGroup(String world, UUID uuid) {
         Objects.requireNonNull(uuid, "uuid");
 
-        PermissionHolder user = lookupUser(uuid);
-        if (user instanceof Group) { // npc
-            return this.plugin.getConfiguration().get(ConfigKeys.VAULT_NPC_GROUP);
+        PermissionHolder user = lookupUserForRead(uuid);
+        if (user instanceof Group) {
+            if (isNpc(uuid)) {
+                return this.plugin.getConfiguration().get(ConfigKeys.VAULT_NPC_GROUP);
+            }
+            // offline player whose data is still loading
+            return groupName((Group) user);
         }
 
         QueryOptions queryOptions = getQueryOptions(uuid, world);
@@ -451,8 +520,7 @@ public class LuckPermsVaultPermission extends AbstractVaultPermission {
 
             // invalidate caches - they have potentially been affected by
             // this change.
-            this.plugin.getGroupManager().invalidateAllGroupCaches();
-            this.plugin.getUserManager().invalidateAllUserCaches();
+            this.plugin.getInheritanceDependencyIndex().invalidate(Collections.singleton(g.getName()));
 
             // we don't need to join this call - the save operation
             // can happen in the background.
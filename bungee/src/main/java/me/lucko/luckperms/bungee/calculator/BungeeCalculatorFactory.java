@@ -65,6 +65,7 @@ public class BungeeCalculatorFactory implements CalculatorFactory {
             processors.add(new SpongeWildcardProcessor());
         }
 
-        return new PermissionCalculator(this.plugin, metadata, processors);
+        boolean compile = this.plugin.getConfiguration().get(ConfigKeys.COMPILE_PERMISSION_CALCULATORS);
+        return new PermissionCalculator(this.plugin, metadata, processors, compile);
     }
 }
@@ -31,6 +31,7 @@ import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
 import net.luckperms.api.context.ContextCalculator;
 import net.luckperms.api.context.ContextConsumer;
 import net.luckperms.api.context.ContextSet;
+import net.luckperms.api.context.ContextUpdateTrigger;
 import net.luckperms.api.context.DefaultContextKeys;
 import net.luckperms.api.context.ImmutableContextSet;
 import net.md_5.bungee.api.config.ServerInfo;
@@ -42,6 +43,9 @@ import net.md_5.bungee.event.EventHandler;
 import net.md_5.bungee.event.EventPriority;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public class BungeePlayerCalculator implements ContextCalculator<ProxiedPlayer>, Listener {
     private final LPBungeePlugin plugin;
 
@@ -66,6 +70,11 @@ public class BungeePlayerCalculator implements ContextCalculator<ProxiedPlayer>,
         return builder.build();
     }
 
+    @Override
+    public @NonNull Set<ContextUpdateTrigger> getUpdateTriggers() {
+        return EnumSet.of(ContextUpdateTrigger.SERVER_SWITCH);
+    }
+
     @EventHandler(priority = EventPriority.LOWEST)
     public void onServerSwitch(ServerSwitchEvent e) {
         this.plugin.getContextManager().signalContextUpdate(e.getPlayer());
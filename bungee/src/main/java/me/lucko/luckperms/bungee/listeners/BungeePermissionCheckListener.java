@@ -71,7 +71,7 @@ public class BungeePermissionCheckListener implements Listener {
         }
 
         QueryOptions queryOptions = this.plugin.getContextManager().getQueryOptions(player);
-        Tristate result = user.getCachedData().getPermissionData(queryOptions).checkPermission(e.getPermission(), CheckOrigin.PLATFORM_API_HAS_PERMISSION).result();
+        Tristate result = user.getCachedData().checkPermission(queryOptions, e.getPermission(), CheckOrigin.PLATFORM_API_HAS_PERMISSION).result();
         if (result == Tristate.UNDEFINED && this.plugin.getConfiguration().get(ConfigKeys.APPLY_BUNGEE_CONFIG_PERMISSIONS)) {
             return; // just use the result provided by the proxy when the event was created
         }
@@ -100,7 +100,7 @@ public class BungeePermissionCheckListener implements Listener {
         }
 
         QueryOptions queryOptions = this.plugin.getContextManager().getQueryOptions(player);
-        Tristate result = user.getCachedData().getPermissionData(queryOptions).checkPermission(e.getPermission(), CheckOrigin.PLATFORM_API_HAS_PERMISSION_SET).result();
+        Tristate result = user.getCachedData().checkPermission(queryOptions, e.getPermission(), CheckOrigin.PLATFORM_API_HAS_PERMISSION_SET).result();
         if (result == Tristate.UNDEFINED && this.plugin.getConfiguration().get(ConfigKeys.APPLY_BUNGEE_CONFIG_PERMISSIONS)) {
             return; // just use the result provided by the proxy when the event was created
         }
@@ -29,6 +29,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedSet;
 import me.lucko.luckperms.common.util.ImmutableCollectors;
 import net.luckperms.api.actionlog.Action;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -46,7 +47,7 @@ public class Log {
         return EMPTY;
     }
 
-    private final SortedSet<LoggedAction> content;
+    private final ImmutableSortedSet<LoggedAction> content;
 
     Log(List<LoggedAction> content) {
         this.content = ImmutableSortedSet.copyOf(content);
@@ -89,6 +90,24 @@ public class Log {
                 .collect(ImmutableCollectors.toSortedSet());
     }
 
+    public LogPage getPage(LogFilter filter, @Nullable PageParameters params) {
+        int first = params == null ? 0 : params.skip();
+        long last = params == null ? Long.MAX_VALUE : (long) first + params.getPageSize();
+
+        List<LoggedAction> page = new ArrayList<>();
+        int total = 0;
+        for (LoggedAction e : this.content.descendingSet()) {
+            if (!filter.test(e)) {
+                continue;
+            }
+            if (total >= first && total < last) {
+                page.add(e);
+            }
+            total++;
+        }
+        return LogPage.of(page, params, total);
+    }
+
     public static class Builder {
         private final List<LoggedAction> content = new ArrayList<>();
 
@@ -0,0 +1,255 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.actionlog;
+
+import net.luckperms.api.actionlog.Action;
+import net.luckperms.api.actionlog.ActionFilter;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A filter for entries in the action log.
+ *
+ * <p>Each property is optional - a {@code null} value means the property is
+ * not constrained. Storage implementations translate the filter into a native
+ * query where possible, and fall back to {@link #test(Action)} otherwise.</p>
+ */
+public final class LogFilter implements ActionFilter {
+    private static final LogFilter ANY = new Builder().build();
+
+    public static LogFilter any() {
+        return ANY;
+    }
+
+    public static LogFilter source(UUID uniqueId) {
+        return builder().source(uniqueId).build();
+    }
+
+    public static LogFilter user(UUID uniqueId) {
+        return builder().user(uniqueId).build();
+    }
+
+    public static LogFilter group(String name) {
+        return builder().target(Action.Target.Type.GROUP, name).build();
+    }
+
+    public static LogFilter track(String name) {
+        return builder().target(Action.Target.Type.TRACK, name).build();
+    }
+
+    public static LogFilter search(String query) {
+        return builder().search(query).build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final UUID sourceUniqueId;
+    private final Action.Target.Type targetType;
+    private final UUID targetUniqueId;
+    private final String targetName;
+    private final String search; // always lowercase
+    private final Instant after;
+    private final Instant before;
+
+    private LogFilter(Builder builder) {
+        this.sourceUniqueId = builder.sourceUniqueId;
+        this.targetType = builder.targetType;
+        this.targetUniqueId = builder.targetUniqueId;
+        this.targetName = builder.targetName;
+        this.search = builder.search == null ? null : builder.search.toLowerCase(Locale.ROOT);
+        this.after = builder.after;
+        this.before = builder.before;
+    }
+
+    public @Nullable UUID getSourceUniqueId() {
+        return this.sourceUniqueId;
+    }
+
+    public Action.Target.@Nullable Type getTargetType() {
+        return this.targetType;
+    }
+
+    public @Nullable UUID getTargetUniqueId() {
+        return this.targetUniqueId;
+    }
+
+    public @Nullable String getTargetName() {
+        return this.targetName;
+    }
+
+    public @Nullable String getSearch() {
+        return this.search;
+    }
+
+    public @Nullable Instant getAfter() {
+        return this.after;
+    }
+
+    public @Nullable Instant getBefore() {
+        return this.before;
+    }
+
+    /**
+     * Tests the properties of the filter which don't depend on the
+     * action's source name, target name or description.
+     *
+     * <p>Used by implementations which index those properties separately
+     * from the rest of the entry.</p>
+     *
+     * @param timestamp the action timestamp, in epoch seconds
+     * @param sourceUniqueId the action source unique id
+     * @param targetType the action target type
+     * @param targetUniqueId the action target unique id
+     * @param targetName the action target name
+     * @return true if the properties match
+     */
+    public boolean testIndexed(long timestamp, UUID sourceUniqueId, Action.Target.Type targetType, @Nullable UUID targetUniqueId, String targetName) {
+        if (this.after != null && timestamp < this.after.getEpochSecond()) {
+            return false;
+        }
+        if (this.before != null && timestamp >= this.before.getEpochSecond()) {
+            return false;
+        }
+        if (this.sourceUniqueId != null && !this.sourceUniqueId.equals(sourceUniqueId)) {
+            return false;
+        }
+        if (this.targetType != null && this.targetType != targetType) {
+            return false;
+        }
+        if (this.targetUniqueId != null && !this.targetUniqueId.equals(targetUniqueId)) {
+            return false;
+        }
+        return this.targetName == null || this.targetName.equals(targetName);
+    }
+
+    public boolean testSearch(Action action) {
+        return this.search == null ||
+                action.getSource().getName().toLowerCase(Locale.ROOT).contains(this.search) ||
+                action.getTarget().getName().toLowerCase(Locale.ROOT).contains(this.search) ||
+                action.getDescription().toLowerCase(Locale.ROOT).contains(this.search);
+    }
+
+    @Override
+    public boolean test(@NonNull Action action) {
+        Action.Target target = action.getTarget();
+        return testIndexed(
+                action.getTimestamp().getEpochSecond(),
+                action.getSource().getUniqueId(),
+                target.getType(),
+                target.getUniqueId().orElse(null),
+                target.getName()
+        ) && testSearch(action);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LogFilter)) return false;
+        LogFilter that = (LogFilter) o;
+        return Objects.equals(this.sourceUniqueId, that.sourceUniqueId) &&
+                this.targetType == that.targetType &&
+                Objects.equals(this.targetUniqueId, that.targetUniqueId) &&
+                Objects.equals(this.targetName, that.targetName) &&
+                Objects.equals(this.search, that.search) &&
+                Objects.equals(this.after, that.after) &&
+                Objects.equals(this.before, that.before);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.sourceUniqueId, this.targetType, this.targetUniqueId, this.targetName, this.search, this.after, this.before);
+    }
+
+    @Override
+    public String toString() {
+        return "LogFilter(" +
+                "sourceUniqueId=" + this.sourceUniqueId + ", " +
+                "targetType=" + this.targetType + ", " +
+                "targetUniqueId=" + this.targetUniqueId + ", " +
+                "targetName=" + this.targetName + ", " +
+                "search=" + this.search + ", " +
+                "after=" + this.after + ", " +
+                "before=" + this.before + ")";
+    }
+
+    public static final class Builder {
+        private UUID sourceUniqueId = null;
+        private Action.Target.Type targetType = null;
+        private UUID targetUniqueId = null;
+        private String targetName = null;
+        private String search = null;
+        private Instant after = null;
+        private Instant before = null;
+
+        private Builder() {
+
+        }
+
+        public Builder source(UUID uniqueId) {
+            this.sourceUniqueId = Objects.requireNonNull(uniqueId, "uniqueId");
+            return this;
+        }
+
+        public Builder user(UUID uniqueId) {
+            this.targetType = Action.Target.Type.USER;
+            this.targetUniqueId = Objects.requireNonNull(uniqueId, "uniqueId");
+            return this;
+        }
+
+        public Builder target(Action.Target.Type type, String name) {
+            this.targetType = Objects.requireNonNull(type, "type");
+            this.targetName = Objects.requireNonNull(name, "name");
+            return this;
+        }
+
+        public Builder search(String query) {
+            this.search = Objects.requireNonNull(query, "query");
+            return this;
+        }
+
+        public Builder after(Instant after) {
+            this.after = Objects.requireNonNull(after, "after");
+            return this;
+        }
+
+        public Builder before(Instant before) {
+            this.before = Objects.requireNonNull(before, "before");
+            return this;
+        }
+
+        public LogFilter build() {
+            return new LogFilter(this);
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.actionlog;
+
+import com.google.common.collect.ImmutableList;
+import me.lucko.luckperms.common.util.Paginated;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of entries returned from an action log query.
+ */
+public final class LogPage {
+
+    public static LogPage of(List<LoggedAction> content, @Nullable PageParameters params, int totalEntries) {
+        return new LogPage(content, params, totalEntries);
+    }
+
+    private final List<LoggedAction> content;
+    private final PageParameters params;
+    private final int totalEntries;
+
+    private LogPage(List<LoggedAction> content, @Nullable PageParameters params, int totalEntries) {
+        this.content = ImmutableList.copyOf(content);
+        this.params = params;
+        this.totalEntries = totalEntries;
+    }
+
+    /**
+     * Gets the entries on this page, ordered from most recent to least recent.
+     *
+     * @return the content
+     */
+    public List<LoggedAction> getContent() {
+        return this.content;
+    }
+
+    /**
+     * Gets the entries on this page, numbered by their position in the full
+     * query result (starting at 1 for the most recent entry).
+     *
+     * @return the numbered content
+     */
+    public List<Paginated.Entry<LoggedAction>> getNumberedContent() {
+        int offset = this.params == null ? 0 : this.params.skip();
+        List<Paginated.Entry<LoggedAction>> out = new ArrayList<>(this.content.size());
+        for (int i = 0; i < this.content.size(); i++) {
+            out.add(new Paginated.Entry<>(offset + i + 1, this.content.get(i)));
+        }
+        return out;
+    }
+
+    /**
+     * Gets the total number of entries matching the query, across all pages.
+     *
+     * @return the total number of entries
+     */
+    public int getTotalEntries() {
+        return this.totalEntries;
+    }
+
+    /**
+     * Gets the number of pages needed to show every matching entry.
+     *
+     * @return the number of pages
+     */
+    public int getMaxPage() {
+        if (this.params == null) {
+            return this.totalEntries == 0 ? 0 : 1;
+        }
+        return this.params.getMaxPage(this.totalEntries);
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.actionlog;
+
+/**
+ * The size and number of a page of action log entries.
+ *
+ * <p>Pages are counted from the most recent entry, so page {@code 1} holds
+ * the {@code pageSize} most recent entries matching a filter.</p>
+ */
+public final class PageParameters {
+    private final int pageSize;
+    private final int pageNumber;
+
+    public PageParameters(int pageSize, int pageNumber) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize cannot be less than 1: " + pageSize);
+        }
+        if (pageNumber < 1) {
+            throw new IllegalArgumentException("pageNumber cannot be less than 1: " + pageNumber);
+        }
+        this.pageSize = pageSize;
+        this.pageNumber = pageNumber;
+    }
+
+    public int getPageSize() {
+        return this.pageSize;
+    }
+
+    public int getPageNumber() {
+        return this.pageNumber;
+    }
+
+    /**
+     * Gets the number of matching entries which come before this page.
+     *
+     * @return the number of entries to skip
+     */
+    public int skip() {
+        return (int) Math.min(Integer.MAX_VALUE, (long) (this.pageNumber - 1) * this.pageSize);
+    }
+
+    /**
+     * Gets the number of pages needed to hold the given number of entries.
+     *
+     * @param totalEntries the total number of entries
+     * @return the number of pages
+     */
+    public int getMaxPage(int totalEntries) {
+        return (int) (((long) totalEntries + this.pageSize - 1) / this.pageSize);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PageParameters)) return false;
+        PageParameters that = (PageParameters) o;
+        return this.pageSize == that.pageSize && this.pageNumber == that.pageNumber;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.pageSize + this.pageNumber;
+    }
+
+    @Override
+    public String toString() {
+        return "PageParameters(pageSize=" + this.pageSize + ", pageNumber=" + this.pageNumber + ")";
+    }
+}
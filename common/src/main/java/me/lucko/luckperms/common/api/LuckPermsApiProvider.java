@@ -30,6 +30,7 @@ import me.lucko.luckperms.common.api.implementation.ApiContextManager;
 import me.lucko.luckperms.common.api.implementation.ApiGroupManager;
 import me.lucko.luckperms.common.api.implementation.ApiMessagingService;
 import me.lucko.luckperms.common.api.implementation.ApiMetaStackFactory;
+import me.lucko.luckperms.common.api.implementation.ApiMetrics;
 import me.lucko.luckperms.common.api.implementation.ApiNodeBuilderRegistry;
 import me.lucko.luckperms.common.api.implementation.ApiNodeMatcherFactory;
 import me.lucko.luckperms.common.api.implementation.ApiPlatform;
@@ -51,6 +52,7 @@ import net.luckperms.api.context.ContextManager;
 import net.luckperms.api.messaging.MessagingService;
 import net.luckperms.api.messenger.MessengerProvider;
 import net.luckperms.api.metastacking.MetaStackFactory;
+import net.luckperms.api.metrics.Metrics;
 import net.luckperms.api.model.group.GroupManager;
 import net.luckperms.api.model.user.UserManager;
 import net.luckperms.api.node.NodeBuilderRegistry;
@@ -81,6 +83,7 @@ public class LuckPermsApiProvider implements LuckPerms {
     private final ActionLogger actionLogger;
     private final ContextManager contextManager;
     private final MetaStackFactory metaStackFactory;
+    private final Metrics metrics;
 
     public LuckPermsApiProvider(LuckPermsPlugin plugin) {
         this.plugin = plugin;
@@ -93,6 +96,7 @@ public class LuckPermsApiProvider implements LuckPerms {
         this.actionLogger = new ApiActionLogger(plugin);
         this.contextManager = new ApiContextManager(plugin, plugin.getContextManager());
         this.metaStackFactory = new ApiMetaStackFactory(plugin);
+        this.metrics = new ApiMetrics();
     }
 
     public void ensureApiWasLoadedByPlugin() {
@@ -214,6 +218,11 @@ public class LuckPermsApiProvider implements LuckPerms {
         return this.metaStackFactory;
     }
 
+    @Override
+    public @NonNull Metrics getMetrics() {
+        return this.metrics;
+    }
+
     @Override
     public @NonNull NodeMatcherFactory getNodeMatcherFactory() {
         return ApiNodeMatcherFactory.INSTANCE;
@@ -0,0 +1,78 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.api.implementation;
+
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.api.ApiUtils;
+import net.luckperms.api.actionlog.ActionFilter;
+import net.luckperms.api.actionlog.ActionFilterFactory;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Objects;
+import java.util.UUID;
+
+public final class ApiActionFilterFactory implements ActionFilterFactory {
+    public static final ApiActionFilterFactory INSTANCE = new ApiActionFilterFactory();
+
+    private ApiActionFilterFactory() {
+
+    }
+
+    @Override
+    public @NonNull ActionFilter any() {
+        return LogFilter.any();
+    }
+
+    @Override
+    public @NonNull ActionFilter source(@NonNull UUID uniqueId) {
+        Objects.requireNonNull(uniqueId, "uniqueId");
+        return LogFilter.source(uniqueId);
+    }
+
+    @Override
+    public @NonNull ActionFilter user(@NonNull UUID uniqueId) {
+        Objects.requireNonNull(uniqueId, "uniqueId");
+        return LogFilter.user(uniqueId);
+    }
+
+    @Override
+    public @NonNull ActionFilter group(@NonNull String name) {
+        Objects.requireNonNull(name, "name");
+        return LogFilter.group(ApiUtils.checkName(name));
+    }
+
+    @Override
+    public @NonNull ActionFilter track(@NonNull String name) {
+        Objects.requireNonNull(name, "name");
+        return LogFilter.track(ApiUtils.checkName(name));
+    }
+
+    @Override
+    public @NonNull ActionFilter search(@NonNull String query) {
+        Objects.requireNonNull(query, "query");
+        return LogFilter.search(query);
+    }
+}
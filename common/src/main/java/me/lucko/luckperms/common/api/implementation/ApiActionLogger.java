@@ -25,13 +25,20 @@
 
 package me.lucko.luckperms.common.api.implementation;
 
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
+import me.lucko.luckperms.common.actionlog.PageParameters;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import net.luckperms.api.actionlog.Action;
+import net.luckperms.api.actionlog.ActionFilter;
+import net.luckperms.api.actionlog.ActionFilterFactory;
 import net.luckperms.api.actionlog.ActionLog;
 import net.luckperms.api.actionlog.ActionLogger;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 
 public class ApiActionLogger implements ActionLogger {
@@ -47,10 +54,27 @@ public class ApiActionLogger implements ActionLogger {
     }
 
     @Override
+    @Deprecated
     public @NonNull CompletableFuture<ActionLog> getLog() {
         return this.plugin.getStorage().getLog().thenApply(ApiActionLog::new);
     }
 
+    @Override
+    public @NonNull CompletableFuture<List<Action>> queryActions(@NonNull ActionFilter filter) {
+        return this.plugin.getStorage().getLogPage(getFilter(filter), null).thenApply(ApiActionLogger::getContent);
+    }
+
+    @Override
+    public @NonNull CompletableFuture<List<Action>> queryActions(@NonNull ActionFilter filter, int pageSize, int pageNumber) {
+        PageParameters page = new PageParameters(pageSize, pageNumber);
+        return this.plugin.getStorage().getLogPage(getFilter(filter), page).thenApply(ApiActionLogger::getContent);
+    }
+
+    @Override
+    public @NonNull ActionFilterFactory getFilterFactory() {
+        return ApiActionFilterFactory.INSTANCE;
+    }
+
     @Override
     public @NonNull CompletableFuture<Void> submit(@NonNull Action entry) {
         return CompletableFuture.runAsync(() -> this.plugin.getLogDispatcher().dispatchFromApi((LoggedAction) entry), this.plugin.getBootstrap().getScheduler().async());
@@ -65,4 +89,17 @@ public class ApiActionLogger implements ActionLogger {
     public @NonNull CompletableFuture<Void> broadcastAction(@NonNull Action entry) {
         return CompletableFuture.runAsync(() -> this.plugin.getLogDispatcher().broadcastFromApi((LoggedAction) entry), this.plugin.getBootstrap().getScheduler().async());
     }
+
+    private static LogFilter getFilter(ActionFilter filter) {
+        Objects.requireNonNull(filter, "filter");
+        if (!(filter instanceof LogFilter)) {
+            throw new IllegalArgumentException("Unsupported filter type: " + filter.getClass().getName());
+        }
+        return (LogFilter) filter;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static List<Action> getContent(LogPage page) {
+        return (List) page.getContent();
+    }
 }
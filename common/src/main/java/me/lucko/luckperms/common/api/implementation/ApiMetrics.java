@@ -0,0 +1,151 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.api.implementation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import me.lucko.luckperms.common.metrics.CacheMetrics;
+import me.lucko.luckperms.common.metrics.MetricRegistry;
+import net.luckperms.api.metrics.Counter;
+import net.luckperms.api.metrics.Metrics;
+import net.luckperms.api.metrics.Timer;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.LongSupplier;
+
+public class ApiMetrics implements Metrics {
+
+    @Override
+    public @NonNull Collection<Counter> getCounters() {
+        ImmutableList.Builder<Counter> counters = ImmutableList.builder();
+        for (CacheMetrics cache : MetricRegistry.getCaches()) {
+            counters.add(new ApiCounter("cache_hits", "Number of requests to a cache which were hits", ImmutableMap.of("cache", cache.getName()), cache::hits));
+        }
+        for (CacheMetrics cache : MetricRegistry.getCaches()) {
+            counters.add(new ApiCounter("cache_misses", "Number of requests to a cache which were misses", ImmutableMap.of("cache", cache.getName()), cache::misses));
+        }
+        for (me.lucko.luckperms.common.metrics.Counter counter : MetricRegistry.getCounters()) {
+            counters.add(new ApiCounter(counter.getName(), counter.getDescription(), counter.getLabels(), counter::count));
+        }
+        return counters.build();
+    }
+
+    @Override
+    public @NonNull Collection<Timer> getTimers() {
+        ImmutableList.Builder<Timer> timers = ImmutableList.builder();
+        for (me.lucko.luckperms.common.metrics.Timer timer : MetricRegistry.getTimers()) {
+            timers.add(new ApiTimer(timer));
+        }
+        return timers.build();
+    }
+
+    private static final class ApiCounter implements Counter {
+        private final String name;
+        private final String description;
+        private final Map<String, String> labels;
+        private final LongSupplier count;
+
+        ApiCounter(String name, String description, Map<String, String> labels, LongSupplier count) {
+            this.name = name;
+            this.description = description;
+            this.labels = labels;
+            this.count = count;
+        }
+
+        @Override
+        public @NonNull String getName() {
+            return this.name;
+        }
+
+        @Override
+        public @NonNull String getDescription() {
+            return this.description;
+        }
+
+        @Override
+        public @NonNull Map<String, String> getLabels() {
+            return this.labels;
+        }
+
+        @Override
+        public long getCount() {
+            return this.count.getAsLong();
+        }
+    }
+
+    private static final class ApiTimer implements Timer {
+        private final me.lucko.luckperms.common.metrics.Timer handle;
+        private final long[] counts;
+        private final long totalNanos;
+
+        ApiTimer(me.lucko.luckperms.common.metrics.Timer handle) {
+            this.handle = handle;
+            this.counts = handle.cumulativeCounts();
+            this.totalNanos = handle.totalNanos();
+        }
+
+        @Override
+        public @NonNull String getName() {
+            return this.handle.getName();
+        }
+
+        @Override
+        public @NonNull String getDescription() {
+            return this.handle.getDescription();
+        }
+
+        @Override
+        public @NonNull Map<String, String> getLabels() {
+            return this.handle.getLabels();
+        }
+
+        @Override
+        public long getCount() {
+            return this.counts[this.counts.length - 1];
+        }
+
+        @Override
+        public @NonNull Duration getTotalTime() {
+            return Duration.ofNanos(this.totalNanos);
+        }
+
+        @Override
+        public @NonNull SortedMap<Duration, Long> getBuckets() {
+            long[] bounds = me.lucko.luckperms.common.metrics.Timer.getBucketBounds();
+            ImmutableSortedMap.Builder<Duration, Long> buckets = ImmutableSortedMap.naturalOrder();
+            for (int i = 0; i < bounds.length; i++) {
+                buckets.put(Duration.ofNanos(bounds[i]), this.counts[i]);
+            }
+            return buckets.build();
+        }
+    }
+
+}
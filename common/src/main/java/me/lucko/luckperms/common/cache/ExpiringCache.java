@@ -52,12 +52,23 @@ public abstract class ExpiringCache<T> implements Supplier<T> {
 
     protected abstract @NonNull T supply();
 
+    /**
+     * Gets if the cached value should expire after the duration has passed.
+     *
+     * <p>If not, the value is kept until {@link #invalidate()} is called.</p>
+     *
+     * @return if the value should expire
+     */
+    protected boolean expires() {
+        return true;
+    }
+
     @Override
     public T get() {
         long nanos = this.expirationNanos;
         long now = System.nanoTime();
 
-        if (nanos == 0 || now - nanos >= 0) {
+        if (nanos == 0 || (now - nanos >= 0 && expires())) {
             synchronized (this) {
                 if (nanos == this.expirationNanos) { // recheck for lost race
                     // compute the value using the delegate
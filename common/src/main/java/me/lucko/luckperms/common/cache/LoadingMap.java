@@ -26,6 +26,8 @@
 package me.lucko.luckperms.common.cache;
 
 import com.google.common.collect.ForwardingMap;
+import me.lucko.luckperms.common.metrics.CacheMetrics;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -33,19 +35,28 @@ import java.util.function.Function;
 
 public class LoadingMap<K, V> extends ForwardingMap<K, V> implements Map<K, V> {
     public static <K, V> LoadingMap<K, V> of(Map<K, V> map, Function<K, V> function) {
-        return new LoadingMap<>(map, function);
+        return new LoadingMap<>(map, function, null);
     }
 
     public static <K, V> LoadingMap<K, V> of(Function<K, V> function) {
         return of(new ConcurrentHashMap<>(), function);
     }
 
+    public static <K, V> LoadingMap<K, V> of(Function<K, V> function, CacheMetrics metrics) {
+        return new LoadingMap<>(new ConcurrentHashMap<>(), key -> {
+            metrics.miss();
+            return function.apply(key);
+        }, metrics);
+    }
+
     private final Map<K, V> map;
     private final Function<K, V> function;
+    private final @Nullable CacheMetrics metrics;
 
-    private LoadingMap(Map<K, V> map, Function<K, V> function) {
+    private LoadingMap(Map<K, V> map, Function<K, V> function, @Nullable CacheMetrics metrics) {
         this.map = map;
         this.function = function;
+        this.metrics = metrics;
     }
 
     @Override
@@ -59,6 +70,10 @@ public class LoadingMap<K, V> extends ForwardingMap<K, V> implements Map<K, V> {
 
     @Override
     public V get(Object key) {
+        if (this.metrics != null) {
+            this.metrics.request();
+        }
+
         V value = this.map.get(key);
         if (value != null) {
             return value;
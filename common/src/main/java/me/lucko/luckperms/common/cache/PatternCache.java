@@ -25,6 +25,7 @@
 
 package me.lucko.luckperms.common.cache;
 
+import me.lucko.luckperms.common.metrics.MetricRegistry;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Map;
@@ -41,7 +42,7 @@ public final class PatternCache {
         } catch (PatternSyntaxException e) {
             return new CachedPattern(e);
         }
-    });
+    }, MetricRegistry.cache("pattern"));
 
     public static CachedPattern lookup(String regex) {
         CachedPattern pattern = CACHE.get(regex);
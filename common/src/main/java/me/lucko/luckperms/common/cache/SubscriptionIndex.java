@@ -0,0 +1,141 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import me.lucko.luckperms.common.util.CaffeineFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+
+/**
+ * A reverse index from permissions to the subjects which are subscribed to them.
+ *
+ * <p>Entries are created the first time the subscribers of a permission are requested,
+ * and only a bounded number of recently requested permissions are indexed.</p>
+ *
+ * <p>Updates are applied lazily - when a subject's permissions change, it is marked
+ * as pending in each indexed entry, and re-checked against the permission the next
+ * time the subscribers of that permission are requested. Entries are never re-checked
+ * otherwise, so the index must only be used while every change which could affect a
+ * subject's permissions (including its contexts) is reported via {@link #update(Object)}.</p>
+ *
+ * @param <T> the subject type
+ */
+public class SubscriptionIndex<T> {
+
+    /** The maximum number of permissions to index */
+    private static final int MAX_INDEXED_PERMISSIONS = 512;
+
+    /** Supplies the subjects to check when an entry is created */
+    private final Supplier<? extends Collection<? extends T>> subjects;
+
+    /** Tests if a subject is subscribed to a permission */
+    private final BiPredicate<? super T, String> subscribed;
+
+    private final Cache<String, Entry<T>> index = CaffeineFactory.newBuilder()
+            .maximumSize(MAX_INDEXED_PERMISSIONS)
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .build();
+
+    public SubscriptionIndex(Supplier<? extends Collection<? extends T>> subjects, BiPredicate<? super T, String> subscribed) {
+        this.subjects = subjects;
+        this.subscribed = subscribed;
+    }
+
+    /**
+     * Gets the subjects which are subscribed to the given permission.
+     *
+     * @param permission the permission
+     * @return the subscribed subjects
+     */
+    public Set<T> get(String permission) {
+        Entry<T> entry = this.index.get(permission, x -> new Entry<>(this.subjects.get()));
+        return entry.resolve(permission, this.subscribed);
+    }
+
+    /**
+     * Marks a subject as needing to be re-checked, following a change to its permissions.
+     *
+     * @param subject the subject
+     */
+    public void update(T subject) {
+        for (Entry<T> entry : this.index.asMap().values()) {
+            entry.pending.add(subject);
+        }
+    }
+
+    /**
+     * Removes a subject from the index.
+     *
+     * @param subject the subject
+     */
+    public void remove(T subject) {
+        for (Entry<T> entry : this.index.asMap().values()) {
+            synchronized (entry) {
+                entry.pending.remove(subject);
+                entry.subscribers.remove(subject);
+            }
+        }
+    }
+
+    /**
+     * Invalidates all indexed entries, following a change which may affect any subject.
+     */
+    public void invalidate() {
+        this.index.invalidateAll();
+    }
+
+    private static final class Entry<T> {
+        private final Set<T> subscribers = ConcurrentHashMap.newKeySet();
+        private final Set<T> pending = ConcurrentHashMap.newKeySet();
+
+        Entry(Collection<? extends T> subjects) {
+            // subjects are checked when the entry is first resolved
+            this.pending.addAll(subjects);
+        }
+
+        synchronized Set<T> resolve(String permission, BiPredicate<? super T, String> subscribed) {
+            for (Iterator<T> it = this.pending.iterator(); it.hasNext(); ) {
+                T subject = it.next();
+                it.remove();
+                if (subscribed.test(subject, permission)) {
+                    this.subscribers.add(subject);
+                } else {
+                    this.subscribers.remove(subject);
+                }
+            }
+            return Collections.unmodifiableSet(this.subscribers);
+        }
+    }
+
+}
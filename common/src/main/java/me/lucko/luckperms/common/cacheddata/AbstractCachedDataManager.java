@@ -26,14 +26,19 @@
 package me.lucko.luckperms.common.cacheddata;
 
 import me.lucko.luckperms.common.cache.LoadingMap;
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
 import me.lucko.luckperms.common.cacheddata.type.MetaAccumulator;
 import me.lucko.luckperms.common.cacheddata.type.MonitoredMetaCache;
 import me.lucko.luckperms.common.cacheddata.type.PermissionCache;
 import me.lucko.luckperms.common.calculator.CalculatorFactory;
 import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.metrics.CacheMetrics;
+import me.lucko.luckperms.common.metrics.MetricRegistry;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.util.CaffeineFactory;
 import me.lucko.luckperms.common.util.CompletableFutures;
+import me.lucko.luckperms.common.verbose.event.CheckOrigin;
 import net.luckperms.api.cacheddata.CachedData;
 import net.luckperms.api.cacheddata.CachedDataManager;
 import net.luckperms.api.cacheddata.CachedMetaData;
@@ -43,28 +48,56 @@ import net.luckperms.api.node.ChatMetaType;
 import net.luckperms.api.node.Node;
 import net.luckperms.api.query.QueryOptions;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.IntFunction;
+import java.util.function.Predicate;
 
 /**
  * Abstract implementation of {@link CachedDataManager}.
  */
 public abstract class AbstractCachedDataManager implements CachedDataManager {
+    private static final CacheMetrics NEAR_CACHE_METRICS = MetricRegistry.cache("permission_near_cache");
+
+    /** One in this many near cache hits are reported to the cached data limits as an access */
+    private static final int NEAR_CACHE_ACCESS_SAMPLE_RATE = 16;
+
     private final LuckPermsPlugin plugin;
     private final AbstractContainer<PermissionCache, CachedPermissionData> permission;
     private final AbstractContainer<MonitoredMetaCache, CachedMetaData> meta;
 
+    /**
+     * Incremented each time changes are applied to the permission caches in place.
+     * Caches loaded concurrently with a change (and therefore missed by it) are detected
+     * by comparing against their own generation.
+     */
+    private final AtomicInteger permissionGeneration = new AtomicInteger();
+
+    /**
+     * Caches the results of recent permission checks, in front of the permission container.
+     * Invalidated whenever a permission cache is invalidated, replaced or changed in place.
+     */
+    private final PermissionNearCache nearCache = new PermissionNearCache();
+
     protected AbstractCachedDataManager(LuckPermsPlugin plugin) {
         this.plugin = plugin;
-        this.permission = new AbstractContainer<>(this::calculatePermissions);
-        this.meta = new AbstractContainer<>(this::calculateMeta);
+        CachedDataLimits limits = plugin.getCachedDataLimits();
+        this.permission = new AbstractContainer<>(this::calculatePermissions, cache -> cache.getGeneration() >= this.permissionGeneration.get(), this.nearCache::invalidate, this::handleRefreshFailure, limits, MetricRegistry.cache("cached_permission_data"));
+        this.meta = new AbstractContainer<>(this::calculateMeta, cache -> true, () -> {}, this::handleRefreshFailure, limits, MetricRegistry.cache("cached_meta_data"));
     }
 
     public LuckPermsPlugin getPlugin() {
@@ -91,6 +124,45 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
         return this.meta.get(queryOptions);
     }
 
+    /**
+     * Performs a permission check against the cached permission data for the given
+     * {@link QueryOptions}.
+     *
+     * <p>Equivalent to {@code getPermissionData(queryOptions).checkPermission(permission, origin)},
+     * but repeated checks for the same permission are answered from a small near cache,
+     * skipping the container and calculator lookups.</p>
+     *
+     * @param queryOptions the query options
+     * @param permission the permission to check
+     * @param origin marks where this check originated from
+     * @return the result
+     */
+    public TristateResult checkPermission(QueryOptions queryOptions, String permission, CheckOrigin origin) {
+        Objects.requireNonNull(queryOptions, "queryOptions");
+        if (permission == null) {
+            throw new NullPointerException("permission");
+        }
+
+        NEAR_CACHE_METRICS.request();
+        PermissionNearCache.Entry entry = this.nearCache.get(queryOptions, permission);
+        if (entry != null && !this.permission.isRefreshOverdue(queryOptions)) {
+            PermissionCache cache = entry.cache();
+            cache.recordUsage();
+            if (ThreadLocalRandom.current().nextInt(NEAR_CACHE_ACCESS_SAMPLE_RATE) == 0) {
+                this.permission.recordAccess(cache);
+            }
+            cache.getCalculator().offerCheckEvent(permission, origin, entry.result());
+            return entry.result();
+        }
+
+        NEAR_CACHE_METRICS.miss();
+        int version = this.nearCache.version();
+        PermissionCache cache = getPermissionData(queryOptions);
+        TristateResult result = cache.checkPermission(permission, origin);
+        this.nearCache.put(version, queryOptions, permission, cache, result);
+        return result;
+    }
+
     @Override
     public @NonNull PermissionCache getPermissionData() {
         return getPermissionData(getQueryOptions());
@@ -101,6 +173,15 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
         return getMetaData(getQueryOptions());
     }
 
+    /**
+     * Gets the permission data instances which are currently loaded.
+     *
+     * @return the loaded permission data
+     */
+    public Collection<PermissionCache> getLoadedPermissionData() {
+        return Collections.unmodifiableCollection(this.permission.cache.values());
+    }
+
     /**
      * Returns a {@link CacheMetadata} instance for the given {@link QueryOptions}.
      * 
@@ -148,13 +229,33 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
      * @param queryOptions the query options
      */
     protected abstract void resolveMeta(MetaAccumulator accumulator, QueryOptions queryOptions);
+
+    /**
+     * Resolves the source permissions for a new {@link PermissionCache}.
+     *
+     * <p>The returned map must be safe for concurrent reads and puts.</p>
+     *
+     * @param queryOptions the query options
+     * @return the source permissions
+     */
+    protected Map<String, Node> resolveSourcePermissions(QueryOptions queryOptions) {
+        return resolvePermissions(ConcurrentHashMap::new, queryOptions);
+    }
+
+    /**
+     * Called when the cached permission data is invalidated, or changed in place.
+     */
+    protected void onPermissionDataChange() {
+        // do nothing by default
+    }
     
     private PermissionCache calculatePermissions(QueryOptions queryOptions) {
         Objects.requireNonNull(queryOptions, "queryOptions");
         CacheMetadata metadata = getMetadataForQueryOptions(queryOptions);
 
-        ConcurrentHashMap<String, Node> sourcePermissions = resolvePermissions(ConcurrentHashMap::new, queryOptions);
-        return new PermissionCache(queryOptions, metadata, getCalculatorFactory(), sourcePermissions);
+        int generation = this.permissionGeneration.get();
+        Map<String, Node> sourcePermissions = resolveSourcePermissions(queryOptions);
+        return new PermissionCache(queryOptions, metadata, getCalculatorFactory(), sourcePermissions, generation);
     }
     
     private MonitoredMetaCache calculateMeta(QueryOptions queryOptions) {
@@ -169,31 +270,200 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
 
     @Override
     public final void invalidate() {
+        onPermissionDataChange();
         this.permission.invalidate();
         this.meta.invalidate();
     }
 
+    /**
+     * Invalidates the cached data following a change to the owner's data.
+     *
+     * <p>If refresh-ahead is enabled, the existing cached data continues to be served
+     * while replacements are calculated in the background, for up to the configured
+     * staleness window. Otherwise, this is equivalent to {@link #invalidate()}, which
+     * remains strict either way.</p>
+     */
+    public final void refresh() {
+        int maxStalenessMillis = this.plugin.getConfiguration().get(ConfigKeys.CACHE_REFRESH_AHEAD_MILLIS);
+        if (maxStalenessMillis <= 0) {
+            invalidate();
+            return;
+        }
+
+        onPermissionDataChange();
+        this.permission.refresh(maxStalenessMillis);
+        this.meta.refresh(maxStalenessMillis);
+    }
+
     @Override
     public final void invalidatePermissionCalculators() {
         this.permission.cache.values().forEach(PermissionCache::invalidateCache);
+        this.nearCache.invalidate();
     }
 
-    public final void performCacheCleanup() {
+    /**
+     * Attempts to apply a change to the cached permission data in place, instead of
+     * invalidating and recalculating it.
+     *
+     * <p>The {@code planner} is called for each loaded {@link PermissionCache}, and
+     * returns the entries to put into its source permissions, or null if the change
+     * cannot be applied to that cache locally. In that case nothing is applied.</p>
+     *
+     * @param planner the function used to plan the change for each cache
+     * @return true if the change was applied, false if the caches should be invalidated instead
+     */
+    protected final synchronized boolean applyPermissionChanges(Function<PermissionCache, Map<String, Node>> planner) {
+        Map<PermissionCache, Map<String, Node>> changes = new IdentityHashMap<>();
+        for (PermissionCache cache : this.permission.cache.values()) {
+            Map<String, Node> change = planner.apply(cache);
+            if (change == null) {
+                return false;
+            }
+            changes.put(cache, change);
+        }
+
+        int generation = this.permissionGeneration.get() + 1;
+        changes.forEach((cache, change) -> cache.applyChanges(change, generation));
+        this.permissionGeneration.set(generation);
+        this.nearCache.invalidate();
+        onPermissionDataChange();
+        return true;
+    }
+
+    private void handleRefreshFailure(Throwable e) {
+        this.plugin.getLogger().warn("Exception occurred whilst refreshing cached data, it will be recalculated on the next check", e);
+    }
+
+    public void performCacheCleanup() {
         this.permission.cleanup();
         this.meta.cleanup();
     }
 
+    /**
+     * Stops tracking the loaded instances against the global bound.
+     *
+     * <p>Called when the holder is unloaded.</p>
+     */
+    public void release() {
+        this.permission.untrackAll();
+        this.meta.untrackAll();
+    }
+
     private static final class AbstractContainer<C extends I, I extends CachedData> implements Container<I> {
         private final Function<QueryOptions, C> cacheLoader;
+        private final Predicate<C> validator;
+        private final Runnable invalidationListener;
+        private final Consumer<Throwable> refreshFailureHandler;
+        private final @Nullable CachedDataLimits limits;
         private final LoadingMap<QueryOptions, C> cache;
 
-        public AbstractContainer(Function<QueryOptions, C> cacheLoader) {
+        /**
+         * The entries currently being refreshed in the background.
+         * Swapping in refreshed values is synchronized on this map.
+         */
+        private final Map<QueryOptions, Refresh> refreshing = new ConcurrentHashMap<>();
+
+        public AbstractContainer(Function<QueryOptions, C> cacheLoader, Predicate<C> validator, Runnable invalidationListener, Consumer<Throwable> refreshFailureHandler, @Nullable CachedDataLimits limits, CacheMetrics metrics) {
             this.cacheLoader = cacheLoader;
-            this.cache = LoadingMap.of(this.cacheLoader);
+            this.validator = validator;
+            this.invalidationListener = invalidationListener;
+            this.refreshFailureHandler = refreshFailureHandler;
+            this.limits = limits;
+            this.cache = LoadingMap.of(queryOptions -> track(queryOptions, this.cacheLoader.apply(queryOptions)), metrics);
         }
 
         public void cleanup() {
-            this.cache.values().removeIf(value -> ((UsageTracked) value).usedSince(TimeUnit.MINUTES.toMillis(2)));
+            this.cache.entrySet().removeIf(e -> {
+                if (((UsageTracked) e.getValue()).usedSince(TimeUnit.MINUTES.toMillis(2))) {
+                    return false;
+                }
+                untrack(e.getValue());
+                return true;
+            });
+        }
+
+        /**
+         * Registers a newly loaded value with the global bound, if there is one.
+         *
+         * @param queryOptions the query options the value was loaded for
+         * @param value the value
+         * @return the value
+         */
+        private C track(QueryOptions queryOptions, C value) {
+            if (this.limits != null) {
+                this.limits.track((UsageTracked) value, evictor(new WeakReference<>(this), queryOptions));
+            }
+            return value;
+        }
+
+        /**
+         * Creates an evictor which drops entries from the given container.
+         *
+         * <p>The evictor must not strongly reference the value or the container (which
+         * holds the value), otherwise the weakly tracked value will never be collected.</p>
+         *
+         * @param containerRef a reference to the container
+         * @param queryOptions the query options the value was loaded for
+         * @return the evictor
+         */
+        private static CachedDataLimits.Evictor evictor(WeakReference<? extends AbstractContainer<?, ?>> containerRef, QueryOptions queryOptions) {
+            return data -> {
+                AbstractContainer<?, ?> container = containerRef.get();
+                if (container != null && container.cache.remove(queryOptions, data)) {
+                    container.invalidationListener.run();
+                }
+            };
+        }
+
+        /**
+         * Records an access to an instance which was obtained without going through the container.
+         *
+         * @param data the instance
+         */
+        void recordAccess(C data) {
+            if (this.limits != null) {
+                this.limits.recordAccess((UsageTracked) data);
+            }
+        }
+
+        private void untrack(C value) {
+            if (this.limits != null) {
+                this.limits.untrack((UsageTracked) value);
+            }
+        }
+
+        public void untrackAll() {
+            if (this.limits != null) {
+                this.cache.values().forEach(this::untrack);
+            }
+        }
+
+        /**
+         * Evicts the least recently used entries until the container is within the per-holder bound.
+         *
+         * @param retain the query options of the entry which was just accessed, which shouldn't be evicted
+         */
+        private void enforceHolderLimit(QueryOptions retain) {
+            int max = this.limits.getMaxPerHolder();
+            while (this.cache.size() > max) {
+                Map.Entry<QueryOptions, C> eldest = null;
+                for (Map.Entry<QueryOptions, C> e : this.cache.entrySet()) {
+                    if (e.getKey().equals(retain)) {
+                        continue;
+                    }
+                    if (eldest == null || ((UsageTracked) e.getValue()).getLastUsed() < ((UsageTracked) eldest.getValue()).getLastUsed()) {
+                        eldest = e;
+                    }
+                }
+                if (eldest == null) {
+                    return;
+                }
+                if (this.cache.remove(eldest.getKey(), eldest.getValue())) {
+                    this.limits.recordHolderEviction();
+                    untrack(eldest.getValue());
+                    this.invalidationListener.run();
+                }
+            }
         }
 
         @Override
@@ -201,10 +471,70 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
             Objects.requireNonNull(queryOptions, "queryOptions");
 
             C data = this.cache.get(queryOptions);
+            if (!this.refreshing.isEmpty()) {
+                Refresh refresh = this.refreshing.get(queryOptions);
+                if (refresh != null && System.currentTimeMillis() > refresh.deadline && this.refreshing.remove(queryOptions, refresh)) {
+                    // the refresh didn't complete in time, recalculate now
+                    remove(queryOptions, data);
+                    data = this.cache.get(queryOptions);
+                }
+            }
+            if (!this.validator.test(data)) {
+                // the data was loaded concurrently with an in-place change, and missed it
+                remove(queryOptions, data);
+                data = this.cache.get(queryOptions);
+            }
             ((UsageTracked) data).recordUsage();
+            if (this.limits != null) {
+                this.limits.recordAccess((UsageTracked) data);
+                if (this.limits.getMaxPerHolder() > 0 && this.cache.size() > this.limits.getMaxPerHolder()) {
+                    enforceHolderLimit(queryOptions);
+                }
+            }
             return data;
         }
 
+        /**
+         * Removes an entry, if it is still mapped to the given value.
+         *
+         * @param queryOptions the query options
+         * @param data the value
+         */
+        private void remove(QueryOptions queryOptions, C data) {
+            if (this.cache.remove(queryOptions, data)) {
+                untrack(data);
+            }
+            this.invalidationListener.run();
+        }
+
+        /**
+         * Replaces an entry with a newly loaded value.
+         *
+         * @param queryOptions the query options
+         * @param value the new value
+         */
+        private void replace(QueryOptions queryOptions, C value) {
+            C previous = this.cache.put(queryOptions, track(queryOptions, value));
+            if (previous != null && previous != value) {
+                untrack(previous);
+            }
+        }
+
+        /**
+         * Gets if a background refresh of the entry has passed its staleness window,
+         * meaning the stale entry should no longer be served.
+         *
+         * @param queryOptions the query options
+         * @return if the refresh is overdue
+         */
+        public boolean isRefreshOverdue(QueryOptions queryOptions) {
+            if (this.refreshing.isEmpty()) {
+                return false;
+            }
+            Refresh refresh = this.refreshing.get(queryOptions);
+            return refresh != null && System.currentTimeMillis() > refresh.deadline;
+        }
+
         @Override
         public @NonNull C calculate(@NonNull QueryOptions queryOptions) {
             Objects.requireNonNull(queryOptions, "queryOptions");
@@ -216,7 +546,8 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
             Objects.requireNonNull(queryOptions, "queryOptions");
             CompletableFuture.runAsync(() -> {
                 final C value = this.cacheLoader.apply(queryOptions);
-                this.cache.put(queryOptions, value);
+                replace(queryOptions, value);
+                this.invalidationListener.run();
             }, CaffeineFactory.executor());
         }
 
@@ -225,7 +556,11 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
             Objects.requireNonNull(queryOptions, "queryOptions");
 
             // invalidate the previous value until we're done recalculating
-            this.cache.remove(queryOptions);
+            C previous = this.cache.remove(queryOptions);
+            if (previous != null) {
+                untrack(previous);
+            }
+            this.invalidationListener.run();
 
             // request recalculation from the cache
             return CompletableFuture.supplyAsync(() -> this.cache.get(queryOptions), CaffeineFactory.executor());
@@ -243,15 +578,87 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
             return CompletableFutures.allOf(keys.stream().map(this::reload));
         }
 
+        /**
+         * Recalculates all cached data instances in the background, continuing to
+         * serve the existing instances until the new ones are ready, or until the
+         * staleness window has passed.
+         *
+         * @param maxStalenessMillis the maximum time to serve stale instances for
+         */
+        public void refresh(long maxStalenessMillis) {
+            long deadline = System.currentTimeMillis() + maxStalenessMillis;
+            for (QueryOptions queryOptions : this.cache.keySet()) {
+                // if a refresh is already in progress, don't extend its deadline
+                Refresh previous = this.refreshing.get(queryOptions);
+                Refresh refresh = new Refresh(previous == null ? deadline : Math.min(previous.deadline, deadline));
+                this.refreshing.put(queryOptions, refresh);
+
+                CompletableFuture.runAsync(() -> {
+                    C value;
+                    try {
+                        value = this.cacheLoader.apply(queryOptions);
+                    } catch (Throwable e) {
+                        this.refreshFailureHandler.accept(e);
+                        // stop serving the stale entry, it'll be recalculated on the next check
+                        synchronized (this.refreshing) {
+                            if (this.refreshing.remove(queryOptions, refresh)) {
+                                C stale = this.cache.remove(queryOptions);
+                                if (stale != null) {
+                                    untrack(stale);
+                                }
+                            }
+                        }
+                        this.invalidationListener.run();
+                        return;
+                    }
+
+                    synchronized (this.refreshing) {
+                        // a later refresh or invalidation of the entry supersedes this one
+                        if (!this.refreshing.remove(queryOptions, refresh)) {
+                            return;
+                        }
+                        // the entry was evicted or cleaned up while it was being refreshed
+                        if (this.cache.getIfPresent(queryOptions) == null) {
+                            return;
+                        }
+                        replace(queryOptions, value);
+                    }
+                    this.invalidationListener.run();
+                }, CaffeineFactory.executor());
+            }
+        }
+
+        private static final class Refresh {
+            /** The time after which the stale entry should no longer be served */
+            private final long deadline;
+
+            Refresh(long deadline) {
+                this.deadline = deadline;
+            }
+        }
+
         @Override
         public void invalidate(@NonNull QueryOptions queryOptions) {
             Objects.requireNonNull(queryOptions, "queryOptions");
-            this.cache.remove(queryOptions);
+            C removed;
+            synchronized (this.refreshing) {
+                this.refreshing.remove(queryOptions);
+                removed = this.cache.remove(queryOptions);
+            }
+            if (removed != null) {
+                untrack(removed);
+            }
+            this.invalidationListener.run();
         }
 
         @Override
         public void invalidate() {
-            this.cache.clear();
+            synchronized (this.refreshing) {
+                this.refreshing.clear();
+                this.cache.values().forEach(this::untrack);
+                this.cache.clear();
+            }
+            this.invalidationListener.run();
         }
     }
     
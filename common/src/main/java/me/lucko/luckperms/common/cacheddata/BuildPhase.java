@@ -0,0 +1,60 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.cacheddata;
+
+import me.lucko.luckperms.common.metrics.MetricRegistry;
+import me.lucko.luckperms.common.metrics.Timer;
+
+/**
+ * The phases of building cached permission data, each of which is timed separately.
+ */
+public enum BuildPhase {
+
+    /**
+     * Resolving the nodes inherited by the holder
+     */
+    INHERITANCE("inheritance"),
+
+    /**
+     * Exporting the resolved nodes into a permission map
+     */
+    EXPORT("export"),
+
+    /**
+     * Refreshing the permission processors with the exported map
+     */
+    PROCESSOR_REFRESH("processor_refresh");
+
+    private final Timer timer;
+
+    BuildPhase(String name) {
+        this.timer = MetricRegistry.timer("cached_data_build", "Time taken to build cached permission data, by phase", "phase", name);
+    }
+
+    public Timer timer() {
+        return this.timer;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.cacheddata;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.util.CaffeineFactory;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the number of cached data instances held by each holder, and the total
+ * weight of the instances held across all holders.
+ *
+ * <p>The global bound is enforced by a weak-keyed caffeine cache which tracks every
+ * loaded instance, so evictions follow caffeine's W-TinyLFU policy. The instances
+ * themselves remain in their holder's container - the tracking cache just tells the
+ * container to drop them when they are evicted.</p>
+ */
+public class CachedDataLimits {
+
+    /**
+     * Creates a new instance using the settings in the configuration.
+     *
+     * @param configuration the configuration
+     * @return the limits, or null if cached data is unbounded
+     */
+    public static @Nullable CachedDataLimits create(LuckPermsConfiguration configuration) {
+        int maxPerHolder = configuration.get(ConfigKeys.CACHED_DATA_MAX_PER_HOLDER);
+        long maxWeight = configuration.get(ConfigKeys.CACHED_DATA_MAX_WEIGHT);
+        if (maxPerHolder <= 0 && maxWeight <= 0) {
+            return null;
+        }
+        return new CachedDataLimits(maxPerHolder, maxWeight);
+    }
+
+    /** The maximum number of instances per holder container, or 0 if unbounded */
+    private final int maxPerHolder;
+
+    /** Tracks loaded instances against the global weight bound, or null if unbounded */
+    private final @Nullable Cache<UsageTracked, Evictor> tracked;
+
+    /** The number of instances evicted to stay within the per-holder bound */
+    private final AtomicLong holderEvictions = new AtomicLong();
+
+    /** The eviction counts at the time of the last report */
+    private long reportedHolderEvictions = 0;
+    private long reportedGlobalEvictions = 0;
+
+    public CachedDataLimits(int maxPerHolder, long maxWeight) {
+        this.maxPerHolder = Math.max(0, maxPerHolder);
+        if (maxWeight > 0) {
+            this.tracked = CaffeineFactory.newBuilder()
+                    .weakKeys()
+                    .maximumWeight(maxWeight)
+                    .weigher((UsageTracked data, Evictor evictor) -> data.weigh())
+                    .removalListener((UsageTracked data, Evictor evictor, RemovalCause cause) -> {
+                        if (cause == RemovalCause.SIZE && data != null && evictor != null) {
+                            evictor.evict(data);
+                        }
+                    })
+                    .recordStats()
+                    .build();
+        } else {
+            this.tracked = null;
+        }
+    }
+
+    /**
+     * Gets the maximum number of instances each holder container can hold.
+     *
+     * @return the maximum, or 0 if unbounded
+     */
+    public int getMaxPerHolder() {
+        return this.maxPerHolder;
+    }
+
+    /**
+     * Starts tracking a newly loaded instance against the global bound.
+     *
+     * @param data the instance
+     * @param evictor the function used to drop the instance from its container if it is evicted
+     */
+    public void track(UsageTracked data, Evictor evictor) {
+        if (this.tracked != null) {
+            this.tracked.put(data, evictor);
+        }
+    }
+
+    /**
+     * Stops tracking an instance which has been removed from its container.
+     *
+     * @param data the instance
+     */
+    public void untrack(UsageTracked data) {
+        if (this.tracked != null) {
+            this.tracked.invalidate(data);
+        }
+    }
+
+    /**
+     * Records an access to an instance, for the purposes of the eviction policy.
+     *
+     * <p>If the instance has grown since it was tracked (for example, as the results
+     * of permission checks are cached), it is re-weighed.</p>
+     *
+     * @param data the instance
+     */
+    public void recordAccess(UsageTracked data) {
+        if (this.tracked != null) {
+            if (data.hasOutgrownWeight()) {
+                // remapping to the same value makes caffeine weigh the entry again
+                this.tracked.asMap().computeIfPresent(data, (k, evictor) -> evictor);
+            } else {
+                this.tracked.getIfPresent(data);
+            }
+        }
+    }
+
+    /**
+     * Records that an instance was evicted to stay within the per-holder bound.
+     */
+    public void recordHolderEviction() {
+        this.holderEvictions.incrementAndGet();
+    }
+
+    public long getHolderEvictions() {
+        return this.holderEvictions.get();
+    }
+
+    public long getGlobalEvictions() {
+        return this.tracked == null ? 0 : this.tracked.stats().evictionCount();
+    }
+
+    public long getGlobalWeight() {
+        if (this.tracked == null) {
+            return 0;
+        }
+        return this.tracked.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    /**
+     * Returns a summary of the evictions made since the last report, or null if there weren't any.
+     *
+     * @return a report, or null
+     */
+    public synchronized @Nullable String report() {
+        long holderEvictions = getHolderEvictions();
+        long globalEvictions = getGlobalEvictions();
+
+        long newHolderEvictions = holderEvictions - this.reportedHolderEvictions;
+        long newGlobalEvictions = globalEvictions - this.reportedGlobalEvictions;
+        this.reportedHolderEvictions = holderEvictions;
+        this.reportedGlobalEvictions = globalEvictions;
+
+        if (newHolderEvictions == 0 && newGlobalEvictions == 0) {
+            return null;
+        }
+        return "Evicted " + newHolderEvictions + " cached data instances to stay within the per-holder limit, and " +
+                newGlobalEvictions + " to stay within the global weight limit (current weight: " + getGlobalWeight() + ")";
+    }
+
+    /**
+     * Drops an evicted instance from the container which holds it.
+     */
+    @FunctionalInterface
+    public interface Evictor {
+        void evict(UsageTracked data);
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.cacheddata;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.google.common.collect.ImmutableList;
+import me.lucko.luckperms.common.cacheddata.type.PermissionCache;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.util.CaffeineFactory;
+import net.luckperms.api.query.QueryOptions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Precomputes the cached data for users as they are loaded, so that the caches
+ * don't have to be built on the first permission check (usually on the main thread
+ * as the player joins).
+ *
+ * <p>The caches are calculated for the predicted {@link QueryOptions} of the user
+ * (the static query options, plus those the user had when they were last recorded),
+ * and the permissions most commonly checked by the server are resolved ahead of time.</p>
+ */
+public class CachedDataPreloader {
+
+    /** The maximum number of query options to remember for each user */
+    private static final int MAX_QUERY_OPTIONS = 4;
+
+    /** The number of permissions to resolve ahead of time */
+    private static final int LIKELY_PERMISSIONS = 128;
+
+    /** The number of permissions to track the check frequency of before the least frequent are discarded */
+    private static final int TRACKED_PERMISSIONS = 1024;
+
+    private final LuckPermsPlugin plugin;
+
+    /** The query options each user had when they were last recorded */
+    private final Cache<UUID, List<QueryOptions>> lastQueryOptions = CaffeineFactory.newBuilder()
+            .expireAfterWrite(1, TimeUnit.DAYS)
+            .maximumSize(10000)
+            .build();
+
+    /** The number of recorded users which each permission has been checked for. Guarded by this */
+    private final Map<String, Integer> permissionFrequency = new HashMap<>();
+
+    /** The permissions most commonly checked, in order of frequency */
+    private volatile List<String> likelyPermissions = ImmutableList.of();
+
+    public CachedDataPreloader(LuckPermsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Records the query options and checked permissions for the given user, usually
+     * as they disconnect.
+     *
+     * @param user the user
+     */
+    public void record(User user) {
+        Set<QueryOptions> queryOptions = new LinkedHashSet<>();
+        Set<String> permissions = new LinkedHashSet<>();
+        for (PermissionCache cache : user.getCachedData().getLoadedPermissionData()) {
+            if (queryOptions.size() < MAX_QUERY_OPTIONS) {
+                queryOptions.add(cache.getQueryOptions());
+            }
+            permissions.addAll(cache.getCalculator().getCheckedPermissions());
+        }
+
+        if (!queryOptions.isEmpty()) {
+            this.lastQueryOptions.put(user.getUniqueId(), ImmutableList.copyOf(queryOptions));
+        }
+        recordPermissions(permissions);
+    }
+
+    synchronized void recordPermissions(Collection<String> permissions) {
+        if (permissions.isEmpty()) {
+            return;
+        }
+
+        for (String permission : permissions) {
+            this.permissionFrequency.merge(permission, 1, Integer::sum);
+        }
+
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(this.permissionFrequency.entrySet());
+        entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+
+        // forget the least frequent permissions
+        if (entries.size() > TRACKED_PERMISSIONS) {
+            for (Map.Entry<String, Integer> entry : entries.subList(TRACKED_PERMISSIONS / 2, entries.size())) {
+                this.permissionFrequency.remove(entry.getKey());
+            }
+        }
+
+        ImmutableList.Builder<String> likely = ImmutableList.builder();
+        for (Map.Entry<String, Integer> entry : entries.subList(0, Math.min(LIKELY_PERMISSIONS, entries.size()))) {
+            likely.add(entry.getKey());
+        }
+        this.likelyPermissions = likely.build();
+    }
+
+    /**
+     * Gets the permissions most commonly checked by the server, in order of frequency.
+     *
+     * @return the likely permissions
+     */
+    public List<String> getLikelyPermissions() {
+        return this.likelyPermissions;
+    }
+
+    /**
+     * Gets the query options the user is likely to have.
+     *
+     * @param uniqueId the user's unique id
+     * @return the predicted query options
+     */
+    public Set<QueryOptions> predictQueryOptions(UUID uniqueId) {
+        Set<QueryOptions> queryOptions = new LinkedHashSet<>();
+        List<QueryOptions> last = this.lastQueryOptions.getIfPresent(uniqueId);
+        if (last != null) {
+            queryOptions.addAll(last);
+        }
+        queryOptions.add(this.plugin.getContextManager().getStaticQueryOptions());
+        return queryOptions;
+    }
+
+    /**
+     * Calculates the cached data for the predicted query options of the given user,
+     * and resolves the likely permissions in each.
+     *
+     * @param user the user
+     */
+    public void preload(User user) {
+        UserCachedDataManager cachedData = user.getCachedData();
+        List<String> permissions = this.likelyPermissions;
+
+        for (QueryOptions queryOptions : predictQueryOptions(user.getUniqueId())) {
+            PermissionCache permissionData = cachedData.getPermissionData(queryOptions);
+            cachedData.getMetaData(queryOptions);
+
+            for (String permission : permissions) {
+                permissionData.getCalculator().preload(permission);
+            }
+        }
+    }
+
+}
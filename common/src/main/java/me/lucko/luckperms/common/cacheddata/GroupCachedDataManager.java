@@ -25,21 +25,60 @@
 
 package me.lucko.luckperms.common.cacheddata;
 
+import me.lucko.luckperms.common.cache.LoadingMap;
+import me.lucko.luckperms.common.cacheddata.type.PermissionLayer;
+import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.HolderType;
 import me.lucko.luckperms.common.verbose.VerboseCheckTarget;
 import net.luckperms.api.cacheddata.CachedDataManager;
 import net.luckperms.api.query.QueryOptions;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Holds an easily accessible cache of a groups's data in a number of contexts
  */
 public class GroupCachedDataManager extends HolderCachedDataManager<Group> implements CachedDataManager {
 
+    /**
+     * The resolved permissions of the group, shared with the caches of holders inheriting it
+     */
+    private final LoadingMap<QueryOptions, PermissionLayer> permissionLayers = LoadingMap.of(this::calculatePermissionLayer);
+
     public GroupCachedDataManager(Group holder) {
         super(holder);
     }
 
+    /**
+     * Gets the permissions resolved for the group (including those it inherits)
+     * with the given query options, as an immutable layer.
+     *
+     * @param queryOptions the query options
+     * @return the layer
+     */
+    public PermissionLayer getPermissionLayer(QueryOptions queryOptions) {
+        PermissionLayer layer = this.permissionLayers.get(queryOptions);
+        layer.recordUsage();
+        return layer;
+    }
+
+    private PermissionLayer calculatePermissionLayer(QueryOptions queryOptions) {
+        return PermissionLayer.of(this.holder.resolveInheritedNodes(queryOptions), getPlugin().getConfiguration().get(ConfigKeys.APPLYING_SHORTHAND));
+    }
+
+    @Override
+    protected void onPermissionDataChange() {
+        super.onPermissionDataChange();
+        this.permissionLayers.clear();
+    }
+
+    @Override
+    public void performCacheCleanup() {
+        super.performCacheCleanup();
+        this.permissionLayers.values().removeIf(layer -> !layer.usedSince(TimeUnit.MINUTES.toMillis(2)));
+    }
+
     @Override
     protected CacheMetadata getMetadataForQueryOptions(QueryOptions queryOptions) {
         return new CacheMetadata(HolderType.GROUP, VerboseCheckTarget.group(this.holder), queryOptions);
@@ -25,16 +25,38 @@
 
 package me.lucko.luckperms.common.cacheddata;
 
+import com.google.common.collect.ImmutableList;
+import me.lucko.luckperms.common.cacheddata.type.LayeredPermissionMap;
 import me.lucko.luckperms.common.cacheddata.type.MetaAccumulator;
+import me.lucko.luckperms.common.cacheddata.type.PermissionLayer;
 import me.lucko.luckperms.common.calculator.CalculatorFactory;
 import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.graph.TraversalAlgorithm;
+import me.lucko.luckperms.common.inheritance.InheritanceGraph;
+import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.model.nodemap.NodeMap;
+import me.lucko.luckperms.common.query.DataSelector;
+import me.lucko.luckperms.common.util.Difference;
 import net.luckperms.api.metastacking.MetaStackDefinition;
+import net.luckperms.api.model.data.DataType;
 import net.luckperms.api.node.ChatMetaType;
 import net.luckperms.api.node.Node;
+import net.luckperms.api.node.NodeType;
+import net.luckperms.api.query.Flag;
 import net.luckperms.api.query.QueryOptions;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntFunction;
 
 /**
@@ -47,6 +69,17 @@ public abstract class HolderCachedDataManager<T extends PermissionHolder> extend
      */
     protected final T holder;
 
+    /**
+     * The linearized inheritance order of the holder, for each query options it has been resolved in
+     */
+    private final Map<QueryOptions, InheritanceOrder> inheritanceOrders = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented each time the holders data changes, so that an inheritance order resolved
+     * concurrently with a change is not cached
+     */
+    private final AtomicInteger inheritanceGeneration = new AtomicInteger();
+
     public HolderCachedDataManager(T holder) {
         super(holder.getPlugin());
         this.holder = holder;
@@ -79,8 +112,196 @@ public abstract class HolderCachedDataManager<T extends PermissionHolder> extend
         return this.holder.exportPermissions(mapFactory, queryOptions, true, getPlugin().getConfiguration().get(ConfigKeys.APPLYING_SHORTHAND));
     }
 
+    @Override
+    protected Map<String, Node> resolveSourcePermissions(QueryOptions queryOptions) {
+        if (!canUsePermissionLayers(queryOptions)) {
+            return super.resolveSourcePermissions(queryOptions);
+        }
+
+        long start = System.nanoTime();
+        ConcurrentHashMap<String, Node> permissions = new ConcurrentHashMap<>();
+        Map<String, Node> shorthandPermissions = new HashMap<>();
+        PermissionLayer.accumulate(this.holder.getOwnNodes(queryOptions), permissions, shorthandPermissions, getPlugin().getConfiguration().get(ConfigKeys.APPLYING_SHORTHAND));
+        BuildPhase.EXPORT.timer().recordSince(start);
+
+        // parent layers which aren't already cached are built here, and their phases are recorded separately
+        start = System.nanoTime();
+        List<PermissionLayer> layers = new ArrayList<>();
+        InheritanceGraph graph = getPlugin().getInheritanceGraphFactory().getGraph(queryOptions);
+        for (PermissionHolder parent : graph.successors(this.holder)) {
+            layers.add(((Group) parent).getCachedData().getPermissionLayer(queryOptions));
+        }
+        BuildPhase.INHERITANCE.timer().recordSince(start);
+
+        return new LayeredPermissionMap(permissions, shorthandPermissions, layers);
+    }
+
+    /**
+     * Gets if the holders permissions can be resolved by merging its own nodes over
+     * the {@link PermissionLayer}s of the groups it directly inherits from.
+     *
+     * <p>This gives the same result as exporting the whole inheritance tree only when
+     * it is traversed depth-first in pre-order without a post traversal sort, as the
+     * subtree of each parent is then visited in the same order as it would be when
+     * starting from the parent.</p>
+     *
+     * @param queryOptions the query options
+     * @return true if layers can be used
+     */
+    private boolean canUsePermissionLayers(QueryOptions queryOptions) {
+        return queryOptions.flag(Flag.RESOLVE_INHERITANCE) &&
+                getPlugin().getConfiguration().get(ConfigKeys.INHERITANCE_TRAVERSAL_ALGORITHM) == TraversalAlgorithm.DEPTH_FIRST_PRE_ORDER &&
+                !getPlugin().getConfiguration().get(ConfigKeys.POST_TRAVERSAL_INHERITANCE_SORT);
+    }
+
+    /**
+     * Attempts to apply a change to the holders own nodes to the cached permission
+     * data in place, without recalculating it.
+     *
+     * <p>This is only possible when the change is provably local: every changed node
+     * is a plain permission node (not inheritance or meta, and without shorthand), and
+     * the change does not alter which node defines a permission, other than a new node
+     * for a permission which isn't set, or a node replacing itself with a new value.</p>
+     *
+     * @param dataType the data type which was changed
+     * @param changes the changes made to the holders nodes
+     * @return true if the changes were applied, false if the caches should be invalidated instead
+     */
+    public boolean applyChanges(DataType dataType, Difference<Node> changes) {
+        Map<String, Node> added = new HashMap<>();
+        Map<String, Node> removed = new HashMap<>();
+
+        for (Difference.Change<Node> change : changes.getChanges()) {
+            Node node = change.value();
+            if (!NodeType.PERMISSION.matches(node) || !node.resolveShorthand().isEmpty()) {
+                return false;
+            }
+
+            Map<String, Node> map = change.type() == Difference.ChangeType.ADD ? added : removed;
+            if (map.put(node.getKey().toLowerCase(Locale.ROOT), node) != null) {
+                return false;
+            }
+        }
+
+        // a node can only replace another for the same permission in the same contexts
+        for (Map.Entry<String, Node> entry : added.entrySet()) {
+            Node replaced = removed.get(entry.getKey());
+            if (replaced != null && !replaced.getContexts().equals(entry.getValue().getContexts())) {
+                return false;
+            }
+        }
+
+        Set<String> permissions = new HashSet<>(added.keySet());
+        permissions.addAll(removed.keySet());
+
+        NodeMap data = this.holder.getData(dataType);
+        return applyPermissionChanges(cache -> {
+            QueryOptions queryOptions = cache.getQueryOptions();
+            boolean dataTypeIncluded = Arrays.asList(DataSelector.selectOrder(queryOptions, this.holder.getIdentifier())).contains(dataType);
+
+            Map<String, Node> result = new HashMap<>();
+            for (String permission : permissions) {
+                Node add = added.get(permission);
+                Node remove = removed.get(permission);
+
+                // the node doesn't apply to this cache
+                if (!dataTypeIncluded || !data.isIncluded(add != null ? add : remove, queryOptions)) {
+                    continue;
+                }
+
+                Node current = cache.getSourceNode(permission);
+                if (current == null) {
+                    if (remove != null) {
+                        return null;
+                    }
+                    result.put(permission, add);
+                } else if (current == remove) {
+                    if (add == null) {
+                        // another node may now define the permission
+                        return null;
+                    }
+                    result.put(permission, add);
+                } else if (current != add && remove == null) {
+                    // the new node may take priority over the current one
+                    return null;
+                }
+                // otherwise, the change is shadowed by the current node or already present
+            }
+            return result;
+        });
+    }
+
     @Override
     protected void resolveMeta(MetaAccumulator accumulator, QueryOptions queryOptions) {
         this.holder.accumulateMeta(accumulator, queryOptions);
     }
+
+    /**
+     * Gets the order in which the holder and the groups it inherits from are visited
+     * when resolving inherited data, starting with the holder itself.
+     *
+     * <p>The order is the result of traversing the inheritance graph, and is cached
+     * until the data of the holder or one of the groups it inherits from changes.</p>
+     *
+     * @param queryOptions the query options
+     * @return the inheritance order
+     */
+    public List<PermissionHolder> getInheritanceOrder(QueryOptions queryOptions) {
+        InheritanceOrder order = this.inheritanceOrders.get(queryOptions);
+        if (order != null && order.isCurrent()) {
+            order.recordUsage();
+            return order.holders;
+        }
+
+        int generation = this.inheritanceGeneration.get();
+        InheritanceGraph graph = getPlugin().getInheritanceGraphFactory().getGraph(queryOptions);
+        order = new InheritanceOrder(ImmutableList.copyOf(graph.traverse(this.holder)));
+
+        this.inheritanceOrders.put(queryOptions, order);
+        if (generation != this.inheritanceGeneration.get()) {
+            // the data changed whilst the order was being resolved
+            this.inheritanceOrders.remove(queryOptions, order);
+        }
+        return order.holders;
+    }
+
+    @Override
+    protected void onPermissionDataChange() {
+        this.inheritanceGeneration.incrementAndGet();
+        this.inheritanceOrders.clear();
+    }
+
+    @Override
+    public void performCacheCleanup() {
+        super.performCacheCleanup();
+        this.inheritanceOrders.values().removeIf(order -> !order.usedSince(TimeUnit.MINUTES.toMillis(2)));
+    }
+
+    /**
+     * A linearized inheritance order
+     */
+    private final class InheritanceOrder extends UsageTracked {
+        private final List<PermissionHolder> holders;
+
+        InheritanceOrder(List<PermissionHolder> holders) {
+            this.holders = holders;
+        }
+
+        /**
+         * Gets if the groups in the order are still the loaded instances.
+         *
+         * <p>Groups which are deleted or reloaded are not always accompanied by a
+         * change to the data of the groups which inherit from them.</p>
+         *
+         * @return if the order is current
+         */
+        boolean isCurrent() {
+            for (PermissionHolder holder : this.holders) {
+                if (holder instanceof Group && holder != HolderCachedDataManager.this.holder && getPlugin().getGroupManager().getIfLoaded(((Group) holder).getName()) != holder) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
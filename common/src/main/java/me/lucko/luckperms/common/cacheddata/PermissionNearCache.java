@@ -0,0 +1,137 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.cacheddata;
+
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.cacheddata.type.PermissionCache;
+import net.luckperms.api.query.QueryOptions;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small direct-mapped cache of recent permission check results, which sits in
+ * front of the {@link PermissionCache} lookups made by a cached data manager.
+ *
+ * <p>Each slot holds a single immutable entry, tagged with the version of the
+ * cached data it was computed against. Calling {@link #invalidate()} bumps the
+ * version, which makes every existing entry miss.</p>
+ *
+ * <p>Entries are published with plain writes - a racing reader will either see a
+ * complete entry or the previous one, and entries for other keys or versions are
+ * simply treated as a miss.</p>
+ */
+public final class PermissionNearCache {
+
+    /** The number of slots, must be a power of two */
+    private static final int SIZE = 32;
+
+    private final Entry[] entries = new Entry[SIZE];
+    private final AtomicInteger version = new AtomicInteger();
+
+    /**
+     * Gets the current version of the cache.
+     *
+     * <p>This must be read <b>before</b> the result being cached is calculated,
+     * so that a concurrent invalidation is not missed.</p>
+     *
+     * @return the version
+     */
+    public int version() {
+        return this.version.get();
+    }
+
+    /**
+     * Gets the cached entry for the given permission and query options.
+     *
+     * @param queryOptions the query options
+     * @param permission the permission
+     * @return the entry, or null if there is no valid entry cached
+     */
+    public @Nullable Entry get(QueryOptions queryOptions, String permission) {
+        Entry entry = this.entries[index(queryOptions, permission)];
+        if (entry == null || entry.version != this.version.get()) {
+            return null;
+        }
+        if (entry.queryOptions != queryOptions && !entry.queryOptions.equals(queryOptions)) {
+            return null;
+        }
+        if (entry.permission != permission && !entry.permission.equals(permission)) {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Caches a result.
+     *
+     * @param version the version read before the result was calculated
+     * @param queryOptions the query options
+     * @param permission the permission
+     * @param cache the permission cache the result was obtained from
+     * @param result the result
+     */
+    public void put(int version, QueryOptions queryOptions, String permission, PermissionCache cache, TristateResult result) {
+        this.entries[index(queryOptions, permission)] = new Entry(version, queryOptions, permission, cache, result);
+    }
+
+    /**
+     * Invalidates all cached entries.
+     */
+    public void invalidate() {
+        this.version.incrementAndGet();
+    }
+
+    private static int index(QueryOptions queryOptions, String permission) {
+        int hash = permission.hashCode() * 31 + queryOptions.hashCode();
+        return (hash ^ (hash >>> 16)) & (SIZE - 1);
+    }
+
+    public static final class Entry {
+        private final int version;
+        private final QueryOptions queryOptions;
+        private final String permission;
+        private final PermissionCache cache;
+        private final TristateResult result;
+
+        Entry(int version, QueryOptions queryOptions, String permission, PermissionCache cache, TristateResult result) {
+            this.version = version;
+            this.queryOptions = queryOptions;
+            this.permission = permission;
+            this.cache = cache;
+            this.result = result;
+        }
+
+        public PermissionCache cache() {
+            return this.cache;
+        }
+
+        public TristateResult result() {
+            return this.result;
+        }
+    }
+
+}
@@ -28,6 +28,9 @@ package me.lucko.luckperms.common.cacheddata;
 public abstract class UsageTracked {
     private long lastUsed = System.currentTimeMillis();
 
+    /** The weight of this instance when it was last weighed, or 0 if it hasn't been */
+    private volatile int lastWeight = 0;
+
     public void recordUsage() {
         this.lastUsed = System.currentTimeMillis();
     }
@@ -35,4 +38,39 @@ public abstract class UsageTracked {
     public boolean usedSince(long duration) {
         return this.lastUsed > System.currentTimeMillis() - duration;
     }
+
+    public long getLastUsed() {
+        return this.lastUsed;
+    }
+
+    /**
+     * Gets the approximate weight of this instance, relative to other instances,
+     * for the purposes of bounding the amount of data held in memory.
+     *
+     * @return the weight
+     */
+    public int weight() {
+        return 1;
+    }
+
+    /**
+     * Gets the weight of this instance, and records it as the weight it was last weighed at.
+     *
+     * @return the weight
+     */
+    public int weigh() {
+        int weight = weight();
+        this.lastWeight = weight;
+        return weight;
+    }
+
+    /**
+     * Gets if this instance has at least doubled in weight since it was last weighed.
+     *
+     * @return if the instance should be weighed again
+     */
+    public boolean hasOutgrownWeight() {
+        int lastWeight = this.lastWeight;
+        return lastWeight != 0 && weight() >= lastWeight * 2;
+    }
 }
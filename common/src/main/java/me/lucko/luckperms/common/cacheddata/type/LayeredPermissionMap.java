@@ -0,0 +1,215 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.cacheddata.type;
+
+import com.google.common.collect.AbstractIterator;
+import net.luckperms.api.node.Node;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A map of resolved permissions, formed by a holders own permissions followed by
+ * the shared {@link PermissionLayer}s of the groups it inherits from.
+ *
+ * <p>The result is equivalent to merging each of the maps in turn, with the first
+ * entry for each permission taking priority - except that the layers aren't copied.
+ * Entries added using {@link #put(String, Node)} are held in the holders own map, and
+ * take priority over those in the layers.</p>
+ */
+public final class LayeredPermissionMap extends AbstractMap<String, Node> {
+
+    /**
+     * The holders own permissions
+     */
+    private final ConcurrentHashMap<String, Node> permissions;
+
+    /**
+     * The maps backing this map, in order of priority
+     */
+    private final List<Map<String, Node>> sources;
+
+    /**
+     * The number of distinct keys across the sources
+     */
+    private final AtomicInteger size;
+
+    private final Set<Entry<String, Node>> entrySet = new EntrySet();
+
+    public LayeredPermissionMap(ConcurrentHashMap<String, Node> permissions, Map<String, Node> shorthandPermissions, List<PermissionLayer> layers) {
+        this.permissions = permissions;
+        this.sources = new ArrayList<>(layers.size() * 2 + 2);
+
+        // directly defined permissions take priority over shorthand ones
+        this.sources.add(permissions);
+        for (PermissionLayer layer : layers) {
+            addSource(layer.getPermissions());
+        }
+        addSource(shorthandPermissions);
+        for (PermissionLayer layer : layers) {
+            addSource(layer.getShorthandPermissions());
+        }
+
+        // the layers don't change, so the size only needs to be counted once
+        this.size = new AtomicInteger(countKeys());
+    }
+
+    private void addSource(Map<String, Node> source) {
+        if (!source.isEmpty()) {
+            this.sources.add(source);
+        }
+    }
+
+    private int countKeys() {
+        if (this.sources.size() == 1) {
+            return this.permissions.size();
+        }
+
+        int total = 0;
+        for (Map<String, Node> source : this.sources) {
+            total += source.size();
+        }
+
+        Set<String> keys = new HashSet<>(total);
+        for (Map<String, Node> source : this.sources) {
+            keys.addAll(source.keySet());
+        }
+        return keys.size();
+    }
+
+    @Override
+    public Node get(Object key) {
+        for (Map<String, Node> source : this.sources) {
+            Node node = source.get(key);
+            if (node != null) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Node put(String key, Node value) {
+        Node previous = this.permissions.put(key, value);
+        if (previous != null) {
+            return previous;
+        }
+
+        // the key wasn't in the holders own map - it's only new if none of the layers have it either
+        for (int i = 1; i < this.sources.size(); i++) {
+            Node node = this.sources.get(i).get(key);
+            if (node != null) {
+                return node;
+            }
+        }
+        this.size.incrementAndGet();
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return this.size.get();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Set<Entry<String, Node>> entrySet() {
+        return this.entrySet;
+    }
+
+    /**
+     * Gets if the key is present in any of the sources before the given index.
+     *
+     * @param key the key
+     * @param index the source index
+     * @return if the key is shadowed
+     */
+    private boolean isShadowed(String key, int index) {
+        for (int i = 0; i < index; i++) {
+            if (this.sources.get(i).containsKey(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, Node>> {
+        @Override
+        public Iterator<Entry<String, Node>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return LayeredPermissionMap.this.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return LayeredPermissionMap.this.isEmpty();
+        }
+    }
+
+    private final class EntryIterator extends AbstractIterator<Entry<String, Node>> {
+        private int index = 0;
+        private Iterator<Entry<String, Node>> it = LayeredPermissionMap.this.sources.get(0).entrySet().iterator();
+
+        @Override
+        protected Entry<String, Node> computeNext() {
+            List<Map<String, Node>> sources = LayeredPermissionMap.this.sources;
+            while (true) {
+                while (this.it.hasNext()) {
+                    Entry<String, Node> entry = this.it.next();
+                    if (!isShadowed(entry.getKey(), this.index)) {
+                        return entry;
+                    }
+                }
+
+                if (++this.index >= sources.size()) {
+                    return endOfData();
+                }
+                this.it = sources.get(this.index).entrySet().iterator();
+            }
+        }
+    }
+
+}
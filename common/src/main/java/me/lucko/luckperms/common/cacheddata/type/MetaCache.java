@@ -115,6 +115,11 @@ public class MetaCache extends UsageTracked implements CachedMetaData {
         this.suffix = sourceMeta.getSuffix();
     }
 
+    @Override
+    public int weight() {
+        return 1 + this.flattenedMeta.size() + this.prefixes.size() + this.suffixes.size();
+    }
+
     public @NonNull StringResult<MetaNode> getMetaValue(String key, CheckOrigin origin) {
         Objects.requireNonNull(key, "key");
         return this.flattenedMeta.getOrDefault(key.toLowerCase(Locale.ROOT), StringResult.nullResult());
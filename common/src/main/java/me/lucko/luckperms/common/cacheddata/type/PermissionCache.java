@@ -38,10 +38,10 @@ import net.luckperms.api.node.Node;
 import net.luckperms.api.query.QueryOptions;
 import net.luckperms.api.util.Tristate;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Collections;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Holds cached permissions data for a given context
@@ -55,6 +55,8 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
 
     /**
      * The raw set of permission strings.
+     *
+     * <p>Always safe for concurrent reads and puts.</p>
      */
     private final Map<String, Node> permissions;
 
@@ -70,8 +72,14 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
      */
     private final PermissionCalculator calculator;
 
-    public PermissionCache(QueryOptions queryOptions, CacheMetadata metadata, CalculatorFactory calculatorFactory, ConcurrentHashMap<String, Node> sourcePermissions) {
+    /**
+     * The generation of in-place changes this cache reflects.
+     */
+    private volatile int generation;
+
+    public PermissionCache(QueryOptions queryOptions, CacheMetadata metadata, CalculatorFactory calculatorFactory, Map<String, Node> sourcePermissions, int generation) {
         this.queryOptions = queryOptions;
+        this.generation = generation;
         this.permissions = sourcePermissions;
         this.permissionsView = Collections.unmodifiableMap(Maps.transformValues(this.permissions, Node::getValue));
 
@@ -84,6 +92,41 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
         this.calculator.invalidateCache();
     }
 
+    /**
+     * Applies a set of changes to the raw permissions held by this cache in place,
+     * refreshing the calculator so that it reflects the new state.
+     *
+     * @param changes the permissions to put into the source map
+     * @param generation the generation of changes the cache now reflects
+     */
+    public void applyChanges(Map<String, Node> changes, int generation) {
+        if (!changes.isEmpty()) {
+            this.permissions.putAll(changes);
+            this.calculator.setSourcePermissions(this.permissions);
+            this.calculator.invalidateCache();
+        }
+        this.generation = generation;
+    }
+
+    @Override
+    public int weight() {
+        return 1 + this.permissions.size() + this.calculator.getLookupCacheSize();
+    }
+
+    public int getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Gets the node currently defining the value of the given (lowercase) permission.
+     *
+     * @param permission the permission
+     * @return the node, or null if the permission is not set
+     */
+    public @Nullable Node getSourceNode(String permission) {
+        return this.permissions.get(permission);
+    }
+
     public PermissionCalculator getCalculator() {
         return this.calculator;
     }
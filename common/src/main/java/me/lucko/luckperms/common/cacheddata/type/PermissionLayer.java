@@ -0,0 +1,108 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.cacheddata.type;
+
+import com.google.common.collect.ImmutableMap;
+import me.lucko.luckperms.common.cacheddata.UsageTracked;
+import me.lucko.luckperms.common.node.utils.PermissionSymbols;
+import net.luckperms.api.node.Node;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable set of permissions resolved for a group (including those it inherits)
+ * in a given context.
+ *
+ * <p>Layers are shared between the permission caches of all holders which inherit
+ * the group, see {@link LayeredPermissionMap}.</p>
+ */
+public final class PermissionLayer extends UsageTracked {
+
+    /**
+     * Creates a new layer from the given nodes, in order of priority.
+     *
+     * @param nodes the resolved nodes
+     * @param resolveShorthand if shorthand permissions should be resolved
+     * @return a layer
+     */
+    public static PermissionLayer of(Iterable<Node> nodes, boolean resolveShorthand) {
+        Map<String, Node> permissions = new LinkedHashMap<>();
+        Map<String, Node> shorthandPermissions = new LinkedHashMap<>();
+        accumulate(nodes, permissions, shorthandPermissions, resolveShorthand);
+        return new PermissionLayer(ImmutableMap.copyOf(permissions), ImmutableMap.copyOf(shorthandPermissions));
+    }
+
+    /**
+     * Accumulates the lowercase permissions defined by the given nodes into the maps,
+     * with the first node for each permission taking priority.
+     *
+     * <p>Shorthand permissions are kept separate, as they only apply after all of the
+     * directly defined permissions in the inheritance tree.</p>
+     *
+     * @param nodes the nodes, in order of priority
+     * @param permissions the map to accumulate directly defined permissions into
+     * @param shorthandPermissions the map to accumulate shorthand permissions into
+     * @param resolveShorthand if shorthand permissions should be resolved
+     */
+    public static void accumulate(Iterable<Node> nodes, Map<String, Node> permissions, Map<String, Node> shorthandPermissions, boolean resolveShorthand) {
+        for (Node node : nodes) {
+            permissions.putIfAbsent(node.getKey().toLowerCase(Locale.ROOT), node);
+        }
+
+        if (resolveShorthand) {
+            for (Node node : nodes) {
+                for (String s : node.resolveShorthand()) {
+                    shorthandPermissions.putIfAbsent(PermissionSymbols.canonical(s), node);
+                }
+            }
+        }
+    }
+
+    /**
+     * The directly defined permissions
+     */
+    private final Map<String, Node> permissions;
+
+    /**
+     * The permissions defined using shorthand
+     */
+    private final Map<String, Node> shorthandPermissions;
+
+    private PermissionLayer(Map<String, Node> permissions, Map<String, Node> shorthandPermissions) {
+        this.permissions = permissions;
+        this.shorthandPermissions = shorthandPermissions;
+    }
+
+    public Map<String, Node> getPermissions() {
+        return this.permissions;
+    }
+
+    public Map<String, Node> getShorthandPermissions() {
+        return this.shorthandPermissions;
+    }
+
+}
@@ -26,23 +26,30 @@
 package me.lucko.luckperms.common.calculator;
 
 import me.lucko.luckperms.common.cache.LoadingMap;
+import me.lucko.luckperms.common.cacheddata.BuildPhase;
 import me.lucko.luckperms.common.cacheddata.CacheMetadata;
 import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.calculator.processor.CompiledProcessor;
 import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
+import me.lucko.luckperms.common.metrics.CacheMetrics;
+import me.lucko.luckperms.common.metrics.MetricRegistry;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.verbose.event.CheckOrigin;
 import net.luckperms.api.node.Node;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 
 /**
  * Calculates and caches permissions
  */
 public class PermissionCalculator implements Function<String, TristateResult> {
+    private static final CacheMetrics LOOKUP_CACHE_METRICS = MetricRegistry.cache("permission_lookup");
 
     /** The plugin instance */
     private final LuckPermsPlugin plugin;
@@ -54,12 +61,28 @@ public class PermissionCalculator implements Function<String, TristateResult> {
     private final PermissionProcessor[] processors;
 
     /** Loading cache for permission checks */
-    private final LoadingMap<String, TristateResult> lookupCache = LoadingMap.of(this);
+    private final LoadingMap<String, TristateResult> lookupCache = LoadingMap.of(this, LOOKUP_CACHE_METRICS);
 
     public PermissionCalculator(LuckPermsPlugin plugin, CacheMetadata metadata, Collection<PermissionProcessor> processors) {
+        this(plugin, metadata, processors, false);
+    }
+
+    /**
+     * Creates a new permission calculator.
+     *
+     * <p>If {@code compile} is true, the leading source based processors are replaced
+     * by a single {@link CompiledProcessor}, which answers lookups with one walk over a
+     * trie built in {@link #setSourcePermissions(Map)}.</p>
+     *
+     * @param plugin the plugin instance
+     * @param metadata the calculator metadata
+     * @param processors the processors which back the calculator
+     * @param compile if the processors should be compiled
+     */
+    public PermissionCalculator(LuckPermsPlugin plugin, CacheMetadata metadata, Collection<PermissionProcessor> processors, boolean compile) {
         this.plugin = plugin;
         this.metadata = metadata;
-        this.processors = processors.toArray(new PermissionProcessor[0]);
+        this.processors = compile ? CompiledProcessor.compile(processors) : processors.toArray(new PermissionProcessor[0]);
     }
 
     /**
@@ -76,12 +99,25 @@ public class PermissionCalculator implements Function<String, TristateResult> {
         TristateResult result = this.lookupCache.get(permission);
 
         // log this permission lookup to the verbose handler
-        this.plugin.getVerboseHandler().offerPermissionCheckEvent(origin, this.metadata.getVerboseCheckInfo(), this.metadata.getQueryOptions(), permission, result);
+        offerCheckEvent(permission, origin, result);
 
         // return the result
         return result;
     }
 
+    /**
+     * Logs a permission check answered by this calculator to the verbose handler.
+     *
+     * <p>Used directly when the result was obtained from a cache in front of this calculator.</p>
+     *
+     * @param permission the permission which was checked
+     * @param origin marks where this check originated from
+     * @param result the result
+     */
+    public void offerCheckEvent(String permission, CheckOrigin origin, TristateResult result) {
+        this.plugin.getVerboseHandler().offerPermissionCheckEvent(origin, this.metadata.getVerboseCheckInfo(), this.metadata.getQueryOptions(), permission, result);
+    }
+
     @Override
     public TristateResult apply(@NonNull String permission) {
         // convert the permission to lowercase, as all values in the backing map are also lowercase.
@@ -107,10 +143,44 @@ public class PermissionCalculator implements Function<String, TristateResult> {
      * @param sourceMap the source map
      */
     public synchronized void setSourcePermissions(Map<String, Node> sourceMap) {
+        long start = System.nanoTime();
         for (PermissionProcessor processor : this.processors) {
             processor.setSource(sourceMap);
             processor.refresh();
         }
+        BuildPhase.PROCESSOR_REFRESH.timer().recordSince(start);
+    }
+
+    /**
+     * Resolves the given permission ahead of time, so that later checks are
+     * answered from the cache.
+     *
+     * <p>Unlike {@link #checkPermission(String, CheckOrigin)}, the lookup is not
+     * logged to the verbose handler.</p>
+     *
+     * @param permission the permission
+     */
+    public void preload(String permission) {
+        this.lookupCache.get(permission);
+    }
+
+    /**
+     * Gets the permissions which have been checked against this calculator
+     * since it was last invalidated.
+     *
+     * @return the checked permissions
+     */
+    public Set<String> getCheckedPermissions() {
+        return Collections.unmodifiableSet(this.lookupCache.keySet());
+    }
+
+    /**
+     * Gets the number of permission check results currently cached by this calculator.
+     *
+     * @return the number of cached results
+     */
+    public int getLookupCacheSize() {
+        return this.lookupCache.size();
     }
 
     public void invalidateCache() {
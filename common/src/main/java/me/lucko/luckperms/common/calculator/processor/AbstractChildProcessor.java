@@ -0,0 +1,155 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator.processor;
+
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.util.Tristate;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Abstract implementation of a processor for platforms with a "child" permission system.
+ *
+ * <p>Child permissions are resolved from the platform's permission map, which can change
+ * independently of the source map, so they are lazily refreshed after an invalidation.
+ * If the platform can tell which permissions have changed, only the children of
+ * those permissions are resolved again.</p>
+ */
+public abstract class AbstractChildProcessor extends AbstractSourceBasedProcessor implements PermissionProcessor {
+    private final TristateResult.Factory resultFactory = new TristateResult.Factory(getClass());
+
+    private final AtomicBoolean needsRefresh = new AtomicBoolean(false);
+    private Map<String, Map<String, Boolean>> resolvedChildPermissions = Collections.emptyMap();
+    private Map<String, TristateResult> childPermissions = Collections.emptyMap();
+
+    /**
+     * Resolves the child permissions of the given permission, as defined by the platform.
+     *
+     * @param permission the parent permission
+     * @param value the value of the parent permission
+     * @return the child permissions
+     */
+    protected abstract Map<String, Boolean> resolveChildPermissions(String permission, boolean value);
+
+    /**
+     * Gets the permissions whose children may have changed since this method was
+     * last called, or since the last full {@link #refresh()}.
+     *
+     * @return the changed permissions, or null if unknown
+     */
+    protected @Nullable Set<String> getChangedPermissions() {
+        return null;
+    }
+
+    /**
+     * Gets the child permissions calculated during the last {@link #refresh()}.
+     *
+     * @return the child permissions
+     */
+    public Map<String, TristateResult> getChildPermissions() {
+        return this.childPermissions;
+    }
+
+    @Override
+    public TristateResult hasPermission(String permission) {
+        if (this.needsRefresh.compareAndSet(true, false)) {
+            refreshChanged();
+        }
+        return this.childPermissions.getOrDefault(permission, TristateResult.UNDEFINED);
+    }
+
+    @Override
+    public synchronized void refresh() {
+        Map<String, Map<String, Boolean>> resolvedChildPermissions = new HashMap<>();
+        this.sourceMap.forEach((key, node) -> resolvedChildPermissions.put(key, resolveChildPermissions(key, node.getValue())));
+        this.resolvedChildPermissions = resolvedChildPermissions;
+        this.childPermissions = merge(resolvedChildPermissions);
+        this.needsRefresh.set(false);
+    }
+
+    /**
+     * Refreshes the child permissions following an invalidation, resolving again only
+     * the children of the permissions returned by {@link #getChangedPermissions()}.
+     *
+     * @return true if the child permissions changed
+     */
+    public synchronized boolean refreshChanged() {
+        Set<String> changed = getChangedPermissions();
+        if (changed == null) {
+            refresh();
+            return true;
+        }
+
+        Map<String, Map<String, Boolean>> resolvedChildPermissions = null;
+        for (String permission : changed) {
+            Node node = this.sourceMap.get(permission);
+            if (node == null) {
+                continue;
+            }
+
+            Map<String, Boolean> children = resolveChildPermissions(permission, node.getValue());
+            if (children.equals(this.resolvedChildPermissions.get(permission))) {
+                continue;
+            }
+
+            if (resolvedChildPermissions == null) {
+                resolvedChildPermissions = new HashMap<>(this.resolvedChildPermissions);
+            }
+            resolvedChildPermissions.put(permission, children);
+        }
+
+        if (resolvedChildPermissions == null) {
+            return false;
+        }
+
+        this.resolvedChildPermissions = resolvedChildPermissions;
+        this.childPermissions = merge(resolvedChildPermissions);
+        return true;
+    }
+
+    private Map<String, TristateResult> merge(Map<String, Map<String, Boolean>> resolvedChildPermissions) {
+        // children are merged in the order of the source map, so later entries take priority
+        Map<String, TristateResult> childPermissions = new HashMap<>();
+        this.sourceMap.forEach((key, node) -> {
+            Map<String, Boolean> children = resolvedChildPermissions.getOrDefault(key, Collections.emptyMap());
+            children.forEach((childKey, childValue) -> {
+                childPermissions.put(childKey, this.resultFactory.resultWithOverride(node, Tristate.of(childValue)));
+            });
+        });
+        return childPermissions;
+    }
+
+    @Override
+    public void invalidate() {
+        this.needsRefresh.set(true);
+    }
+}
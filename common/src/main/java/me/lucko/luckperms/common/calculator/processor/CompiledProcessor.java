@@ -0,0 +1,252 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator.processor;
+
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.node.AbstractNode;
+import net.luckperms.api.node.Node;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link PermissionProcessor} which replaces a leading run of the standard source
+ * based processors with a single walk over a {@link PermissionTrie}.
+ *
+ * <p>Results are attributed to the processor that would have produced them, so the
+ * outcome (and the verbose output) is identical to running the processors in sequence.</p>
+ */
+public final class CompiledProcessor extends AbstractSourceBasedProcessor implements PermissionProcessor {
+    private static final TristateResult.Factory DIRECT_RESULT_FACTORY = new TristateResult.Factory(DirectProcessor.class);
+    private static final TristateResult.Factory WILDCARD_RESULT_FACTORY = new TristateResult.Factory(WildcardProcessor.class);
+    private static final TristateResult.Factory SPONGE_WILDCARD_RESULT_FACTORY = new TristateResult.Factory(SpongeWildcardProcessor.class);
+
+    private static final byte DIRECT = 0;
+    private static final byte CHILD = 1;
+    private static final byte REGEX = 2;
+    private static final byte WILDCARD = 3;
+    private static final byte SPONGE_WILDCARD = 4;
+
+    /**
+     * Replaces the leading processors in the given collection which can be compiled
+     * with a single {@link CompiledProcessor}.
+     *
+     * @param processors the processors
+     * @return the processors to use
+     */
+    public static PermissionProcessor[] compile(Collection<PermissionProcessor> processors) {
+        List<PermissionProcessor> compiled = new ArrayList<>();
+        List<PermissionProcessor> remaining = new ArrayList<>();
+        for (PermissionProcessor processor : processors) {
+            if (remaining.isEmpty() && slot(processor) != -1) {
+                compiled.add(processor);
+            } else {
+                remaining.add(processor);
+            }
+        }
+
+        if (compiled.isEmpty()) {
+            return processors.toArray(new PermissionProcessor[0]);
+        }
+
+        remaining.add(0, new CompiledProcessor(compiled));
+        return remaining.toArray(new PermissionProcessor[0]);
+    }
+
+    private static byte slot(PermissionProcessor processor) {
+        // match on exact types, subclasses may change behaviour
+        Class<?> clazz = processor.getClass();
+        if (clazz == DirectProcessor.class) {
+            return DIRECT;
+        } else if (processor instanceof AbstractChildProcessor) {
+            return CHILD;
+        } else if (clazz == RegexProcessor.class) {
+            return REGEX;
+        } else if (clazz == WildcardProcessor.class) {
+            return WILDCARD;
+        } else if (clazz == SpongeWildcardProcessor.class) {
+            return SPONGE_WILDCARD;
+        } else {
+            return -1;
+        }
+    }
+
+    /** The order in which results from each slot should be considered */
+    private final byte[] order;
+    private final boolean[] enabled = new boolean[5];
+
+    /** The processors which are still consulted to build the trie */
+    private final AbstractChildProcessor childProcessor;
+    private final RegexProcessor regexProcessor;
+
+    private final AtomicBoolean needsRefresh = new AtomicBoolean(false);
+    private PermissionTrie trie = PermissionTrie.EMPTY;
+
+    private CompiledProcessor(List<PermissionProcessor> processors) {
+        this.order = new byte[processors.size()];
+
+        AbstractChildProcessor childProcessor = null;
+        RegexProcessor regexProcessor = null;
+        for (int i = 0; i < this.order.length; i++) {
+            PermissionProcessor processor = processors.get(i);
+            byte slot = slot(processor);
+            this.order[i] = slot;
+            this.enabled[slot] = true;
+
+            if (slot == CHILD) {
+                childProcessor = (AbstractChildProcessor) processor;
+            } else if (slot == REGEX) {
+                regexProcessor = (RegexProcessor) processor;
+            }
+        }
+        this.childProcessor = childProcessor;
+        this.regexProcessor = regexProcessor;
+    }
+
+    @Override
+    public TristateResult hasPermission(String permission) {
+        if (this.needsRefresh.compareAndSet(true, false)) {
+            // only the child permissions can have changed since the last refresh
+            if (this.childProcessor.refreshChanged()) {
+                buildTrie();
+            }
+        }
+
+        PermissionTrie trie = this.trie;
+        int node = PermissionTrie.ROOT;
+        int wildcardMatch = PermissionTrie.NO_NODE;
+        int spongeWildcardMatch = PermissionTrie.NO_NODE;
+
+        // walk the trie, remembering the deepest wildcard matches at each separator
+        for (int i = 0, len = permission.length(); i < len; i++) {
+            char c = permission.charAt(i);
+            if (c == AbstractNode.NODE_SEPARATOR && i != 0) {
+                if (trie.wildcard(node) != null) {
+                    wildcardMatch = node;
+                }
+                if (trie.spongeWildcard(node) != null) {
+                    spongeWildcardMatch = node;
+                }
+            }
+
+            node = trie.next(node, c);
+            if (node == PermissionTrie.NO_NODE) {
+                break;
+            }
+        }
+
+        for (byte slot : this.order) {
+            TristateResult result;
+            switch (slot) {
+                case DIRECT:
+                    result = node == PermissionTrie.NO_NODE ? null : trie.direct(node);
+                    break;
+                case CHILD:
+                    result = node == PermissionTrie.NO_NODE ? null : trie.child(node);
+                    break;
+                case REGEX:
+                    result = this.regexProcessor.hasPermission(permission);
+                    break;
+                case WILDCARD:
+                    // the root node holds the root wildcard, as the empty prefix is never matched
+                    result = trie.wildcard(wildcardMatch == PermissionTrie.NO_NODE ? PermissionTrie.ROOT : wildcardMatch);
+                    break;
+                case SPONGE_WILDCARD:
+                    result = spongeWildcardMatch == PermissionTrie.NO_NODE ? null : trie.spongeWildcard(spongeWildcardMatch);
+                    break;
+                default:
+                    throw new AssertionError();
+            }
+
+            if (result != null && result != TristateResult.UNDEFINED) {
+                return result;
+            }
+        }
+        return TristateResult.UNDEFINED;
+    }
+
+    @Override
+    public void refresh() {
+        if (this.childProcessor != null) {
+            this.childProcessor.setSource(this.sourceMap);
+            this.childProcessor.refresh();
+        }
+
+        if (this.regexProcessor != null) {
+            this.regexProcessor.setSource(this.sourceMap);
+            this.regexProcessor.refresh();
+        }
+
+        buildTrie();
+        this.needsRefresh.set(false);
+    }
+
+    private synchronized void buildTrie() {
+        PermissionTrie.Builder builder = PermissionTrie.builder();
+
+        for (Map.Entry<String, Node> e : this.sourceMap.entrySet()) {
+            String key = e.getKey();
+            Node node = e.getValue();
+
+            if (this.enabled[DIRECT]) {
+                builder.direct(key, DIRECT_RESULT_FACTORY.result(node));
+            }
+            if (this.enabled[SPONGE_WILDCARD]) {
+                builder.spongeWildcard(key, SPONGE_WILDCARD_RESULT_FACTORY.result(node));
+            }
+            if (this.enabled[WILDCARD] && key.endsWith(WildcardProcessor.WILDCARD_SUFFIX) && key.length() > 2) {
+                builder.wildcard(key.substring(0, key.length() - 2), WILDCARD_RESULT_FACTORY.result(node));
+            }
+        }
+
+        if (this.childProcessor != null) {
+            this.childProcessor.getChildPermissions().forEach(builder::child);
+        }
+
+        if (this.enabled[WILDCARD]) {
+            Node rootWildcard = this.sourceMap.get(WildcardProcessor.ROOT_WILDCARD);
+            if (rootWildcard == null) {
+                rootWildcard = this.sourceMap.get(WildcardProcessor.ROOT_WILDCARD_WITH_QUOTES);
+            }
+            if (rootWildcard != null) {
+                builder.wildcard("", WILDCARD_RESULT_FACTORY.result(rootWildcard));
+            }
+        }
+
+        this.trie = builder.build();
+    }
+
+    @Override
+    public void invalidate() {
+        // child permissions depend on the platform permission map, which may have changed
+        if (this.childProcessor != null) {
+            this.needsRefresh.set(true);
+        }
+    }
+}
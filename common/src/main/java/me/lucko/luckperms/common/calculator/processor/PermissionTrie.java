@@ -0,0 +1,202 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator.processor;
+
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable, char-level trie mapping permission strings to precomputed results.
+ *
+ * <p>Each node can hold up to four results: a direct result (for an exact match), a child
+ * result (for a platform child permission), a wildcard result (for {@code <node>.*}) and a
+ * sponge wildcard result (for the implicit inheritance of {@code <node>}).</p>
+ *
+ * <p>Nodes are stored in flat arrays and identified by their index, so walking the trie
+ * requires no allocation.</p>
+ */
+public final class PermissionTrie {
+
+    /** The index of the root node */
+    public static final int ROOT = 0;
+
+    /** Returned by {@link #next(int, char)} when there is no matching edge */
+    public static final int NO_NODE = -1;
+
+    /** An empty trie */
+    public static final PermissionTrie EMPTY = builder().build();
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** The start index of each node's edges in the edge arrays, plus a trailing end index */
+    private final int[] edgeStart;
+    /** The character of each edge, sorted within each node */
+    private final char[] edgeChars;
+    /** The target node of each edge */
+    private final int[] edgeTargets;
+
+    private final TristateResult[] direct;
+    private final TristateResult[] child;
+    private final TristateResult[] wildcard;
+    private final TristateResult[] spongeWildcard;
+
+    private PermissionTrie(int[] edgeStart, char[] edgeChars, int[] edgeTargets, TristateResult[] direct, TristateResult[] child, TristateResult[] wildcard, TristateResult[] spongeWildcard) {
+        this.edgeStart = edgeStart;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.direct = direct;
+        this.child = child;
+        this.wildcard = wildcard;
+        this.spongeWildcard = spongeWildcard;
+    }
+
+    /**
+     * Follows the edge labelled {@code c} from the given node.
+     *
+     * @param node the node index
+     * @param c the character
+     * @return the index of the next node, or {@link #NO_NODE}
+     */
+    public int next(int node, char c) {
+        int idx = Arrays.binarySearch(this.edgeChars, this.edgeStart[node], this.edgeStart[node + 1], c);
+        return idx < 0 ? NO_NODE : this.edgeTargets[idx];
+    }
+
+    public TristateResult direct(int node) {
+        return this.direct[node];
+    }
+
+    public TristateResult child(int node) {
+        return this.child[node];
+    }
+
+    public TristateResult wildcard(int node) {
+        return this.wildcard[node];
+    }
+
+    public TristateResult spongeWildcard(int node) {
+        return this.spongeWildcard[node];
+    }
+
+    public int size() {
+        return this.direct.length;
+    }
+
+    public static final class Builder {
+        private final MutableNode root = new MutableNode();
+
+        private Builder() {
+
+        }
+
+        private MutableNode insert(String key) {
+            MutableNode node = this.root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new MutableNode());
+            }
+            return node;
+        }
+
+        public Builder direct(String key, TristateResult result) {
+            insert(key).direct = result;
+            return this;
+        }
+
+        public Builder child(String key, TristateResult result) {
+            insert(key).child = result;
+            return this;
+        }
+
+        public Builder wildcard(String key, TristateResult result) {
+            insert(key).wildcard = result;
+            return this;
+        }
+
+        public Builder spongeWildcard(String key, TristateResult result) {
+            insert(key).spongeWildcard = result;
+            return this;
+        }
+
+        public PermissionTrie build() {
+            // number the nodes in breadth-first order, so that the
+            // edges of each node are stored contiguously
+            int nodeCount = 0;
+            Deque<MutableNode> queue = new ArrayDeque<>();
+            queue.add(this.root);
+            while (!queue.isEmpty()) {
+                MutableNode node = queue.poll();
+                node.index = nodeCount++;
+                queue.addAll(node.children.values());
+            }
+
+            int[] edgeStart = new int[nodeCount + 1];
+            char[] edgeChars = new char[nodeCount - 1];
+            int[] edgeTargets = new int[nodeCount - 1];
+            TristateResult[] direct = new TristateResult[nodeCount];
+            TristateResult[] child = new TristateResult[nodeCount];
+            TristateResult[] wildcard = new TristateResult[nodeCount];
+            TristateResult[] spongeWildcard = new TristateResult[nodeCount];
+
+            int edge = 0;
+            queue.add(this.root);
+            while (!queue.isEmpty()) {
+                MutableNode node = queue.poll();
+                int i = node.index;
+                direct[i] = node.direct;
+                child[i] = node.child;
+                wildcard[i] = node.wildcard;
+                spongeWildcard[i] = node.spongeWildcard;
+
+                edgeStart[i] = edge;
+                for (Map.Entry<Character, MutableNode> e : node.children.entrySet()) {
+                    edgeChars[edge] = e.getKey();
+                    edgeTargets[edge] = e.getValue().index;
+                    edge++;
+                    queue.add(e.getValue());
+                }
+            }
+            edgeStart[nodeCount] = edge;
+
+            return new PermissionTrie(edgeStart, edgeChars, edgeTargets, direct, child, wildcard, spongeWildcard);
+        }
+    }
+
+    private static final class MutableNode {
+        private final TreeMap<Character, MutableNode> children = new TreeMap<>();
+        private TristateResult direct;
+        private TristateResult child;
+        private TristateResult wildcard;
+        private TristateResult spongeWildcard;
+        private int index;
+    }
+}
@@ -38,8 +38,8 @@ public class WildcardProcessor extends AbstractSourceBasedProcessor implements P
     private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(WildcardProcessor.class);
 
     public static final String WILDCARD_SUFFIX = ".*";
-    private static final String ROOT_WILDCARD = "*";
-    private static final String ROOT_WILDCARD_WITH_QUOTES = "'*'";
+    static final String ROOT_WILDCARD = "*";
+    static final String ROOT_WILDCARD_WITH_QUOTES = "'*'";
 
     public static boolean isRootWildcard(String permission) {
         return ROOT_WILDCARD.equals(permission) || ROOT_WILDCARD_WITH_QUOTES.equals(permission);
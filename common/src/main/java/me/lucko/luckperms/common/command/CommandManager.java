@@ -45,6 +45,7 @@ import me.lucko.luckperms.common.commands.misc.EditorCommand;
 import me.lucko.luckperms.common.commands.misc.ExportCommand;
 import me.lucko.luckperms.common.commands.misc.ImportCommand;
 import me.lucko.luckperms.common.commands.misc.InfoCommand;
+import me.lucko.luckperms.common.commands.misc.MetricsCommand;
 import me.lucko.luckperms.common.commands.misc.NetworkSyncCommand;
 import me.lucko.luckperms.common.commands.misc.ReloadConfigCommand;
 import me.lucko.luckperms.common.commands.misc.SearchCommand;
@@ -128,6 +129,7 @@ public class CommandManager {
                 .add(new TranslationsCommand())
                 .add(new ApplyEditsCommand())
                 .add(new TrustEditorCommand())
+                .add(new MetricsCommand())
                 .add(new CreateGroup())
                 .add(new DeleteGroup())
                 .add(new ListGroups())
@@ -92,6 +92,7 @@ public enum CommandSpec {
     TRUST_EDITOR("/%s trusteditor <id>",
             arg("id", true)
     ),
+    METRICS("/%s metrics"),
 
     CREATE_GROUP("/%s creategroup <group>",
             arg("name", true),
@@ -36,6 +36,7 @@ import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
 
+import java.util.Collections;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
@@ -75,12 +76,21 @@ public final class StorageAssistant {
     }
 
     public static void save(User user, Sender sender, LuckPermsPlugin plugin) {
-        try {
-            plugin.getStorage().saveUser(user).get();
-        } catch (Exception e) {
-            plugin.getLogger().warn("Error whilst saving user", e);
-            Message.USER_SAVE_ERROR.send(sender, user);
-            return;
+        CompletableFuture<Void> save = plugin.getStorage().saveUser(user);
+        if (plugin.getStorage().isWriteBehind()) {
+            // the save is held back by the write-behind queue - don't wait for it
+            save.exceptionally(e -> {
+                Message.USER_SAVE_ERROR.send(sender, user);
+                return null;
+            });
+        } else {
+            try {
+                save.get();
+            } catch (Exception e) {
+                plugin.getLogger().warn("Error whilst saving user", e);
+                Message.USER_SAVE_ERROR.send(sender, user);
+                return;
+            }
         }
 
         Optional<InternalMessagingService> messagingService = plugin.getMessagingService();
@@ -90,15 +100,31 @@ public final class StorageAssistant {
     }
 
     public static CompletableFuture<Void> save(Group group, Sender sender, LuckPermsPlugin plugin) {
-        try {
-            plugin.getStorage().saveGroup(group).get();
-        } catch (Exception e) {
-            plugin.getLogger().warn("Error whilst saving group", e);
-            Message.GROUP_SAVE_ERROR.send(sender, group);
-            return failedFuture(e);
+        CompletableFuture<Void> save = plugin.getStorage().saveGroup(group);
+        if (plugin.getStorage().isWriteBehind()) {
+            // the save is held back by the write-behind queue - don't wait for it
+            save.exceptionally(e -> {
+                Message.GROUP_SAVE_ERROR.send(sender, group);
+                return null;
+            });
+        } else {
+            try {
+                save.get();
+            } catch (Exception e) {
+                plugin.getLogger().warn("Error whilst saving group", e);
+                Message.GROUP_SAVE_ERROR.send(sender, group);
+                return failedFuture(e);
+            }
         }
 
-        return invalidateCachesAndPushUpdates(plugin);
+        plugin.getInheritanceDependencyIndex().invalidate(Collections.singleton(group.getName()));
+
+        Optional<InternalMessagingService> messagingService = plugin.getMessagingService();
+        if (messagingService.isPresent() && plugin.getConfiguration().get(ConfigKeys.AUTO_PUSH_UPDATES)) {
+            return messagingService.get().pushGroupUpdate(group);
+        } else {
+            return CompletableFuture.completedFuture(null);
+        }
     }
 
     public static CompletableFuture<Void> save(Track track, Sender sender, LuckPermsPlugin plugin) {
@@ -128,7 +154,10 @@ public final class StorageAssistant {
     public static CompletableFuture<Void> invalidateCachesAndPushUpdates(LuckPermsPlugin plugin) {
         plugin.getGroupManager().invalidateAllGroupCaches();
         plugin.getUserManager().invalidateAllUserCaches();
+        return pushUpdates(plugin);
+    }
 
+    private static CompletableFuture<Void> pushUpdates(LuckPermsPlugin plugin) {
         Optional<InternalMessagingService> messagingService = plugin.getMessagingService();
         if (messagingService.isPresent() && plugin.getConfiguration().get(ConfigKeys.AUTO_PUSH_UPDATES)) {
             return messagingService.get().getUpdateBuffer().request();
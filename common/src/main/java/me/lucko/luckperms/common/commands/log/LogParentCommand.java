@@ -26,22 +26,27 @@
 package me.lucko.luckperms.common.commands.log;
 
 import com.google.common.collect.ImmutableList;
-import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.PageParameters;
 import me.lucko.luckperms.common.command.abstraction.Command;
 import me.lucko.luckperms.common.command.abstraction.ParentCommand;
 import me.lucko.luckperms.common.command.spec.CommandSpec;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.List;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.locks.ReentrantLock;
 
-public class LogParentCommand extends ParentCommand<Log, Void> {
+public class LogParentCommand extends ParentCommand<Storage, Void> {
     private final ReentrantLock lock = new ReentrantLock();
 
     public LogParentCommand() {
-        super(CommandSpec.LOG, "Log", Type.NO_TARGET_ARGUMENT, ImmutableList.<Command<Log>>builder()
+        super(CommandSpec.LOG, "Log", Type.NO_TARGET_ARGUMENT, ImmutableList.<Command<Storage>>builder()
                 .add(new LogRecent())
                 .add(new LogSearch())
                 .add(new LogNotify())
@@ -58,18 +63,33 @@ public class LogParentCommand extends ParentCommand<Log, Void> {
     }
 
     @Override
-    protected Log getTarget(Void target, LuckPermsPlugin plugin, Sender sender) {
-        Log log = plugin.getStorage().getLog().join();
+    protected Storage getTarget(Void target, LuckPermsPlugin plugin, Sender sender) {
+        // the subcommands query the pages of the log they need from storage
+        return plugin.getStorage();
+    }
 
-        if (log == null) {
+    /**
+     * Loads a page of the log, informing the sender if it could not be loaded.
+     *
+     * @param sender the sender
+     * @param storage the storage
+     * @param filter the filter
+     * @param pageSize the number of entries per page
+     * @param page the page number, starting from 1
+     * @return the page, or null if the log could not be loaded
+     */
+    static @Nullable LogPage loadPage(Sender sender, Storage storage, LogFilter filter, int pageSize, int page) {
+        try {
+            return storage.getLogPage(filter, new PageParameters(pageSize, Math.max(page, 1))).join();
+        } catch (CompletionException e) {
+            sender.getPlugin().getLogger().warn("Unable to load the action log", e.getCause());
             Message.LOG_LOAD_ERROR.send(sender);
+            return null;
         }
-
-        return log;
     }
 
     @Override
-    protected void cleanup(Log log, LuckPermsPlugin plugin) {
+    protected void cleanup(Storage storage, LuckPermsPlugin plugin) {
 
     }
 
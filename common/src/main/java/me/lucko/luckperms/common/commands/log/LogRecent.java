@@ -25,7 +25,8 @@
 
 package me.lucko.luckperms.common.commands.log;
 
-import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.command.abstraction.ChildCommand;
 import me.lucko.luckperms.common.command.access.CommandPermission;
@@ -34,13 +35,14 @@ import me.lucko.luckperms.common.command.utils.ArgumentList;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
 import me.lucko.luckperms.common.util.Paginated;
 import me.lucko.luckperms.common.util.Predicates;
 
 import java.util.List;
 import java.util.UUID;
 
-public class LogRecent extends ChildCommand<Log> {
+public class LogRecent extends ChildCommand<Storage> {
     private static final int ENTRIES_PER_PAGE = 10;
     
     public LogRecent() {
@@ -48,18 +50,16 @@ public class LogRecent extends ChildCommand<Log> {
     }
 
     @Override
-    public void execute(LuckPermsPlugin plugin, Sender sender, Log log, ArgumentList args, String label) {
+    public void execute(LuckPermsPlugin plugin, Sender sender, Storage storage, ArgumentList args, String label) {
         if (args.isEmpty()) {
             // No page or user
-            Paginated<LoggedAction> content = new Paginated<>(log.getContent());
-            showLog(content.getMaxPages(ENTRIES_PER_PAGE), false, sender, content);
+            showLog(1, false, sender, storage, LogFilter.any());
             return;
         }
 
         int page = args.getIntOrDefault(0, Integer.MIN_VALUE);
         if (page != Integer.MIN_VALUE) {
-            Paginated<LoggedAction> content = new Paginated<>(log.getContent());
-            showLog(page, false, sender, content);
+            showLog(page, false, sender, storage, LogFilter.any());
             return;
         }
 
@@ -69,17 +69,16 @@ public class LogRecent extends ChildCommand<Log> {
             return;
         }
 
-        Paginated<LoggedAction> content = new Paginated<>(log.getContent(uuid));
-        page = args.getIntOrDefault(1, Integer.MIN_VALUE);
-        if (page != Integer.MIN_VALUE) {
-            showLog(page, true, sender, content);
-        } else {
-            showLog(content.getMaxPages(ENTRIES_PER_PAGE), true, sender, content);
-        }
+        page = args.getIntOrDefault(1, 1);
+        showLog(page, true, sender, storage, LogFilter.source(uuid));
     }
 
-    private static void showLog(int page, boolean specificUser, Sender sender, Paginated<LoggedAction> log) {
-        int maxPage = log.getMaxPages(ENTRIES_PER_PAGE);
+    private static void showLog(int page, boolean specificUser, Sender sender, Storage storage, LogFilter filter) {
+        LogPage log = LogParentCommand.loadPage(sender, storage, filter, ENTRIES_PER_PAGE, page);
+        if (log == null) {
+            return;
+        }
+        int maxPage = log.getMaxPage();
         if (maxPage == 0) {
             Message.LOG_NO_ENTRIES.send(sender);
             return;
@@ -90,7 +89,7 @@ public class LogRecent extends ChildCommand<Log> {
             return;
         }
 
-        List<Paginated.Entry<LoggedAction>> entries = log.getPage(page, ENTRIES_PER_PAGE);
+        List<Paginated.Entry<LoggedAction>> entries = log.getNumberedContent();
         if (specificUser) {
             String name = entries.stream().findAny().get().value().getSource().getName();
             if (name.contains("@")) {
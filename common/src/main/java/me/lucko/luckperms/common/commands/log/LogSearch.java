@@ -25,7 +25,8 @@
 
 package me.lucko.luckperms.common.commands.log;
 
-import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.command.abstraction.ChildCommand;
 import me.lucko.luckperms.common.command.access.CommandPermission;
@@ -34,12 +35,13 @@ import me.lucko.luckperms.common.command.utils.ArgumentList;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
 import me.lucko.luckperms.common.util.Paginated;
 import me.lucko.luckperms.common.util.Predicates;
 
 import java.util.List;
 
-public class LogSearch extends ChildCommand<Log> {
+public class LogSearch extends ChildCommand<Storage> {
     private static final int ENTRIES_PER_PAGE = 10;
 
     public LogSearch() {
@@ -47,8 +49,8 @@ public class LogSearch extends ChildCommand<Log> {
     }
 
     @Override
-    public void execute(LuckPermsPlugin plugin, Sender sender, Log log, ArgumentList args, String label) {
-        int page = Integer.MIN_VALUE;
+    public void execute(LuckPermsPlugin plugin, Sender sender, Storage storage, ArgumentList args, String label) {
+        int page = 1;
         if (args.size() > 1) {
             try {
                 page = Integer.parseInt(args.get(args.size() - 1));
@@ -59,32 +61,26 @@ public class LogSearch extends ChildCommand<Log> {
         }
 
         final String query = String.join(" ", args);
-        Paginated<LoggedAction> content = new Paginated<>(log.getSearch(query));
-
-        if (page != Integer.MIN_VALUE) {
-            showLog(page, query, sender, content);
-        } else {
-            showLog(content.getMaxPages(ENTRIES_PER_PAGE), query, sender, content);
+        LogPage log = LogParentCommand.loadPage(sender, storage, LogFilter.search(query), ENTRIES_PER_PAGE, page);
+        if (log == null) {
+            return;
         }
+        showLog(page, query, sender, log);
     }
 
-    private static void showLog(int page, String query, Sender sender, Paginated<LoggedAction> log) {
-        int maxPage = log.getMaxPages(ENTRIES_PER_PAGE);
+    private static void showLog(int page, String query, Sender sender, LogPage log) {
+        int maxPage = log.getMaxPage();
         if (maxPage == 0) {
             Message.LOG_NO_ENTRIES.send(sender);
             return;
         }
 
-        if (page == Integer.MIN_VALUE) {
-            page = maxPage;
-        }
-
         if (page < 1 || page > maxPage) {
             Message.LOG_INVALID_PAGE_RANGE.send(sender, maxPage);
             return;
         }
 
-        List<Paginated.Entry<LoggedAction>> entries = log.getPage(page, ENTRIES_PER_PAGE);
+        List<Paginated.Entry<LoggedAction>> entries = log.getNumberedContent();
         Message.LOG_SEARCH_HEADER.send(sender, query, page, maxPage);
 
         for (Paginated.Entry<LoggedAction> e : entries) {
@@ -25,7 +25,8 @@
 
 package me.lucko.luckperms.common.commands.log;
 
-import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.command.abstraction.ChildCommand;
 import me.lucko.luckperms.common.command.access.CommandPermission;
@@ -34,13 +35,14 @@ import me.lucko.luckperms.common.command.utils.ArgumentList;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
 import me.lucko.luckperms.common.util.Paginated;
 import me.lucko.luckperms.common.util.Predicates;
 
 import java.util.List;
 import java.util.UUID;
 
-public class LogUserHistory extends ChildCommand<Log> {
+public class LogUserHistory extends ChildCommand<Storage> {
     private static final int ENTRIES_PER_PAGE = 10;
 
     public LogUserHistory() {
@@ -48,24 +50,22 @@ public class LogUserHistory extends ChildCommand<Log> {
     }
 
     @Override
-    public void execute(LuckPermsPlugin plugin, Sender sender, Log log, ArgumentList args, String label) {
+    public void execute(LuckPermsPlugin plugin, Sender sender, Storage storage, ArgumentList args, String label) {
         UUID uuid = args.getUserTarget(0, plugin, sender);
         if (uuid == null) {
             return;
         }
 
-        Paginated<LoggedAction> content = new Paginated<>(log.getUserHistory(uuid));
-
-        int page = args.getIntOrDefault(1, Integer.MIN_VALUE);
-        if (page != Integer.MIN_VALUE) {
-            showLog(page, sender, content);
-        } else {
-            showLog(content.getMaxPages(ENTRIES_PER_PAGE), sender, content);
+        int page = args.getIntOrDefault(1, 1);
+        LogPage log = LogParentCommand.loadPage(sender, storage, LogFilter.user(uuid), ENTRIES_PER_PAGE, page);
+        if (log == null) {
+            return;
         }
+        showLog(page, sender, log);
     }
 
-    private static void showLog(int page, Sender sender, Paginated<LoggedAction> log) {
-        int maxPage = log.getMaxPages(ENTRIES_PER_PAGE);
+    private static void showLog(int page, Sender sender, LogPage log) {
+        int maxPage = log.getMaxPage();
         if (maxPage == 0) {
             Message.LOG_NO_ENTRIES.send(sender);
             return;
@@ -76,7 +76,7 @@ public class LogUserHistory extends ChildCommand<Log> {
             return;
         }
 
-        List<Paginated.Entry<LoggedAction>> entries = log.getPage(page, ENTRIES_PER_PAGE);
+        List<Paginated.Entry<LoggedAction>> entries = log.getNumberedContent();
         String name = entries.stream().findAny().get().value().getTarget().getName();
         Message.LOG_HISTORY_USER_HEADER.send(sender, name, page, maxPage);
 
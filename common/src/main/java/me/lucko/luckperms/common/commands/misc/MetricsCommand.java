@@ -0,0 +1,86 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.commands.misc;
+
+import me.lucko.luckperms.common.command.abstraction.SingleCommand;
+import me.lucko.luckperms.common.command.access.CommandPermission;
+import me.lucko.luckperms.common.command.spec.CommandSpec;
+import me.lucko.luckperms.common.command.utils.ArgumentList;
+import me.lucko.luckperms.common.locale.Message;
+import me.lucko.luckperms.common.metrics.CacheMetrics;
+import me.lucko.luckperms.common.metrics.Counter;
+import me.lucko.luckperms.common.metrics.Metric;
+import me.lucko.luckperms.common.metrics.MetricRegistry;
+import me.lucko.luckperms.common.metrics.Timer;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.util.Predicates;
+import net.kyori.adventure.text.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+public class MetricsCommand extends SingleCommand {
+    public MetricsCommand() {
+        super(CommandSpec.METRICS, "Metrics", CommandPermission.METRICS, Predicates.alwaysFalse());
+    }
+
+    @Override
+    public void execute(LuckPermsPlugin plugin, Sender sender, ArgumentList args, String label) {
+        Message.METRICS_HEADER.send(sender);
+
+        Message.METRICS_SECTION.send(sender, Component.translatable("luckperms.command.metrics.caches-key"));
+        for (CacheMetrics cache : MetricRegistry.getCaches()) {
+            Message.METRICS_CACHE_ENTRY.send(sender, cache.getName(), cache.hits(), cache.misses(), cache.hitRate());
+        }
+
+        // metrics are ordered by name, so each name forms a contiguous section
+        String section = null;
+        for (Timer timer : MetricRegistry.getTimers()) {
+            section = sendSectionHeader(sender, timer, section);
+            Message.METRICS_TIMER_ENTRY.send(sender, timer.getLabelValues(), timer.count(), formatNanos(timer.meanNanos()), formatNanos(timer.percentileNanos(0.99)));
+        }
+        for (Counter counter : MetricRegistry.getCounters()) {
+            section = sendSectionHeader(sender, counter, section);
+            Message.METRICS_COUNTER_ENTRY.send(sender, counter.getLabelValues(), counter.count());
+        }
+    }
+
+    private static String sendSectionHeader(Sender sender, Metric metric, String currentSection) {
+        if (!metric.getName().equals(currentSection)) {
+            Message.METRICS_SECTION.send(sender, Component.text(metric.getDescription()));
+        }
+        return metric.getName();
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 0) {
+            return ">10s";
+        }
+        return String.format(Locale.ROOT, "%.3fms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+}
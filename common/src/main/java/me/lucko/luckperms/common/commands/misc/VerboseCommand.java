@@ -150,6 +150,9 @@ public class VerboseCommand extends SingleCommand {
 
         if (mode.equals("off") || mode.equals("false") || mode.equals("paste") || mode.equals("upload")) {
             VerboseListener listener = verboseHandler.unregisterListener(sender);
+            if (listener != null && listener.getDroppedCount() != 0) {
+                Message.VERBOSE_DROPPED.send(sender, listener.getDroppedCount());
+            }
 
             if (mode.equals("paste") || mode.equals("upload")) {
                 if (listener == null) {
@@ -273,6 +273,62 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> APPLYING_SHORTHAND = notReloadable(booleanKey("apply-shorthand", true));
 
+    /**
+     * If permission calculators should compile their direct, child, wildcard and sponge wildcard
+     * lookups into a single trie
+     */
+    public static final ConfigKey<Boolean> COMPILE_PERMISSION_CALCULATORS = notReloadable(booleanKey("compile-permission-calculators", false));
+
+    /**
+     * The number of milliseconds user and group saves are held back for, or 0 if write-behind is disabled
+     */
+    public static final ConfigKey<Integer> WRITE_BEHIND_MILLIS = notReloadable(key(c -> Math.max(0, c.getInteger("write-behind-millis", 0))));
+
+    /**
+     * The number of milliseconds to gather logins for before loading them together, or 0 if login batching is disabled
+     */
+    public static final ConfigKey<Integer> LOGIN_BATCH_MILLIS = notReloadable(key(c -> Math.max(0, c.getInteger("login-batch-millis", 0))));
+
+    /**
+     * If contexts should be cached until they are signalled to have changed, when all calculators declare their inputs
+     */
+    public static final ConfigKey<Boolean> EVENT_DRIVEN_CONTEXTS = notReloadable(booleanKey("event-driven-contexts", false));
+
+    /**
+     * If the nodes held by permission holders should be stored in compact, read-optimized maps
+     */
+    public static final ConfigKey<Boolean> COMPACT_NODE_MAPS = notReloadable(booleanKey("compact-node-maps", false));
+
+    /**
+     * If the cached data of users should be calculated ahead of time as they log in
+     */
+    public static final ConfigKey<Boolean> PRELOAD_CACHED_DATA = notReloadable(booleanKey("preload-cached-data", false));
+
+    /**
+     * The maximum number of milliseconds stale cached data can be served for whilst it is refreshed in the background, or 0 if refresh-ahead is disabled
+     */
+    public static final ConfigKey<Integer> CACHE_REFRESH_AHEAD_MILLIS = notReloadable(key(c -> Math.max(0, c.getInteger("cache-refresh-ahead-millis", 0))));
+
+    /**
+     * The maximum number of cached data instances each user/group can hold of each type, or 0 if unbounded
+     */
+    public static final ConfigKey<Integer> CACHED_DATA_MAX_PER_HOLDER = notReloadable(key(c -> Math.max(0, c.getInteger("cached-data-max-per-holder", 0))));
+
+    /**
+     * The maximum total weight of cached data instances held across all users/groups, or 0 if unbounded
+     */
+    public static final ConfigKey<Long> CACHED_DATA_MAX_WEIGHT = notReloadable(key(c -> (long) Math.max(0, c.getInteger("cached-data-max-weight", 0))));
+
+    /**
+     * The number of holders in an inheritance order at which their nodes are collected in parallel, or 0 if disabled
+     */
+    public static final ConfigKey<Integer> PARALLEL_INHERITANCE_THRESHOLD = notReloadable(key(c -> Math.max(0, c.getInteger("parallel-inheritance-threshold", 0))));
+
+    /**
+     * If groups and tracks should be loaded from a local snapshot on startup, and reconciled with the storage in the background
+     */
+    public static final ConfigKey<Boolean> LOCAL_SNAPSHOT = notReloadable(booleanKey("local-snapshot", false));
+
     /**
      * If Bukkit child permissions are being applied. This setting is ignored on other platforms.
      */
@@ -507,6 +563,21 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> VAULT_IGNORE_WORLD = booleanKey("vault-ignore-world", false);
 
+    /**
+     * The maximum number of offline players whose data is cached for Vault lookups, or 0 if the cache is disabled
+     */
+    public static final ConfigKey<Integer> VAULT_OFFLINE_CACHE_SIZE = notReloadable(key(c -> Math.max(0, c.getInteger("vault-offline-cache-size", 0))));
+
+    /**
+     * The number of seconds offline players remain in the Vault cache after they were last looked up
+     */
+    public static final ConfigKey<Integer> VAULT_OFFLINE_CACHE_EXPIRY_SECONDS = notReloadable(key(c -> Math.max(1, c.getInteger("vault-offline-cache-expiry-seconds", 300))));
+
+    /**
+     * The group used to answer Vault lookups for offline players whose data is still being loaded
+     */
+    public static final ConfigKey<String> VAULT_OFFLINE_DEFAULT_GROUP = stringKey("vault-offline-default-group", "default");
+
     /**
      * If the owner of an integrated server should automatically bypass all permission checks. On fabric and forge, this only applies on an Integrated Server.
      */
@@ -619,6 +690,11 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> AUTO_PUSH_UPDATES = notReloadable(booleanKey("auto-push-updates", true));
 
+    /**
+     * If changes to groups should be pushed as group update messages, rather than a full update ping
+     */
+    public static final ConfigKey<Boolean> PUSH_GROUP_UPDATES = notReloadable(booleanKey("push-group-updates", false));
+
     /**
      * If LuckPerms should push logging entries to connected servers via the messaging service
      */
@@ -50,6 +50,7 @@ public class LuckPermsConfiguration extends KeyedConfiguration {
     @Override
     public void reload() {
         super.reload();
+        getPlugin().getContextManager().invalidateAllCaches();
         getPlugin().getEventDispatcher().dispatchConfigReload();
     }
 
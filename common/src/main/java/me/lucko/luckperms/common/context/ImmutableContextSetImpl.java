@@ -28,6 +28,8 @@ package me.lucko.luckperms.common.context;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Multimaps;
 import me.lucko.luckperms.common.context.comparator.ContextComparator;
@@ -49,6 +51,29 @@ import java.util.Spliterator;
 public final class ImmutableContextSetImpl extends AbstractContextSet implements ImmutableContextSet, ContextSet {
     public static final ImmutableContextSetImpl EMPTY = new ImmutableContextSetImpl(new Context[0]);
 
+    /**
+     * Pool of canonical instances, see {@link #intern(ImmutableContextSet)}.
+     */
+    private static final Interner<ImmutableContextSetImpl> INTERNER = Interners.newWeakInterner();
+
+    /**
+     * Returns a canonical instance equal to the given context set.
+     *
+     * <p>Subjects in the same situation (world, server, etc) end up sharing
+     * the same instance, so comparisons between them short-circuit on
+     * reference equality. Instances are held weakly.</p>
+     *
+     * @param contextSet the context set
+     * @return the canonical instance
+     */
+    public static ImmutableContextSet intern(ImmutableContextSet contextSet) {
+        if (contextSet instanceof ImmutableContextSetImpl) {
+            ImmutableContextSetImpl impl = (ImmutableContextSetImpl) contextSet;
+            return impl.isEmpty() ? EMPTY : INTERNER.intern(impl);
+        }
+        return contextSet;
+    }
+
     public static ImmutableContextSet of(String key, String value) {
         key = sanitizeKey(key);
         value = sanitizeValue(value);
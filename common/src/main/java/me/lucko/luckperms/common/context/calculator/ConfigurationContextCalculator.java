@@ -30,11 +30,15 @@ import me.lucko.luckperms.common.config.LuckPermsConfiguration;
 import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
 import net.luckperms.api.context.ContextConsumer;
 import net.luckperms.api.context.ContextSet;
+import net.luckperms.api.context.ContextUpdateTrigger;
 import net.luckperms.api.context.DefaultContextKeys;
 import net.luckperms.api.context.ImmutableContextSet;
 import net.luckperms.api.context.StaticContextCalculator;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.util.Collections;
+import java.util.Set;
+
 public class ConfigurationContextCalculator implements StaticContextCalculator {
     private final LuckPermsConfiguration config;
 
@@ -57,4 +61,10 @@ public class ConfigurationContextCalculator implements StaticContextCalculator {
         calculate(builder::add);
         return builder.build();
     }
+
+    @Override
+    public @NonNull Set<ContextUpdateTrigger> getUpdateTriggers() {
+        // only changes when the config is reloaded, which invalidates all caches
+        return Collections.emptySet();
+    }
 }
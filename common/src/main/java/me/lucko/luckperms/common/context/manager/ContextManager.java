@@ -30,19 +30,24 @@ import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
 import me.lucko.luckperms.common.context.calculator.ForwardingContextCalculator;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
 import net.luckperms.api.context.ContextCalculator;
 import net.luckperms.api.context.ContextConsumer;
 import net.luckperms.api.context.ContextSet;
+import net.luckperms.api.context.ContextUpdateTrigger;
 import net.luckperms.api.context.ImmutableContextSet;
 import net.luckperms.api.context.StaticContextCalculator;
 import net.luckperms.api.query.QueryOptions;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 /**
@@ -61,6 +66,9 @@ public abstract class ContextManager<S, P extends S> {
     // caches static context lookups
     private final StaticLookupCache staticLookupCache = new StaticLookupCache();
 
+    // incremented to invalidate all subject caches at once
+    private final AtomicInteger cacheGeneration = new AtomicInteger();
+
     protected ContextManager(LuckPermsPlugin plugin, Class<S> subjectClass, Class<P> playerClass) {
         this.plugin = plugin;
         this.subjectClass = subjectClass;
@@ -115,6 +123,44 @@ public abstract class ContextManager<S, P extends S> {
 
     protected abstract void invalidateCache(S subject);
 
+    /**
+     * Invalidates the cached contexts of all subjects.
+     */
+    public void invalidateAllCaches() {
+        this.cacheGeneration.incrementAndGet();
+        this.staticLookupCache.invalidate();
+    }
+
+    public int getCacheGeneration() {
+        return this.cacheGeneration.get();
+    }
+
+    /**
+     * Gets if subject contexts should be cached until they are signalled to
+     * have changed, rather than recalculated roughly every tick.
+     *
+     * <p>This is the case if enabled in the config, and every registered
+     * calculator has declared the inputs it depends on.</p>
+     *
+     * @return if contexts are event driven
+     */
+    public boolean isEventDriven() {
+        return this.calculators.allTriggersDeclared() && this.plugin.getConfiguration().get(ConfigKeys.EVENT_DRIVEN_CONTEXTS);
+    }
+
+    /**
+     * Gets if any registered calculator depends on the given trigger.
+     *
+     * <p>Platforms use this to decide whether they need to signal a context
+     * update when the corresponding input changes.</p>
+     *
+     * @param trigger the trigger
+     * @return if the trigger has been declared
+     */
+    public boolean isUpdateTriggerDeclared(ContextUpdateTrigger trigger) {
+        return this.calculators.declaredTriggers().contains(trigger);
+    }
+
     public void registerCalculator(ContextCalculator<? super S> calculator) {
         String calculatorClass = calculator.getClass().getName();
 
@@ -127,10 +173,12 @@ public abstract class ContextManager<S, P extends S> {
         }
 
         this.calculators.add(calculator);
+        invalidateAllCaches();
     }
 
     public void unregisterCalculator(ContextCalculator<? super S> calculator) {
         this.calculators.remove(calculator);
+        invalidateAllCaches();
     }
 
     protected void callContextCalculator(ContextCalculator<? super S> calculator, S subject, ContextConsumer consumer) {
@@ -157,7 +205,7 @@ public abstract class ContextManager<S, P extends S> {
             callContextCalculator(calculator, subject, consumer);
         }
 
-        return formQueryOptions(subject, accumulator.build());
+        return QueryOptionsImpl.intern(formQueryOptions(subject, accumulator.build()));
     }
 
     private QueryOptions calculateStatic() {
@@ -168,7 +216,7 @@ public abstract class ContextManager<S, P extends S> {
             callStaticContextCalculator(calculator, consumer);
         }
 
-        return formQueryOptions(accumulator.build());
+        return QueryOptionsImpl.intern(formQueryOptions(accumulator.build()));
     }
 
     public ImmutableContextSet getPotentialContexts() {
@@ -215,6 +263,8 @@ public abstract class ContextManager<S, P extends S> {
 
         private volatile ContextCalculator<? super S>[] calculatorsArray;
         private volatile StaticContextCalculator[] staticCalculatorsArray;
+        private volatile Set<ContextUpdateTrigger> declaredTriggers;
+        private volatile boolean allTriggersDeclared;
 
         CalculatorList() {
             this.calculators = new ArrayList<>();
@@ -226,6 +276,26 @@ public abstract class ContextManager<S, P extends S> {
         private void bake() {
             this.calculatorsArray = this.calculators.toArray(new ContextCalculator[0]);
             this.staticCalculatorsArray = this.staticCalculators.toArray(new StaticContextCalculator[0]);
+
+            Set<ContextUpdateTrigger> declaredTriggers = EnumSet.noneOf(ContextUpdateTrigger.class);
+            boolean allTriggersDeclared = true;
+            for (ContextCalculator<? super S> calculator : this.calculators) {
+                Set<ContextUpdateTrigger> triggers;
+                try {
+                    triggers = calculator.getUpdateTriggers();
+                } catch (Throwable e) {
+                    ContextManager.this.plugin.getLogger().warn("An exception was thrown by " + getCalculatorClass(calculator) + " whilst getting update triggers", e);
+                    triggers = null;
+                }
+
+                if (triggers == null) {
+                    allTriggersDeclared = false;
+                } else {
+                    declaredTriggers.addAll(triggers);
+                }
+            }
+            this.declaredTriggers = Collections.unmodifiableSet(declaredTriggers);
+            this.allTriggersDeclared = allTriggersDeclared;
         }
 
         public void add(ContextCalculator<? super S> calculator) {
@@ -260,6 +330,14 @@ public abstract class ContextManager<S, P extends S> {
         public StaticContextCalculator[] staticCalculators() {
             return this.staticCalculatorsArray;
         }
+
+        public Set<ContextUpdateTrigger> declaredTriggers() {
+            return this.declaredTriggers;
+        }
+
+        public boolean allTriggersDeclared() {
+            return this.allTriggersDeclared;
+        }
     }
 
 }
@@ -26,6 +26,8 @@
 package me.lucko.luckperms.common.context.manager;
 
 import me.lucko.luckperms.common.cache.ExpiringCache;
+import me.lucko.luckperms.common.metrics.CacheMetrics;
+import me.lucko.luckperms.common.metrics.MetricRegistry;
 import net.luckperms.api.context.ImmutableContextSet;
 import net.luckperms.api.query.QueryOptions;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -35,12 +37,22 @@ import java.util.concurrent.TimeUnit;
 /**
  * Implementation of {@link QueryOptionsSupplier} that caches results.
  *
+ * <p>Results normally expire roughly every tick. If the context manager is
+ * {@link ContextManager#isEventDriven() event driven}, they are instead kept
+ * until the subject's contexts are signalled to have changed, or until all
+ * caches are invalidated.</p>
+ *
  * @param <T> the player type
  */
 public final class QueryOptionsCache<T> extends ExpiringCache<QueryOptions> implements QueryOptionsSupplier {
+    private static final CacheMetrics METRICS = MetricRegistry.cache("query_options");
+
     private final T subject;
     private final ContextManager<T, ?> contextManager;
 
+    // the cache generation of the context manager when the value was calculated
+    private volatile int generation;
+
     public QueryOptionsCache(T subject, ContextManager<T, ?> contextManager) {
         super(50L, TimeUnit.MILLISECONDS); // expire roughly every tick
         this.subject = subject;
@@ -49,9 +61,25 @@ public final class QueryOptionsCache<T> extends ExpiringCache<QueryOptions> impl
 
     @Override
     protected @NonNull QueryOptions supply() {
+        METRICS.miss();
+        this.generation = this.contextManager.getCacheGeneration();
         return this.contextManager.calculate(this.subject);
     }
 
+    @Override
+    protected boolean expires() {
+        return !this.contextManager.isEventDriven();
+    }
+
+    @Override
+    public QueryOptions get() {
+        METRICS.request();
+        if (this.generation != this.contextManager.getCacheGeneration()) {
+            invalidate();
+        }
+        return super.get();
+    }
+
     @Override
     public QueryOptions getQueryOptions() {
         return get();
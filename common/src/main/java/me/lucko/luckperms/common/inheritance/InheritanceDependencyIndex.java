@@ -0,0 +1,201 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.inheritance;
+
+import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.model.PermissionHolderIdentifier;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import net.luckperms.api.model.PermissionHolder.Identifier;
+import net.luckperms.api.node.types.InheritanceNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A reverse index of the inheritance relationships between loaded holders.
+ *
+ * <p>For each group, the index records the holders which directly inherit it. Edges are
+ * recorded regardless of the context of the {@link InheritanceNode}, so the dependents
+ * returned by the index are a superset of those in any single context.</p>
+ *
+ * <p>This allows cache invalidations following a change to a group to be limited to
+ * the holders whose inheritance tree could actually contain the group.</p>
+ */
+public class InheritanceDependencyIndex {
+    private final LuckPermsPlugin plugin;
+
+    /** Group name --> the holders which directly inherit the group */
+    private final Map<String, Set<PermissionHolderIdentifier>> dependents = new ConcurrentHashMap<>();
+
+    /** Holder --> the names of the groups it directly inherits */
+    private final Map<PermissionHolderIdentifier, Set<String>> parents = new ConcurrentHashMap<>();
+
+    public InheritanceDependencyIndex(LuckPermsPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Updates the index to reflect the current inheritance nodes of the given holder.
+     *
+     * @param holder the holder
+     */
+    public synchronized void update(PermissionHolder holder) {
+        List<InheritanceNode> nodes = new ArrayList<>();
+        holder.normalData().copyInheritanceNodesTo(nodes);
+        holder.transientData().copyInheritanceNodesTo(nodes);
+
+        Set<String> groups = new HashSet<>();
+        for (InheritanceNode node : nodes) {
+            groups.add(node.getGroupName().toLowerCase(Locale.ROOT));
+        }
+
+        PermissionHolderIdentifier id = holder.getIdentifier();
+        Set<String> previous = groups.isEmpty() ? this.parents.remove(id) : this.parents.put(id, groups);
+        if (previous == null) {
+            previous = Collections.emptySet();
+        }
+
+        for (String group : previous) {
+            if (!groups.contains(group)) {
+                removeDependent(group, id);
+            }
+        }
+        for (String group : groups) {
+            if (!previous.contains(group)) {
+                this.dependents.computeIfAbsent(group, g -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+    }
+
+    /**
+     * Removes a holder from the index, for example when it is unloaded.
+     *
+     * @param id the holder identifier
+     */
+    public synchronized void remove(PermissionHolderIdentifier id) {
+        Set<String> previous = this.parents.remove(id);
+        if (previous != null) {
+            for (String group : previous) {
+                removeDependent(group, id);
+            }
+        }
+    }
+
+    private void removeDependent(String group, PermissionHolderIdentifier id) {
+        this.dependents.computeIfPresent(group, (g, set) -> {
+            set.remove(id);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Gets the holders which inherit any of the given groups, either directly
+     * or transitively.
+     *
+     * @param groups the group names
+     * @return the dependent holders
+     */
+    public Set<PermissionHolderIdentifier> getDependents(Collection<String> groups) {
+        Set<PermissionHolderIdentifier> result = new HashSet<>();
+        Set<String> visited = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        for (String group : groups) {
+            String name = group.toLowerCase(Locale.ROOT);
+            if (visited.add(name)) {
+                queue.add(name);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            Set<PermissionHolderIdentifier> direct = this.dependents.get(queue.poll());
+            if (direct == null) {
+                continue;
+            }
+
+            for (PermissionHolderIdentifier id : direct) {
+                if (result.add(id) && id.getType().equals(Identifier.GROUP_TYPE) && visited.add(id.getName())) {
+                    queue.add(id.getName());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Invalidates the cached data of the given groups, and of all loaded holders
+     * which inherit them.
+     *
+     * @param groups the names of the groups which have changed
+     */
+    public void invalidate(Collection<String> groups) {
+        for (String group : groups) {
+            PermissionHolder holder = this.plugin.getGroupManager().getIfLoaded(group);
+            if (holder != null) {
+                holder.getCachedData().refresh();
+            }
+        }
+
+        // groups go first, so that their shared permission layers are dropped
+        // before any of the users inheriting them are recalculated
+        Set<PermissionHolderIdentifier> dependents = getDependents(groups);
+        for (PermissionHolderIdentifier id : dependents) {
+            if (id.getType().equals(Identifier.GROUP_TYPE)) {
+                invalidate(id);
+            }
+        }
+        for (PermissionHolderIdentifier id : dependents) {
+            if (!id.getType().equals(Identifier.GROUP_TYPE)) {
+                invalidate(id);
+            }
+        }
+    }
+
+    private void invalidate(PermissionHolderIdentifier id) {
+        PermissionHolder holder = getIfLoaded(id);
+        if (holder != null) {
+            holder.getCachedData().refresh();
+        }
+    }
+
+    private PermissionHolder getIfLoaded(PermissionHolderIdentifier id) {
+        if (id.getType().equals(Identifier.GROUP_TYPE)) {
+            return this.plugin.getGroupManager().getIfLoaded(id.getName());
+        } else {
+            return this.plugin.getUserManager().getIfLoaded(UUID.fromString(id.getName()));
+        }
+    }
+
+}
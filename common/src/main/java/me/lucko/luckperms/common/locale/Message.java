@@ -659,6 +659,14 @@ public interface Message {
             .append(FULL_STOP)
     );
 
+    Args1<Integer> VERBOSE_DROPPED = count -> prefixed(translatable()
+            // "&4{}&c checks were not recorded because they were being made too quickly"
+            .key("luckperms.command.verbose.dropped")
+            .color(RED)
+            .args(text(count, DARK_RED))
+            .append(FULL_STOP)
+    );
+
     Args0 VERBOSE_OFF_COMMAND = () -> prefixed(translatable()
             // "&bCommand execution complete."
             .key("luckperms.command.verbose.command-exec-complete")
@@ -3113,6 +3121,64 @@ public interface Message {
             .append(FULL_STOP)
     );
 
+    Args0 METRICS_HEADER = () -> prefixed(translatable()
+            // "&2Metrics recorded since startup:"
+            .key("luckperms.command.metrics.header")
+            .color(DARK_GREEN)
+            .append(text(':'))
+    );
+
+    Args1<Component> METRICS_SECTION = title -> prefixed(text()
+            // "&f-  &b{}:"
+            .color(AQUA)
+            .append(text("-  ", WHITE))
+            .append(title)
+            .append(text(':'))
+    );
+
+    Args4<String, Long, Long, Double> METRICS_CACHE_ENTRY = (name, hits, misses, hitRate) -> prefixed(text()
+            // "     &3{}: &a{} &7hits, &a{} &7misses (&a{}%&7 hit rate)"
+            .color(DARK_AQUA)
+            .append(text("     "))
+            .append(text(name))
+            .append(text(": "))
+            .append(translatable()
+                    .key("luckperms.command.metrics.cache-entry")
+                    .color(GRAY)
+                    .args(
+                            text(hits, GREEN),
+                            text(misses, GREEN),
+                            text(String.format(Locale.ROOT, "%.1f%%", hitRate * 100), GREEN)
+                    )
+            )
+    );
+
+    Args4<String, Long, String, String> METRICS_TIMER_ENTRY = (name, count, mean, percentile) -> prefixed(text()
+            // "     &3{}: &a{} &7samples, mean &a{}&7, 99th percentile &a{}"
+            .color(DARK_AQUA)
+            .append(text("     "))
+            .append(text(name))
+            .append(text(": "))
+            .append(translatable()
+                    .key("luckperms.command.metrics.timer-entry")
+                    .color(GRAY)
+                    .args(
+                            text(count, GREEN),
+                            text(mean, GREEN),
+                            text(percentile, GREEN)
+                    )
+            )
+    );
+
+    Args2<String, Long> METRICS_COUNTER_ENTRY = (name, count) -> prefixed(text()
+            // "     &3{}: &a{}"
+            .color(DARK_AQUA)
+            .append(text("     "))
+            .append(text(name))
+            .append(text(": "))
+            .append(text(count, GREEN))
+    );
+
     Args4<String, String, Component, Boolean> USER_INFO_GENERAL = (username, uuid, uuidType, online) -> join(newline(),
             // "&b&l> &bUser Info: &f{}"
             // "&f- &3UUID: &f{}"
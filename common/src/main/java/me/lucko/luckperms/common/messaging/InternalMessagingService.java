@@ -26,11 +26,14 @@
 package me.lucko.luckperms.common.messaging;
 
 import me.lucko.luckperms.common.cache.BufferedRequest;
+import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.User;
 import net.luckperms.api.actionlog.Action;
 import net.luckperms.api.messenger.Messenger;
 import net.luckperms.api.messenger.MessengerProvider;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface InternalMessagingService {
 
     /**
@@ -69,6 +72,18 @@ public interface InternalMessagingService {
      */
     void pushUserUpdate(User user);
 
+    /**
+     * Pushes an update for a specific group.
+     *
+     * <p>Updates requested in quick succession are buffered and sent as a
+     * single message. If group updates are disabled in the config, a general
+     * update is requested instead.</p>
+     *
+     * @param group the group
+     * @return a future which completes once the update has been sent
+     */
+    CompletableFuture<Void> pushGroupUpdate(Group group);
+
     /**
      * Pushes a log entry to connected servers.
      *
@@ -30,9 +30,13 @@ import com.google.gson.JsonObject;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.cache.BufferedRequest;
 import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.messaging.message.AbstractMessage;
 import me.lucko.luckperms.common.messaging.message.ActionLogMessageImpl;
+import me.lucko.luckperms.common.messaging.message.GroupUpdateMessageImpl;
 import me.lucko.luckperms.common.messaging.message.UpdateMessageImpl;
 import me.lucko.luckperms.common.messaging.message.UserUpdateMessageImpl;
+import me.lucko.luckperms.common.metrics.MetricRegistry;
+import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.util.ExpiringSet;
@@ -44,19 +48,28 @@ import net.luckperms.api.messenger.Messenger;
 import net.luckperms.api.messenger.MessengerProvider;
 import net.luckperms.api.messenger.message.Message;
 import net.luckperms.api.messenger.message.type.ActionLogMessage;
+import net.luckperms.api.messenger.message.type.GroupUpdateMessage;
 import net.luckperms.api.messenger.message.type.UpdateMessage;
 import net.luckperms.api.messenger.message.type.UserUpdateMessage;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 public class LuckPermsMessagingService implements InternalMessagingService, IncomingMessageConsumer {
     private final LuckPermsPlugin plugin;
     private final ExpiringSet<UUID> receivedMessages;
     private final PushUpdateBuffer updateBuffer;
+    private final PushGroupUpdateBuffer groupUpdateBuffer;
+    private final Set<String> pendingGroupUpdates = ConcurrentHashMap.newKeySet();
 
     private final MessengerProvider messengerProvider;
     private final Messenger messenger;
@@ -70,6 +83,7 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
 
         this.receivedMessages = new ExpiringSet<>(1, TimeUnit.HOURS);
         this.updateBuffer = new PushUpdateBuffer(plugin);
+        this.groupUpdateBuffer = new PushGroupUpdateBuffer(plugin);
     }
 
     @Override
@@ -106,18 +120,45 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
     @Override
     public void pushUpdate() {
         this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
+            // make sure the changes being announced have actually been written
+            this.plugin.getStorage().flushPendingSaves();
+
             UUID requestId = generatePingId();
             this.plugin.getLogger().info("[Messaging] Sending ping with id: " + requestId);
-            this.messenger.sendOutgoingMessage(new UpdateMessageImpl(requestId));
+            sendOutgoingMessage(new UpdateMessageImpl(requestId));
         });
     }
 
     @Override
     public void pushUserUpdate(User user) {
         this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
+            // make sure the changes being announced have actually been written
+            this.plugin.getStorage().flushPendingSaves();
+
             UUID requestId = generatePingId();
             this.plugin.getLogger().info("[Messaging] Sending user ping for '" + user.getPlainDisplayName() + "' with id: " + requestId);
-            this.messenger.sendOutgoingMessage(new UserUpdateMessageImpl(requestId, user.getUniqueId()));
+            sendOutgoingMessage(new UserUpdateMessageImpl(requestId, user.getUniqueId()));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> pushGroupUpdate(Group group) {
+        if (!this.plugin.getConfiguration().get(ConfigKeys.PUSH_GROUP_UPDATES)) {
+            return this.updateBuffer.request();
+        }
+
+        this.pendingGroupUpdates.add(group.getName());
+        return this.groupUpdateBuffer.request();
+    }
+
+    private void pushGroupUpdates(Set<String> groups) {
+        this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
+            // make sure the changes being announced have actually been written
+            this.plugin.getStorage().flushPendingSaves();
+
+            UUID requestId = generatePingId();
+            this.plugin.getLogger().info("[Messaging] Sending group ping for " + groups + " with id: " + requestId);
+            sendOutgoingMessage(new GroupUpdateMessageImpl(requestId, groups));
         });
     }
 
@@ -131,7 +172,7 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
             }
 
             this.plugin.getLogger().info("[Messaging] Sending log with id: " + requestId);
-            this.messenger.sendOutgoingMessage(new ActionLogMessageImpl(requestId, logEntry));
+            sendOutgoingMessage(new ActionLogMessageImpl(requestId, logEntry));
         });
     }
 
@@ -146,6 +187,7 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
         // determine if the message can be handled by us
         boolean valid = message instanceof UpdateMessage ||
                 message instanceof UserUpdateMessage ||
+                message instanceof GroupUpdateMessage ||
                 message instanceof ActionLogMessage;
 
         // instead of throwing an exception here, just return false
@@ -205,6 +247,9 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
             case UserUpdateMessageImpl.TYPE:
                 decoded = UserUpdateMessageImpl.decode(content, id);
                 break;
+            case GroupUpdateMessageImpl.TYPE:
+                decoded = GroupUpdateMessageImpl.decode(content, id);
+                break;
             case ActionLogMessageImpl.TYPE:
                 decoded = ActionLogMessageImpl.decode(content, id);
                 break;
@@ -232,7 +277,30 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
         return GsonProvider.normal().toJson(json);
     }
 
+    private void sendOutgoingMessage(AbstractMessage message) {
+        recordMessage("sent", message);
+        this.messenger.sendOutgoingMessage(message);
+    }
+
+    private static void recordMessage(String direction, Message message) {
+        String type;
+        if (message instanceof UpdateMessage) {
+            type = UpdateMessageImpl.TYPE;
+        } else if (message instanceof UserUpdateMessage) {
+            type = UserUpdateMessageImpl.TYPE;
+        } else if (message instanceof GroupUpdateMessage) {
+            type = GroupUpdateMessageImpl.TYPE;
+        } else if (message instanceof ActionLogMessage) {
+            type = ActionLogMessageImpl.TYPE;
+        } else {
+            type = "unknown";
+        }
+        MetricRegistry.counter("messaging_messages", "Number of messages sent and received by the messaging service", "direction", direction, "type", type).increment();
+    }
+
     private void processIncomingMessage(Message message) {
+        recordMessage("received", message);
+
         if (message instanceof UpdateMessage) {
             UpdateMessage msg = (UpdateMessage) message;
 
@@ -258,6 +326,23 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
             }
 
             this.plugin.getStorage().loadUser(user.getUniqueId(), null);
+        } else if (message instanceof GroupUpdateMessage) {
+            GroupUpdateMessage msg = (GroupUpdateMessage) message;
+            Set<String> groups = msg.getGroupNames();
+
+            this.plugin.getLogger().info("[Messaging] Received group update ping for " + groups + " with id: " + msg.getId());
+
+            if (this.plugin.getEventDispatcher().dispatchNetworkPreSync(false, msg.getId())) {
+                return;
+            }
+
+            // reload just the changed groups, then refresh anything which inherits from them
+            List<CompletableFuture<?>> loads = new ArrayList<>(groups.size());
+            for (String group : groups) {
+                loads.add(this.plugin.getStorage().loadGroup(group));
+            }
+            CompletableFuture.allOf(loads.toArray(new CompletableFuture[0]))
+                    .thenRun(() -> this.plugin.getInheritanceDependencyIndex().invalidate(groups));
         } else if (message instanceof ActionLogMessage) {
             ActionLogMessage msg = (ActionLogMessage) message;
 
@@ -268,6 +353,27 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
         }
     }
 
+    private final class PushGroupUpdateBuffer extends BufferedRequest<Void> {
+        PushGroupUpdateBuffer(LuckPermsPlugin plugin) {
+            super(2, TimeUnit.SECONDS, plugin.getBootstrap().getScheduler());
+        }
+
+        @Override
+        protected Void perform() {
+            Set<String> groups = new HashSet<>();
+            for (String group : LuckPermsMessagingService.this.pendingGroupUpdates) {
+                if (LuckPermsMessagingService.this.pendingGroupUpdates.remove(group)) {
+                    groups.add(group);
+                }
+            }
+
+            if (!groups.isEmpty()) {
+                pushGroupUpdates(groups);
+            }
+            return null;
+        }
+    }
+
     private final class PushUpdateBuffer extends BufferedRequest<Void> {
         PushUpdateBuffer(LuckPermsPlugin plugin) {
             super(2, TimeUnit.SECONDS, plugin.getBootstrap().getScheduler());
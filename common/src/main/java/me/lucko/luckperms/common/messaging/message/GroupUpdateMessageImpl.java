@@ -0,0 +1,85 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.messaging.message;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import me.lucko.luckperms.common.messaging.LuckPermsMessagingService;
+import me.lucko.luckperms.common.util.gson.JObject;
+import net.luckperms.api.messenger.message.type.GroupUpdateMessage;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Set;
+import java.util.UUID;
+
+public class GroupUpdateMessageImpl extends AbstractMessage implements GroupUpdateMessage {
+    public static final String TYPE = "groupupdate";
+
+    public static GroupUpdateMessageImpl decode(@Nullable JsonElement content, UUID id) {
+        if (content == null) {
+            throw new IllegalStateException("Missing content");
+        }
+
+        // extract group names
+        JsonElement groupsElement = content.getAsJsonObject().get("groups");
+        if (groupsElement == null) {
+            throw new IllegalStateException("Incoming message has no groups argument: " + content);
+        }
+
+        ImmutableSet.Builder<String> groups = ImmutableSet.builder();
+        for (JsonElement element : groupsElement.getAsJsonArray()) {
+            groups.add(element.getAsString());
+        }
+
+        return new GroupUpdateMessageImpl(id, groups.build());
+    }
+
+    private final Set<String> groups;
+
+    public GroupUpdateMessageImpl(UUID id, Set<String> groups) {
+        super(id);
+        this.groups = ImmutableSet.copyOf(groups);
+    }
+
+    @Override
+    public @NonNull Set<String> getGroupNames() {
+        return this.groups;
+    }
+
+    @Override
+    public @NonNull String asEncodedString() {
+        JsonArray groups = new JsonArray();
+        for (String group : this.groups) {
+            groups.add(group);
+        }
+
+        return LuckPermsMessagingService.encodeMessageAsString(
+                TYPE, getId(), new JObject().add("groups", groups).toJson()
+        );
+    }
+}
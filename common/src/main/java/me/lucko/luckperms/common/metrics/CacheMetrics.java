@@ -0,0 +1,76 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the number of requests made to a cache, and how many of them missed.
+ */
+public final class CacheMetrics {
+    private final String name;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    CacheMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Records a request to the cache, whether or not it was a hit.
+     */
+    public void request() {
+        this.requests.increment();
+    }
+
+    /**
+     * Records that a request to the cache was a miss.
+     */
+    public void miss() {
+        this.misses.increment();
+    }
+
+    public long hits() {
+        // read the misses first, so concurrent requests can't make the result negative
+        long misses = misses();
+        return Math.max(0, this.requests.sum() - misses);
+    }
+
+    public long misses() {
+        return this.misses.sum();
+    }
+
+    public double hitRate() {
+        long misses = misses();
+        long requests = this.requests.sum();
+        return requests == 0 ? 1.0 : Math.max(0, requests - misses) / (double) requests;
+    }
+
+}
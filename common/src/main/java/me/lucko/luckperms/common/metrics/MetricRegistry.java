@@ -0,0 +1,108 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A process-wide registry of the metrics recorded by the plugin.
+ *
+ * <p>Metrics are registered once, typically into a static field of the class which
+ * records them, and are never removed. Registering a metric with the same name and
+ * labels as an existing one returns the existing instance.</p>
+ */
+public final class MetricRegistry {
+    private MetricRegistry() {}
+
+    private static final Map<String, CacheMetrics> CACHES = new ConcurrentSkipListMap<>();
+    private static final Map<String, Counter> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, Timer> TIMERS = new ConcurrentSkipListMap<>();
+
+    /**
+     * Gets the metrics for the cache with the given name.
+     *
+     * @param name the name of the cache
+     * @return the metrics
+     */
+    public static CacheMetrics cache(String name) {
+        return CACHES.computeIfAbsent(name, CacheMetrics::new);
+    }
+
+    /**
+     * Gets a counter.
+     *
+     * @param name the name of the counter
+     * @param description a description of what is counted
+     * @param labels pairs of label names and values
+     * @return the counter
+     */
+    public static Counter counter(String name, String description, String... labels) {
+        Map<String, String> labelMap = labels(labels);
+        return COUNTERS.computeIfAbsent(Metric.id(name, labelMap), id -> new Counter(name, description, labelMap));
+    }
+
+    /**
+     * Gets a timer.
+     *
+     * @param name the name of the timer
+     * @param description a description of what is timed
+     * @param labels pairs of label names and values
+     * @return the timer
+     */
+    public static Timer timer(String name, String description, String... labels) {
+        Map<String, String> labelMap = labels(labels);
+        return TIMERS.computeIfAbsent(Metric.id(name, labelMap), id -> new Timer(name, description, labelMap));
+    }
+
+    public static Collection<CacheMetrics> getCaches() {
+        return ImmutableList.copyOf(CACHES.values());
+    }
+
+    public static Collection<Counter> getCounters() {
+        return ImmutableList.copyOf(COUNTERS.values());
+    }
+
+    public static Collection<Timer> getTimers() {
+        return ImmutableList.copyOf(TIMERS.values());
+    }
+
+    private static Map<String, String> labels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("labels must be given as name/value pairs");
+        }
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < labels.length; i += 2) {
+            map.put(labels[i], labels[i + 1]);
+        }
+        return map;
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A metric which records the distribution of the time taken by an operation.
+ *
+ * <p>Times are counted into a fixed set of buckets, so recording is cheap and
+ * allocation free, at the cost of percentiles only being accurate to the
+ * nearest bucket bound.</p>
+ */
+public final class Timer extends Metric {
+
+    /** The upper bounds of the buckets, in nanoseconds */
+    private static final long[] BUCKET_BOUNDS = {
+            TimeUnit.MICROSECONDS.toNanos(1),
+            TimeUnit.MICROSECONDS.toNanos(5),
+            TimeUnit.MICROSECONDS.toNanos(10),
+            TimeUnit.MICROSECONDS.toNanos(50),
+            TimeUnit.MICROSECONDS.toNanos(100),
+            TimeUnit.MICROSECONDS.toNanos(500),
+            TimeUnit.MILLISECONDS.toNanos(1),
+            TimeUnit.MILLISECONDS.toNanos(5),
+            TimeUnit.MILLISECONDS.toNanos(10),
+            TimeUnit.MILLISECONDS.toNanos(50),
+            TimeUnit.MILLISECONDS.toNanos(100),
+            TimeUnit.MILLISECONDS.toNanos(500),
+            TimeUnit.SECONDS.toNanos(1),
+            TimeUnit.SECONDS.toNanos(5),
+            TimeUnit.SECONDS.toNanos(10)
+    };
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    /** The number of recorded times in each bucket, plus one for times exceeding the largest bound */
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS.length + 1];
+
+    Timer(String name, String description, Map<String, String> labels) {
+        super(name, description, labels);
+        for (int i = 0; i < this.buckets.length; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the time taken by an operation.
+     *
+     * @param nanos the time taken, in nanoseconds
+     */
+    public void record(long nanos) {
+        int i = 0;
+        while (i < BUCKET_BOUNDS.length && nanos > BUCKET_BOUNDS[i]) {
+            i++;
+        }
+        this.buckets[i].increment();
+        this.totalNanos.add(nanos);
+        this.count.increment();
+    }
+
+    /**
+     * Records the time taken by an operation which started at the given time.
+     *
+     * @param startNanos the value of {@link System#nanoTime()} when the operation started
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long count() {
+        return this.count.sum();
+    }
+
+    public long totalNanos() {
+        return this.totalNanos.sum();
+    }
+
+    public long meanNanos() {
+        long count = count();
+        return count == 0 ? 0 : totalNanos() / count;
+    }
+
+    /**
+     * Gets the upper bounds of the buckets used by all timers.
+     *
+     * @return the bucket bounds, in nanoseconds
+     */
+    public static long[] getBucketBounds() {
+        return BUCKET_BOUNDS.clone();
+    }
+
+    /**
+     * Gets the cumulative number of recorded times within each bucket bound.
+     *
+     * <p>The counts are read in a single pass, so the final element, which
+     * also includes the times exceeding the largest bound, is the total
+     * number of recorded times consistent with the rest of the snapshot.</p>
+     *
+     * @return the cumulative counts, in the same order as {@link #getBucketBounds()},
+     *         followed by the total
+     */
+    public long[] cumulativeCounts() {
+        long[] counts = new long[this.buckets.length];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            total += this.buckets[i].sum();
+            counts[i] = total;
+        }
+        return counts;
+    }
+
+    /**
+     * Estimates the given percentile of the recorded times.
+     *
+     * @param percentile the percentile, between 0 and 1
+     * @return the bound of the bucket containing the percentile, in nanoseconds,
+     *         or -1 if it exceeds the largest bound
+     */
+    public long percentileNanos(double percentile) {
+        long[] counts = cumulativeCounts();
+        long total = counts[BUCKET_BOUNDS.length];
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(percentile * total);
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            if (counts[i] >= target) {
+                return BUCKET_BOUNDS[i];
+            }
+        }
+        return -1;
+    }
+
+}
@@ -67,7 +67,11 @@ public class Group extends PermissionHolder {
     private final GroupCachedDataManager cachedData;
 
     public Group(String name, LuckPermsPlugin plugin) {
-        super(plugin, name.toLowerCase(Locale.ROOT));
+        this(name, plugin, false);
+    }
+
+    public Group(String name, LuckPermsPlugin plugin, boolean compactNodeMap) {
+        super(plugin, name.toLowerCase(Locale.ROOT), compactNodeMap);
         this.name = getIdentifier().getName();
 
         this.cachedData = new GroupCachedDataManager(this);
@@ -26,9 +26,11 @@
 package me.lucko.luckperms.common.model;
 
 import com.google.common.collect.Iterables;
+import me.lucko.luckperms.common.cacheddata.BuildPhase;
 import me.lucko.luckperms.common.cacheddata.HolderCachedDataManager;
 import me.lucko.luckperms.common.cacheddata.result.IntegerResult;
 import me.lucko.luckperms.common.cacheddata.type.MetaAccumulator;
+import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.inheritance.InheritanceComparator;
 import me.lucko.luckperms.common.inheritance.InheritanceGraph;
 import me.lucko.luckperms.common.model.nodemap.NodeMap;
@@ -36,6 +38,7 @@ import me.lucko.luckperms.common.model.nodemap.NodeMapMutable;
 import me.lucko.luckperms.common.model.nodemap.RecordedNodeMap;
 import me.lucko.luckperms.common.node.NodeEquality;
 import me.lucko.luckperms.common.node.comparator.NodeWithContextComparator;
+import me.lucko.luckperms.common.node.utils.PermissionSymbols;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.query.DataSelector;
 import me.lucko.luckperms.common.util.Difference;
@@ -68,6 +71,7 @@ import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.function.IntFunction;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * Represents an object that can hold permissions, (a user or group)
@@ -132,11 +136,13 @@ public abstract class PermissionHolder {
      * Creates a new instance
      *
      * @param plugin the plugin instance
+     * @param objectName the name of the holder
+     * @param compactNodeMap if the normal node map should be compact
      */
-    protected PermissionHolder(LuckPermsPlugin plugin, String objectName) {
+    protected PermissionHolder(LuckPermsPlugin plugin, String objectName, boolean compactNodeMap) {
         this.plugin = plugin;
         this.identifier = new PermissionHolderIdentifier(getType(), objectName);
-        this.normalNodes = new RecordedNodeMap(new NodeMapMutable(this, DataType.NORMAL));
+        this.normalNodes = new RecordedNodeMap(new NodeMapMutable(this, DataType.NORMAL, compactNodeMap));
         this.transientNodes = new NodeMapMutable(this, DataType.TRANSIENT);
         this.inheritanceComparator = InheritanceComparator.getFor(this);
     }
@@ -211,10 +217,28 @@ public abstract class PermissionHolder {
     public abstract HolderType getType();
 
     protected void invalidateCache() {
-        getCachedData().invalidate();
+        getPlugin().getInheritanceDependencyIndex().update(this);
+        getCachedData().refresh();
         getPlugin().getEventDispatcher().dispatchDataRecalculate(this);
     }
 
+    /**
+     * Invalidates the holders caches following a change to its own nodes.
+     *
+     * <p>If the change can be applied to the cached permission data in place,
+     * the caches are updated instead of being invalidated.</p>
+     *
+     * @param dataType the data type which was changed
+     * @param changes the changes
+     */
+    protected void invalidateCache(DataType dataType, Difference<Node> changes) {
+        if (getCachedData().applyChanges(dataType, changes)) {
+            getPlugin().getEventDispatcher().dispatchDataRecalculate(this);
+        } else {
+            invalidateCache();
+        }
+    }
+
     public void loadNodesFromStorage(Iterable<? extends Node> set) {
         // TODO: should we attempt to "replay" existing changes on top of the new data?
         normalData().discardChanges();
@@ -286,9 +310,14 @@ public abstract class PermissionHolder {
             return getOwnNodes(queryOptions);
         }
 
+        List<PermissionHolder> inheritanceOrder = getCachedData().getInheritanceOrder(queryOptions);
+        int parallelThreshold = this.plugin.getConfiguration().get(ConfigKeys.PARALLEL_INHERITANCE_THRESHOLD);
+        if (parallelThreshold != 0 && inheritanceOrder.size() >= parallelThreshold) {
+            return resolveInheritedNodesInParallel(inheritanceOrder, queryOptions);
+        }
+
         List<Node> nodes = new ArrayList<>();
-        InheritanceGraph graph = this.plugin.getInheritanceGraphFactory().getGraph(queryOptions);
-        for (PermissionHolder holder : graph.traverse(this)) {
+        for (PermissionHolder holder : inheritanceOrder) {
             for (DataType dataType : holder.queryOrder(queryOptions)) {
                 holder.getData(dataType).copyTo(nodes, queryOptions);
             }
@@ -296,14 +325,40 @@ public abstract class PermissionHolder {
         return nodes;
     }
 
+    /**
+     * Collects the nodes of each holder in the inheritance order in parallel, using
+     * the common fork-join pool, and then merges them in order.
+     *
+     * <p>The result is identical to collecting them sequentially.</p>
+     *
+     * @param inheritanceOrder the inheritance order
+     * @param queryOptions the query options
+     * @return the resolved nodes
+     */
+    private static List<Node> resolveInheritedNodesInParallel(List<PermissionHolder> inheritanceOrder, QueryOptions queryOptions) {
+        List<List<Node>> layers = inheritanceOrder.parallelStream()
+                .map(holder -> holder.getOwnNodes(queryOptions))
+                .collect(Collectors.toList());
+
+        int size = 0;
+        for (List<Node> layer : layers) {
+            size += layer.size();
+        }
+
+        List<Node> nodes = new ArrayList<>(size);
+        for (List<Node> layer : layers) {
+            nodes.addAll(layer);
+        }
+        return nodes;
+    }
+
     public SortedSet<Node> resolveInheritedNodesSorted(QueryOptions queryOptions) {
         if (!queryOptions.flag(Flag.RESOLVE_INHERITANCE)) {
             return getOwnNodesSorted(queryOptions);
         }
 
         SortedSet<Node> nodes = new TreeSet<>(NodeWithContextComparator.reverse());
-        InheritanceGraph graph = this.plugin.getInheritanceGraphFactory().getGraph(queryOptions);
-        for (PermissionHolder holder : graph.traverse(this)) {
+        for (PermissionHolder holder : getCachedData().getInheritanceOrder(queryOptions)) {
             for (DataType dataType : holder.queryOrder(queryOptions)) {
                 holder.getData(dataType).copyTo(nodes, queryOptions);
             }
@@ -317,8 +372,7 @@ public abstract class PermissionHolder {
         }
 
         List<T> nodes = new ArrayList<>();
-        InheritanceGraph graph = this.plugin.getInheritanceGraphFactory().getGraph(queryOptions);
-        for (PermissionHolder holder : graph.traverse(this)) {
+        for (PermissionHolder holder : getCachedData().getInheritanceOrder(queryOptions)) {
             for (DataType dataType : holder.queryOrder(queryOptions)) {
                 holder.getData(dataType).copyTo(nodes, type, queryOptions);
             }
@@ -328,15 +382,14 @@ public abstract class PermissionHolder {
 
     @SuppressWarnings({"unchecked", "rawtypes"})
     public List<Group> resolveInheritanceTree(QueryOptions queryOptions) {
-        InheritanceGraph graph = this.plugin.getInheritanceGraphFactory().getGraph(queryOptions);
-
         List<PermissionHolder> inheritanceTree = new ArrayList<>();
 
         if (queryOptions.flag(Flag.RESOLVE_INHERITANCE)) {
-            Iterables.addAll(inheritanceTree, graph.traverse(this));
+            inheritanceTree.addAll(getCachedData().getInheritanceOrder(queryOptions));
             inheritanceTree.remove(this);
         } else {
             // if RESOLVE_INHERITANCE is not set, only go up by one level
+            InheritanceGraph graph = this.plugin.getInheritanceGraphFactory().getGraph(queryOptions);
             Iterables.addAll(inheritanceTree, graph.successors(this));
         }
 
@@ -353,9 +406,14 @@ public abstract class PermissionHolder {
     }
 
     public <M extends Map<String, Node>> M exportPermissions(IntFunction<M> mapFactory, QueryOptions queryOptions, boolean convertToLowercase, boolean resolveShorthand) {
+        long start = System.nanoTime();
         List<Node> entries = resolveInheritedNodes(queryOptions);
+        BuildPhase.INHERITANCE.timer().recordSince(start);
+
+        start = System.nanoTime();
         M map = mapFactory.apply(entries.size());
         processExportedPermissions(map, entries, convertToLowercase, resolveShorthand);
+        BuildPhase.EXPORT.timer().recordSince(start);
         return map;
     }
 
@@ -373,7 +431,7 @@ public abstract class PermissionHolder {
                 Collection<String> shorthand = node.resolveShorthand();
                 for (String s : shorthand) {
                     if (convertToLowercase) {
-                        accumulator.putIfAbsent(s.toLowerCase(Locale.ROOT), node);
+                        accumulator.putIfAbsent(PermissionSymbols.canonical(s), node);
                     } else {
                         accumulator.putIfAbsent(s, node);
                     }
@@ -387,8 +445,7 @@ public abstract class PermissionHolder {
     }
 
     public MetaAccumulator accumulateMeta(MetaAccumulator accumulator, QueryOptions queryOptions) {
-        InheritanceGraph graph = this.plugin.getInheritanceGraphFactory().getGraph(queryOptions);
-        for (PermissionHolder holder : graph.traverse(this)) {
+        for (PermissionHolder holder : getCachedData().getInheritanceOrder(queryOptions)) {
             // accumulate nodes
             for (DataType dataType : holder.queryOrder(queryOptions)) {
                 holder.getData(dataType).forEach(queryOptions, node -> {
@@ -463,7 +520,7 @@ public abstract class PermissionHolder {
         }
 
         Difference<Node> changes = getData(dataType).add(node);
-        invalidateCache();
+        invalidateCache(dataType, changes);
         if (callEvent) {
             this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
         }
@@ -500,7 +557,7 @@ public abstract class PermissionHolder {
                 if (newNode != null) {
                     // Remove the old Node & add the new one.
                     Difference<Node> changes = data.removeThenAdd(otherMatch, newNode);
-                    invalidateCache();
+                    invalidateCache(dataType, changes);
                     this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
 
                     return new MergedNodeResult(DataMutateResult.SUCCESS, newNode);
@@ -518,7 +575,7 @@ public abstract class PermissionHolder {
         }
 
         Difference<Node> changes = getData(dataType).remove(node);
-        invalidateCache();
+        invalidateCache(dataType, changes);
         this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
 
         return DataMutateResult.SUCCESS;
@@ -540,7 +597,7 @@ public abstract class PermissionHolder {
 
                     // Remove the old Node & add the new one.
                     Difference<Node> changes = data.removeThenAdd(otherMatch, newNode);
-                    invalidateCache();
+                    invalidateCache(dataType, changes);
                     this.plugin.getEventDispatcher().dispatchNodeChanges(this, dataType, changes);
 
                     return new MergedNodeResult(DataMutateResult.SUCCESS, newNode);
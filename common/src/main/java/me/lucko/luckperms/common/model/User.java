@@ -60,7 +60,11 @@ public class User extends PermissionHolder {
     private final UserCachedDataManager cachedData;
 
     public User(UUID uniqueId, LuckPermsPlugin plugin) {
-        super(plugin, uniqueId.toString());
+        this(uniqueId, plugin, false);
+    }
+
+    public User(UUID uniqueId, LuckPermsPlugin plugin, boolean compactNodeMap) {
+        super(plugin, uniqueId.toString(), compactNodeMap);
         this.uniqueId = uniqueId;
         this.primaryGroup = plugin.getConfiguration().get(ConfigKeys.PRIMARY_GROUP_CALCULATION).apply(this);
         this.cachedData = new UserCachedDataManager(this);
@@ -60,6 +60,16 @@ public abstract class AbstractGroupManager<T extends Group> extends AbstractMana
         return null;
     }
 
+    @Override
+    public void unload(String id) {
+        T group = id == null ? null : getIfLoaded(id);
+        super.unload(id);
+        if (group != null) {
+            group.getCachedData().release();
+            group.getPlugin().getInheritanceDependencyIndex().remove(group.getIdentifier());
+        }
+    }
+
     @Override
     protected String sanitizeIdentifier(String s) {
         return s.toLowerCase(Locale.ROOT);
@@ -37,6 +37,6 @@ public class StandardGroupManager extends AbstractGroupManager<Group> {
 
     @Override
     public Group apply(String name) {
-        return new Group(name, this.plugin);
+        return new Group(name, this.plugin, this.plugin.isCompactNodeMaps());
     }
 }
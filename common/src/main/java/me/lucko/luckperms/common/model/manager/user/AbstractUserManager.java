@@ -27,6 +27,8 @@ package me.lucko.luckperms.common.model.manager.user;
 
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
+import me.lucko.luckperms.common.model.HolderType;
+import me.lucko.luckperms.common.model.PermissionHolderIdentifier;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.model.manager.AbstractManager;
 import me.lucko.luckperms.common.model.manager.group.GroupManager;
@@ -170,6 +172,18 @@ public abstract class AbstractUserManager<T extends User> extends AbstractManage
                 .collect(CompletableFutures.collector());
     }
 
+    @Override
+    public void unload(UUID id) {
+        T user = id == null ? null : getIfLoaded(id);
+        super.unload(id);
+        if (user != null) {
+            user.getCachedData().release();
+        }
+        if (id != null) {
+            this.plugin.getInheritanceDependencyIndex().remove(new PermissionHolderIdentifier(HolderType.USER, id.toString()));
+        }
+    }
+
     @Override
     public void invalidateAllUserCaches() {
         getAll().values().forEach(u -> u.getCachedData().invalidate());
@@ -0,0 +1,147 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.model.manager.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.util.CaffeineFactory;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A cache of the data of offline players, for lookups made by third party APIs (e.g. Vault).
+ *
+ * <p>Users are loaded in the background, in batches, and are kept loaded whilst
+ * they remain in the cache. As they are loaded, they are kept up to date with
+ * changes received via the messaging service in the same way as online players.</p>
+ */
+public class OfflineUserCache {
+
+    /** The number of milliseconds to wait for further lookups before loading a batch */
+    private static final long BATCH_WINDOW_MILLIS = 50;
+
+    private final LuckPermsPlugin plugin;
+
+    // uuid --> the loaded user
+    private final Cache<UUID, User> users;
+
+    // users waiting to be loaded
+    private final Map<UUID, CompletableFuture<User>> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean batchScheduled = new AtomicBoolean(false);
+
+    public OfflineUserCache(LuckPermsPlugin plugin, int maxSize, int expirySeconds) {
+        this.plugin = plugin;
+        this.users = CaffeineFactory.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(expirySeconds, TimeUnit.SECONDS)
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    private void onRemoval(@Nullable UUID uuid, @Nullable User user, RemovalCause cause) {
+        // allow the user to be unloaded, unless they have been cached again since
+        if (uuid != null && cause != RemovalCause.REPLACED && this.users.getIfPresent(uuid) == null) {
+            this.plugin.getUserManager().getHouseKeeper().clearApiUsage(uuid);
+        }
+    }
+
+    /**
+     * Gets a user, if they are already loaded.
+     *
+     * @param uuid the uuid of the user
+     * @return the user, or null if not loaded
+     */
+    public @Nullable User getIfLoaded(UUID uuid) {
+        User user = this.plugin.getUserManager().getIfLoaded(uuid);
+        if (user == null) {
+            // the user was unloaded, so any cached instance is out of date
+            this.users.invalidate(uuid);
+            return null;
+        }
+
+        if (this.users.getIfPresent(uuid) != null) {
+            this.plugin.getUserManager().getHouseKeeper().registerApiUsage(uuid);
+        }
+        return user;
+    }
+
+    /**
+     * Requests that a user is loaded in the background.
+     *
+     * <p>Requests made in quick succession are loaded together in one batch.</p>
+     *
+     * @param uuid the uuid of the user
+     * @return a future encapsulating the loaded user
+     */
+    public CompletableFuture<User> load(UUID uuid) {
+        CompletableFuture<User> future = this.pending.computeIfAbsent(uuid, x -> new CompletableFuture<>());
+        if (this.batchScheduled.compareAndSet(false, true)) {
+            this.plugin.getBootstrap().getScheduler().asyncLater(this::loadBatch, BATCH_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return future;
+    }
+
+    private void loadBatch() {
+        this.batchScheduled.set(false);
+
+        Map<UUID, CompletableFuture<User>> batch = new HashMap<>();
+        for (UUID uuid : this.pending.keySet()) {
+            CompletableFuture<User> future = this.pending.remove(uuid);
+            if (future != null) {
+                batch.put(uuid, future);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        this.plugin.getStorage().loadUsers(batch.keySet()).whenComplete((users, ex) -> {
+            if (ex != null) {
+                batch.values().forEach(future -> future.completeExceptionally(ex));
+                return;
+            }
+
+            batch.forEach((uuid, future) -> {
+                User user = users.get(uuid);
+                if (user != null) {
+                    this.plugin.getUserManager().getHouseKeeper().registerApiUsage(uuid);
+                    this.users.put(uuid, user);
+                }
+                future.complete(user);
+            });
+        });
+    }
+
+}
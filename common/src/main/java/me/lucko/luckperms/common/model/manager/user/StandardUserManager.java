@@ -41,6 +41,6 @@ public class StandardUserManager extends AbstractUserManager<User> {
 
     @Override
     public User apply(UUID id) {
-        return new User(id, this.plugin);
+        return new User(id, this.plugin, this.plugin.isCompactNodeMaps());
     }
 }
@@ -131,6 +131,16 @@ public interface NodeMap {
 
     Collection<InheritanceNode> inheritanceNodesInContext(ContextSet context);
 
+    /**
+     * Gets if the given node would be included when this map is copied
+     * using the given query options as a filter.
+     *
+     * @param node the node
+     * @param filter the filter
+     * @return true if the node is included by the filter
+     */
+    boolean isIncluded(Node node, QueryOptions filter);
+
     // mutate methods
 
     Difference<Node> add(Node nodeWithoutInheritanceOrigin);
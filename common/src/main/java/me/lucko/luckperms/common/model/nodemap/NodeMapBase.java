@@ -215,6 +215,19 @@ abstract class NodeMapBase implements NodeMap {
         return copy(inheritanceMap().get(context.immutableCopy()));
     }
 
+    @Override
+    public boolean isIncluded(Node node, QueryOptions filter) {
+        ImmutableContextSet contexts = node.getContexts();
+        if (!filter.satisfies(contexts, defaultSatisfyMode())) {
+            return false;
+        }
+
+        if (normalNodesExcludeTest(filter, contexts)) {
+            return node instanceof InheritanceNode && node.getValue() && inheritanceNodesIncludeTest(filter, contexts);
+        }
+        return true;
+    }
+
     private static <T> Collection<T> copy(Collection<T> collection) {
         if (collection == null) {
             return Collections.emptySet();
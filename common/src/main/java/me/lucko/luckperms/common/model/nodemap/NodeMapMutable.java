@@ -25,7 +25,10 @@
 
 package me.lucko.luckperms.common.model.nodemap;
 
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
 import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
 import me.lucko.luckperms.common.context.comparator.ContextSetComparator;
 import me.lucko.luckperms.common.model.InheritanceOrigin;
 import me.lucko.luckperms.common.model.PermissionHolder;
@@ -42,12 +45,12 @@ import net.luckperms.api.node.metadata.types.InheritanceOriginMetadata;
 import net.luckperms.api.node.types.InheritanceNode;
 
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Optional;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ConcurrentSkipListSet;
-import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -76,9 +79,15 @@ public class NodeMapMutable extends NodeMapBase {
      * are performed. We do this so there's no risk that the read methods will see an inconsistent
      * state in the middle of an update from the DB. (see below comment about locking - we don't
      * lock for reads!)
+     *
+     * If the map is compact, the fields instead hold immutable array-backed copies of the maps
+     * after the content is set in bulk (e.g. when loaded from storage). These are swapped back
+     * to concurrent copies by the first subsequent mutation, which then apply in place.
+     *
+     * The fields are volatile, as they are reassigned under the lock but read without it.
      */
-    private SortedMap<ImmutableContextSet, SortedSet<Node>> map = createMap();
-    private SortedMap<ImmutableContextSet, SortedSet<InheritanceNode>> inheritanceMap = createMap();
+    private volatile SortedMap<ImmutableContextSet, SortedSet<Node>> map = createMap();
+    private volatile SortedMap<ImmutableContextSet, SortedSet<InheritanceNode>> inheritanceMap = createMap();
 
     /**
      * This lock is used whilst performing mutations, but *not* reads.
@@ -87,14 +96,38 @@ public class NodeMapMutable extends NodeMapBase {
      * the read methods to do whatever they want without any locking.
      * However, we want mutations to be atomic, so we use the lock to ensure that happens.
      */
-    private final Lock lock = new ReentrantLock();
+    private final ReentrantLock lock = new ReentrantLock();
 
     protected final PermissionHolder holder;
     private final InheritanceOrigin inheritanceOrigin;
 
+    /** If the maps should be compacted after their content is set in bulk */
+    private final boolean compact;
+
+    /** If the maps currently hold compacted (immutable) copies. Guarded by the lock */
+    private boolean compacted = false;
+
     public NodeMapMutable(PermissionHolder holder, DataType type) {
+        this(holder, type, false);
+    }
+
+    /**
+     * Creates a new node map.
+     *
+     * <p>If {@code compact} is true, the maps are stored as immutable sorted arrays, keyed
+     * by interned context sets, after their content is set in bulk. This avoids the overhead
+     * of the concurrent skip list structures for holders which are loaded and then only
+     * read. The first mutation after that copies the maps back to the concurrent structures
+     * once, and later mutations apply to them in place.</p>
+     *
+     * @param holder the holder
+     * @param type the type of data held by the map
+     * @param compact if the map should be compacted after its content is set in bulk
+     */
+    public NodeMapMutable(PermissionHolder holder, DataType type, boolean compact) {
         this.holder = holder;
         this.inheritanceOrigin = new InheritanceOrigin(holder.getIdentifier(), type);
+        this.compact = compact;
     }
 
     @Override
@@ -112,6 +145,59 @@ public class NodeMapMutable extends NodeMapBase {
         return this.holder.getPlugin().getConfiguration().get(ConfigKeys.CONTEXT_SATISFY_MODE);
     }
 
+    /**
+     * Acquires the mutation lock, and swaps the maps back to concurrent
+     * copies if they are currently compacted.
+     */
+    private void lock() {
+        this.lock.lock();
+        if (this.compacted) {
+            this.map = expand(this.map);
+            this.inheritanceMap = expand(this.inheritanceMap);
+            this.compacted = false;
+        }
+    }
+
+    /**
+     * Releases the mutation lock.
+     */
+    private void unlock() {
+        this.lock.unlock();
+    }
+
+    /**
+     * Compacts the maps, if enabled and this is the outermost mutation.
+     *
+     * <p>Called with the lock held, once the content of the map has been set in bulk.</p>
+     */
+    private void compactIfEnabled() {
+        if (this.compact && !this.compacted && this.lock.getHoldCount() == 1) {
+            this.map = compact(this.map);
+            this.inheritanceMap = compact(this.inheritanceMap);
+            this.compacted = true;
+        }
+    }
+
+    private static <N extends Node> SortedMap<ImmutableContextSet, SortedSet<N>> compact(SortedMap<ImmutableContextSet, SortedSet<N>> map) {
+        ImmutableSortedMap.Builder<ImmutableContextSet, SortedSet<N>> builder = new ImmutableSortedMap.Builder<>(ContextSetComparator.reverse());
+        for (Map.Entry<ImmutableContextSet, SortedSet<N>> e : map.entrySet()) {
+            if (!e.getValue().isEmpty()) {
+                builder.put(ImmutableContextSetImpl.intern(e.getKey()), ImmutableSortedSet.copyOfSorted(e.getValue()));
+            }
+        }
+        return builder.build();
+    }
+
+    private static <N extends Node> SortedMap<ImmutableContextSet, SortedSet<N>> expand(SortedMap<ImmutableContextSet, SortedSet<N>> map) {
+        SortedMap<ImmutableContextSet, SortedSet<N>> expanded = createMap();
+        for (Map.Entry<ImmutableContextSet, SortedSet<N>> e : map.entrySet()) {
+            SortedSet<N> values = new ConcurrentSkipListSet<>(NodeComparator.reverse());
+            values.addAll(e.getValue());
+            expanded.put(e.getKey(), values);
+        }
+        return expanded;
+    }
+
     private Node addInheritanceOrigin(Node node) {
         Optional<InheritanceOriginMetadata> existing = node.getMetadata(InheritanceOriginMetadata.KEY);
         if (existing.isPresent() && existing.get().equals(this.inheritanceOrigin)) {
@@ -128,7 +214,7 @@ public class NodeMapMutable extends NodeMapBase {
         ImmutableContextSet context = node.getContexts();
         Difference<Node> result = new Difference<>();
 
-        this.lock.lock();
+        lock();
         try {
             SortedSet<Node> nodes = this.map.computeIfAbsent(context, VALUE_SET_SUPPLIER);
 
@@ -155,7 +241,7 @@ public class NodeMapMutable extends NodeMapBase {
             }
 
         } finally {
-            this.lock.unlock();
+            unlock();
         }
 
         return result;
@@ -166,7 +252,7 @@ public class NodeMapMutable extends NodeMapBase {
         ImmutableContextSet context = node.getContexts();
         Difference<Node> result = new Difference<>();
 
-        this.lock.lock();
+        lock();
         try {
             SortedSet<Node> nodes = this.map.get(context);
             if (nodes == null) {
@@ -185,7 +271,7 @@ public class NodeMapMutable extends NodeMapBase {
             }
 
         } finally {
-            this.lock.unlock();
+            unlock();
         }
 
         return result;
@@ -216,7 +302,7 @@ public class NodeMapMutable extends NodeMapBase {
         ImmutableContextSet context = node.getContexts();
         Difference<Node> result = new Difference<>();
 
-        this.lock.lock();
+        lock();
         try {
             SortedSet<Node> nodes = this.map.get(context);
             if (nodes == null) {
@@ -238,7 +324,7 @@ public class NodeMapMutable extends NodeMapBase {
             }
 
         } finally {
-            this.lock.unlock();
+            unlock();
         }
 
         return result;
@@ -248,13 +334,13 @@ public class NodeMapMutable extends NodeMapBase {
     public Difference<Node> removeIf(Predicate<? super Node> predicate) {
         Difference<Node> result = new Difference<>();
 
-        this.lock.lock();
+        lock();
         try {
             for (SortedSet<Node> nodes : this.map.values()) {
                 removeMatching(nodes.iterator(), predicate, result);
             }
         } finally {
-            this.lock.unlock();
+            unlock();
         }
 
         return result;
@@ -265,7 +351,7 @@ public class NodeMapMutable extends NodeMapBase {
         ImmutableContextSet context = contextSet.immutableCopy();
         Difference<Node> result = new Difference<>();
 
-        this.lock.lock();
+        lock();
         try {
             SortedSet<Node> nodes = this.map.get(context);
             if (nodes == null) {
@@ -273,7 +359,7 @@ public class NodeMapMutable extends NodeMapBase {
             }
             removeMatching(nodes.iterator(), predicate, result);
         } finally {
-            this.lock.unlock();
+            unlock();
         }
 
         return result;
@@ -305,11 +391,11 @@ public class NodeMapMutable extends NodeMapBase {
             return new Difference<>();
         }
 
-        this.lock.lock();
+        lock();
         try {
             return removeExact(nodeToRemove).mergeFrom(add(nodeToAdd));
         } finally {
-            this.lock.unlock();
+            unlock();
         }
     }
 
@@ -317,7 +403,7 @@ public class NodeMapMutable extends NodeMapBase {
     public Difference<Node> clear() {
         Difference<Node> result = new Difference<>();
 
-        this.lock.lock();
+        lock();
         try {
             // log removals
             for (SortedSet<Node> nodes : this.map.values()) {
@@ -329,7 +415,7 @@ public class NodeMapMutable extends NodeMapBase {
             this.map = createMap();
             this.inheritanceMap = createMap();
         } finally {
-            this.lock.unlock();
+            unlock();
         }
 
         return result;
@@ -340,7 +426,7 @@ public class NodeMapMutable extends NodeMapBase {
         ImmutableContextSet context = contextSet.immutableCopy();
         Difference<Node> result = new Difference<>();
 
-        this.lock.lock();
+        lock();
         try {
             SortedSet<Node> removed = this.map.remove(context);
             if (removed != null) {
@@ -348,7 +434,7 @@ public class NodeMapMutable extends NodeMapBase {
                 this.inheritanceMap.remove(context);
             }
         } finally {
-            this.lock.unlock();
+            unlock();
         }
 
         return result;
@@ -358,12 +444,13 @@ public class NodeMapMutable extends NodeMapBase {
     public Difference<Node> setContent(Iterable<? extends Node> set) {
         Difference<Node> result = new Difference<>();
 
-        this.lock.lock();
+        lock();
         try {
             result.mergeFrom(clear());
             result.mergeFrom(addAll(set));
+            compactIfEnabled();
         } finally {
-            this.lock.unlock();
+            unlock();
         }
 
         return result;
@@ -373,12 +460,13 @@ public class NodeMapMutable extends NodeMapBase {
     public Difference<Node> setContent(Stream<? extends Node> stream) {
         Difference<Node> result = new Difference<>();
 
-        this.lock.lock();
+        lock();
         try {
             result.mergeFrom(clear());
             result.mergeFrom(addAll(stream));
+            compactIfEnabled();
         } finally {
-            this.lock.unlock();
+            unlock();
         }
 
         return result;
@@ -388,7 +476,7 @@ public class NodeMapMutable extends NodeMapBase {
     public Difference<Node> applyChanges(Difference<Node> changes) {
         Difference<Node> result = new Difference<>();
 
-        this.lock.lock();
+        lock();
         try {
             for (Node n : changes.getAdded()) {
                 result.mergeFrom(add(n));
@@ -397,7 +485,7 @@ public class NodeMapMutable extends NodeMapBase {
                 result.mergeFrom(removeExact(n));
             }
         } finally {
-            this.lock.unlock();
+            unlock();
         }
 
         return result;
@@ -407,13 +495,13 @@ public class NodeMapMutable extends NodeMapBase {
     public Difference<Node> addAll(Iterable<? extends Node> set) {
         Difference<Node> result = new Difference<>();
 
-        this.lock.lock();
+        lock();
         try {
             for (Node n : set) {
                 result.mergeFrom(add(n));
             }
         } finally {
-            this.lock.unlock();
+            unlock();
         }
 
         return result;
@@ -423,11 +511,11 @@ public class NodeMapMutable extends NodeMapBase {
     public Difference<Node> addAll(Stream<? extends Node> stream) {
         Difference<Node> result = new Difference<>();
 
-        this.lock.lock();
+        lock();
         try {
             stream.forEach(n -> result.mergeFrom(add(n)));
         } finally {
-            this.lock.unlock();
+            unlock();
         }
 
         return result;
@@ -86,6 +86,23 @@ public class RecordedNodeMap implements NodeMap {
         }
     }
 
+    /**
+     * Restores changes previously returned by {@link #exportChanges(Predicate)},
+     * for example because they could not be written to storage.
+     *
+     * <p>Any changes recorded since the export are applied on top.</p>
+     *
+     * @param exported the exported changes
+     */
+    public void restoreChanges(Difference<Node> exported) {
+        this.lock.lock();
+        try {
+            this.changes = exported.mergeFrom(this.changes);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
     private Difference<Node> record(Difference<Node> result) {
         this.lock.lock();
         try {
@@ -188,5 +205,6 @@ public class RecordedNodeMap implements NodeMap {
     @Override public void copyInheritanceNodesTo(Collection<? super InheritanceNode> collection, QueryOptions filter) { this.delegate.copyInheritanceNodesTo(collection, filter); }
     @Override public Collection<Node> nodesInContext(ContextSet context) { return this.delegate.nodesInContext(context); }
     @Override public Collection<InheritanceNode> inheritanceNodesInContext(ContextSet context) { return this.delegate.inheritanceNodesInContext(context); }
+    @Override public boolean isIncluded(Node node, QueryOptions filter) { return this.delegate.isIncluded(node, filter); }
     
 }
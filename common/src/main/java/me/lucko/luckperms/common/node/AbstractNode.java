@@ -27,6 +27,7 @@ package me.lucko.luckperms.common.node;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
 import me.lucko.luckperms.common.node.utils.ShorthandParser;
 import net.luckperms.api.context.ImmutableContextSet;
 import net.luckperms.api.node.Node;
@@ -70,7 +71,7 @@ public abstract class AbstractNode<N extends ScopedNode<N, B>, B extends NodeBui
         this.key = key;
         this.value = value;
         this.expireAt = expireAt;
-        this.contexts = contexts;
+        this.contexts = ImmutableContextSetImpl.intern(contexts); // nodes commonly share the same contexts
         this.metadata = ImmutableMap.copyOf(metadata);
 
         this.resolvedShorthand = this instanceof PermissionNode ? ImmutableList.copyOf(ShorthandParser.expandShorthand(this.key)) : ImmutableList.of();
@@ -29,6 +29,7 @@ import me.lucko.luckperms.common.calculator.processor.WildcardProcessor;
 import me.lucko.luckperms.common.node.AbstractNode;
 import me.lucko.luckperms.common.node.AbstractNodeBuilder;
 import me.lucko.luckperms.common.node.factory.NodeBuilders;
+import me.lucko.luckperms.common.node.utils.PermissionSymbols;
 import net.luckperms.api.context.ImmutableContextSet;
 import net.luckperms.api.node.NodeBuilder;
 import net.luckperms.api.node.metadata.NodeMetadataKey;
@@ -47,7 +48,7 @@ public class Permission extends AbstractNode<PermissionNode, PermissionNode.Buil
     private final int wildcardLevel;
 
     public Permission(String permission, boolean value, long expireAt, ImmutableContextSet contexts, Map<NodeMetadataKey<?>, Object> metadata) {
-        super(permission, value, expireAt, contexts, metadata);
+        super(PermissionSymbols.intern(permission), value, expireAt, contexts, metadata);
         this.wildcardLevel = WildcardProcessor.isWildcardPermission(permission) ? permission.chars().filter(num -> num == NODE_SEPARATOR).sum() : -1;
     }
 
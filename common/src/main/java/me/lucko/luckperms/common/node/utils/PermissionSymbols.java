@@ -0,0 +1,73 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.node.utils;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.Locale;
+
+/**
+ * A process-wide table of canonical permission strings.
+ *
+ * <p>The canonical form of a permission is its lowercase form. The same instance is
+ * shared by everything which canonicalises the permission through this table, for
+ * as long as anything still references it - entries are held weakly, so permissions
+ * which are no longer used are cleared from the table by the garbage collector.</p>
+ */
+public final class PermissionSymbols {
+    private PermissionSymbols() {}
+
+    /** Canonical permission strings, held weakly */
+    private static final Interner<String> CANONICAL = Interners.newWeakInterner();
+
+    /**
+     * Gets the canonical lowercase form of the given permission.
+     *
+     * @param permission the permission, in any case
+     * @return the shared canonical form
+     */
+    public static String canonical(String permission) {
+        // toLowerCase returns the same instance if the permission is already lowercase
+        return CANONICAL.intern(permission.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns a shared instance equal to the given permission, if the permission
+     * is already in its canonical form, or the permission itself otherwise.
+     *
+     * @param permission the permission
+     * @return an equal permission string
+     */
+    public static String intern(String permission) {
+        if (!permission.equals(permission.toLowerCase(Locale.ROOT))) {
+            // don't add a lowercase copy to the table which nothing would reference
+            return permission;
+        }
+        return CANONICAL.intern(permission);
+    }
+
+}
@@ -28,6 +28,7 @@ package me.lucko.luckperms.common.plugin;
 import me.lucko.luckperms.common.actionlog.LogDispatcher;
 import me.lucko.luckperms.common.api.ApiRegistrationUtil;
 import me.lucko.luckperms.common.api.LuckPermsApiProvider;
+import me.lucko.luckperms.common.cacheddata.CachedDataLimits;
 import me.lucko.luckperms.common.calculator.CalculatorFactory;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.config.LuckPermsConfiguration;
@@ -45,6 +46,7 @@ import me.lucko.luckperms.common.event.gen.GeneratedEventClass;
 import me.lucko.luckperms.common.extension.SimpleExtensionManager;
 import me.lucko.luckperms.common.http.BytebinClient;
 import me.lucko.luckperms.common.http.BytesocksClient;
+import me.lucko.luckperms.common.inheritance.InheritanceDependencyIndex;
 import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.locale.TranslationManager;
@@ -52,6 +54,7 @@ import me.lucko.luckperms.common.locale.TranslationRepository;
 import me.lucko.luckperms.common.messaging.InternalMessagingService;
 import me.lucko.luckperms.common.messaging.MessagingFactory;
 import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.storage.LocalSnapshot;
 import me.lucko.luckperms.common.storage.Storage;
 import me.lucko.luckperms.common.storage.StorageFactory;
 import me.lucko.luckperms.common.storage.implementation.file.watcher.FileWatcher;
@@ -65,6 +68,7 @@ import me.lucko.luckperms.common.webeditor.socket.WebEditorSocket;
 import me.lucko.luckperms.common.webeditor.store.WebEditorStore;
 import net.luckperms.api.LuckPerms;
 import okhttp3.OkHttpClient;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -101,7 +105,11 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
     private Storage storage;
     private InternalMessagingService messagingService = null;
     private SyncTask.Buffer syncTaskBuffer;
+    private LocalSnapshot localSnapshot;
     private InheritanceGraphFactory inheritanceGraphFactory;
+    private InheritanceDependencyIndex inheritanceDependencyIndex;
+    private CachedDataLimits cachedDataLimits;
+    private boolean compactNodeMaps;
     private CalculatorFactory calculatorFactory;
     private LuckPermsApiProvider apiProvider;
     private EventDispatcher eventDispatcher;
@@ -186,6 +194,7 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
 
         // setup the update task buffer
         this.syncTaskBuffer = new SyncTask.Buffer(this);
+        this.localSnapshot = LocalSnapshot.create(this);
 
         // register commands
         registerCommands();
@@ -193,6 +202,9 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         // load internal managers
         getLogger().info("Loading internal permission managers...");
         this.inheritanceGraphFactory = new InheritanceGraphFactory(this);
+        this.inheritanceDependencyIndex = new InheritanceDependencyIndex(this);
+        this.cachedDataLimits = CachedDataLimits.create(getConfiguration());
+        this.compactNodeMaps = getConfiguration().get(ConfigKeys.COMPACT_NODE_MAPS);
 
         // setup user/group/track manager
         setupManagers();
@@ -227,10 +239,20 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
 
         // run an update instantly.
         getLogger().info("Performing initial data load...");
-        try {
-            new SyncTask(this).run();
-        } catch (Exception e) {
-            e.printStackTrace();
+        if (this.localSnapshot != null && this.localSnapshot.load()) {
+            // serve the snapshot straight away, and reconcile with the storage in the background
+            getLogger().info("Loaded groups and tracks from the local snapshot, syncing with the storage in the background...");
+            this.syncTaskBuffer.request().whenComplete((v, ex) -> {
+                if (ex != null) {
+                    getLogger().severe("Exception occurred whilst syncing with the storage after loading the local snapshot", ex);
+                }
+            });
+        } else {
+            try {
+                new SyncTask(this).run();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
         }
 
         // init housekeeping tasks
@@ -491,11 +513,31 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         return this.syncTaskBuffer;
     }
 
+    @Override
+    public @Nullable LocalSnapshot getLocalSnapshot() {
+        return this.localSnapshot;
+    }
+
     @Override
     public InheritanceGraphFactory getInheritanceGraphFactory() {
         return this.inheritanceGraphFactory;
     }
 
+    @Override
+    public InheritanceDependencyIndex getInheritanceDependencyIndex() {
+        return this.inheritanceDependencyIndex;
+    }
+
+    @Override
+    public @Nullable CachedDataLimits getCachedDataLimits() {
+        return this.cachedDataLimits;
+    }
+
+    @Override
+    public boolean isCompactNodeMaps() {
+        return this.compactNodeMaps;
+    }
+
     @Override
     public CalculatorFactory getCalculatorFactory() {
         return this.calculatorFactory;
@@ -27,6 +27,7 @@ package me.lucko.luckperms.common.plugin;
 
 import me.lucko.luckperms.common.actionlog.LogDispatcher;
 import me.lucko.luckperms.common.api.LuckPermsApiProvider;
+import me.lucko.luckperms.common.cacheddata.CachedDataLimits;
 import me.lucko.luckperms.common.calculator.CalculatorFactory;
 import me.lucko.luckperms.common.command.CommandManager;
 import me.lucko.luckperms.common.command.abstraction.Command;
@@ -37,6 +38,7 @@ import me.lucko.luckperms.common.event.EventDispatcher;
 import me.lucko.luckperms.common.extension.SimpleExtensionManager;
 import me.lucko.luckperms.common.http.BytebinClient;
 import me.lucko.luckperms.common.http.BytesocksClient;
+import me.lucko.luckperms.common.inheritance.InheritanceDependencyIndex;
 import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
 import me.lucko.luckperms.common.locale.TranslationManager;
 import me.lucko.luckperms.common.locale.TranslationRepository;
@@ -51,6 +53,7 @@ import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
 import me.lucko.luckperms.common.plugin.logging.PluginLogger;
 import me.lucko.luckperms.common.plugin.util.AbstractConnectionListener;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.LocalSnapshot;
 import me.lucko.luckperms.common.storage.Storage;
 import me.lucko.luckperms.common.storage.implementation.file.watcher.FileWatcher;
 import me.lucko.luckperms.common.tasks.SyncTask;
@@ -58,6 +61,7 @@ import me.lucko.luckperms.common.treeview.PermissionRegistry;
 import me.lucko.luckperms.common.verbose.VerboseHandler;
 import me.lucko.luckperms.common.webeditor.store.WebEditorStore;
 import net.luckperms.api.query.QueryOptions;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Collections;
 import java.util.List;
@@ -207,6 +211,27 @@ public interface LuckPermsPlugin {
      */
     InheritanceGraphFactory getInheritanceGraphFactory();
 
+    /**
+     * Gets the reverse index of inheritance relationships between loaded holders
+     *
+     * @return the inheritance dependency index
+     */
+    InheritanceDependencyIndex getInheritanceDependencyIndex();
+
+    /**
+     * Gets the bounds on the amount of cached data held in memory
+     *
+     * @return the cached data limits, or null if cached data is unbounded
+     */
+    @Nullable CachedDataLimits getCachedDataLimits();
+
+    /**
+     * Gets if the normal node maps of permission holders should be compact
+     *
+     * @return if node maps should be compact
+     */
+    boolean isCompactNodeMaps();
+
     /**
      * Gets the class responsible for constructing PermissionCalculators on this platform.
      *
@@ -320,6 +345,13 @@ public interface LuckPermsPlugin {
      */
     SyncTask.Buffer getSyncTaskBuffer();
 
+    /**
+     * Gets the local snapshot of groups and tracks
+     *
+     * @return the local snapshot, or null if disabled
+     */
+    @Nullable LocalSnapshot getLocalSnapshot();
+
     /**
      * Called at the end of the sync task.
      */
@@ -25,12 +25,15 @@
 
 package me.lucko.luckperms.common.plugin.util;
 
+import me.lucko.luckperms.common.cacheddata.CachedDataPreloader;
+import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import net.luckperms.api.model.PlayerSaveResult;
 import net.luckperms.api.model.data.DataType;
 import net.luckperms.api.platform.Platform;
 
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -41,9 +44,13 @@ import java.util.concurrent.ConcurrentHashMap;
 public abstract class AbstractConnectionListener {
     private final LuckPermsPlugin plugin;
     private final Set<UUID> uniqueConnections = ConcurrentHashMap.newKeySet();
+    private final LoginBatcher loginBatcher;
+    private final CachedDataPreloader preloader;
 
     protected AbstractConnectionListener(LuckPermsPlugin plugin) {
         this.plugin = plugin;
+        this.loginBatcher = new LoginBatcher(plugin, this::savePlayerData, this::loadUsers);
+        this.preloader = plugin.getConfiguration().get(ConfigKeys.PRELOAD_CACHED_DATA) ? new CachedDataPreloader(plugin) : null;
     }
 
     /**
@@ -65,9 +72,51 @@ public abstract class AbstractConnectionListener {
         // register with the housekeeper to avoid accidental unloads
         this.plugin.getUserManager().getHouseKeeper().registerUsage(uniqueId);
 
-        // save uuid data.
-        PlayerSaveResult saveResult = this.plugin.getStorage().savePlayerData(uniqueId, username).join();
+        User user;
+        if (this.plugin.getConfiguration().get(ConfigKeys.LOGIN_BATCH_MILLIS) > 0) {
+            // save uuid data and load the user along with any other players connecting at the same time
+            user = this.loginBatcher.login(uniqueId, username).join();
+        } else {
+            // save uuid data.
+            PlayerSaveResult saveResult = this.plugin.getStorage().savePlayerData(uniqueId, username).join();
+            handlePlayerSaveResult(uniqueId, username, saveResult);
 
+            user = this.plugin.getStorage().loadUser(uniqueId, username).join();
+        }
+
+        if (user == null) {
+            throw new NullPointerException("User is null");
+        }
+
+        final long time = System.currentTimeMillis() - startTime;
+        if (time >= 1000) {
+            this.plugin.getLogger().warn("Processing login for " + username + " took " + time + "ms.");
+        }
+
+        // calculate the user's caches before their first permission check - we're
+        // already off the main thread here, so do it before the login completes
+        if (this.preloader != null) {
+            try {
+                this.preloader.preload(user);
+            } catch (Exception e) {
+                this.plugin.getLogger().warn("Unable to preload cached data for " + username, e);
+            }
+        }
+
+        return user;
+    }
+
+    private Map<UUID, PlayerSaveResult> savePlayerData(Map<UUID, String> usernames) {
+        Map<UUID, PlayerSaveResult> saveResults = this.plugin.getStorage().savePlayerData(usernames).join();
+        saveResults.forEach((uniqueId, saveResult) -> handlePlayerSaveResult(uniqueId, usernames.get(uniqueId), saveResult));
+        return saveResults;
+    }
+
+    private Map<UUID, User> loadUsers(Map<UUID, String> usernames) {
+        return this.plugin.getStorage().loadUsers(usernames).join();
+    }
+
+    private void handlePlayerSaveResult(UUID uniqueId, String username, PlayerSaveResult saveResult) {
         // fire UserFirstLogin event
         if (saveResult.includes(PlayerSaveResult.Outcome.CLEAN_INSERT)) {
             this.plugin.getEventDispatcher().dispatchUserFirstLogin(uniqueId, username);
@@ -97,18 +146,6 @@ public abstract class AbstractConnectionListener {
 
             this.plugin.getLogger().warn("See here for more info: https://luckperms.net/wiki/Network-Installation#pre-setup");
         }
-
-        User user = this.plugin.getStorage().loadUser(uniqueId, username).join();
-        if (user == null) {
-            throw new NullPointerException("User is null");
-        }
-
-        final long time = System.currentTimeMillis() - startTime;
-        if (time >= 1000) {
-            this.plugin.getLogger().warn("Processing login for " + username + " took " + time + "ms.");
-        }
-
-        return user;
     }
 
     public void handleDisconnect(UUID uniqueId) {
@@ -120,6 +157,9 @@ public abstract class AbstractConnectionListener {
         this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
             User user = this.plugin.getUserManager().getIfLoaded(uniqueId);
             if (user != null) {
+                if (this.preloader != null) {
+                    this.preloader.record(user);
+                }
                 user.clearNodes(DataType.TRANSIENT, null, false);
             }
         });
@@ -0,0 +1,221 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.plugin.util;
+
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
+import me.lucko.luckperms.common.util.Throwing;
+import net.luckperms.api.model.PlayerSaveResult;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gathers player logins which arrive within a short window of each other
+ * (configured by {@link ConfigKeys#LOGIN_BATCH_MILLIS}), so that their player
+ * data can be saved and their users loaded together.
+ *
+ * <p>When many players connect at once (e.g. after a proxy restart), this
+ * replaces two storage round trips per player with two per batch.</p>
+ *
+ * <p>Logins are processed in two phases: saving player data, then loading
+ * users. If a phase fails for the batch, only that phase is retried for each
+ * login on its own, so that a problem with one player's data doesn't prevent
+ * the others from joining, and player data is never saved twice.</p>
+ */
+public class LoginBatcher {
+
+    /**
+     * The maximum number of logins processed in a single batch
+     */
+    private static final int MAX_BATCH_SIZE = 100;
+
+    private final LuckPermsPlugin plugin;
+    private final Throwing.Function<Map<UUID, String>, Map<UUID, PlayerSaveResult>> saver;
+    private final Throwing.Function<Map<UUID, String>, Map<UUID, User>> loader;
+
+    /**
+     * Guards the pending logins and the scheduled flush
+     */
+    private final Object mutex = new Object();
+
+    private Map<UUID, PendingLogin> pending = new LinkedHashMap<>();
+    private SchedulerTask scheduledFlush = null;
+
+    /**
+     * Creates a new login batcher.
+     *
+     * @param plugin the plugin
+     * @param saver the function which saves player data for a batch of logins
+     * @param loader the function which loads the users for a batch of logins
+     */
+    public LoginBatcher(LuckPermsPlugin plugin, Throwing.Function<Map<UUID, String>, Map<UUID, PlayerSaveResult>> saver, Throwing.Function<Map<UUID, String>, Map<UUID, User>> loader) {
+        this.plugin = plugin;
+        this.saver = saver;
+        this.loader = loader;
+    }
+
+    /**
+     * Queues a login to be processed with the next batch.
+     *
+     * @param uniqueId the players unique id
+     * @param username the players username
+     * @return a future which completes with the user once the player's data
+     *         has been saved and their user has been loaded
+     */
+    public CompletableFuture<User> login(UUID uniqueId, String username) {
+        Map<UUID, PendingLogin> batch = null;
+        CompletableFuture<User> future;
+
+        synchronized (this.mutex) {
+            PendingLogin login = this.pending.get(uniqueId);
+            if (login == null) {
+                login = new PendingLogin(username);
+                this.pending.put(uniqueId, login);
+            }
+            future = login.future;
+
+            if (this.pending.size() >= MAX_BATCH_SIZE) {
+                batch = drain();
+            } else if (this.scheduledFlush == null) {
+                this.scheduledFlush = this.plugin.getBootstrap().getScheduler().asyncLater(this::flush, this.plugin.getConfiguration().get(ConfigKeys.LOGIN_BATCH_MILLIS), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (batch != null) {
+            Map<UUID, PendingLogin> fullBatch = batch;
+            this.plugin.getBootstrap().getScheduler().executeAsync(() -> process(fullBatch));
+        }
+        return future;
+    }
+
+    /**
+     * Processes any pending logins on the calling thread.
+     */
+    public void flush() {
+        Map<UUID, PendingLogin> batch;
+        synchronized (this.mutex) {
+            batch = drain();
+        }
+        process(batch);
+    }
+
+    private Map<UUID, PendingLogin> drain() {
+        if (this.scheduledFlush != null) {
+            this.scheduledFlush.cancel();
+            this.scheduledFlush = null;
+        }
+
+        Map<UUID, PendingLogin> batch = this.pending;
+        this.pending = new LinkedHashMap<>();
+        return batch;
+    }
+
+    private void process(Map<UUID, PendingLogin> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        runPhase("saving player data", batch, this.saver);
+
+        Map<UUID, PendingLogin> saved = remaining(batch);
+        if (saved.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, User> results = runPhase("loading users", saved, this.loader);
+        remaining(saved).forEach((uniqueId, login) -> {
+            User user = results.get(uniqueId);
+            if (user != null) {
+                login.future.complete(user);
+            } else {
+                login.future.completeExceptionally(new NullPointerException("No result for " + uniqueId));
+            }
+        });
+    }
+
+    /**
+     * Runs a phase of processing for a batch of logins.
+     *
+     * <p>If the phase fails for the batch, it is retried for each login on its
+     * own. Logins which still fail are completed exceptionally.</p>
+     *
+     * @param phase a description of the phase
+     * @param batch the logins
+     * @param function the function to run
+     * @param <R> the result type
+     * @return the results for the logins which succeeded
+     */
+    private <R> Map<UUID, R> runPhase(String phase, Map<UUID, PendingLogin> batch, Throwing.Function<Map<UUID, String>, Map<UUID, R>> function) {
+        Map<UUID, String> usernames = new LinkedHashMap<>();
+        batch.forEach((uniqueId, login) -> usernames.put(uniqueId, login.username));
+
+        try {
+            return function.apply(usernames);
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                batch.forEach((uniqueId, login) -> {
+                    this.plugin.getLogger().warn("Error whilst " + phase + " for the login of " + login.username + " (" + uniqueId + ")", e);
+                    login.future.completeExceptionally(e);
+                });
+                return Collections.emptyMap();
+            }
+
+            // isolate the failure by retrying each login on its own
+            this.plugin.getLogger().warn("Error whilst " + phase + " for a batch of " + batch.size() + " logins, retrying them individually", e);
+            Map<UUID, R> results = new HashMap<>();
+            batch.forEach((uniqueId, login) -> results.putAll(runPhase(phase, Collections.singletonMap(uniqueId, login), function)));
+            return results;
+        }
+    }
+
+    private static Map<UUID, PendingLogin> remaining(Map<UUID, PendingLogin> batch) {
+        Map<UUID, PendingLogin> remaining = new LinkedHashMap<>();
+        batch.forEach((uniqueId, login) -> {
+            if (!login.future.isDone()) {
+                remaining.put(uniqueId, login);
+            }
+        });
+        return remaining;
+    }
+
+    private static final class PendingLogin {
+        private final String username;
+        private final CompletableFuture<User> future = new CompletableFuture<>();
+
+        PendingLogin(String username) {
+            this.username = username;
+        }
+    }
+
+}
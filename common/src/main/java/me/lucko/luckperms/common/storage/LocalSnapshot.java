@@ -0,0 +1,226 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.Track;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.misc.BinaryNodeCodec;
+import net.luckperms.api.node.Node;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A local binary copy of all groups and tracks, written after each successful
+ * sync with the storage.
+ *
+ * <p>On startup, the snapshot is read and loaded before the storage
+ * is queried, so that permission checks can be answered from the last known
+ * state straight away. The storage is then reconciled in the background by a
+ * normal {@link me.lucko.luckperms.common.tasks.SyncTask}.</p>
+ *
+ * <p>The file consists of a header (magic, format version, body length and a
+ * CRC32 checksum of the body), followed by the groups and then the tracks.
+ * Snapshots which fail to validate are ignored.</p>
+ */
+public class LocalSnapshot {
+    private static final int MAGIC = 0x4C505353; // "LPSS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * Creates a local snapshot, if enabled in the configuration.
+     *
+     * @param plugin the plugin
+     * @return the snapshot, or null if disabled
+     */
+    public static @Nullable LocalSnapshot create(LuckPermsPlugin plugin) {
+        if (!plugin.getConfiguration().get(ConfigKeys.LOCAL_SNAPSHOT)) {
+            return null;
+        }
+        return new LocalSnapshot(plugin, plugin.getBootstrap().getDataDirectory().resolve("local-snapshot.bin"));
+    }
+
+    private final LuckPermsPlugin plugin;
+    private final Path file;
+
+    /** The checksum of the last snapshot read or written, used to skip rewriting unchanged data */
+    private long lastChecksum = -1;
+
+    public LocalSnapshot(LuckPermsPlugin plugin, Path file) {
+        this.plugin = plugin;
+        this.file = file;
+    }
+
+    /**
+     * Loads the groups and tracks held in the snapshot into the plugin.
+     *
+     * @return true if the snapshot was loaded, false if it is missing or invalid
+     */
+    public synchronized boolean load() {
+        if (!Files.exists(this.file)) {
+            return false;
+        }
+
+        Map<String, List<Node>> groups = new LinkedHashMap<>();
+        Map<String, List<String>> tracks = new LinkedHashMap<>();
+
+        try {
+            // read onto the heap rather than mapping the file - a mapping isn't released until it's
+            // garbage collected, and on Windows it prevents the snapshot from being replaced
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.file));
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return false;
+            }
+
+            int length = buffer.getInt();
+            long checksum = buffer.getInt() & 0xFFFFFFFFL;
+            if (length != buffer.remaining()) {
+                return false;
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if (crc.getValue() != checksum) {
+                this.plugin.getLogger().warn("Ignoring corrupt local snapshot: " + this.file);
+                return false;
+            }
+
+            DataInput in = BinaryNodeCodec.input(buffer);
+            int groupCount = in.readInt();
+            for (int i = 0; i < groupCount; i++) {
+                groups.put(in.readUTF(), BinaryNodeCodec.readNodes(in));
+            }
+            int trackCount = in.readInt();
+            for (int i = 0; i < trackCount; i++) {
+                String name = in.readUTF();
+                int size = in.readInt();
+                List<String> members = new ArrayList<>(size);
+                for (int j = 0; j < size; j++) {
+                    members.add(in.readUTF());
+                }
+                tracks.put(name, members);
+            }
+
+            this.lastChecksum = checksum;
+        } catch (Exception e) {
+            this.plugin.getLogger().warn("Unable to read local snapshot", e);
+            return false;
+        }
+
+        for (Map.Entry<String, List<Node>> entry : groups.entrySet()) {
+            Group group = this.plugin.getGroupManager().getOrMake(entry.getKey());
+            group.loadNodesFromStorage(entry.getValue());
+        }
+        this.plugin.getGroupManager().retainAll(groups.keySet());
+
+        for (Map.Entry<String, List<String>> entry : tracks.entrySet()) {
+            Track track = this.plugin.getTrackManager().getOrMake(entry.getKey());
+            track.setGroups(entry.getValue());
+        }
+        this.plugin.getTrackManager().retainAll(tracks.keySet());
+
+        return true;
+    }
+
+    /**
+     * Writes the currently loaded groups and tracks to the snapshot.
+     *
+     * <p>The file is only rewritten if the data has changed since it was
+     * last read or written.</p>
+     */
+    public synchronized void save() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                Map<String, ? extends Group> groups = this.plugin.getGroupManager().getAll();
+                out.writeInt(groups.size());
+                for (Group group : groups.values()) {
+                    out.writeUTF(group.getName());
+                    BinaryNodeCodec.writeNodes(out, group.normalData().asImmutableSet());
+                }
+
+                Map<String, ? extends Track> tracks = this.plugin.getTrackManager().getAll();
+                out.writeInt(tracks.size());
+                for (Track track : tracks.values()) {
+                    List<String> members = track.getGroups();
+                    out.writeUTF(track.getName());
+                    out.writeInt(members.size());
+                    for (String member : members) {
+                        out.writeUTF(member);
+                    }
+                }
+            }
+
+            byte[] body = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(body, 0, body.length);
+            long checksum = crc.getValue();
+            if (checksum == this.lastChecksum) {
+                return;
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(body.length).putInt((int) checksum);
+            header.flip();
+
+            Path temp = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer[] buffers = {header, ByteBuffer.wrap(body)};
+                while (buffers[1].hasRemaining()) {
+                    channel.write(buffers);
+                }
+            }
+            try {
+                Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            this.lastChecksum = checksum;
+        } catch (IOException e) {
+            this.plugin.getLogger().warn("Unable to write local snapshot", e);
+        }
+    }
+
+}
@@ -27,7 +27,13 @@ package me.lucko.luckperms.common.storage;
 
 import com.google.common.collect.ImmutableList;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.PageParameters;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.metrics.MetricRegistry;
+import me.lucko.luckperms.common.metrics.Timer;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.Track;
 import me.lucko.luckperms.common.model.User;
@@ -43,6 +49,7 @@ import net.luckperms.api.event.cause.CreationCause;
 import net.luckperms.api.event.cause.DeletionCause;
 import net.luckperms.api.model.PlayerSaveResult;
 import net.luckperms.api.node.Node;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -62,10 +69,14 @@ import java.util.concurrent.CompletionException;
 public class Storage {
     private final LuckPermsPlugin plugin;
     private final StorageImplementation implementation;
+    private final @Nullable WriteBehindQueue writeBehindQueue;
 
     public Storage(LuckPermsPlugin plugin, StorageImplementation implementation) {
         this.plugin = plugin;
         this.implementation = implementation;
+
+        int writeBehindMillis = plugin.getConfiguration().get(ConfigKeys.WRITE_BEHIND_MILLIS);
+        this.writeBehindQueue = writeBehindMillis > 0 ? new WriteBehindQueue(plugin, implementation, writeBehindMillis) : null;
     }
 
     public StorageImplementation getImplementation() {
@@ -80,8 +91,20 @@ public class Storage {
         }
     }
 
-    private <T> CompletableFuture<T> future(Callable<T> supplier) {
+    /**
+     * Gets the timer which records the latency of the given {@link StorageImplementation} method.
+     *
+     * @param operation the name of the method
+     * @return the timer
+     */
+    static Timer operationTimer(String operation) {
+        return MetricRegistry.timer("storage_operation", "Time taken to perform storage operations, by method", "operation", operation);
+    }
+
+    private <T> CompletableFuture<T> future(String operation, Callable<T> supplier) {
+        Timer timer = operationTimer(operation);
         return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
             try {
                 return supplier.call();
             } catch (Exception e) {
@@ -89,12 +112,16 @@ public class Storage {
                     throw (RuntimeException) e;
                 }
                 throw new CompletionException(e);
+            } finally {
+                timer.recordSince(start);
             }
         }, this.plugin.getBootstrap().getScheduler().async());
     }
 
-    private CompletableFuture<Void> future(Throwing.Runnable runnable) {
+    private CompletableFuture<Void> future(String operation, Throwing.Runnable runnable) {
+        Timer timer = operationTimer(operation);
         return CompletableFuture.runAsync(() -> {
+            long start = System.nanoTime();
             try {
                 runnable.run();
             } catch (Exception e) {
@@ -102,10 +129,40 @@ public class Storage {
                     throw (RuntimeException) e;
                 }
                 throw new CompletionException(e);
+            } finally {
+                timer.recordSince(start);
             }
         }, this.plugin.getBootstrap().getScheduler().async());
     }
 
+    public boolean isWriteBehind() {
+        return this.writeBehindQueue != null;
+    }
+
+    /**
+     * Writes any user or group saves which are being held back by the
+     * write-behind queue, blocking until they have completed.
+     *
+     * <p>Does nothing if write-behind is disabled.</p>
+     */
+    public void flushPendingSaves() {
+        if (this.writeBehindQueue != null) {
+            this.writeBehindQueue.flush();
+        }
+    }
+
+    /**
+     * Writes any saves held back by the write-behind queue for the given users,
+     * blocking until they have completed.
+     *
+     * @param uniqueIds the users
+     */
+    private void flushPendingUserSaves(Set<UUID> uniqueIds) {
+        if (this.writeBehindQueue != null) {
+            this.writeBehindQueue.flushUsers(user -> uniqueIds.contains(user.getUniqueId()));
+        }
+    }
+
     public String getName() {
         return this.implementation.getImplementationName();
     }
@@ -119,6 +176,10 @@ public class Storage {
     }
 
     public void shutdown() {
+        if (this.writeBehindQueue != null) {
+            this.writeBehindQueue.close();
+        }
+
         try {
             this.implementation.shutdown();
         } catch (Exception e) {
@@ -131,19 +192,27 @@ public class Storage {
     }
 
     public CompletableFuture<Void> logAction(Action entry) {
-        return future(() -> this.implementation.logAction(entry));
+        return future("logAction", () -> this.implementation.logAction(entry));
     }
 
     public CompletableFuture<Log> getLog() {
-        return future(this.implementation::getLog);
+        return future("getLog", this.implementation::getLog);
+    }
+
+    public CompletableFuture<LogPage> getLogPage(LogFilter filter, @Nullable PageParameters page) {
+        return future("getLogPage", () -> this.implementation.getLogPage(filter, page));
     }
 
     public CompletableFuture<Void> applyBulkUpdate(BulkUpdate bulkUpdate) {
-        return future(() -> this.implementation.applyBulkUpdate(bulkUpdate));
+        return future("applyBulkUpdate", () -> {
+            flushPendingSaves();
+            this.implementation.applyBulkUpdate(bulkUpdate);
+        });
     }
 
     public CompletableFuture<User> loadUser(UUID uniqueId, String username) {
-        return future(() -> {
+        return future("loadUser", () -> {
+            flushPendingUserSaves(Collections.singleton(uniqueId));
             User user = this.implementation.loadUser(uniqueId, username);
             if (user != null) {
                 this.plugin.getEventDispatcher().dispatchUserLoad(user);
@@ -153,7 +222,8 @@ public class Storage {
     }
 
     public CompletableFuture<Map<UUID, User>> loadUsers(Set<UUID> uniqueIds) {
-        return future(() -> {
+        return future("loadUsers", () -> {
+            flushPendingUserSaves(uniqueIds);
             Map<UUID, User> users = this.implementation.loadUsers(uniqueIds);
             for (User user : users.values()) {
                 this.plugin.getEventDispatcher().dispatchUserLoad(user);
@@ -162,16 +232,39 @@ public class Storage {
         });
     }
 
+    public CompletableFuture<Map<UUID, User>> loadUsers(Map<UUID, String> usernames) {
+        return future("loadUsers", () -> {
+            flushPendingUserSaves(usernames.keySet());
+            Map<UUID, User> users = this.implementation.loadUsers(usernames);
+            for (User user : users.values()) {
+                this.plugin.getEventDispatcher().dispatchUserLoad(user);
+            }
+            return users;
+        });
+    }
+
     public CompletableFuture<Void> saveUser(User user) {
-        return future(() -> this.implementation.saveUser(user));
+        if (this.writeBehindQueue != null) {
+            CompletableFuture<Void> future = this.writeBehindQueue.saveUser(user);
+            if (future != null) {
+                return future;
+            }
+        }
+        return future("saveUser", () -> this.implementation.saveUser(user));
     }
 
     public CompletableFuture<Set<UUID>> getUniqueUsers() {
-        return future(this.implementation::getUniqueUsers);
+        return future("getUniqueUsers", () -> {
+            if (this.writeBehindQueue != null) {
+                this.writeBehindQueue.flushUsers(user -> true);
+            }
+            return this.implementation.getUniqueUsers();
+        });
     }
 
     public <N extends Node> CompletableFuture<List<NodeEntry<UUID, N>>> searchUserNodes(ConstraintNodeMatcher<N> constraint) {
-        return future(() -> {
+        return future("searchUserNodes", () -> {
+            flushPendingSaves();
             List<NodeEntry<UUID, N>> result = this.implementation.searchUserNodes(constraint);
             result.removeIf(entry -> entry.getNode().hasExpired());
             return ImmutableList.copyOf(result);
@@ -179,7 +272,7 @@ public class Storage {
     }
 
     public CompletableFuture<Group> createAndLoadGroup(String name, CreationCause cause) {
-        return future(() -> {
+        return future("createAndLoadGroup", () -> {
             Group group = this.implementation.createAndLoadGroup(name.toLowerCase(Locale.ROOT));
             if (group != null) {
                 this.plugin.getEventDispatcher().dispatchGroupCreate(group, cause);
@@ -189,7 +282,11 @@ public class Storage {
     }
 
     public CompletableFuture<Optional<Group>> loadGroup(String name) {
-        return future(() -> {
+        return future("loadGroup", () -> {
+            if (this.writeBehindQueue != null) {
+                String groupName = name.toLowerCase(Locale.ROOT);
+                this.writeBehindQueue.flushGroups(group -> group.getName().equals(groupName));
+            }
             Optional<Group> group = this.implementation.loadGroup(name.toLowerCase(Locale.ROOT));
             if (group.isPresent()) {
                 this.plugin.getEventDispatcher().dispatchGroupLoad(group.get());
@@ -199,25 +296,34 @@ public class Storage {
     }
 
     public CompletableFuture<Void> loadAllGroups() {
-        return future(() -> {
+        return future("loadAllGroups", () -> {
+            flushPendingSaves();
             this.implementation.loadAllGroups();
             this.plugin.getEventDispatcher().dispatchGroupLoadAll();
         });
     }
 
     public CompletableFuture<Void> saveGroup(Group group) {
-        return future(() -> this.implementation.saveGroup(group));
+        if (this.writeBehindQueue != null) {
+            CompletableFuture<Void> future = this.writeBehindQueue.saveGroup(group);
+            if (future != null) {
+                return future;
+            }
+        }
+        return future("saveGroup", () -> this.implementation.saveGroup(group));
     }
 
     public CompletableFuture<Void> deleteGroup(Group group, DeletionCause cause) {
-        return future(() -> {
+        return future("deleteGroup", () -> {
+            flushPendingSaves();
             this.implementation.deleteGroup(group);
             this.plugin.getEventDispatcher().dispatchGroupDelete(group, cause);
         });
     }
 
     public <N extends Node> CompletableFuture<List<NodeEntry<String, N>>> searchGroupNodes(ConstraintNodeMatcher<N> constraint) {
-        return future(() -> {
+        return future("searchGroupNodes", () -> {
+            flushPendingSaves();
             List<NodeEntry<String, N>> result = this.implementation.searchGroupNodes(constraint);
             result.removeIf(entry -> entry.getNode().hasExpired());
             return ImmutableList.copyOf(result);
@@ -225,7 +331,7 @@ public class Storage {
     }
 
     public CompletableFuture<Track> createAndLoadTrack(String name, CreationCause cause) {
-        return future(() -> {
+        return future("createAndLoadTrack", () -> {
             Track track = this.implementation.createAndLoadTrack(name.toLowerCase(Locale.ROOT));
             if (track != null) {
                 this.plugin.getEventDispatcher().dispatchTrackCreate(track, cause);
@@ -235,7 +341,7 @@ public class Storage {
     }
 
     public CompletableFuture<Optional<Track>> loadTrack(String name) {
-        return future(() -> {
+        return future("loadTrack", () -> {
             Optional<Track> track = this.implementation.loadTrack(name.toLowerCase(Locale.ROOT));
             if (track.isPresent()) {
                 this.plugin.getEventDispatcher().dispatchTrackLoad(track.get());
@@ -245,25 +351,25 @@ public class Storage {
     }
 
     public CompletableFuture<Void> loadAllTracks() {
-        return future(() -> {
+        return future("loadAllTracks", () -> {
             this.implementation.loadAllTracks();
             this.plugin.getEventDispatcher().dispatchTrackLoadAll();
         });
     }
 
     public CompletableFuture<Void> saveTrack(Track track) {
-        return future(() -> this.implementation.saveTrack(track));
+        return future("saveTrack", () -> this.implementation.saveTrack(track));
     }
 
     public CompletableFuture<Void> deleteTrack(Track track, DeletionCause cause) {
-        return future(() -> {
+        return future("deleteTrack", () -> {
             this.implementation.deleteTrack(track);
             this.plugin.getEventDispatcher().dispatchTrackDelete(track, cause);
          });
     }
 
     public CompletableFuture<PlayerSaveResult> savePlayerData(UUID uniqueId, String username) {
-        return future(() -> {
+        return future("savePlayerData", () -> {
             PlayerSaveResult result = this.implementation.savePlayerData(uniqueId, username);
             if (result != null) {
                 this.plugin.getEventDispatcher().dispatchPlayerDataSave(uniqueId, username, result);
@@ -272,15 +378,30 @@ public class Storage {
         });
     }
 
+    public CompletableFuture<Map<UUID, PlayerSaveResult>> savePlayerData(Map<UUID, String> usernames) {
+        return future("savePlayerData", () -> {
+            Map<UUID, PlayerSaveResult> results = this.implementation.savePlayerData(usernames);
+            results.forEach((uniqueId, result) -> {
+                if (result != null) {
+                    this.plugin.getEventDispatcher().dispatchPlayerDataSave(uniqueId, usernames.get(uniqueId), result);
+                }
+            });
+            return results;
+        });
+    }
+
     public CompletableFuture<Void> deletePlayerData(UUID uniqueId) {
-        return future(() -> this.implementation.deletePlayerData(uniqueId));
+        return future("deletePlayerData", () -> {
+            flushPendingSaves();
+            this.implementation.deletePlayerData(uniqueId);
+        });
     }
 
     public CompletableFuture<UUID> getPlayerUniqueId(String username) {
-        return future(() -> this.implementation.getPlayerUniqueId(username));
+        return future("getPlayerUniqueId", () -> this.implementation.getPlayerUniqueId(username));
     }
 
     public CompletableFuture<String> getPlayerName(UUID uniqueId) {
-        return future(() -> this.implementation.getPlayerName(uniqueId));
+        return future("getPlayerName", () -> this.implementation.getPlayerName(uniqueId));
     }
 }
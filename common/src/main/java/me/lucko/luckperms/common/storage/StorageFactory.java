@@ -29,6 +29,7 @@ import com.google.common.collect.ImmutableSet;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
+import me.lucko.luckperms.common.storage.implementation.binary.BinaryStorage;
 import me.lucko.luckperms.common.storage.implementation.custom.CustomStorageProviders;
 import me.lucko.luckperms.common.storage.implementation.file.CombinedConfigurateStorage;
 import me.lucko.luckperms.common.storage.implementation.file.SeparatedConfigurateStorage;
@@ -122,6 +123,8 @@ public class StorageFactory {
                         new PostgresConnectionFactory(this.plugin.getConfiguration().get(ConfigKeys.DATABASE_VALUES)),
                         this.plugin.getConfiguration().get(ConfigKeys.SQL_TABLE_PREFIX)
                 );
+            case BINARY:
+                return new BinaryStorage(this.plugin, "binary-storage");
             case MONGODB:
                 return new MongoStorage(
                         this.plugin,
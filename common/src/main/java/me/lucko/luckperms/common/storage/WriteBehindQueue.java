@@ -0,0 +1,245 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import me.lucko.luckperms.common.metrics.Timer;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
+import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
+import me.lucko.luckperms.common.util.Throwing;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Holds back user and group saves for a short window, so that saves made in
+ * quick succession are coalesced and written together.
+ *
+ * <p>Changes to a holder's nodes are recorded by its
+ * {@link me.lucko.luckperms.common.model.nodemap.RecordedNodeMap}, and each save
+ * exports (and merges) everything recorded since the last one. Deferring a save
+ * and performing it once is therefore equivalent to performing every save
+ * requested during the window.</p>
+ *
+ * <p>Pending saves are written in batches via
+ * {@link StorageImplementation#saveGroups(List)} and
+ * {@link StorageImplementation#saveUsers(List)}.</p>
+ */
+public class WriteBehindQueue {
+
+    /**
+     * The maximum number of holders written in a single batch
+     */
+    private static final int MAX_BATCH_SIZE = 100;
+
+    private final LuckPermsPlugin plugin;
+    private final StorageImplementation implementation;
+    private final long windowMillis;
+
+    /**
+     * Guards the pending maps, the scheduled flush and the closed flag
+     */
+    private final Object mutex = new Object();
+
+    /**
+     * Ensures batches are written in the order they were drained
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private Map<User, CompletableFuture<Void>> pendingUsers = new IdentityHashMap<>();
+    private Map<Group, CompletableFuture<Void>> pendingGroups = new IdentityHashMap<>();
+    private SchedulerTask scheduledFlush = null;
+    private boolean closed = false;
+
+    public WriteBehindQueue(LuckPermsPlugin plugin, StorageImplementation implementation, long windowMillis) {
+        this.plugin = plugin;
+        this.implementation = implementation;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Queues a save for the user.
+     *
+     * @param user the user
+     * @return a future which completes once the user has been written, or null
+     *         if the queue has been closed
+     */
+    public @Nullable CompletableFuture<Void> saveUser(User user) {
+        synchronized (this.mutex) {
+            if (this.closed) {
+                return null;
+            }
+            CompletableFuture<Void> future = this.pendingUsers.computeIfAbsent(user, u -> new CompletableFuture<>());
+            scheduleFlush();
+            return future;
+        }
+    }
+
+    /**
+     * Queues a save for the group.
+     *
+     * @param group the group
+     * @return a future which completes once the group has been written, or null
+     *         if the queue has been closed
+     */
+    public @Nullable CompletableFuture<Void> saveGroup(Group group) {
+        synchronized (this.mutex) {
+            if (this.closed) {
+                return null;
+            }
+            CompletableFuture<Void> future = this.pendingGroups.computeIfAbsent(group, g -> new CompletableFuture<>());
+            scheduleFlush();
+            return future;
+        }
+    }
+
+    public boolean hasPending() {
+        synchronized (this.mutex) {
+            return !this.pendingUsers.isEmpty() || !this.pendingGroups.isEmpty();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (this.scheduledFlush == null) {
+            this.scheduledFlush = this.plugin.getBootstrap().getScheduler().asyncLater(this::flush, this.windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes all pending saves on the calling thread.
+     *
+     * <p>When this method returns, every save queued before it was called
+     * has been written (or has failed).</p>
+     */
+    public void flush() {
+        flush(user -> true, group -> true);
+    }
+
+    /**
+     * Writes the pending saves of the matching users on the calling thread.
+     *
+     * <p>Saves for other users and groups remain queued.</p>
+     *
+     * @param filter the users to write
+     */
+    public void flushUsers(Predicate<? super User> filter) {
+        flush(filter, group -> false);
+    }
+
+    /**
+     * Writes the pending saves of the matching groups on the calling thread.
+     *
+     * <p>Saves for other users and groups remain queued.</p>
+     *
+     * @param filter the groups to write
+     */
+    public void flushGroups(Predicate<? super Group> filter) {
+        flush(user -> false, filter);
+    }
+
+    private void flush(Predicate<? super User> userFilter, Predicate<? super Group> groupFilter) {
+        // hold the flush lock while draining, so a concurrent flush which
+        // drained earlier saves has finished writing them before we return
+        this.flushLock.lock();
+        try {
+            Map<User, CompletableFuture<Void>> users;
+            Map<Group, CompletableFuture<Void>> groups;
+
+            synchronized (this.mutex) {
+                users = drain(this.pendingUsers, userFilter);
+                groups = drain(this.pendingGroups, groupFilter);
+
+                if (this.pendingUsers.isEmpty() && this.pendingGroups.isEmpty() && this.scheduledFlush != null) {
+                    this.scheduledFlush.cancel();
+                    this.scheduledFlush = null;
+                }
+                if (users.isEmpty() && groups.isEmpty()) {
+                    return;
+                }
+            }
+
+            // groups first, users may inherit from them
+            writeBatches(groups, this.implementation::saveGroups, "saveGroups", "groups");
+            writeBatches(users, this.implementation::saveUsers, "saveUsers", "users");
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes any pending saves and stops queuing new ones.
+     */
+    public void close() {
+        synchronized (this.mutex) {
+            this.closed = true;
+        }
+        flush();
+    }
+
+    private static <T> Map<T, CompletableFuture<Void>> drain(Map<T, CompletableFuture<Void>> pending, Predicate<? super T> filter) {
+        Map<T, CompletableFuture<Void>> drained = new IdentityHashMap<>();
+        for (Iterator<Map.Entry<T, CompletableFuture<Void>>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<T, CompletableFuture<Void>> entry = it.next();
+            if (filter.test(entry.getKey())) {
+                drained.put(entry.getKey(), entry.getValue());
+                it.remove();
+            }
+        }
+        return drained;
+    }
+
+    private <T> void writeBatches(Map<T, CompletableFuture<Void>> pending, Throwing.Consumer<List<T>> writer, String operation, String type) {
+        List<T> holders = new ArrayList<>(pending.keySet());
+        Timer timer = Storage.operationTimer(operation);
+        for (int i = 0; i < holders.size(); i += MAX_BATCH_SIZE) {
+            List<T> batch = holders.subList(i, Math.min(i + MAX_BATCH_SIZE, holders.size()));
+            long start = System.nanoTime();
+            try {
+                writer.accept(batch);
+                timer.recordSince(start);
+                for (T holder : batch) {
+                    pending.get(holder).complete(null);
+                }
+            } catch (Exception e) {
+                this.plugin.getLogger().warn("Error whilst saving a batch of " + batch.size() + " " + type, e);
+                for (T holder : batch) {
+                    pending.get(holder).completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+}
@@ -26,6 +26,9 @@
 package me.lucko.luckperms.common.storage.implementation;
 
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.PageParameters;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.Track;
@@ -40,6 +43,7 @@ import net.luckperms.api.node.Node;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -63,14 +67,32 @@ public interface StorageImplementation {
 
     Log getLog() throws Exception;
 
+    default LogPage getLogPage(LogFilter filter, @Nullable PageParameters page) throws Exception {
+        return getLog().getPage(filter, page);
+    }
+
     void applyBulkUpdate(BulkUpdate bulkUpdate) throws Exception;
 
     User loadUser(UUID uniqueId, String username) throws Exception;
 
     Map<UUID, User> loadUsers(Set<UUID> uniqueIds) throws Exception;
 
+    default Map<UUID, User> loadUsers(Map<UUID, String> usernames) throws Exception {
+        Map<UUID, User> users = new HashMap<>();
+        for (Map.Entry<UUID, String> entry : usernames.entrySet()) {
+            users.put(entry.getKey(), loadUser(entry.getKey(), entry.getValue()));
+        }
+        return users;
+    }
+
     void saveUser(User user) throws Exception;
 
+    default void saveUsers(List<User> users) throws Exception {
+        for (User user : users) {
+            saveUser(user);
+        }
+    }
+
     Set<UUID> getUniqueUsers() throws Exception;
 
     <N extends Node> List<NodeEntry<UUID, N>> searchUserNodes(ConstraintNodeMatcher<N> constraint) throws Exception;
@@ -83,6 +105,12 @@ public interface StorageImplementation {
 
     void saveGroup(Group group) throws Exception;
 
+    default void saveGroups(List<Group> groups) throws Exception {
+        for (Group group : groups) {
+            saveGroup(group);
+        }
+    }
+
     void deleteGroup(Group group) throws Exception;
 
     <N extends Node> List<NodeEntry<String, N>> searchGroupNodes(ConstraintNodeMatcher<N> constraint) throws Exception;
@@ -99,6 +127,14 @@ public interface StorageImplementation {
 
     PlayerSaveResult savePlayerData(UUID uniqueId, String username) throws Exception;
 
+    default Map<UUID, PlayerSaveResult> savePlayerData(Map<UUID, String> usernames) throws Exception {
+        Map<UUID, PlayerSaveResult> results = new HashMap<>();
+        for (Map.Entry<UUID, String> entry : usernames.entrySet()) {
+            results.put(entry.getKey(), savePlayerData(entry.getKey(), entry.getValue()));
+        }
+        return results;
+    }
+
     void deletePlayerData(UUID uniqueId) throws Exception;
 
     @Nullable UUID getPlayerUniqueId(String username) throws Exception;
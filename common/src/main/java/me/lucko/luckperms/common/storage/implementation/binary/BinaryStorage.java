@@ -0,0 +1,485 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.implementation.binary;
+
+import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.PageParameters;
+import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.HolderType;
+import me.lucko.luckperms.common.model.Track;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.model.manager.group.GroupManager;
+import me.lucko.luckperms.common.node.matcher.ConstraintNodeMatcher;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
+import me.lucko.luckperms.common.storage.implementation.file.FileActionLogger;
+import me.lucko.luckperms.common.storage.implementation.file.FileIOException;
+import me.lucko.luckperms.common.storage.implementation.file.FileUuidCache;
+import me.lucko.luckperms.common.storage.misc.BinaryNodeCodec;
+import me.lucko.luckperms.common.storage.misc.NodeEntry;
+import me.lucko.luckperms.common.util.Iterators;
+import me.lucko.luckperms.common.util.MoreFiles;
+import me.lucko.luckperms.common.util.Uuids;
+import net.luckperms.api.actionlog.Action;
+import net.luckperms.api.model.PlayerSaveResult;
+import net.luckperms.api.node.Node;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Local storage using compact binary records, held in an append-only
+ * {@link RecordLog} for each of users, groups and tracks.
+ *
+ * <p>Saving a holder appends a single record to its log, rather than
+ * rewriting a file, and loading a holder reads its latest record directly
+ * using the log index.</p>
+ */
+public class BinaryStorage implements StorageImplementation {
+    /** The plugin instance */
+    private final LuckPermsPlugin plugin;
+
+    /* The data directory */
+    private Path dataDirectory;
+    private final String dataDirectoryName;
+
+    /* The UUID cache */
+    private final FileUuidCache uuidCache;
+    private Path uuidCacheFile;
+
+    /** The action logger */
+    private final FileActionLogger actionLogger;
+
+    private RecordLog users;
+    private RecordLog groups;
+    private RecordLog tracks;
+
+    public BinaryStorage(LuckPermsPlugin plugin, String dataDirectoryName) {
+        this.plugin = plugin;
+        this.dataDirectoryName = dataDirectoryName;
+
+        this.uuidCache = new FileUuidCache();
+        this.actionLogger = new FileActionLogger(plugin);
+    }
+
+    @Override
+    public LuckPermsPlugin getPlugin() {
+        return this.plugin;
+    }
+
+    @Override
+    public String getImplementationName() {
+        return "Binary";
+    }
+
+    @Override
+    public void init() throws IOException {
+        // init the data directory and ensure it exists
+        this.dataDirectory = this.plugin.getBootstrap().getDataDirectory().resolve(this.dataDirectoryName);
+        MoreFiles.createDirectoriesIfNotExists(this.dataDirectory);
+
+        // setup the uuid cache
+        this.uuidCacheFile = MoreFiles.createFileIfNotExists(this.dataDirectory.resolve("uuidcache.txt"));
+        this.uuidCache.load(this.uuidCacheFile);
+
+        // setup the action logger
+        this.actionLogger.init(this.dataDirectory.resolve("actions.txt"), this.dataDirectory.resolve("actions.json"));
+
+        this.users = openLog("users");
+        this.groups = openLog("groups");
+        this.tracks = openLog("tracks");
+    }
+
+    private RecordLog openLog(String name) throws IOException {
+        RecordLog log = new RecordLog(this.plugin.getLogger(), this.dataDirectory.resolve(name + ".dat"), this.dataDirectory.resolve(name + ".idx"));
+        log.open();
+        return log;
+    }
+
+    @Override
+    public void shutdown() {
+        for (RecordLog log : new RecordLog[]{this.users, this.groups, this.tracks}) {
+            if (log == null) {
+                continue;
+            }
+            try {
+                log.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        this.uuidCache.save(this.uuidCacheFile);
+        this.actionLogger.flush();
+    }
+
+    @Override
+    public void logAction(Action entry) {
+        this.actionLogger.logAction(entry);
+    }
+
+    @Override
+    public Log getLog() throws IOException {
+        return this.actionLogger.getLog();
+    }
+
+    @Override
+    public LogPage getLogPage(LogFilter filter, @Nullable PageParameters page) throws IOException {
+        return this.actionLogger.getLogPage(filter, page);
+    }
+
+    @Override
+    public void applyBulkUpdate(BulkUpdate bulkUpdate) throws IOException {
+        if (bulkUpdate.getDataType().isIncludingUsers()) {
+            for (String key : this.users.keys()) {
+                DataInput in = this.users.read(key);
+                if (in == null) {
+                    continue;
+                }
+
+                String name = in.readBoolean() ? in.readUTF() : null;
+                String primaryGroup = in.readUTF();
+                Set<Node> results = bulkUpdate.apply(new HashSet<>(BinaryNodeCodec.readNodes(in)), HolderType.USER);
+                if (results != null) {
+                    this.users.write(key, out -> writeUser(out, name, primaryGroup, results));
+                }
+            }
+        }
+
+        if (bulkUpdate.getDataType().isIncludingGroups()) {
+            for (String key : this.groups.keys()) {
+                DataInput in = this.groups.read(key);
+                if (in == null) {
+                    continue;
+                }
+
+                Set<Node> results = bulkUpdate.apply(new HashSet<>(BinaryNodeCodec.readNodes(in)), HolderType.GROUP);
+                if (results != null) {
+                    this.groups.write(key, out -> BinaryNodeCodec.writeNodes(out, results));
+                }
+            }
+        }
+    }
+
+    @Override
+    public User loadUser(UUID uniqueId, String username) throws IOException {
+        User user = this.plugin.getUserManager().getOrMake(uniqueId, username);
+        try {
+            DataInput in = this.users.read(uniqueId.toString());
+            if (in != null) {
+                String name = in.readBoolean() ? in.readUTF() : null;
+                String primaryGroup = in.readUTF();
+
+                user.getPrimaryGroup().setStoredValue(primaryGroup);
+                user.setUsername(name, true);
+
+                user.loadNodesFromStorage(BinaryNodeCodec.readNodes(in));
+                this.plugin.getUserManager().giveDefaultIfNeeded(user);
+
+                boolean updatedUsername = user.getUsername().isPresent() && (name == null || !user.getUsername().get().equalsIgnoreCase(name));
+                if (updatedUsername | user.auditTemporaryNodes()) {
+                    saveUser(user);
+                }
+            } else {
+                if (this.plugin.getUserManager().isNonDefaultUser(user)) {
+                    user.loadNodesFromStorage(Collections.emptyList());
+                    user.getPrimaryGroup().setStoredValue(null);
+                    this.plugin.getUserManager().giveDefaultIfNeeded(user);
+                }
+            }
+        } catch (Exception e) {
+            throw new FileIOException(uniqueId.toString(), e);
+        }
+        return user;
+    }
+
+    @Override
+    public Map<UUID, User> loadUsers(Set<UUID> uniqueIds) throws Exception {
+        Map<UUID, User> map = new HashMap<>();
+        for (UUID uniqueId : uniqueIds) {
+            map.put(uniqueId, loadUser(uniqueId, null));
+        }
+        return map;
+    }
+
+    @Override
+    public void saveUser(User user) throws IOException {
+        user.normalData().discardChanges();
+        try {
+            if (!this.plugin.getUserManager().isNonDefaultUser(user)) {
+                this.users.delete(user.getUniqueId().toString());
+            } else {
+                String name = user.getUsername().orElse(null);
+                String primaryGroup = user.getPrimaryGroup().getStoredValue().orElse(GroupManager.DEFAULT_GROUP_NAME);
+                List<Node> nodes = user.normalData().asList();
+                this.users.write(user.getUniqueId().toString(), out -> writeUser(out, name, primaryGroup, nodes));
+            }
+        } catch (Exception e) {
+            throw new FileIOException(user.getUniqueId().toString(), e);
+        }
+    }
+
+    private static void writeUser(DataOutput out, @Nullable String name, String primaryGroup, Collection<? extends Node> nodes) throws IOException {
+        out.writeBoolean(name != null);
+        if (name != null) {
+            out.writeUTF(name);
+        }
+        out.writeUTF(primaryGroup);
+        BinaryNodeCodec.writeNodes(out, nodes);
+    }
+
+    @Override
+    public Set<UUID> getUniqueUsers() {
+        return this.users.keys().stream()
+                .map(Uuids::fromString)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public <N extends Node> List<NodeEntry<UUID, N>> searchUserNodes(ConstraintNodeMatcher<N> constraint) throws IOException {
+        List<NodeEntry<UUID, N>> held = new ArrayList<>();
+        for (String key : this.users.keys()) {
+            UUID holder = Uuids.fromString(key);
+            DataInput in = this.users.read(key);
+            if (holder == null || in == null) {
+                continue;
+            }
+
+            if (in.readBoolean()) {
+                in.readUTF();
+            }
+            in.readUTF();
+            for (Node node : BinaryNodeCodec.readNodes(in)) {
+                N match = constraint.match(node);
+                if (match != null) {
+                    held.add(NodeEntry.of(holder, match));
+                }
+            }
+        }
+        return held;
+    }
+
+    @Override
+    public Group createAndLoadGroup(String name) throws IOException {
+        Group group = this.plugin.getGroupManager().getOrMake(name);
+        try {
+            DataInput in = this.groups.read(name);
+            if (in != null) {
+                group.loadNodesFromStorage(BinaryNodeCodec.readNodes(in));
+            } else {
+                List<Node> nodes = group.normalData().asList();
+                this.groups.write(name, out -> BinaryNodeCodec.writeNodes(out, nodes));
+            }
+        } catch (Exception e) {
+            throw new FileIOException(name, e);
+        }
+        return group;
+    }
+
+    @Override
+    public Optional<Group> loadGroup(String name) throws IOException {
+        try {
+            DataInput in = this.groups.read(name);
+            if (in == null) {
+                return Optional.empty();
+            }
+
+            Group group = this.plugin.getGroupManager().getOrMake(name);
+            group.loadNodesFromStorage(BinaryNodeCodec.readNodes(in));
+            return Optional.of(group);
+        } catch (Exception e) {
+            throw new FileIOException(name, e);
+        }
+    }
+
+    @Override
+    public void loadAllGroups() {
+        Set<String> groups = this.groups.keys();
+        if (!Iterators.tryIterate(groups, this::loadGroup)) {
+            throw new RuntimeException("Exception occurred whilst loading a group");
+        }
+
+        this.plugin.getGroupManager().retainAll(groups);
+    }
+
+    @Override
+    public void saveGroup(Group group) throws IOException {
+        group.normalData().discardChanges();
+        try {
+            List<Node> nodes = group.normalData().asList();
+            this.groups.write(group.getName(), out -> BinaryNodeCodec.writeNodes(out, nodes));
+        } catch (Exception e) {
+            throw new FileIOException(group.getName(), e);
+        }
+    }
+
+    @Override
+    public void deleteGroup(Group group) throws IOException {
+        try {
+            this.groups.delete(group.getName());
+        } catch (Exception e) {
+            throw new FileIOException(group.getName(), e);
+        }
+        this.plugin.getGroupManager().unload(group.getName());
+    }
+
+    @Override
+    public <N extends Node> List<NodeEntry<String, N>> searchGroupNodes(ConstraintNodeMatcher<N> constraint) throws IOException {
+        List<NodeEntry<String, N>> held = new ArrayList<>();
+        for (String holder : this.groups.keys()) {
+            DataInput in = this.groups.read(holder);
+            if (in == null) {
+                continue;
+            }
+
+            for (Node node : BinaryNodeCodec.readNodes(in)) {
+                N match = constraint.match(node);
+                if (match != null) {
+                    held.add(NodeEntry.of(holder, match));
+                }
+            }
+        }
+        return held;
+    }
+
+    @Override
+    public Track createAndLoadTrack(String name) throws IOException {
+        Track track = this.plugin.getTrackManager().getOrMake(name);
+        try {
+            DataInput in = this.tracks.read(name);
+            if (in != null) {
+                track.setGroups(readTrackGroups(in));
+            } else {
+                List<String> groups = track.getGroups();
+                this.tracks.write(name, out -> writeTrackGroups(out, groups));
+            }
+        } catch (Exception e) {
+            throw new FileIOException(name, e);
+        }
+        return track;
+    }
+
+    @Override
+    public Optional<Track> loadTrack(String name) throws IOException {
+        try {
+            DataInput in = this.tracks.read(name);
+            if (in == null) {
+                return Optional.empty();
+            }
+
+            Track track = this.plugin.getTrackManager().getOrMake(name);
+            track.setGroups(readTrackGroups(in));
+            return Optional.of(track);
+        } catch (Exception e) {
+            throw new FileIOException(name, e);
+        }
+    }
+
+    @Override
+    public void loadAllTracks() {
+        Set<String> tracks = this.tracks.keys();
+        if (!Iterators.tryIterate(tracks, this::loadTrack)) {
+            throw new RuntimeException("Exception occurred whilst loading a track");
+        }
+
+        this.plugin.getTrackManager().retainAll(tracks);
+    }
+
+    @Override
+    public void saveTrack(Track track) throws IOException {
+        try {
+            List<String> groups = track.getGroups();
+            this.tracks.write(track.getName(), out -> writeTrackGroups(out, groups));
+        } catch (Exception e) {
+            throw new FileIOException(track.getName(), e);
+        }
+    }
+
+    @Override
+    public void deleteTrack(Track track) throws IOException {
+        try {
+            this.tracks.delete(track.getName());
+        } catch (Exception e) {
+            throw new FileIOException(track.getName(), e);
+        }
+        this.plugin.getTrackManager().unload(track.getName());
+    }
+
+    private static List<String> readTrackGroups(DataInput in) throws IOException {
+        int size = in.readInt();
+        List<String> groups = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            groups.add(in.readUTF());
+        }
+        return groups;
+    }
+
+    private static void writeTrackGroups(DataOutput out, List<String> groups) throws IOException {
+        out.writeInt(groups.size());
+        for (String group : groups) {
+            out.writeUTF(group);
+        }
+    }
+
+    @Override
+    public PlayerSaveResult savePlayerData(UUID uniqueId, String username) {
+        return this.uuidCache.addMapping(uniqueId, username);
+    }
+
+    @Override
+    public void deletePlayerData(UUID uniqueId) {
+        this.uuidCache.removeMapping(uniqueId);
+    }
+
+    @Override
+    public UUID getPlayerUniqueId(String username) {
+        return this.uuidCache.lookupUuid(username);
+    }
+
+    @Override
+    public String getPlayerName(UUID uniqueId) {
+        return this.uuidCache.lookupUsername(uniqueId);
+    }
+
+}
@@ -0,0 +1,499 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.implementation.binary;
+
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.storage.misc.BinaryNodeCodec;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of keyed binary records, with an index of the latest
+ * record for each key.
+ *
+ * <p>Each write appends a single record to the end of the log, and deletions
+ * append a tombstone. Superseded records are left in place until the log is
+ * compacted, which happens once they make up more than half of the file.</p>
+ *
+ * <p>Records are laid out as the payload length, a CRC32 checksum of the
+ * payload, and then the payload itself (an operation byte, the key and the
+ * record body). A partially written record at the end of the log, e.g. after
+ * a crash, is discarded when the log is opened. A corrupt record anywhere
+ * else causes the log to fail to open, rather than losing the records after it.</p>
+ *
+ * <p>The index is written to a separate file when the log is closed or
+ * compacted, and records the length of the log at that point. On startup,
+ * only the records appended after that point need to be scanned.</p>
+ */
+public class RecordLog {
+    private static final int LOG_MAGIC = 0x4C50424C; // "LPBL"
+    private static final int INDEX_MAGIC = 0x4C504249; // "LPBI"
+    private static final int VERSION = 1;
+
+    private static final int LOG_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+
+    /** The minimum size of the log before it is considered for compaction */
+    private static final long MIN_COMPACTION_SIZE = 64 * 1024;
+
+    /**
+     * Writes the body of a record.
+     */
+    public interface BodyWriter {
+        void write(DataOutput out) throws IOException;
+    }
+
+    private final PluginLogger logger;
+    private final Path file;
+    private final Path indexFile;
+
+    /** The position and length of the latest record for each key */
+    private final Map<String, Entry> index = new HashMap<>();
+
+    private FileChannel channel;
+
+    /** The length of the log */
+    private long size;
+
+    /** The total length of the records referenced by the index */
+    private long liveSize;
+
+    public RecordLog(PluginLogger logger, Path file, Path indexFile) {
+        this.logger = logger;
+        this.file = file;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Opens the log, creating it if it does not exist, and builds the index.
+     *
+     * @throws IOException if an io error occurs, or the log is corrupt
+     */
+    public synchronized void open() throws IOException {
+        this.channel = FileChannel.open(this.file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.index.clear();
+        this.liveSize = 0;
+
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            this.channel = null;
+            throw e;
+        }
+    }
+
+    private void load() throws IOException {
+        if (this.channel.size() < LOG_HEADER_SIZE) {
+            // an index means records were written, so the log has been lost rather than never created
+            if (Files.exists(this.indexFile)) {
+                throw new IOException("Record log is missing its contents, but has an index: " + this.file);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE).putInt(LOG_MAGIC).putInt(VERSION);
+            header.flip();
+            this.channel.truncate(0);
+            writeFully(header, 0);
+            this.size = LOG_HEADER_SIZE;
+            return;
+        }
+
+        ByteBuffer header = readFully(0, LOG_HEADER_SIZE);
+        if (header.getInt() != LOG_MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Unrecognised record log format: " + this.file);
+        }
+
+        long position = readIndex();
+        if (position < 0) {
+            this.index.clear();
+            this.liveSize = 0;
+            position = LOG_HEADER_SIZE;
+        }
+
+        // replay any records appended since the index was written
+        long length = this.channel.size();
+        while (position + RECORD_HEADER_SIZE <= length) {
+            ByteBuffer recordHeader = readFully(position, RECORD_HEADER_SIZE);
+            int payloadLength = recordHeader.getInt();
+            long checksum = recordHeader.getInt() & 0xFFFFFFFFL;
+            long end = position + RECORD_HEADER_SIZE + payloadLength;
+            if (payloadLength <= 0 || end > length) {
+                if (payloadLength > 0 || isZeroFilled(position, length)) {
+                    break; // the last record was not fully written
+                }
+                throw new IOException("Corrupt record at position " + position + " in " + this.file);
+            }
+
+            ByteBuffer payload = readFully(position + RECORD_HEADER_SIZE, payloadLength);
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if (crc.getValue() != checksum) {
+                if (end == length) {
+                    break; // the last record was not fully written
+                }
+                throw new IOException("Corrupt record at position " + position + " in " + this.file);
+            }
+
+            DataInput in = BinaryNodeCodec.input(payload);
+            byte op = in.readByte();
+            String key = in.readUTF();
+
+            int recordLength = RECORD_HEADER_SIZE + payloadLength;
+            if (op == OP_PUT) {
+                put(key, new Entry(position, recordLength));
+            } else {
+                remove(key);
+            }
+            position += recordLength;
+        }
+
+        // discard a partially written record at the end of the log
+        if (position < length) {
+            this.channel.truncate(position);
+        }
+        this.size = position;
+    }
+
+    /**
+     * Reads the latest record for the given key.
+     *
+     * @param key the key
+     * @return an input positioned at the start of the record body, or null if there is no record
+     * @throws IOException if an io error occurs
+     */
+    public synchronized @Nullable DataInput read(String key) throws IOException {
+        Entry entry = this.index.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        ByteBuffer record = readFully(entry.position + RECORD_HEADER_SIZE, entry.length - RECORD_HEADER_SIZE);
+        DataInput in = BinaryNodeCodec.input(record);
+        in.readByte();
+        in.readUTF();
+        return in;
+    }
+
+    /**
+     * Appends a record for the given key, replacing any previous record.
+     *
+     * @param key the key
+     * @param body writes the record body
+     * @throws IOException if an io error occurs
+     */
+    public synchronized void write(String key, BodyWriter body) throws IOException {
+        long position = append(OP_PUT, key, body);
+        put(key, new Entry(position, (int) (this.size - position)));
+        compactIfNeeded();
+    }
+
+    /**
+     * Appends a tombstone for the given key, if it has a record.
+     *
+     * @param key the key
+     * @throws IOException if an io error occurs
+     */
+    public synchronized void delete(String key) throws IOException {
+        if (!this.index.containsKey(key)) {
+            return;
+        }
+        append(OP_DELETE, key, null);
+        remove(key);
+        compactIfNeeded();
+    }
+
+    public synchronized boolean contains(String key) {
+        return this.index.containsKey(key);
+    }
+
+    public synchronized Set<String> keys() {
+        return new HashSet<>(this.index.keySet());
+    }
+
+    /**
+     * Writes the index and closes the log.
+     */
+    public synchronized void close() throws IOException {
+        if (this.channel == null) {
+            return;
+        }
+        try {
+            writeIndex();
+        } finally {
+            this.channel.close();
+            this.channel = null;
+        }
+    }
+
+    /**
+     * Rewrites the log so that it only contains the latest record for each key.
+     *
+     * @throws IOException if an io error occurs
+     */
+    public synchronized void compact() throws IOException {
+        Path temp = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+        Map<String, Entry> compacted = new HashMap<>();
+        long compactedSize;
+
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE).putInt(LOG_MAGIC).putInt(VERSION);
+            header.flip();
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+
+            long position = LOG_HEADER_SIZE;
+            for (Map.Entry<String, Entry> e : this.index.entrySet()) {
+                Entry entry = e.getValue();
+                long copied = 0;
+                while (copied < entry.length) {
+                    copied += this.channel.transferTo(entry.position + copied, entry.length - copied, out);
+                }
+                compacted.put(e.getKey(), new Entry(position, entry.length));
+                position += entry.length;
+            }
+            compactedSize = position;
+
+            // ensure the new log is on disk before it replaces the old one
+            out.force(true);
+        }
+
+        // the existing index no longer matches the log
+        Files.deleteIfExists(this.indexFile);
+        this.channel.close();
+        boolean replaced = false;
+        try {
+            move(temp, this.file);
+            replaced = true;
+        } finally {
+            // reopen whichever log is now in place, so the log remains usable if the move failed
+            this.channel = FileChannel.open(this.file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (replaced) {
+                this.index.clear();
+                this.index.putAll(compacted);
+                this.size = compactedSize;
+                this.liveSize = compactedSize - LOG_HEADER_SIZE;
+            }
+        }
+        writeIndex();
+    }
+
+    /**
+     * Compacts the log if superseded records make up more than half of it.
+     *
+     * <p>Failures are logged rather than thrown, as the record which
+     * triggered the compaction has already been written.</p>
+     */
+    private void compactIfNeeded() {
+        long garbage = this.size - LOG_HEADER_SIZE - this.liveSize;
+        if (this.size >= MIN_COMPACTION_SIZE && garbage > this.liveSize) {
+            try {
+                compact();
+            } catch (IOException e) {
+                this.logger.warn("Unable to compact record log: " + this.file, e);
+            }
+        }
+    }
+
+    private boolean isZeroFilled(long position, long length) throws IOException {
+        ByteBuffer remaining = readFully(position, (int) Math.min(length - position, Integer.MAX_VALUE));
+        while (remaining.hasRemaining()) {
+            if (remaining.get() != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private long append(byte op, String key, @Nullable BodyWriter body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0); // length
+            out.writeInt(0); // checksum
+            out.writeByte(op);
+            out.writeUTF(key);
+            if (body != null) {
+                body.write(out);
+            }
+        }
+
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        int payloadLength = record.remaining() - RECORD_HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER_SIZE, payloadLength);
+        record.putInt(0, payloadLength);
+        record.putInt(4, (int) crc.getValue());
+
+        long position = this.size;
+        writeFully(record, position);
+        this.size = position + record.capacity();
+        return position;
+    }
+
+    private void put(String key, Entry entry) {
+        Entry previous = this.index.put(key, entry);
+        if (previous != null) {
+            this.liveSize -= previous.length;
+        }
+        this.liveSize += entry.length;
+    }
+
+    private void remove(String key) {
+        Entry previous = this.index.remove(key);
+        if (previous != null) {
+            this.liveSize -= previous.length;
+        }
+    }
+
+    /**
+     * Reads the index file into {@link #index}.
+     *
+     * @return the length of the log covered by the index, or -1 if the index is missing or invalid
+     */
+    private long readIndex() {
+        if (!Files.exists(this.indexFile)) {
+            return -1;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.indexFile));
+            if (buffer.remaining() < 20 || buffer.getInt() != INDEX_MAGIC || buffer.getInt() != VERSION) {
+                return -1;
+            }
+            long logSize = buffer.getLong();
+            long checksum = buffer.getInt() & 0xFFFFFFFFL;
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if (crc.getValue() != checksum || logSize < LOG_HEADER_SIZE || logSize > this.channel.size()) {
+                return -1;
+            }
+
+            DataInput in = BinaryNodeCodec.input(buffer);
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                long position = in.readLong();
+                int length = in.readInt();
+                if (position < LOG_HEADER_SIZE || position + length > logSize) {
+                    return -1;
+                }
+                put(key, new Entry(position, length));
+            }
+            return logSize;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(this.index.size());
+            for (Map.Entry<String, Entry> e : this.index.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeLong(e.getValue().position);
+                out.writeInt(e.getValue().length);
+            }
+        }
+
+        byte[] body = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+
+        ByteBuffer buffer = ByteBuffer.allocate(20 + body.length);
+        buffer.putInt(INDEX_MAGIC).putInt(VERSION).putLong(this.size).putInt((int) crc.getValue()).put(body);
+
+        // the index refers to records in the log, so they must reach the disk first
+        this.channel.force(true);
+
+        Path temp = this.indexFile.resolveSibling(this.indexFile.getFileName() + ".tmp");
+        buffer.flip();
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        move(temp, this.indexFile);
+    }
+
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of record log: " + this.file);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static final class Entry {
+        final long position;
+        final int length;
+
+        Entry(long position, int length) {
+            this.position = position;
+            this.length = length;
+        }
+    }
+
+}
@@ -27,6 +27,9 @@ package me.lucko.luckperms.common.storage.implementation.file;
 
 import com.google.common.collect.Iterables;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.PageParameters;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
 import me.lucko.luckperms.common.context.serializer.ContextSetConfigurateSerializer;
@@ -58,6 +61,7 @@ import net.luckperms.api.node.types.InheritanceNode;
 import net.luckperms.api.node.types.MetaNode;
 import ninja.leaping.configurate.ConfigurationNode;
 import ninja.leaping.configurate.Types;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -166,6 +170,11 @@ public abstract class AbstractConfigurateStorage implements StorageImplementatio
         return this.actionLogger.getLog();
     }
 
+    @Override
+    public LogPage getLogPage(LogFilter filter, @Nullable PageParameters page) throws IOException {
+        return this.actionLogger.getLogPage(filter, page);
+    }
+
     @Override
     public User loadUser(UUID uniqueId, String username) throws IOException {
         User user = this.plugin.getUserManager().getOrMake(uniqueId, username);
@@ -30,23 +30,37 @@ import com.google.gson.JsonElement;
 import com.google.gson.stream.JsonReader;
 import me.lucko.luckperms.common.actionlog.ActionJsonSerializer;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LoggedAction;
+import me.lucko.luckperms.common.actionlog.PageParameters;
 import me.lucko.luckperms.common.cache.BufferedRequest;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.util.gson.GsonProvider;
 import net.luckperms.api.actionlog.Action;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 public class FileActionLogger {
 
@@ -56,7 +70,7 @@ public class FileActionLogger {
     private Path contentFile;
 
     /**
-     * Lock to ensure the file isn't written to by multiple threads
+     * Lock to ensure the file isn't written to by multiple threads, also guards the index
      */
     private final ReentrantLock writeLock = new ReentrantLock();
 
@@ -65,6 +79,25 @@ public class FileActionLogger {
      */
     private final Queue<Action> entryQueue = new ConcurrentLinkedQueue<>();
 
+    /**
+     * An index of the entries in the content file, sorted by timestamp.
+     *
+     * <p>Holds the byte offset of each line alongside the properties
+     * {@link LogFilter}s usually select on, so queries only need to read
+     * and parse the lines they return.</p>
+     */
+    private final List<IndexEntry> index = new ArrayList<>();
+
+    /**
+     * The length of the content file covered by the index
+     */
+    private long indexedLength = 0;
+
+    /**
+     * Deduplicates target names held by the index
+     */
+    private final Map<String, String> indexedNames = new HashMap<>();
+
     private final SaveBuffer saveBuffer;
 
     public FileActionLogger(LuckPermsPlugin plugin) {
@@ -152,6 +185,178 @@ public class FileActionLogger {
         return log.build();
     }
 
+    public LogPage getLogPage(LogFilter filter, @Nullable PageParameters page) throws IOException {
+        this.writeLock.lock();
+        try {
+            // make sure any pending entries are included
+            flush();
+
+            if (!Files.exists(this.contentFile)) {
+                return LogPage.of(Collections.emptyList(), page, 0);
+            }
+
+            updateIndex();
+
+            int first = page == null ? 0 : page.skip();
+            long last = page == null ? Long.MAX_VALUE : (long) first + page.getPageSize();
+
+            List<LoggedAction> content = new ArrayList<>();
+            int total = 0;
+
+            try (RandomAccessFile file = new RandomAccessFile(this.contentFile.toFile(), "r")) {
+                for (int i = this.index.size() - 1; i >= 0; i--) {
+                    IndexEntry entry = this.index.get(i);
+                    if (!filter.testIndexed(entry.timestamp, entry.sourceUniqueId, entry.targetType, entry.targetUniqueId, entry.targetName)) {
+                        continue;
+                    }
+
+                    LoggedAction action = null;
+                    if (filter.getSearch() != null) {
+                        action = readEntry(file, entry);
+                        if (action == null || !filter.testSearch(action)) {
+                            continue;
+                        }
+                    }
+
+                    if (total >= first && total < last) {
+                        if (action == null) {
+                            action = readEntry(file, entry);
+                        }
+                        if (action != null) {
+                            content.add(action);
+                        }
+                    }
+                    total++;
+                }
+            }
+
+            return LogPage.of(content, page, total);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Indexes any lines appended to the content file since the last call.
+     *
+     * @throws IOException if an i/o error occurs
+     */
+    private void updateIndex() throws IOException {
+        long length = Files.size(this.contentFile);
+        if (length < this.indexedLength) {
+            // the file has been replaced, start again
+            this.index.clear();
+            this.indexedNames.clear();
+            this.indexedLength = 0;
+        }
+        if (length == this.indexedLength) {
+            return;
+        }
+
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(this.contentFile))) {
+            long skipped = 0;
+            while (skipped < this.indexedLength) {
+                long n = in.skip(this.indexedLength - skipped);
+                if (n <= 0) {
+                    return;
+                }
+                skipped += n;
+            }
+
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long lineStart = this.indexedLength;
+            long position = this.indexedLength;
+
+            int b;
+            while ((b = in.read()) != -1) {
+                position++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+
+                byte[] bytes = line.toByteArray();
+                line.reset();
+
+                // exclude the line separator from the stored length
+                int lineLength = bytes.length;
+                if (lineLength > 0 && bytes[lineLength - 1] == '\r') {
+                    lineLength--;
+                }
+
+                LoggedAction action = parseEntry(new String(bytes, 0, lineLength, StandardCharsets.UTF_8));
+                if (action != null) {
+                    addToIndex(new IndexEntry(action, lineStart, lineLength, this.indexedNames));
+                }
+
+                lineStart = position;
+                this.indexedLength = position;
+            }
+        }
+    }
+
+    private void addToIndex(IndexEntry entry) {
+        // entries are almost always appended in order, but fall back
+        // to a binary search (after any equal timestamps) if not
+        int size = this.index.size();
+        if (size == 0 || this.index.get(size - 1).timestamp <= entry.timestamp) {
+            this.index.add(entry);
+            return;
+        }
+
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.index.get(mid).timestamp <= entry.timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        this.index.add(low, entry);
+    }
+
+    private static @Nullable LoggedAction readEntry(RandomAccessFile file, IndexEntry entry) throws IOException {
+        byte[] bytes = new byte[entry.length];
+        file.seek(entry.offset);
+        file.readFully(bytes);
+        return parseEntry(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private static @Nullable LoggedAction parseEntry(String line) {
+        if (line.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            JsonElement parsed = GsonProvider.parser().parse(line);
+            return ActionJsonSerializer.deserialize(parsed);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static final class IndexEntry {
+        private final long offset;
+        private final int length;
+        private final long timestamp;
+        private final UUID sourceUniqueId;
+        private final Action.Target.Type targetType;
+        private final UUID targetUniqueId;
+        private final String targetName;
+
+        IndexEntry(LoggedAction action, long offset, int length, Map<String, String> names) {
+            this.offset = offset;
+            this.length = length;
+            this.timestamp = action.getTimestamp().getEpochSecond();
+            this.sourceUniqueId = action.getSource().getUniqueId();
+            this.targetType = action.getTarget().getType();
+            this.targetUniqueId = action.getTarget().getUniqueId().orElse(null);
+            this.targetName = names.computeIfAbsent(action.getTarget().getName(), Function.identity());
+        }
+    }
+
     private final class SaveBuffer extends BufferedRequest<Void> {
         public SaveBuffer(LuckPermsPlugin plugin) {
             super(2, TimeUnit.SECONDS, plugin.getBootstrap().getScheduler());
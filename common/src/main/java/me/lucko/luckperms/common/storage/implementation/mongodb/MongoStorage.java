@@ -31,13 +31,19 @@ import com.mongodb.MongoClientOptions;
 import com.mongodb.MongoClientURI;
 import com.mongodb.MongoCredential;
 import com.mongodb.ServerAddress;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
+import me.lucko.luckperms.common.actionlog.PageParameters;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.context.MutableContextSetImpl;
 import me.lucko.luckperms.common.locale.Message;
@@ -66,6 +72,8 @@ import net.luckperms.api.node.Node;
 import net.luckperms.api.node.NodeBuilder;
 import org.bson.Document;
 import org.bson.UuidRepresentation;
+import org.bson.conversions.Bson;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.time.Instant;
 import java.util.ArrayList;
@@ -79,6 +87,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class MongoStorage implements StorageImplementation {
@@ -137,6 +146,16 @@ public class MongoStorage implements StorageImplementation {
         }
         
         this.database = this.mongoClient.getDatabase(this.configuration.getDatabase());
+
+        try {
+            MongoCollection<Document> actions = this.database.getCollection(this.prefix + "action");
+            actions.createIndex(Indexes.descending("timestamp"));
+            actions.createIndex(Indexes.compoundIndex(Indexes.ascending("source.uniqueId"), Indexes.descending("timestamp")));
+            actions.createIndex(Indexes.compoundIndex(Indexes.ascending("target.uniqueId"), Indexes.descending("timestamp")));
+            actions.createIndex(Indexes.compoundIndex(Indexes.ascending("target.name"), Indexes.descending("timestamp")));
+        } catch (Exception e) {
+            this.plugin.getLogger().warn("Unable to create indexes for the action collection", e);
+        }
     }
 
     @Override
@@ -211,51 +230,32 @@ public class MongoStorage implements StorageImplementation {
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
         try (MongoCursor<Document> cursor = c.find().iterator()) {
             while (cursor.hasNext()) {
-                Document d = cursor.next();
-
-                if (d.containsKey("source")) {
-                    // new format
-                    Document source = d.get("source", Document.class);
-                    Document target = d.get("target", Document.class);
-
-                    UUID targetUniqueId = null;
-                    if (target.containsKey("uniqueId")) {
-                        targetUniqueId = target.get("uniqueId", UUID.class);
-                    }
+                log.add(actionFromDoc(cursor.next()));
+            }
+        }
+        return log.build();
+    }
 
-                    LoggedAction e = LoggedAction.build()
-                            .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
-                            .source(source.get("uniqueId", UUID.class))
-                            .sourceName(source.getString("name"))
-                            .targetType(LoggedAction.parseType(target.getString("type")))
-                            .target(targetUniqueId)
-                            .targetName(target.getString("name"))
-                            .description(d.getString("description"))
-                            .build();
-
-                    log.add(e);
-                } else {
-                    // old format
-                    UUID actedUuid = null;
-                    if (d.containsKey("acted")) {
-                        actedUuid = d.get("acted", UUID.class);
-                    }
+    @Override
+    public LogPage getLogPage(LogFilter filter, @Nullable PageParameters page) {
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
+        Bson query = actionFilterToBson(filter);
+        int total = (int) c.countDocuments(query);
+
+        List<LoggedAction> content = new ArrayList<>();
+        if (page == null || page.skip() < total) {
+            FindIterable<Document> results = c.find(query).sort(Sorts.descending("timestamp", "_id"));
+            if (page != null) {
+                results = results.skip(page.skip()).limit(page.getPageSize());
+            }
 
-                    LoggedAction e = LoggedAction.build()
-                            .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
-                            .source(d.get("actor", UUID.class))
-                            .sourceName(d.getString("actorName"))
-                            .targetType(LoggedAction.parseTypeCharacter(d.getString("type").charAt(0)))
-                            .target(actedUuid)
-                            .targetName(d.getString("actedName"))
-                            .description(d.getString("action"))
-                            .build();
-
-                    log.add(e);
+            try (MongoCursor<Document> cursor = results.iterator()) {
+                while (cursor.hasNext()) {
+                    content.add(actionFromDoc(cursor.next()));
                 }
             }
         }
-        return log.build();
+        return LogPage.of(content, page, total);
     }
 
     @Override
@@ -600,6 +600,86 @@ public class MongoStorage implements StorageImplementation {
         return null;
     }
 
+    private static LoggedAction actionFromDoc(Document d) {
+        if (d.containsKey("source")) {
+            // new format
+            Document source = d.get("source", Document.class);
+            Document target = d.get("target", Document.class);
+
+            UUID targetUniqueId = null;
+            if (target.containsKey("uniqueId")) {
+                targetUniqueId = target.get("uniqueId", UUID.class);
+            }
+
+            return LoggedAction.build()
+                    .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
+                    .source(source.get("uniqueId", UUID.class))
+                    .sourceName(source.getString("name"))
+                    .targetType(LoggedAction.parseType(target.getString("type")))
+                    .target(targetUniqueId)
+                    .targetName(target.getString("name"))
+                    .description(d.getString("description"))
+                    .build();
+        } else {
+            // old format
+            UUID actedUuid = null;
+            if (d.containsKey("acted")) {
+                actedUuid = d.get("acted", UUID.class);
+            }
+
+            return LoggedAction.build()
+                    .timestamp(Instant.ofEpochSecond(d.getLong("timestamp")))
+                    .source(d.get("actor", UUID.class))
+                    .sourceName(d.getString("actorName"))
+                    .targetType(LoggedAction.parseTypeCharacter(d.getString("type").charAt(0)))
+                    .target(actedUuid)
+                    .targetName(d.getString("actedName"))
+                    .description(d.getString("action"))
+                    .build();
+        }
+    }
+
+    private static Bson actionFilterToBson(LogFilter filter) {
+        List<Bson> newFormat = new ArrayList<>();
+        List<Bson> oldFormat = new ArrayList<>();
+        List<Bson> common = new ArrayList<>();
+
+        if (filter.getSourceUniqueId() != null) {
+            newFormat.add(Filters.eq("source.uniqueId", filter.getSourceUniqueId()));
+            oldFormat.add(Filters.eq("actor", filter.getSourceUniqueId()));
+        }
+        if (filter.getTargetType() != null) {
+            newFormat.add(Filters.eq("target.type", filter.getTargetType().name()));
+            oldFormat.add(Filters.eq("type", Character.toString(LoggedAction.getTypeCharacter(filter.getTargetType()))));
+        }
+        if (filter.getTargetUniqueId() != null) {
+            newFormat.add(Filters.eq("target.uniqueId", filter.getTargetUniqueId()));
+            oldFormat.add(Filters.eq("acted", filter.getTargetUniqueId()));
+        }
+        if (filter.getTargetName() != null) {
+            newFormat.add(Filters.eq("target.name", filter.getTargetName()));
+            oldFormat.add(Filters.eq("actedName", filter.getTargetName()));
+        }
+        if (filter.getSearch() != null) {
+            Pattern pattern = Pattern.compile(Pattern.quote(filter.getSearch()), Pattern.CASE_INSENSITIVE);
+            newFormat.add(Filters.or(Filters.regex("source.name", pattern), Filters.regex("target.name", pattern), Filters.regex("description", pattern)));
+            oldFormat.add(Filters.or(Filters.regex("actorName", pattern), Filters.regex("actedName", pattern), Filters.regex("action", pattern)));
+        }
+        if (filter.getAfter() != null) {
+            common.add(Filters.gte("timestamp", filter.getAfter().getEpochSecond()));
+        }
+        if (filter.getBefore() != null) {
+            common.add(Filters.lt("timestamp", filter.getBefore().getEpochSecond()));
+        }
+
+        if (!newFormat.isEmpty()) {
+            newFormat.add(Filters.exists("source"));
+            oldFormat.add(Filters.exists("source", false));
+            common.add(Filters.or(Filters.and(newFormat), Filters.and(oldFormat)));
+        }
+        return common.isEmpty() ? new Document() : Filters.and(common);
+    }
+
     private static UUID getDocumentId(Document document) {
         Object id = document.get("_id");
         if (id instanceof UUID) {
@@ -27,6 +27,9 @@ package me.lucko.luckperms.common.storage.implementation.split;
 
 import com.google.common.collect.ImmutableMap;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.PageParameters;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.model.Group;
@@ -41,6 +44,7 @@ import net.kyori.adventure.text.Component;
 import net.luckperms.api.actionlog.Action;
 import net.luckperms.api.model.PlayerSaveResult;
 import net.luckperms.api.node.Node;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -132,6 +136,11 @@ public class SplitStorage implements StorageImplementation {
         return implFor(SplitStorageType.LOG).getLog();
     }
 
+    @Override
+    public LogPage getLogPage(LogFilter filter, @Nullable PageParameters page) throws Exception {
+        return implFor(SplitStorageType.LOG).getLogPage(filter, page);
+    }
+
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) throws Exception {
         StorageType userType = this.types.get(SplitStorageType.USER);
@@ -155,11 +164,21 @@ public class SplitStorage implements StorageImplementation {
         return implFor(SplitStorageType.USER).loadUsers(uniqueIds);
     }
 
+    @Override
+    public Map<UUID, User> loadUsers(Map<UUID, String> usernames) throws Exception {
+        return implFor(SplitStorageType.USER).loadUsers(usernames);
+    }
+
     @Override
     public void saveUser(User user) throws Exception {
         implFor(SplitStorageType.USER).saveUser(user);
     }
 
+    @Override
+    public void saveUsers(List<User> users) throws Exception {
+        implFor(SplitStorageType.USER).saveUsers(users);
+    }
+
     @Override
     public Set<UUID> getUniqueUsers() throws Exception {
         return implFor(SplitStorageType.USER).getUniqueUsers();
@@ -190,6 +209,11 @@ public class SplitStorage implements StorageImplementation {
         implFor(SplitStorageType.GROUP).saveGroup(group);
     }
 
+    @Override
+    public void saveGroups(List<Group> groups) throws Exception {
+        implFor(SplitStorageType.GROUP).saveGroups(groups);
+    }
+
     @Override
     public void deleteGroup(Group group) throws Exception {
         implFor(SplitStorageType.GROUP).deleteGroup(group);
@@ -230,6 +254,11 @@ public class SplitStorage implements StorageImplementation {
         return implFor(SplitStorageType.UUID).savePlayerData(uniqueId, username);
     }
 
+    @Override
+    public Map<UUID, PlayerSaveResult> savePlayerData(Map<UUID, String> usernames) throws Exception {
+        return implFor(SplitStorageType.UUID).savePlayerData(usernames);
+    }
+
     @Override
     public void deletePlayerData(UUID uniqueId) throws Exception {
         implFor(SplitStorageType.UUID).deletePlayerData(uniqueId);
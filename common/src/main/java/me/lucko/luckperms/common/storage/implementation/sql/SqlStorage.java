@@ -29,7 +29,10 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.gson.reflect.TypeToken;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
+import me.lucko.luckperms.common.actionlog.PageParameters;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdateStatistics;
 import me.lucko.luckperms.common.bulkupdate.PreparedStatementBuilder;
@@ -56,12 +59,14 @@ import net.luckperms.api.context.DefaultContextKeys;
 import net.luckperms.api.context.MutableContextSet;
 import net.luckperms.api.model.PlayerSaveResult;
 import net.luckperms.api.node.Node;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.sql.BatchUpdateException;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -69,8 +74,10 @@ import java.sql.Statement;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -98,6 +105,7 @@ public class SqlStorage implements StorageImplementation {
     private static final String PLAYER_INSERT = "INSERT INTO '{prefix}players' (uuid, username, primary_group) VALUES(?, ?, ?)";
     private static final String PLAYER_DELETE = "DELETE FROM '{prefix}players' WHERE uuid=?";
     private static final String PLAYER_SELECT_ALL_UUIDS_BY_USERNAME = "SELECT uuid FROM '{prefix}players' WHERE username=? AND NOT uuid=?";
+    private static final String PLAYER_SELECT_ALL_UUIDS_BY_USERNAME_MULTIPLE = "SELECT uuid, username FROM '{prefix}players' WHERE username IN (";
     private static final String PLAYER_DELETE_ALL_UUIDS_BY_USERNAME = "DELETE FROM '{prefix}players' WHERE username=? AND NOT uuid=?";
     private static final String PLAYER_SELECT_BY_UUID = "SELECT username, primary_group FROM '{prefix}players' WHERE uuid=? LIMIT 1";
     private static final String PLAYER_SELECT_BY_UUID_MULTIPLE = "SELECT uuid, username, primary_group FROM '{prefix}players' WHERE ";
@@ -129,6 +137,8 @@ public class SqlStorage implements StorageImplementation {
 
     private static final String ACTION_INSERT = "INSERT INTO '{prefix}actions' (time, actor_uuid, actor_name, type, acted_uuid, acted_name, action) VALUES(?, ?, ?, ?, ?, ?, ?)";
     private static final String ACTION_SELECT_ALL = "SELECT * FROM '{prefix}actions'";
+    private static final String ACTION_COUNT = "SELECT COUNT(*) FROM '{prefix}actions'";
+    private static final String LIKE_ESCAPE = "\\";
 
     private final LuckPermsPlugin plugin;
     
@@ -170,22 +180,30 @@ public class SqlStorage implements StorageImplementation {
 
         if (!tableExists) {
             applySchema();
+        } else {
+            try {
+                applyActionIndexes();
+            } catch (Exception e) {
+                this.plugin.getLogger().warn("Unable to create indexes for the actions table", e);
+            }
         }
     }
 
-    private void applySchema() throws IOException, SQLException {
-        List<String> statements;
-
+    private List<String> readSchema() throws IOException {
         String schemaFileName = "me/lucko/luckperms/schema/" + this.connectionFactory.getImplementationName().toLowerCase(Locale.ROOT) + ".sql";
         try (InputStream is = this.plugin.getBootstrap().getResourceStream(schemaFileName)) {
             if (is == null) {
                 throw new IOException("Couldn't locate schema file for " + this.connectionFactory.getImplementationName());
             }
 
-            statements = SchemaReader.getStatements(is).stream()
-                    .map(this.statementProcessor)
-                    .collect(Collectors.toList());
+            return SchemaReader.getStatements(is);
         }
+    }
+
+    private void applySchema() throws IOException, SQLException {
+        List<String> statements = readSchema().stream()
+                .map(this.statementProcessor)
+                .collect(Collectors.toList());
 
         try (Connection connection = this.connectionFactory.getConnection()) {
             boolean utf8mb4Unsupported = false;
@@ -219,6 +237,30 @@ public class SqlStorage implements StorageImplementation {
         }
     }
 
+    // tables created before the actions indexes were added to the schema
+    // files won't have them, so create them when upgrading
+    private void applyActionIndexes() throws IOException, SQLException {
+        try (Connection c = this.connectionFactory.getConnection()) {
+            if (columnIndexed(c, this.statementProcessor.apply("{prefix}actions"), "time")) {
+                return;
+            }
+        }
+
+        List<String> statements = readSchema().stream()
+                .filter(statement -> statement.startsWith("CREATE INDEX") && statement.contains("{prefix}actions"))
+                .map(this.statementProcessor)
+                .collect(Collectors.toList());
+
+        try (Connection c = this.connectionFactory.getConnection()) {
+            try (Statement s = c.createStatement()) {
+                for (String query : statements) {
+                    s.addBatch(query);
+                }
+                s.executeBatch();
+            }
+        }
+    }
+
     @Override
     public void shutdown() {
         try {
@@ -268,6 +310,38 @@ public class SqlStorage implements StorageImplementation {
         return log.build();
     }
 
+    @Override
+    public LogPage getLogPage(LogFilter filter, @Nullable PageParameters page) throws SQLException {
+        List<LoggedAction> content = new ArrayList<>();
+        int total;
+
+        try (Connection c = this.connectionFactory.getConnection()) {
+            try (PreparedStatement ps = appendLogFilter(new PreparedStatementBuilder().append(ACTION_COUNT), filter).build(c, this.statementProcessor)) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    total = rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+
+            if (page == null || page.skip() < total) {
+                PreparedStatementBuilder builder = appendLogFilter(new PreparedStatementBuilder().append(ACTION_SELECT_ALL), filter);
+                builder.append(" ORDER BY 'time' DESC, id DESC");
+                if (page != null) {
+                    builder.append(" LIMIT " + page.getPageSize() + " OFFSET " + page.skip());
+                }
+
+                try (PreparedStatement ps = builder.build(c, this.statementProcessor)) {
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            content.add(readAction(rs));
+                        }
+                    }
+                }
+            }
+        }
+
+        return LogPage.of(content, page, total);
+    }
+
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) throws SQLException {
         BulkUpdateStatistics stats = bulkUpdate.getStatistics();
@@ -361,6 +435,24 @@ public class SqlStorage implements StorageImplementation {
         return users;
     }
 
+    @Override
+    public Map<UUID, User> loadUsers(Map<UUID, String> usernames) throws SQLException {
+        Map<UUID, List<Node>> nodesMap;
+        Map<UUID, SqlPlayerData> playerDataMap;
+
+        try (Connection c = this.connectionFactory.getConnection()) {
+            nodesMap = selectUserPermissions(c, usernames.keySet());
+            playerDataMap = selectPlayerData(c, usernames.keySet());
+        }
+
+        Map<UUID, User> users = new HashMap<>();
+        for (Map.Entry<UUID, String> entry : usernames.entrySet()) {
+            UUID uniqueId = entry.getKey();
+            users.put(uniqueId, createUser(uniqueId, entry.getValue(), playerDataMap.get(uniqueId), nodesMap.get(uniqueId), true));
+        }
+        return users;
+    }
+
     private User createUser(UUID uniqueId, String username, SqlPlayerData playerData, List<Node> nodes, boolean saveAfterAudit) throws SQLException {
         User user = this.plugin.getUserManager().getOrMake(uniqueId, username);
         if (playerData != null) {
@@ -385,7 +477,39 @@ public class SqlStorage implements StorageImplementation {
 
     @Override
     public void saveUser(User user) throws SQLException {
-        Difference<Node> changes = user.normalData().exportChanges(results -> {
+        Difference<Node> changes = exportUserChanges(user);
+        try (Connection c = this.connectionFactory.getConnection()) {
+            saveUser(c, user, changes);
+        } catch (SQLException | RuntimeException e) {
+            if (changes != null) {
+                user.normalData().restoreChanges(changes);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void saveUsers(List<User> users) throws SQLException {
+        Map<User, Difference<Node>> exported = new IdentityHashMap<>();
+        try (Connection c = this.connectionFactory.getConnection()) {
+            inTransaction(c, () -> {
+                for (User user : users) {
+                    Difference<Node> changes = exportUserChanges(user);
+                    if (changes != null) {
+                        exported.put(user, changes);
+                    }
+                    saveUser(c, user, changes);
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            // the transaction was rolled back, so none of the exported changes were written
+            exported.forEach((user, changes) -> user.normalData().restoreChanges(changes));
+            throw e;
+        }
+    }
+
+    private @Nullable Difference<Node> exportUserChanges(User user) {
+        return user.normalData().exportChanges(results -> {
             if (this.plugin.getUserManager().isNonDefaultUser(user)) {
                 return true;
             }
@@ -398,21 +522,19 @@ public class SqlStorage implements StorageImplementation {
 
             return true;
         });
+    }
 
+    private void saveUser(Connection c, User user, @Nullable Difference<Node> changes) throws SQLException {
         if (changes == null) {
-            try (Connection c = this.connectionFactory.getConnection()) {
-                deleteUser(c, user.getUniqueId());
-            }
+            deleteUser(c, user.getUniqueId());
             return;
         }
 
-        try (Connection c = this.connectionFactory.getConnection()) {
-            updateUserPermissions(c, user.getUniqueId(), changes.getAdded(), changes.getRemoved());
-            insertPlayerData(c, user.getUniqueId(), new SqlPlayerData(
-                    user.getPrimaryGroup().getStoredValue().orElse(GroupManager.DEFAULT_GROUP_NAME),
-                    user.getUsername().orElse("null").toLowerCase(Locale.ROOT)
-            ));
-        }
+        updateUserPermissions(c, user.getUniqueId(), changes.getAdded(), changes.getRemoved());
+        insertPlayerData(c, user.getUniqueId(), new SqlPlayerData(
+                user.getPrimaryGroup().getStoredValue().orElse(GroupManager.DEFAULT_GROUP_NAME),
+                user.getUsername().orElse("null").toLowerCase(Locale.ROOT)
+        ));
     }
 
     @Override
@@ -519,10 +641,33 @@ public class SqlStorage implements StorageImplementation {
         if (!changes.isEmpty()) {
             try (Connection c = this.connectionFactory.getConnection()) {
                 updateGroupPermissions(c, group.getName(), changes.getAdded(), changes.getRemoved());
+            } catch (SQLException | RuntimeException e) {
+                group.normalData().restoreChanges(changes);
+                throw e;
             }
         }
     }
 
+    @Override
+    public void saveGroups(List<Group> groups) throws SQLException {
+        Map<Group, Difference<Node>> exported = new IdentityHashMap<>();
+        try (Connection c = this.connectionFactory.getConnection()) {
+            inTransaction(c, () -> {
+                for (Group group : groups) {
+                    Difference<Node> changes = group.normalData().exportChanges(x -> true);
+                    exported.put(group, changes);
+                    if (!changes.isEmpty()) {
+                        updateGroupPermissions(c, group.getName(), changes.getAdded(), changes.getRemoved());
+                    }
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            // the transaction was rolled back, so none of the exported changes were written
+            exported.forEach((group, changes) -> group.normalData().restoreChanges(changes));
+            throw e;
+        }
+    }
+
     @Override
     public void deleteGroup(Group group) throws SQLException {
         try (Connection c = this.connectionFactory.getConnection()) {
@@ -694,6 +839,110 @@ public class SqlStorage implements StorageImplementation {
         return result;
     }
 
+    @Override
+    public Map<UUID, PlayerSaveResult> savePlayerData(Map<UUID, String> usernames) throws SQLException {
+        Map<UUID, String> batch = new HashMap<>();
+        Map<UUID, String> duplicates = new HashMap<>();
+        Set<String> seenUsernames = new HashSet<>();
+        for (Map.Entry<UUID, String> entry : usernames.entrySet()) {
+            String username = entry.getValue().toLowerCase(Locale.ROOT);
+            // players sharing a username have to be saved one after the other,
+            // so that the later save removes the earlier mapping
+            if (seenUsernames.add(username)) {
+                batch.put(entry.getKey(), username);
+            } else {
+                duplicates.put(entry.getKey(), username);
+            }
+        }
+
+        Map<UUID, PlayerSaveResult> results = new HashMap<>();
+        try (Connection c = this.connectionFactory.getConnection()) {
+            inTransaction(c, () -> {
+                Map<UUID, SqlPlayerData> existing = selectPlayerData(c, batch.keySet());
+                Map<UUID, PlayerSaveResultImpl> baseResults = new HashMap<>();
+
+                try (PreparedStatement insert = c.prepareStatement(this.statementProcessor.apply(PLAYER_INSERT));
+                     PreparedStatement update = c.prepareStatement(this.statementProcessor.apply(PLAYER_UPDATE_USERNAME_FOR_UUID))) {
+                    for (Map.Entry<UUID, String> entry : batch.entrySet()) {
+                        UUID uniqueId = entry.getKey();
+                        String username = entry.getValue();
+                        SqlPlayerData existingPlayerData = existing.get(uniqueId);
+                        String oldUsername = existingPlayerData == null ? null : existingPlayerData.username;
+
+                        if (existingPlayerData == null) {
+                            insert.setString(1, uniqueId.toString());
+                            insert.setString(2, username);
+                            insert.setString(3, GroupManager.DEFAULT_GROUP_NAME);
+                            insert.addBatch();
+                        } else if (!username.equals(oldUsername)) {
+                            update.setString(1, username);
+                            update.setString(2, uniqueId.toString());
+                            update.addBatch();
+                        }
+
+                        baseResults.put(uniqueId, PlayerSaveResultImpl.determineBaseResult(username, oldUsername));
+                    }
+                    insert.executeBatch();
+                    update.executeBatch();
+                }
+
+                Map<String, Set<UUID>> byUsername = selectUniqueIdsByUsername(c, batch.values());
+                try (PreparedStatement delete = c.prepareStatement(this.statementProcessor.apply(PLAYER_DELETE_ALL_UUIDS_BY_USERNAME))) {
+                    for (Map.Entry<UUID, PlayerSaveResultImpl> entry : baseResults.entrySet()) {
+                        UUID uniqueId = entry.getKey();
+                        String username = batch.get(uniqueId);
+
+                        Set<UUID> conflicting = new HashSet<>(byUsername.getOrDefault(username, Collections.emptySet()));
+                        conflicting.remove(uniqueId);
+
+                        if (conflicting.isEmpty()) {
+                            results.put(uniqueId, entry.getValue());
+                        } else {
+                            // remove the mappings for conflicting uuids
+                            delete.setString(1, username);
+                            delete.setString(2, uniqueId.toString());
+                            delete.addBatch();
+                            results.put(uniqueId, entry.getValue().withOtherUuidsPresent(conflicting));
+                        }
+                    }
+                    delete.executeBatch();
+                }
+            });
+        }
+
+        for (Map.Entry<UUID, String> entry : duplicates.entrySet()) {
+            results.put(entry.getKey(), savePlayerData(entry.getKey(), entry.getValue()));
+        }
+        return results;
+    }
+
+    private Map<String, Set<UUID>> selectUniqueIdsByUsername(Connection c, Collection<String> usernames) throws SQLException {
+        Map<String, Set<UUID>> map = new HashMap<>();
+        if (usernames.isEmpty()) {
+            return map;
+        }
+
+        PreparedStatementBuilder builder = new PreparedStatementBuilder().append(PLAYER_SELECT_ALL_UUIDS_BY_USERNAME_MULTIPLE);
+        boolean first = true;
+        for (String username : usernames) {
+            if (!first) {
+                builder.append(", ");
+            }
+            builder.variable(username);
+            first = false;
+        }
+        builder.append(')');
+
+        try (PreparedStatement ps = builder.build(c, this.statementProcessor)) {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    map.computeIfAbsent(rs.getString("username"), x -> new HashSet<>()).add(UUID.fromString(rs.getString("uuid")));
+                }
+            }
+        }
+        return map;
+    }
+
     @Override
     public void deletePlayerData(UUID uniqueId) throws SQLException {
         try (Connection c = this.connectionFactory.getConnection()) {
@@ -748,6 +997,57 @@ public class SqlStorage implements StorageImplementation {
         ps.setString(7, action.getDescription());
     }
 
+    private static PreparedStatementBuilder appendLogFilter(PreparedStatementBuilder builder, LogFilter filter) {
+        String separator = " WHERE ";
+        if (filter.getSourceUniqueId() != null) {
+            builder.append(separator).append("actor_uuid=").variable(filter.getSourceUniqueId().toString());
+            separator = " AND ";
+        }
+        if (filter.getTargetType() != null) {
+            builder.append(separator).append("'type'=").variable(Character.toString(LoggedAction.getTypeCharacter(filter.getTargetType())));
+            separator = " AND ";
+        }
+        if (filter.getTargetUniqueId() != null) {
+            builder.append(separator).append("acted_uuid=").variable(filter.getTargetUniqueId().toString());
+            separator = " AND ";
+        }
+        if (filter.getTargetName() != null) {
+            builder.append(separator).append("acted_name=").variable(filter.getTargetName());
+            separator = " AND ";
+        }
+        if (filter.getAfter() != null) {
+            builder.append(separator).append("'time' >= " + filter.getAfter().getEpochSecond());
+            separator = " AND ";
+        }
+        if (filter.getBefore() != null) {
+            builder.append(separator).append("'time' < " + filter.getBefore().getEpochSecond());
+            separator = " AND ";
+        }
+        if (filter.getSearch() != null) {
+            String pattern = "%" + escapeLikePattern(filter.getSearch()) + "%";
+            builder.append(separator)
+                    .append("(LOWER(actor_name) LIKE ").variable(pattern).append(" ESCAPE ").variable(LIKE_ESCAPE)
+                    .append(" OR LOWER(acted_name) LIKE ").variable(pattern).append(" ESCAPE ").variable(LIKE_ESCAPE)
+                    .append(" OR LOWER(action) LIKE ").variable(pattern).append(" ESCAPE ").variable(LIKE_ESCAPE)
+                    .append(")");
+        }
+        return builder;
+    }
+
+    /**
+     * Escapes the wildcard characters in a LIKE pattern, so the search is matched literally.
+     *
+     * <p>The escape character is bound as a variable, as quotes in statements are rewritten
+     * by the statement processor, and MySQL treats a backslash in a string literal
+     * as an escape.</p>
+     *
+     * @param search the search query
+     * @return the escaped query
+     */
+    private static String escapeLikePattern(String search) {
+        return search.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     private static LoggedAction readAction(ResultSet rs) throws SQLException {
         final String actedUuid = rs.getString("acted_uuid");
         return LoggedAction.build()
@@ -817,6 +1117,33 @@ public class SqlStorage implements StorageImplementation {
         ps.setString(7, GsonProvider.normal().toJson(ContextSetJsonSerializer.serialize(contexts)));
     }
 
+    /**
+     * Runs the given action as a single transaction on the connection,
+     * rolling back if it fails.
+     *
+     * @param c the connection
+     * @param action the action
+     * @throws SQLException if the action fails
+     */
+    private static void inTransaction(Connection c, SqlAction action) throws SQLException {
+        boolean autoCommit = c.getAutoCommit();
+        c.setAutoCommit(false);
+        try {
+            action.run();
+            c.commit();
+        } catch (SQLException | RuntimeException e) {
+            c.rollback();
+            throw e;
+        } finally {
+            c.setAutoCommit(autoCommit);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+
     private void updateUserPermissions(Connection c, UUID user, Set<Node> add, Set<Node> delete) throws SQLException {
         updatePermissions(c, user.toString(), add, delete, USER_PERMISSIONS_DELETE_SPECIFIC, USER_PERMISSIONS_DELETE_SPECIFIC_PROPS, USER_PERMISSIONS_INSERT);
     }
@@ -1099,6 +1426,27 @@ public class SqlStorage implements StorageImplementation {
         }
     }
 
+    private static boolean columnIndexed(Connection connection, String table, String column) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        try (ResultSet tables = meta.getTables(connection.getCatalog(), null, "%", null)) {
+            while (tables.next()) {
+                if (!tables.getString(3).equalsIgnoreCase(table)) {
+                    continue;
+                }
+
+                try (ResultSet rs = meta.getIndexInfo(connection.getCatalog(), tables.getString(2), tables.getString(3), false, true)) {
+                    while (rs.next()) {
+                        String indexedColumn = rs.getString("COLUMN_NAME");
+                        if (indexedColumn != null && indexedColumn.equalsIgnoreCase(column)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
     private static final class SqlPlayerData {
         private final String primaryGroup;
         private final String username;
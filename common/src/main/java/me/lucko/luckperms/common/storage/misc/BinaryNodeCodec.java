@@ -0,0 +1,139 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.misc;
+
+import me.lucko.luckperms.common.node.factory.NodeBuilders;
+import net.luckperms.api.context.Context;
+import net.luckperms.api.context.ContextSet;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.NodeBuilder;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Encodes and decodes nodes using a compact binary format.
+ *
+ * <p>Each node is written as its key, value, expiry (in unix seconds, or 0 if
+ * the node is permanent) and the number of context pairs, followed by the pairs
+ * themselves.</p>
+ */
+public final class BinaryNodeCodec {
+    private BinaryNodeCodec() {}
+
+    public static void writeNode(DataOutput out, Node node) throws IOException {
+        out.writeUTF(node.getKey());
+        out.writeBoolean(node.getValue());
+
+        Instant expiry = node.getExpiry();
+        out.writeLong(expiry == null ? 0L : expiry.getEpochSecond());
+
+        ContextSet contexts = node.getContexts();
+        out.writeInt(contexts.size());
+        for (Context context : contexts) {
+            out.writeUTF(context.getKey());
+            out.writeUTF(context.getValue());
+        }
+    }
+
+    public static Node readNode(DataInput in) throws IOException {
+        NodeBuilder<?, ?> builder = NodeBuilders.determineMostApplicable(in.readUTF()).value(in.readBoolean());
+
+        long expiry = in.readLong();
+        if (expiry != 0L) {
+            builder.expiry(expiry);
+        }
+
+        int contexts = in.readInt();
+        for (int i = 0; i < contexts; i++) {
+            builder.withContext(in.readUTF(), in.readUTF());
+        }
+        return builder.build();
+    }
+
+    public static void writeNodes(DataOutput out, Collection<? extends Node> nodes) throws IOException {
+        out.writeInt(nodes.size());
+        for (Node node : nodes) {
+            writeNode(out, node);
+        }
+    }
+
+    public static List<Node> readNodes(DataInput in) throws IOException {
+        int size = in.readInt();
+        List<Node> nodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            nodes.add(readNode(in));
+        }
+        return nodes;
+    }
+
+    /**
+     * Gets a {@link DataInput} which reads from the given buffer, without copying it.
+     *
+     * @param buffer the buffer, e.g. a memory-mapped file
+     * @return a data input
+     */
+    public static DataInput input(ByteBuffer buffer) {
+        return new DataInputStream(new ByteBufferInputStream(buffer));
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) {
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, this.buffer.remaining());
+            this.buffer.get(bytes, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
+
+}
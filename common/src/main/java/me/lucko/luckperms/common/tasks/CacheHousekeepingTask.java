@@ -25,6 +25,7 @@
 
 package me.lucko.luckperms.common.tasks;
 
+import me.lucko.luckperms.common.cacheddata.CachedDataLimits;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
@@ -44,5 +45,13 @@ public class CacheHousekeepingTask implements Runnable {
         for (Group group : this.plugin.getGroupManager().getAll().values()) {
             group.getCachedData().performCacheCleanup();
         }
+
+        CachedDataLimits limits = this.plugin.getCachedDataLimits();
+        if (limits != null) {
+            String report = limits.report();
+            if (report != null) {
+                this.plugin.getLogger().info(report);
+            }
+        }
     }
 }
@@ -25,11 +25,19 @@
 
 package me.lucko.luckperms.common.tasks;
 
+import com.google.common.collect.Sets;
 import me.lucko.luckperms.common.cache.BufferedRequest;
+import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.manager.group.GroupManager;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.LocalSnapshot;
 import net.luckperms.api.event.cause.CreationCause;
+import net.luckperms.api.node.Node;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -55,6 +63,9 @@ public class SyncTask implements Runnable {
             return;
         }
 
+        // Record the current state of all groups, so we can work out which have changed
+        Map<String, Set<Node>> previousGroups = snapshotGroups();
+
         // Reload all groups
         this.plugin.getStorage().loadAllGroups().join();
         if (!this.plugin.getGroupManager().isLoaded(GroupManager.DEFAULT_GROUP_NAME)) {
@@ -69,13 +80,34 @@ public class SyncTask implements Runnable {
 
         this.plugin.performPlatformDataSync();
 
-        // Just to be sure...
-        this.plugin.getGroupManager().invalidateAllGroupCaches();
-        this.plugin.getUserManager().invalidateAllUserCaches();
+        // Invalidate the groups that changed, and anything that inherits them
+        Map<String, Set<Node>> currentGroups = snapshotGroups();
+        Set<String> changedGroups = new HashSet<>(Sets.symmetricDifference(previousGroups.keySet(), currentGroups.keySet()));
+        currentGroups.forEach((name, nodes) -> {
+            Set<Node> previous = previousGroups.get(name);
+            if (previous != null && !previous.equals(nodes)) {
+                changedGroups.add(name);
+            }
+        });
+        this.plugin.getInheritanceDependencyIndex().invalidate(changedGroups);
+
+        // Record the synced state of all groups and tracks for the next startup
+        LocalSnapshot localSnapshot = this.plugin.getLocalSnapshot();
+        if (localSnapshot != null) {
+            localSnapshot.save();
+        }
 
         this.plugin.getEventDispatcher().dispatchPostSync();
     }
 
+    private Map<String, Set<Node>> snapshotGroups() {
+        Map<String, Set<Node>> snapshot = new HashMap<>();
+        for (Group group : this.plugin.getGroupManager().getAll().values()) {
+            snapshot.put(group.getName(), group.normalData().asImmutableSet());
+        }
+        return snapshot;
+    }
+
     public static class Buffer extends BufferedRequest<Void> {
         private final LuckPermsPlugin plugin;
 
@@ -26,12 +26,12 @@
 package me.lucko.luckperms.common.treeview;
 
 import com.google.common.base.Splitter;
+import me.lucko.luckperms.common.node.utils.PermissionSymbols;
 import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
 import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
 import me.lucko.luckperms.common.util.ImmutableCollectors;
 
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -93,7 +93,7 @@ public class PermissionRegistry implements AutoCloseable {
     }
 
     private void doInsert(String permission) {
-        permission = permission.toLowerCase(Locale.ROOT);
+        permission = PermissionSymbols.canonical(permission);
 
         // split the permission up into parts
         Iterable<String> parts = DOT_SPLIT.split(permission);
@@ -36,4 +36,9 @@ public interface Throwing {
     interface Consumer<T> {
         void accept(T t) throws Exception;
     }
+
+    @FunctionalInterface
+    interface Function<T, R> {
+        R apply(T t) throws Exception;
+    }
 }
@@ -34,39 +34,56 @@ import me.lucko.luckperms.common.verbose.event.CheckOrigin;
 import me.lucko.luckperms.common.verbose.event.MetaCheckEvent;
 import me.lucko.luckperms.common.verbose.event.PermissionCheckEvent;
 import me.lucko.luckperms.common.verbose.event.VerboseEvent;
+import me.lucko.luckperms.common.verbose.event.VerboseEventType;
+import me.lucko.luckperms.common.verbose.expression.BooleanExpressionCompiler.VariableEvaluator;
+import net.luckperms.api.cacheddata.Result;
 import net.luckperms.api.query.QueryOptions;
 
 import java.util.Map;
-import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Accepts {@link VerboseEvent}s and passes them onto registered {@link VerboseListener}s.
  */
 public class VerboseHandler implements AutoCloseable {
 
+    /** The number of checks which can be buffered between ticks */
+    private static final int BUFFER_CAPACITY = 8192;
+    /** The number of stack traces which can be captured between ticks */
+    private static final int TRACES_PER_TICK = 100;
+    /** A reusable holder for the check being tested against listener filters */
+    private static final ThreadLocal<PendingCheck> PENDING_CHECK = ThreadLocal.withInitial(PendingCheck::new);
+
     /** A map of currently registered listeners */
     private final Map<UUID, VerboseListener> listeners;
-    /** A queue of verbose events to be handled */
-    private final Queue<VerboseEvent> queue;
+    /** A snapshot of {@link #listeners}, to iterate over without allocating */
+    private volatile VerboseListener[] listenerArray = new VerboseListener[0];
+    /** A buffer of checks to be handled */
+    private final VerboseRingBuffer buffer;
+    /** The number of stack traces which can still be captured until the next tick */
+    private final AtomicInteger traceBudget = new AtomicInteger(TRACES_PER_TICK);
     /** If there are any listeners registered */
     private boolean listening = false;
     /** The tick task */
     private final SchedulerTask task;
 
     public VerboseHandler(SchedulerAdapter scheduler) {
+        this(scheduler, BUFFER_CAPACITY);
+    }
+
+    VerboseHandler(SchedulerAdapter scheduler, int bufferCapacity) {
         this.listeners = new ConcurrentHashMap<>();
-        this.queue = new ConcurrentLinkedQueue<>();
+        this.buffer = new VerboseRingBuffer(bufferCapacity);
         this.task = scheduler.asyncRepeating(this::tick, 100, TimeUnit.MILLISECONDS);
     }
 
     /**
      * Offers permission check data to the handler, to be eventually passed onto listeners.
      *
-     * <p>The check data is added to a queue to be processed later, to avoid blocking
+     * <p>The check data is added to a buffer to be processed later, to avoid blocking
      * the main thread each time a permission check is made.</p>
      *
      * @param origin the origin of the check
@@ -81,18 +98,13 @@ public class VerboseHandler implements AutoCloseable {
             return;
         }
 
-        long time = System.currentTimeMillis();
-        Throwable trace = new Throwable();
-        String thread = Thread.currentThread().getName();
-
-        // add the check data to a queue to be processed later.
-        this.queue.offer(new PermissionCheckEvent(origin, checkTarget, checkQueryOptions, time, trace, thread, permission, result));
+        offer(VerboseEventType.PERMISSION, origin, checkTarget, checkQueryOptions, permission, result);
     }
 
     /**
      * Offers meta check data to the handler, to be eventually passed onto listeners.
      *
-     * <p>The check data is added to a queue to be processed later, to avoid blocking
+     * <p>The check data is added to a buffer to be processed later, to avoid blocking
      * the main thread each time a meta check is made.</p>
      *
      * @param origin the origin of the check
@@ -107,12 +119,48 @@ public class VerboseHandler implements AutoCloseable {
             return;
         }
 
-        long time = System.currentTimeMillis();
-        Throwable trace = new Throwable();
-        String thread = Thread.currentThread().getName();
+        offer(VerboseEventType.META, origin, checkTarget, checkQueryOptions, key, result);
+    }
+
+    private void offer(VerboseEventType type, CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, String key, Result<?, ?> result) {
+        VerboseListener[] listeners = this.listenerArray;
+
+        // test the check against each listener's filter before recording anything.
+        // there won't realistically ever be more than 64 listeners, but if there are,
+        // some of them will share a bit in the mask.
+        PendingCheck check = PENDING_CHECK.get();
+        check.set(type, checkTarget, key, result);
+        long accepted = 0;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i].offer(check)) {
+                accepted |= 1L << i;
+            }
+        }
+        check.clear();
+
+        if (accepted == 0) {
+            return;
+        }
+
+        long pos = this.buffer.claim();
+        if (pos == -1) {
+            // the buffer is full - drop the check rather than blocking or growing
+            for (int i = 0; i < listeners.length; i++) {
+                if ((accepted & (1L << i)) != 0) {
+                    listeners[i].recordDropped();
+                }
+            }
+            return;
+        }
+
+        // capturing a stack trace is expensive, so only do it for the first few checks each tick
+        Throwable trace = null;
+        if (this.traceBudget.get() > 0 && this.traceBudget.getAndDecrement() > 0) {
+            trace = new Throwable();
+        }
 
-        // add the check data to a queue to be processed later.
-        this.queue.offer(new MetaCheckEvent(origin, checkTarget, checkQueryOptions, time, trace, thread, key, result));
+        this.buffer.slot(pos).set(type, origin, checkTarget, checkQueryOptions, System.currentTimeMillis(), trace, Thread.currentThread(), key, result);
+        this.buffer.publish(pos);
     }
 
     /**
@@ -127,6 +175,7 @@ public class VerboseHandler implements AutoCloseable {
         flush();
 
         this.listeners.put(sender.getUniqueId(), new VerboseListener(sender, filter, notify));
+        updateListenerArray();
         this.listening = true;
     }
 
@@ -140,16 +189,27 @@ public class VerboseHandler implements AutoCloseable {
         // immediately flush, so the listener gets all current data
         flush();
 
-        return this.listeners.remove(sender.getUniqueId());
+        VerboseListener listener = this.listeners.remove(sender.getUniqueId());
+        updateListenerArray();
+        return listener;
+    }
+
+    private synchronized void updateListenerArray() {
+        this.listenerArray = this.listeners.values().toArray(new VerboseListener[0]);
     }
 
     private void tick() {
         // remove listeners where the sender is no longer valid
-        this.listeners.values().removeIf(l -> !l.getNotifiedSender().isValid());
+        if (this.listeners.values().removeIf(l -> !l.getNotifiedSender().isValid())) {
+            updateListenerArray();
+        }
 
-        // handle all events in the queue
+        // handle all events in the buffer
         flush();
 
+        // reset the trace budget
+        this.traceBudget.set(TRACES_PER_TICK);
+
         // update listening state
         this.listening = !this.listeners.isEmpty();
     }
@@ -158,11 +218,11 @@ public class VerboseHandler implements AutoCloseable {
      * Flushes the pending events to listeners.
      */
     public synchronized void flush() {
-        for (VerboseEvent e; (e = this.queue.poll()) != null; ) {
-            for (VerboseListener listener : this.listeners.values()) {
+        this.buffer.drain(e -> {
+            for (VerboseListener listener : this.listenerArray) {
                 listener.acceptEvent(e);
             }
-        }
+        });
     }
 
     @Override
@@ -170,4 +230,37 @@ public class VerboseHandler implements AutoCloseable {
         this.task.cancel();
     }
 
+    /**
+     * The properties of a check which can be tested by a {@link VerboseFilter}.
+     */
+    private static final class PendingCheck implements VariableEvaluator {
+        private VerboseEventType type;
+        private VerboseCheckTarget checkTarget;
+        private String key;
+        private Result<?, ?> result;
+
+        void set(VerboseEventType type, VerboseCheckTarget checkTarget, String key, Result<?, ?> result) {
+            this.type = type;
+            this.checkTarget = checkTarget;
+            this.key = key;
+            this.result = result;
+        }
+
+        void clear() {
+            set(null, null, null, null);
+        }
+
+        @Override
+        public boolean eval(String variable) {
+            switch (this.type) {
+                case PERMISSION:
+                    return PermissionCheckEvent.eval(variable, this.checkTarget, this.key, (TristateResult) this.result);
+                case META:
+                    return MetaCheckEvent.eval(variable, this.checkTarget, this.key, (StringResult<?>) this.result);
+                default:
+                    throw new AssertionError(this.type);
+            }
+        }
+    }
+
 }
@@ -41,6 +41,7 @@ import me.lucko.luckperms.common.verbose.event.CheckOrigin;
 import me.lucko.luckperms.common.verbose.event.MetaCheckEvent;
 import me.lucko.luckperms.common.verbose.event.PermissionCheckEvent;
 import me.lucko.luckperms.common.verbose.event.VerboseEvent;
+import me.lucko.luckperms.common.verbose.expression.BooleanExpressionCompiler.VariableEvaluator;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.ComponentLike;
 import net.kyori.adventure.text.event.HoverEvent;
@@ -60,7 +61,7 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.zip.GZIPOutputStream;
 
@@ -109,12 +110,16 @@ public class VerboseListener {
     // if we should notify the sender
     private final boolean notify;
     // the number of events we have processed
-    private final AtomicInteger counter = new AtomicInteger(0);
+    private final LongAdder counter = new LongAdder();
     // the number of events we have processed and accepted, based on the filter rules for this
     // listener
-    private final AtomicInteger matchedCounter = new AtomicInteger(0);
+    private final LongAdder matchedCounter = new LongAdder();
+    // the number of accepted events which were dropped because the handler's buffer was full
+    private final LongAdder droppedCounter = new LongAdder();
     // the events which passed the filter, up to a max size of #DATA_TRUNCATION
     private final List<VerboseEvent> results = new ArrayList<>(DATA_TRUNCATION / 10);
+    // if #results has reached #DATA_TRUNCATION
+    private volatile boolean full = false;
 
     public VerboseListener(Sender notifiedSender, VerboseFilter filter, boolean notify) {
         this.notifiedSender = notifiedSender;
@@ -123,25 +128,53 @@ public class VerboseListener {
     }
 
     /**
-     * Accepts and processes verbose events.
+     * Offers a check to the listener, on the thread which made the check.
      *
-     * @param event the event to process
+     * <p>The check is counted, and tested against the filter. Events for checks which are
+     * accepted are later passed to {@link #acceptEvent(VerboseEvent)}.</p>
+     *
+     * @param check the check
+     * @return if the listener wants to receive an event for the check
      */
-    public void acceptEvent(VerboseEvent event) {
+    boolean offer(VariableEvaluator check) {
         // increment handled counter
-        this.counter.incrementAndGet();
+        this.counter.increment();
 
         // check if the data passes our filter
-        if (!this.filter.evaluate(event)) {
-            return;
+        if (!this.filter.isBlank() && !this.filter.evaluate(check)) {
+            return false;
         }
 
         // increment the matched filter
-        this.matchedCounter.incrementAndGet();
+        this.matchedCounter.increment();
+
+        // only bother recording the event if we have space for it, or need to notify
+        return this.notify || !this.full;
+    }
+
+    /**
+     * Records that an event accepted by {@link #offer(VariableEvaluator)} was dropped.
+     */
+    void recordDropped() {
+        this.droppedCounter.increment();
+    }
+
+    /**
+     * Accepts and processes verbose events.
+     *
+     * @param event the event to process
+     */
+    public void acceptEvent(VerboseEvent event) {
+        // check if the data passes our filter - the event may have been
+        // recorded for another listener
+        if (!this.filter.evaluate(event)) {
+            return;
+        }
 
         // record the check, if we have space for it
-        if (this.results.size() < DATA_TRUNCATION) {
+        if (!this.full) {
             this.results.add(event);
+            this.full = this.results.size() >= DATA_TRUNCATION;
         }
 
         // handle notifications
@@ -208,17 +241,20 @@ public class VerboseListener {
 
         hover.add(Message.VERBOSE_LOG_HOVER_THREAD.build(event.getCheckThread()));
 
-        hover.add(Message.VERBOSE_LOG_HOVER_TRACE_TITLE.build());
+        // traces are only captured for some events when lots of checks are being made
+        if (event.hasCheckTrace()) {
+            hover.add(Message.VERBOSE_LOG_HOVER_TRACE_TITLE.build());
 
-        Consumer<StackTraceElement> printer = StackTracePrinter.elementToString(str -> hover.add(Message.VERBOSE_LOG_HOVER_TRACE_CONTENT.build(str)));
-        int overflow;
-        if (shouldFilterStackTrace(event)) {
-            overflow = CHAT_FILTERED_PRINTER.process(event.getCheckTrace(), printer);
-        } else {
-            overflow = CHAT_UNFILTERED_PRINTER.process(event.getCheckTrace(), printer);
-        }
-        if (overflow != 0) {
-            hover.add(Message.VERBOSE_LOG_HOVER_TRACE_OVERFLOW.build(overflow));
+            Consumer<StackTraceElement> printer = StackTracePrinter.elementToString(str -> hover.add(Message.VERBOSE_LOG_HOVER_TRACE_CONTENT.build(str)));
+            int overflow;
+            if (shouldFilterStackTrace(event)) {
+                overflow = CHAT_FILTERED_PRINTER.process(event.getCheckTrace(), printer);
+            } else {
+                overflow = CHAT_UNFILTERED_PRINTER.process(event.getCheckTrace(), printer);
+            }
+            if (overflow != 0) {
+                hover.add(Message.VERBOSE_LOG_HOVER_TRACE_OVERFLOW.build(overflow));
+            }
         }
 
         // send the message
@@ -246,15 +282,16 @@ public class VerboseListener {
         String startDate = DATE_FORMAT.format(this.startTime);
         String endDate = DATE_FORMAT.format(Instant.now());
         String duration = DurationFormatter.CONCISE.formatString(Duration.between(this.startTime, Instant.now()));
-        boolean truncated = this.matchedCounter.get() > this.results.size();
+        boolean truncated = this.matchedCounter.sum() > this.results.size();
 
         JObject metadata = new JObject()
                 .add("startTime", startDate)
                 .add("endTime", endDate)
                 .add("duration", duration)
                 .add("count", new JObject()
-                        .add("matched", this.matchedCounter.get())
-                        .add("total", this.counter.get())
+                        .add("matched", this.matchedCounter.sum())
+                        .add("total", this.counter.sum())
+                        .add("dropped", this.droppedCounter.sum())
                 )
                 .add("uploader", new JObject()
                         .add("name", this.notifiedSender.getNameWithLocation())
@@ -289,6 +326,10 @@ public class VerboseListener {
     }
 
     public int getMatchedCount() {
-        return this.matchedCounter.get();
+        return this.matchedCounter.intValue();
+    }
+
+    public int getDroppedCount() {
+        return this.droppedCounter.intValue();
     }
 }
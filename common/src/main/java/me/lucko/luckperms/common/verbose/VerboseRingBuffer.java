@@ -0,0 +1,186 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.verbose;
+
+import me.lucko.luckperms.common.cacheddata.result.StringResult;
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.verbose.event.CheckOrigin;
+import me.lucko.luckperms.common.verbose.event.MetaCheckEvent;
+import me.lucko.luckperms.common.verbose.event.PermissionCheckEvent;
+import me.lucko.luckperms.common.verbose.event.VerboseEvent;
+import me.lucko.luckperms.common.verbose.event.VerboseEventType;
+import net.luckperms.api.cacheddata.Result;
+import net.luckperms.api.query.QueryOptions;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, preallocated buffer of verbose checks waiting to be passed to listeners.
+ *
+ * <p>Any number of threads can record checks concurrently without locking or allocating.
+ * If the buffer is full, checks are rejected instead of growing the buffer. Checks are
+ * drained (and converted into {@link VerboseEvent}s) by a single thread at a time.</p>
+ *
+ * <p>This is a bounded MPSC queue, where each slot has a sequence number which
+ * tracks whether it is free to be written or ready to be read.</p>
+ */
+final class VerboseRingBuffer {
+
+    private final int mask;
+    private final Slot[] slots;
+    private final AtomicLongArray sequences;
+
+    /** The position of the next slot to be claimed by a producer */
+    private final AtomicLong tail = new AtomicLong();
+    /** The position of the next slot to be read by the consumer - only accessed whilst draining */
+    private long head = 0;
+
+    VerboseRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.slots = new Slot[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.slots[i] = new Slot();
+            this.sequences.set(i, i);
+        }
+    }
+
+    public int capacity() {
+        return this.slots.length;
+    }
+
+    /**
+     * Claims a slot in the buffer. The slot must be filled with {@link #slot(long)}
+     * and then {@link #publish(long) published}.
+     *
+     * @return the position of the claimed slot, or -1 if the buffer is full
+     */
+    public long claim() {
+        long pos = this.tail.get();
+        while (true) {
+            long seq = this.sequences.get((int) pos & this.mask);
+            long dif = seq - pos;
+            if (dif == 0) {
+                if (this.tail.compareAndSet(pos, pos + 1)) {
+                    return pos;
+                }
+                pos = this.tail.get();
+            } else if (dif < 0) {
+                // the slot hasn't been read yet since the last time round - we're full
+                return -1;
+            } else {
+                // another producer claimed the slot first
+                pos = this.tail.get();
+            }
+        }
+    }
+
+    public Slot slot(long pos) {
+        return this.slots[(int) pos & this.mask];
+    }
+
+    public void publish(long pos) {
+        this.sequences.set((int) pos & this.mask, pos + 1);
+    }
+
+    /**
+     * Drains all published slots from the buffer, passing each to the consumer as
+     * a {@link VerboseEvent}. Must not be called concurrently.
+     *
+     * @param consumer the consumer
+     * @return the number of events drained
+     */
+    public int drain(Consumer<VerboseEvent> consumer) {
+        int count = 0;
+        long pos = this.head;
+        while (true) {
+            int index = (int) pos & this.mask;
+            if (this.sequences.get(index) != pos + 1) {
+                // not published yet, or empty
+                break;
+            }
+
+            Slot slot = this.slots[index];
+            VerboseEvent event = slot.toEvent();
+            slot.clear();
+            this.sequences.set(index, pos + this.slots.length);
+            pos++;
+
+            consumer.accept(event);
+            count++;
+        }
+        this.head = pos;
+        return count;
+    }
+
+    /**
+     * A mutable holder for the data of a check in the buffer.
+     */
+    static final class Slot {
+        private VerboseEventType type;
+        private CheckOrigin origin;
+        private VerboseCheckTarget checkTarget;
+        private QueryOptions checkQueryOptions;
+        private long checkTime;
+        private Throwable checkTrace;
+        private Thread checkThread;
+        private String key;
+        private Result<?, ?> result;
+
+        void set(VerboseEventType type, CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, Throwable checkTrace, Thread checkThread, String key, Result<?, ?> result) {
+            this.type = type;
+            this.origin = origin;
+            this.checkTarget = checkTarget;
+            this.checkQueryOptions = checkQueryOptions;
+            this.checkTime = checkTime;
+            this.checkTrace = checkTrace;
+            this.checkThread = checkThread;
+            this.key = key;
+            this.result = result;
+        }
+
+        VerboseEvent toEvent() {
+            String thread = this.checkThread.getName();
+            switch (this.type) {
+                case PERMISSION:
+                    return new PermissionCheckEvent(this.origin, this.checkTarget, this.checkQueryOptions, this.checkTime, this.checkTrace, thread, this.key, (TristateResult) this.result);
+                case META:
+                    return new MetaCheckEvent(this.origin, this.checkTarget, this.checkQueryOptions, this.checkTime, this.checkTrace, thread, this.key, (StringResult<?>) this.result);
+                default:
+                    throw new AssertionError(this.type);
+            }
+        }
+
+        void clear() {
+            set(null, null, null, null, 0, null, null, null, null);
+        }
+    }
+
+}
@@ -32,8 +32,6 @@ import me.lucko.luckperms.common.util.gson.JObject;
 import me.lucko.luckperms.common.verbose.VerboseCheckTarget;
 import net.luckperms.api.query.QueryOptions;
 
-import java.util.Locale;
-
 public class MetaCheckEvent extends VerboseEvent {
 
     /**
@@ -101,10 +99,23 @@ public class MetaCheckEvent extends VerboseEvent {
 
     @Override
     public boolean eval(String variable) {
+        return eval(variable, getCheckTarget(), this.key, this.result);
+    }
+
+    /**
+     * Evaluates a filter variable against the properties of a meta check.
+     *
+     * @param variable the variable
+     * @param checkTarget the target of the check
+     * @param key the meta key which was checked for
+     * @param result the result of the check
+     * @return the result
+     */
+    public static boolean eval(String variable, VerboseCheckTarget checkTarget, String key, StringResult<?> result) {
         return variable.equals("meta") ||
-                getCheckTarget().describe().equalsIgnoreCase(variable) ||
-                getKey().toLowerCase(Locale.ROOT).startsWith(variable.toLowerCase(Locale.ROOT)) ||
-                String.valueOf(getResult().result()).equalsIgnoreCase(variable);
+                checkTarget.describe().equalsIgnoreCase(variable) ||
+                key.regionMatches(true, 0, variable, 0, variable.length()) ||
+                String.valueOf(result.result()).equalsIgnoreCase(variable);
     }
 
 }
@@ -104,10 +104,23 @@ public class PermissionCheckEvent extends VerboseEvent {
 
     @Override
     public boolean eval(String variable) {
+        return eval(variable, getCheckTarget(), this.permission, this.result);
+    }
+
+    /**
+     * Evaluates a filter variable against the properties of a permission check.
+     *
+     * @param variable the variable
+     * @param checkTarget the target of the check
+     * @param permission the permission which was checked for
+     * @param result the result of the check
+     * @return the result
+     */
+    public static boolean eval(String variable, VerboseCheckTarget checkTarget, String permission, TristateResult result) {
         return variable.equals("permission") ||
-                getCheckTarget().describe().equalsIgnoreCase(variable) ||
-                getPermission().toLowerCase(Locale.ROOT).startsWith(variable.toLowerCase(Locale.ROOT)) ||
-                getResult().result().name().equalsIgnoreCase(variable);
+                checkTarget.describe().equalsIgnoreCase(variable) ||
+                permission.regionMatches(true, 0, variable, 0, variable.length()) ||
+                result.result().name().equalsIgnoreCase(variable);
     }
 
 }
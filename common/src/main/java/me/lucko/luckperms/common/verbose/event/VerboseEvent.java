@@ -35,6 +35,7 @@ import net.luckperms.api.cacheddata.Result;
 import net.luckperms.api.context.Context;
 import net.luckperms.api.query.QueryMode;
 import net.luckperms.api.query.QueryOptions;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Locale;
 import java.util.Objects;
@@ -44,6 +45,7 @@ import java.util.UUID;
  * Represents a verbose event.
  */
 public abstract class VerboseEvent implements VariableEvaluator {
+    private static final StackTraceElement[] EMPTY_TRACE = new StackTraceElement[0];
 
     /**
      * The origin of the check
@@ -66,7 +68,7 @@ public abstract class VerboseEvent implements VariableEvaluator {
     private final long checkTime;
 
     /**
-     * The throwable created when the check took place
+     * The throwable created when the check took place, or null if a trace wasn't captured
      */
     private final Throwable checkTrace;
 
@@ -75,7 +77,7 @@ public abstract class VerboseEvent implements VariableEvaluator {
      */
     private final String checkThread;
 
-    protected VerboseEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, Throwable checkTrace, String checkThread) {
+    protected VerboseEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, @Nullable Throwable checkTrace, String checkThread) {
         this.origin = origin;
         this.checkTarget = checkTarget;
         this.checkQueryOptions = checkQueryOptions;
@@ -102,8 +104,12 @@ public abstract class VerboseEvent implements VariableEvaluator {
         return this.checkTime;
     }
 
+    public boolean hasCheckTrace() {
+        return this.checkTrace != null;
+    }
+
     public StackTraceElement[] getCheckTrace() {
-        return this.checkTrace.getStackTrace();
+        return this.checkTrace == null ? EMPTY_TRACE : this.checkTrace.getStackTrace();
     }
 
     public String getCheckThread() {
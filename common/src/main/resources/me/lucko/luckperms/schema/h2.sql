@@ -50,6 +50,10 @@ CREATE TABLE `{prefix}actions` (
   `action`     VARCHAR(300)       NOT NULL,
   PRIMARY KEY (`id`)
 );
+CREATE INDEX ON `{prefix}actions` (`time`);
+CREATE INDEX ON `{prefix}actions` (`actor_uuid`, `time`);
+CREATE INDEX ON `{prefix}actions` (`acted_uuid`, `time`);
+CREATE INDEX ON `{prefix}actions` (`acted_name`, `time`);
 
 CREATE TABLE `{prefix}tracks` (
   `name`   VARCHAR(36) NOT NULL,
@@ -0,0 +1,115 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.cache;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SubscriptionIndexTest {
+
+    private final Set<String> online = new HashSet<>();
+    private final Map<String, Set<String>> permissions = new HashMap<>();
+    private final AtomicInteger checks = new AtomicInteger();
+
+    private final SubscriptionIndex<String> index = new SubscriptionIndex<>(() -> this.online, (subject, permission) -> {
+        this.checks.incrementAndGet();
+        return this.online.contains(subject) && this.permissions.getOrDefault(subject, ImmutableSet.of()).contains(permission);
+    });
+
+    private void setup(String subject, String... permissions) {
+        this.online.add(subject);
+        this.permissions.put(subject, new HashSet<>(ImmutableSet.copyOf(permissions)));
+    }
+
+    @Test
+    public void testIndexBuiltOnFirstRequest() {
+        setup("a", "test.one");
+        setup("b", "test.one", "test.two");
+
+        assertEquals(ImmutableSet.of("a", "b"), this.index.get("test.one"));
+        assertEquals(ImmutableSet.of("b"), this.index.get("test.two"));
+        assertEquals(4, this.checks.get());
+
+        // repeated requests don't check the subjects again
+        assertEquals(ImmutableSet.of("a", "b"), this.index.get("test.one"));
+        assertEquals(4, this.checks.get());
+    }
+
+    @Test
+    public void testUpdateIsAppliedLazily() {
+        setup("a", "test.one");
+        setup("b");
+        assertEquals(ImmutableSet.of("a"), this.index.get("test.one"));
+        assertEquals(ImmutableSet.of(), this.index.get("test.two"));
+        this.checks.set(0);
+
+        this.permissions.get("a").remove("test.one");
+        this.permissions.get("b").add("test.one");
+        this.index.update("a");
+        this.index.update("b");
+        this.index.update("a");
+        assertEquals(0, this.checks.get());
+
+        // only the requested permission is checked, once per updated subject
+        assertEquals(ImmutableSet.of("b"), this.index.get("test.one"));
+        assertEquals(2, this.checks.get());
+    }
+
+    @Test
+    public void testJoinAndQuit() {
+        setup("a", "test.one");
+        assertEquals(ImmutableSet.of("a"), this.index.get("test.one"));
+
+        setup("b", "test.one");
+        this.index.update("b");
+        assertEquals(ImmutableSet.of("a", "b"), this.index.get("test.one"));
+
+        this.online.remove("a");
+        this.index.remove("a");
+        assertEquals(ImmutableSet.of("b"), this.index.get("test.one"));
+    }
+
+    @Test
+    public void testInvalidate() {
+        setup("a", "test.one");
+        assertEquals(ImmutableSet.of("a"), this.index.get("test.one"));
+
+        // a change which isn't attributed to a single subject, e.g. to a group they inherit
+        this.permissions.get("a").remove("test.one");
+        assertEquals(ImmutableSet.of("a"), this.index.get("test.one"));
+        this.index.invalidate();
+        assertEquals(ImmutableSet.of(), this.index.get("test.one"));
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.cacheddata;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import me.lucko.luckperms.common.context.manager.ContextManager;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CachedDataPreloaderTest {
+
+    @Mock private LuckPermsPlugin plugin;
+
+    @Test
+    public void testLikelyPermissionsOrderedByFrequency() {
+        CachedDataPreloader preloader = new CachedDataPreloader(this.plugin);
+        assertEquals(ImmutableList.of(), preloader.getLikelyPermissions());
+
+        preloader.recordPermissions(ImmutableList.of("test.one", "test.two"));
+        preloader.recordPermissions(ImmutableList.of("test.two", "test.three"));
+        preloader.recordPermissions(ImmutableList.of("test.two", "test.three"));
+
+        assertEquals(ImmutableList.of("test.two", "test.three", "test.one"), preloader.getLikelyPermissions());
+    }
+
+    @Test
+    public void testLikelyPermissionsBounded() {
+        CachedDataPreloader preloader = new CachedDataPreloader(this.plugin);
+        for (int i = 0; i < 3; i++) {
+            preloader.recordPermissions(ImmutableList.of("test.frequent"));
+        }
+
+        List<String> others = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            others.add("test.other." + i);
+        }
+        preloader.recordPermissions(others);
+
+        List<String> likely = preloader.getLikelyPermissions();
+        assertEquals(128, likely.size());
+        assertEquals("test.frequent", likely.get(0));
+
+        // the frequent permission survives the trim
+        preloader.recordPermissions(ImmutableList.of("test.new", "test.new.again"));
+        preloader.recordPermissions(ImmutableList.of("test.new"));
+        assertEquals(ImmutableList.of("test.frequent", "test.new"), preloader.getLikelyPermissions().subList(0, 2));
+    }
+
+    @Test
+    public void testPredictQueryOptionsIncludesStatic() {
+        ContextManager<?, ?> contextManager = mock(ContextManager.class);
+        when(contextManager.getStaticQueryOptions()).thenReturn(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+        when(this.plugin.getContextManager()).thenReturn((ContextManager) contextManager);
+
+        CachedDataPreloader preloader = new CachedDataPreloader(this.plugin);
+        assertEquals(ImmutableSet.of(QueryOptionsImpl.DEFAULT_CONTEXTUAL), preloader.predictQueryOptions(UUID.randomUUID()));
+    }
+
+}
@@ -0,0 +1,541 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.cacheddata;
+
+import com.google.common.collect.ImmutableList;
+import me.lucko.luckperms.common.cacheddata.type.LayeredPermissionMap;
+import me.lucko.luckperms.common.cacheddata.type.PermissionCache;
+import me.lucko.luckperms.common.cacheddata.type.PermissionLayer;
+import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.calculator.processor.DirectProcessor;
+import me.lucko.luckperms.common.calculator.processor.WildcardProcessor;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
+import me.lucko.luckperms.common.context.manager.ContextManager;
+import me.lucko.luckperms.common.event.AbstractEventBus;
+import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.graph.TraversalAlgorithm;
+import me.lucko.luckperms.common.inheritance.InheritanceDependencyIndex;
+import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.manager.group.GroupManager;
+import me.lucko.luckperms.common.model.manager.group.StandardGroupManager;
+import me.lucko.luckperms.common.node.types.Inheritance;
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import me.lucko.luckperms.common.treeview.PermissionRegistry;
+import me.lucko.luckperms.common.verbose.VerboseHandler;
+import me.lucko.luckperms.common.verbose.event.CheckOrigin;
+import net.luckperms.api.context.ContextSatisfyMode;
+import net.luckperms.api.model.data.DataType;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.query.QueryOptions;
+import net.luckperms.api.util.Tristate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class HolderCachedDataManagerTest {
+
+    @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsConfiguration configuration;
+
+    private StandardGroupManager groupManager;
+
+    @BeforeEach
+    public void setupMocks() {
+        this.groupManager = new StandardGroupManager(this.plugin);
+
+        //noinspection unchecked,rawtypes
+        lenient().when(this.plugin.getGroupManager()).thenReturn((GroupManager) this.groupManager);
+        lenient().when(this.plugin.getInheritanceGraphFactory()).thenReturn(new InheritanceGraphFactory(this.plugin));
+        lenient().when(this.plugin.getInheritanceDependencyIndex()).thenReturn(new InheritanceDependencyIndex(this.plugin));
+        lenient().when(this.plugin.getConfiguration()).thenReturn(this.configuration);
+        lenient().when(this.configuration.get(ConfigKeys.CACHE_REFRESH_AHEAD_MILLIS)).thenReturn(0);
+        lenient().when(this.configuration.get(ConfigKeys.PARALLEL_INHERITANCE_THRESHOLD)).thenReturn(0);
+        lenient().when(this.plugin.getEventDispatcher()).thenReturn(mock(EventDispatcher.class));
+        lenient().when(this.plugin.getVerboseHandler()).thenReturn(mock(VerboseHandler.class));
+        lenient().when(this.plugin.getPermissionRegistry()).thenReturn(mock(PermissionRegistry.class));
+        ContextManager<?, ?> contextManager = mock(ContextManager.class);
+        lenient().when(contextManager.getStaticQueryOptions()).thenReturn(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+        lenient().doReturn(contextManager).when(this.plugin).getContextManager();
+        lenient().when(this.plugin.getCalculatorFactory()).thenReturn((queryOptions, metadata) -> new PermissionCalculator(
+                this.plugin, metadata, ImmutableList.of(new DirectProcessor(), new WildcardProcessor())
+        ));
+        lenient().when(this.configuration.get(ConfigKeys.CONTEXT_SATISFY_MODE)).thenReturn(ContextSatisfyMode.AT_LEAST_ONE_VALUE_PER_KEY);
+        lenient().when(this.configuration.get(ConfigKeys.GROUP_WEIGHTS)).thenReturn(Collections.emptyMap());
+        lenient().when(this.configuration.get(ConfigKeys.GROUP_NAME_REWRITES)).thenReturn(Collections.emptyMap());
+        lenient().when(this.configuration.get(ConfigKeys.APPLYING_SHORTHAND)).thenReturn(true);
+        lenient().when(this.configuration.get(ConfigKeys.INHERITANCE_TRAVERSAL_ALGORITHM)).thenReturn(TraversalAlgorithm.DEPTH_FIRST_PRE_ORDER);
+        lenient().when(this.configuration.get(ConfigKeys.POST_TRAVERSAL_INHERITANCE_SORT)).thenReturn(false);
+    }
+
+    private static PermissionCache permissionData(Group group) {
+        return group.getCachedData().getPermissionData(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+    }
+
+    private static Tristate check(PermissionCache cache, String permission) {
+        return cache.checkPermission(permission, CheckOrigin.LUCKPERMS_API).result();
+    }
+
+    private static QueryOptions server(String server) {
+        return QueryOptionsImpl.DEFAULT_CONTEXTUAL.toBuilder().context(ImmutableContextSetImpl.of("server", server)).build();
+    }
+
+    @Test
+    public void testAddIsAppliedInPlace() {
+        Group group = this.groupManager.getOrMake("test");
+        group.setNode(DataType.NORMAL, Permission.builder().permission("test.one").build(), false);
+
+        PermissionCache cache = permissionData(group);
+        assertEquals(Tristate.UNDEFINED, check(cache, "test.two"));
+        assertEquals(Tristate.UNDEFINED, check(cache, "other.node"));
+
+        group.setNode(DataType.NORMAL, Permission.builder().permission("test.two").build(), false);
+        group.setNode(DataType.NORMAL, Permission.builder().permission("other.*").build(), false);
+
+        assertSame(cache, permissionData(group));
+        assertEquals(Tristate.TRUE, check(cache, "test.two"));
+        assertEquals(Tristate.TRUE, check(cache, "other.node"));
+    }
+
+    @Test
+    public void testValueChangeIsAppliedInPlace() {
+        Group group = this.groupManager.getOrMake("test");
+        group.setNode(DataType.NORMAL, Permission.builder().permission("test.one").build(), false);
+
+        PermissionCache cache = permissionData(group);
+        assertEquals(Tristate.TRUE, check(cache, "test.one"));
+
+        group.setNode(DataType.NORMAL, Permission.builder().permission("test.one").value(false).build(), false);
+
+        assertSame(cache, permissionData(group));
+        assertEquals(Tristate.FALSE, check(cache, "test.one"));
+    }
+
+    @Test
+    public void testNodeInOtherContextIsIgnored() {
+        Group group = this.groupManager.getOrMake("test");
+        PermissionCache cache = permissionData(group);
+
+        group.setNode(DataType.NORMAL, Permission.builder().permission("test.one").withContext("server", "foo").build(), false);
+
+        assertSame(cache, permissionData(group));
+        assertEquals(Tristate.UNDEFINED, check(cache, "test.one"));
+    }
+
+    @Test
+    public void testRemoveInvalidates() {
+        Group group = this.groupManager.getOrMake("test");
+        group.setNode(DataType.NORMAL, Permission.builder().permission("test.one").build(), false);
+
+        PermissionCache cache = permissionData(group);
+        assertEquals(Tristate.TRUE, check(cache, "test.one"));
+
+        group.unsetNode(DataType.NORMAL, Permission.builder().permission("test.one").build());
+
+        PermissionCache newCache = permissionData(group);
+        assertNotSame(cache, newCache);
+        assertEquals(Tristate.UNDEFINED, check(newCache, "test.one"));
+    }
+
+    @Test
+    public void testShadowingInvalidates() {
+        Group parent = this.groupManager.getOrMake("parent");
+        parent.setNode(DataType.NORMAL, Permission.builder().permission("test.one").build(), false);
+
+        Group group = this.groupManager.getOrMake("test");
+        group.setNode(DataType.NORMAL, Inheritance.builder("parent").build(), false);
+
+        PermissionCache cache = permissionData(group);
+        assertEquals(Tristate.TRUE, check(cache, "test.one"));
+
+        group.setNode(DataType.NORMAL, Permission.builder().permission("test.one").value(false).build(), false);
+
+        PermissionCache newCache = permissionData(group);
+        assertNotSame(cache, newCache);
+        assertEquals(Tristate.FALSE, check(newCache, "test.one"));
+    }
+
+    @Test
+    public void testShorthandInvalidates() {
+        Group group = this.groupManager.getOrMake("test");
+        PermissionCache cache = permissionData(group);
+
+        group.setNode(DataType.NORMAL, Permission.builder().permission("test.(one|two)").build(), false);
+
+        PermissionCache newCache = permissionData(group);
+        assertNotSame(cache, newCache);
+        assertEquals(Tristate.TRUE, check(newCache, "test.two"));
+    }
+
+    @Test
+    public void testLayeredPermissionsMatchExport() {
+        Group member = this.groupManager.getOrMake("member");
+        member.setNode(DataType.NORMAL, Permission.builder().permission("member.perm").build(), false);
+        member.setNode(DataType.NORMAL, Permission.builder().permission("shared.perm").build(), false);
+        member.setNode(DataType.NORMAL, Permission.builder().permission("short.(one|two)").build(), false);
+
+        Group vip = this.groupManager.getOrMake("vip");
+        vip.setNode(DataType.NORMAL, Inheritance.builder("member").build(), false);
+        vip.setNode(DataType.NORMAL, Permission.builder().permission("shared.perm").value(false).build(), false);
+        vip.setNode(DataType.TRANSIENT, Permission.builder().permission("vip.perm").build(), false);
+
+        Group helper = this.groupManager.getOrMake("helper");
+        helper.setNode(DataType.NORMAL, Inheritance.builder("member").build(), false);
+        helper.setNode(DataType.NORMAL, Permission.builder().permission("helper.*").build(), false);
+        helper.setNode(DataType.NORMAL, Permission.builder().permission("short.two").value(false).build(), false);
+
+        Group group = this.groupManager.getOrMake("test");
+        group.setNode(DataType.NORMAL, Inheritance.builder("vip").build(), false);
+        group.setNode(DataType.NORMAL, Inheritance.builder("helper").build(), false);
+        group.setNode(DataType.NORMAL, Permission.builder().permission("Test.Own").build(), false);
+        group.setNode(DataType.NORMAL, Permission.builder().permission("member.perm").value(false).withContext("server", "foo").build(), false);
+
+        Map<String, Node> expected = group.exportPermissions(HashMap::new, QueryOptionsImpl.DEFAULT_CONTEXTUAL, true, true);
+        PermissionCache cache = permissionData(group);
+
+        assertEquals(expected.keySet(), cache.getPermissionMap().keySet());
+        for (Map.Entry<String, Node> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), cache.getSourceNode(entry.getKey()), entry.getKey());
+        }
+        assertEquals(Tristate.TRUE, check(cache, "helper.test"));
+    }
+
+    @Test
+    public void testLayeredPermissionMapSize() {
+        Node a = Permission.builder().permission("a").build();
+        Node b = Permission.builder().permission("b").build();
+        Node c = Permission.builder().permission("c").build();
+        PermissionLayer first = PermissionLayer.of(ImmutableList.of(a, b), false);
+        PermissionLayer second = PermissionLayer.of(ImmutableList.of(b, c), false);
+
+        ConcurrentHashMap<String, Node> own = new ConcurrentHashMap<>();
+        own.put("a", a);
+        LayeredPermissionMap map = new LayeredPermissionMap(own, Collections.emptyMap(), ImmutableList.of(first, second));
+
+        assertEquals(3, map.size());
+        assertEquals(3, map.entrySet().size());
+
+        // keys which are already present in a layer don't change the size
+        assertSame(c, map.put("c", a));
+        assertSame(a, map.put("a", b));
+        assertEquals(3, map.size());
+
+        assertNull(map.put("d", a));
+        assertEquals(4, map.size());
+        assertEquals(4, map.keySet().size());
+
+        int iterated = 0;
+        for (Map.Entry<String, Node> ignored : map.entrySet()) {
+            iterated++;
+        }
+        assertEquals(iterated, map.size());
+    }
+
+    @Test
+    public void testLayersAreShared() {
+        Group member = this.groupManager.getOrMake("member");
+        member.setNode(DataType.NORMAL, Permission.builder().permission("member.perm").build(), false);
+
+        Group one = this.groupManager.getOrMake("one");
+        one.setNode(DataType.NORMAL, Inheritance.builder("member").build(), false);
+        Group two = this.groupManager.getOrMake("two");
+        two.setNode(DataType.NORMAL, Inheritance.builder("member").build(), false);
+
+        assertEquals(Tristate.TRUE, check(permissionData(one), "member.perm"));
+        assertEquals(Tristate.TRUE, check(permissionData(two), "member.perm"));
+
+        PermissionLayer layer = member.getCachedData().getPermissionLayer(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+        assertSame(layer, member.getCachedData().getPermissionLayer(QueryOptionsImpl.DEFAULT_CONTEXTUAL));
+
+        // changing the group drops its layer
+        member.setNode(DataType.NORMAL, Permission.builder().permission("member.other").build(), false);
+        PermissionLayer newLayer = member.getCachedData().getPermissionLayer(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+        assertNotSame(layer, newLayer);
+        assertSame(member.normalData().asList().stream().filter(n -> n.getKey().equals("member.other")).findFirst().orElse(null), newLayer.getPermissions().get("member.other"));
+    }
+
+    @Test
+    public void testNearCacheReflectsChanges() {
+        Group group = this.groupManager.getOrMake("test");
+        group.setNode(DataType.NORMAL, Permission.builder().permission("test.one").build(), false);
+
+        HolderCachedDataManager<?> cachedData = group.getCachedData();
+        assertEquals(Tristate.TRUE, cachedData.checkPermission(QueryOptionsImpl.DEFAULT_CONTEXTUAL, "test.one", CheckOrigin.INTERNAL).result());
+        assertEquals(Tristate.UNDEFINED, cachedData.checkPermission(QueryOptionsImpl.DEFAULT_CONTEXTUAL, "test.two", CheckOrigin.INTERNAL).result());
+
+        // applied in place
+        group.setNode(DataType.NORMAL, Permission.builder().permission("test.one").value(false).build(), false);
+        group.setNode(DataType.NORMAL, Permission.builder().permission("test.two").build(), false);
+        assertEquals(Tristate.FALSE, cachedData.checkPermission(QueryOptionsImpl.DEFAULT_CONTEXTUAL, "test.one", CheckOrigin.INTERNAL).result());
+        assertEquals(Tristate.TRUE, cachedData.checkPermission(QueryOptionsImpl.DEFAULT_CONTEXTUAL, "test.two", CheckOrigin.INTERNAL).result());
+
+        // invalidated
+        group.unsetNode(DataType.NORMAL, Permission.builder().permission("test.two").build());
+        assertEquals(Tristate.UNDEFINED, cachedData.checkPermission(QueryOptionsImpl.DEFAULT_CONTEXTUAL, "test.two", CheckOrigin.INTERNAL).result());
+
+        cachedData.permissionData().invalidate(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+        assertEquals(Tristate.FALSE, cachedData.checkPermission(QueryOptionsImpl.DEFAULT_CONTEXTUAL, "test.one", CheckOrigin.INTERNAL).result());
+    }
+
+    @Test
+    public void testRefreshAhead() throws InterruptedException {
+        lenient().when(this.configuration.get(ConfigKeys.CACHE_REFRESH_AHEAD_MILLIS)).thenReturn(60000);
+
+        Group group = this.groupManager.getOrMake("test");
+        group.setNode(DataType.NORMAL, Permission.builder().permission("test.one").build(), false);
+        PermissionCache cache = permissionData(group);
+
+        // shorthand nodes can't be applied in place, so the cache is refreshed in the background
+        group.setNode(DataType.NORMAL, Permission.builder().permission("test.{a,b}").build(), false);
+
+        PermissionCache refreshed = permissionData(group);
+        for (int i = 0; i < 100 && refreshed == cache; i++) {
+            Thread.sleep(50);
+            refreshed = permissionData(group);
+        }
+        assertNotSame(cache, refreshed);
+        assertEquals(Tristate.TRUE, check(refreshed, "test.a"));
+
+        // strict invalidation always takes effect immediately
+        group.getCachedData().invalidate();
+        assertNotSame(refreshed, permissionData(group));
+    }
+
+    @Test
+    public void testRefreshAheadStalenessIsBounded() throws InterruptedException {
+        lenient().when(this.configuration.get(ConfigKeys.CACHE_REFRESH_AHEAD_MILLIS)).thenReturn(1);
+
+        Group group = this.groupManager.getOrMake("test");
+        group.setNode(DataType.NORMAL, Permission.builder().permission("test.one").build(), false);
+        assertEquals(Tristate.UNDEFINED, check(permissionData(group), "test.b"));
+
+        group.setNode(DataType.NORMAL, Permission.builder().permission("test.{a,b}").build(), false);
+        Thread.sleep(10);
+
+        // either refreshed in the background, or recalculated now the window has passed
+        assertEquals(Tristate.TRUE, check(permissionData(group), "test.b"));
+    }
+
+    @Test
+    public void testRefreshAheadStalenessIsBoundedForNearCache() throws InterruptedException {
+        lenient().when(this.configuration.get(ConfigKeys.CACHE_REFRESH_AHEAD_MILLIS)).thenReturn(1);
+
+        // block the next calculation, so the background refresh can't complete
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicBoolean blockNext = new AtomicBoolean(false);
+        lenient().when(this.plugin.getCalculatorFactory()).thenReturn((queryOptions, metadata) -> {
+            if (blockNext.getAndSet(false)) {
+                try {
+                    latch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new PermissionCalculator(this.plugin, metadata, ImmutableList.of(new DirectProcessor(), new WildcardProcessor()));
+        });
+
+        try {
+            Group group = this.groupManager.getOrMake("test");
+            GroupCachedDataManager cachedData = group.getCachedData();
+            group.setNode(DataType.NORMAL, Permission.builder().permission("test.one").build(), false);
+            assertEquals(Tristate.UNDEFINED, cachedData.checkPermission(QueryOptionsImpl.DEFAULT_CONTEXTUAL, "test.b", CheckOrigin.INTERNAL).result());
+
+            blockNext.set(true);
+            group.setNode(DataType.NORMAL, Permission.builder().permission("test.{a,b}").build(), false);
+            Thread.sleep(10);
+
+            // the near cache must not keep serving the stale result once the window has passed
+            assertEquals(Tristate.TRUE, cachedData.checkPermission(QueryOptionsImpl.DEFAULT_CONTEXTUAL, "test.b", CheckOrigin.INTERNAL).result());
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    public void testFailedRefreshIsNotServedStale() throws InterruptedException {
+        lenient().when(this.configuration.get(ConfigKeys.CACHE_REFRESH_AHEAD_MILLIS)).thenReturn(60000);
+        PluginLogger logger = mock(PluginLogger.class);
+        lenient().when(this.plugin.getLogger()).thenReturn(logger);
+
+        AtomicBoolean fail = new AtomicBoolean(false);
+        lenient().when(this.plugin.getCalculatorFactory()).thenReturn((queryOptions, metadata) -> {
+            if (fail.get()) {
+                throw new IllegalStateException("test");
+            }
+            return new PermissionCalculator(this.plugin, metadata, ImmutableList.of(new DirectProcessor(), new WildcardProcessor()));
+        });
+
+        Group group = this.groupManager.getOrMake("test");
+        GroupCachedDataManager cachedData = group.getCachedData();
+        group.setNode(DataType.NORMAL, Permission.builder().permission("test.one").build(), false);
+        assertEquals(Tristate.UNDEFINED, cachedData.checkPermission(QueryOptionsImpl.DEFAULT_CONTEXTUAL, "test.b", CheckOrigin.INTERNAL).result());
+
+        fail.set(true);
+        group.setNode(DataType.NORMAL, Permission.builder().permission("test.{a,b}").build(), false);
+
+        // the failed refresh drops the stale entry
+        for (int i = 0; i < 100 && !cachedData.getLoadedPermissionData().isEmpty(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(cachedData.getLoadedPermissionData().isEmpty());
+        verify(logger).warn(anyString(), any(IllegalStateException.class));
+
+        fail.set(false);
+        assertEquals(Tristate.TRUE, cachedData.checkPermission(QueryOptionsImpl.DEFAULT_CONTEXTUAL, "test.b", CheckOrigin.INTERNAL).result());
+    }
+
+    @Test
+    public void testHolderLimitEvictsLeastRecentlyUsed() throws InterruptedException {
+        CachedDataLimits limits = new CachedDataLimits(2, 0);
+        lenient().when(this.plugin.getCachedDataLimits()).thenReturn(limits);
+
+        Group group = this.groupManager.getOrMake("test");
+        PermissionCache a = group.getCachedData().getPermissionData(server("a"));
+        Thread.sleep(5);
+        PermissionCache b = group.getCachedData().getPermissionData(server("b"));
+        Thread.sleep(5);
+        assertSame(a, group.getCachedData().getPermissionData(server("a")));
+        Thread.sleep(5);
+        group.getCachedData().getPermissionData(server("c"));
+
+        assertEquals(2, group.getCachedData().getLoadedPermissionData().size());
+        assertEquals(1, limits.getHolderEvictions());
+        assertSame(a, group.getCachedData().getPermissionData(server("a")));
+        assertNotSame(b, group.getCachedData().getPermissionData(server("b")));
+    }
+
+    @Test
+    public void testGlobalWeightLimit() throws InterruptedException {
+        CachedDataLimits limits = new CachedDataLimits(0, 4);
+        lenient().when(this.plugin.getCachedDataLimits()).thenReturn(limits);
+
+        Group group = this.groupManager.getOrMake("test");
+        for (int i = 0; i < 10; i++) {
+            group.getCachedData().getPermissionData(server("server" + i));
+        }
+
+        // evictions are processed asynchronously
+        for (int i = 0; i < 100 && group.getCachedData().getLoadedPermissionData().size() > 4; i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(group.getCachedData().getLoadedPermissionData().size() <= 4);
+        assertTrue(limits.getGlobalEvictions() >= 6);
+        assertTrue(limits.getGlobalWeight() <= 4);
+    }
+
+    @Test
+    public void testGrowingPermissionDataIsReweighed() throws InterruptedException {
+        CachedDataLimits limits = new CachedDataLimits(0, 1000);
+        lenient().when(this.plugin.getCachedDataLimits()).thenReturn(limits);
+
+        Group group = this.groupManager.getOrMake("test");
+        PermissionCache cache = group.getCachedData().getPermissionData(server("a"));
+        for (int i = 0; i < 100 && limits.getGlobalWeight() == 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(1, limits.getGlobalWeight());
+
+        for (int i = 0; i < 10; i++) {
+            cache.checkPermission("test.permission." + i, CheckOrigin.INTERNAL);
+        }
+
+        // the next access notices the lookup cache has grown
+        group.getCachedData().getPermissionData(server("a"));
+        for (int i = 0; i < 100 && limits.getGlobalWeight() == 1; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(11, limits.getGlobalWeight());
+    }
+
+    @Test
+    public void testUnloadStopsTracking() throws InterruptedException {
+        CachedDataLimits limits = new CachedDataLimits(0, 1000);
+        lenient().when(this.plugin.getCachedDataLimits()).thenReturn(limits);
+
+        Group group = this.groupManager.getOrMake("test");
+        group.getCachedData().getPermissionData(server("a"));
+        group.getCachedData().getPermissionData(server("b"));
+        for (int i = 0; i < 100 && limits.getGlobalWeight() == 0; i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(limits.getGlobalWeight() > 0);
+
+        this.groupManager.unload("test");
+        for (int i = 0; i < 100 && limits.getGlobalWeight() > 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, limits.getGlobalWeight());
+    }
+
+    @Test
+    public void testTrackedHolderCanBeCollected() throws InterruptedException {
+        CachedDataLimits limits = new CachedDataLimits(0, 1000);
+        lenient().when(this.plugin.getCachedDataLimits()).thenReturn(limits);
+        // mocks hold on to the arguments they are invoked with, so the group can't be passed to one
+        lenient().when(this.plugin.getEventDispatcher()).thenReturn(new EventDispatcher(mock(AbstractEventBus.class)));
+
+        Group group = new Group("test", this.plugin);
+        group.getCachedData().getPermissionData(server("a"));
+        group.getCachedData().getPermissionData(server("b"));
+
+        // the limits shouldn't keep the holder (or its cached data) alive
+        WeakReference<Group> reference = new WeakReference<>(group);
+        group = null;
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(reference.get());
+    }
+
+}
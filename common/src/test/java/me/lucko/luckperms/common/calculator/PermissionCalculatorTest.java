@@ -27,8 +27,10 @@ package me.lucko.luckperms.common.calculator;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import me.lucko.luckperms.common.cacheddata.CacheMetadata;
 import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.calculator.processor.AbstractChildProcessor;
 import me.lucko.luckperms.common.calculator.processor.AbstractOverrideWildcardProcessor;
 import me.lucko.luckperms.common.calculator.processor.DirectProcessor;
 import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
@@ -53,7 +55,10 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -112,6 +117,20 @@ public class PermissionCalculatorTest {
         return new PermissionCalculator(this.plugin, MOCK_METADATA, ImmutableList.copyOf(processors));
     }
 
+    private PermissionCalculator createCompiledCalculator(PermissionProcessor... processors) {
+        return new PermissionCalculator(this.plugin, MOCK_METADATA, ImmutableList.copyOf(processors), true);
+    }
+
+    private static final class TestChildProcessor extends AbstractChildProcessor {
+        @Override
+        protected Map<String, Boolean> resolveChildPermissions(String permission, boolean value) {
+            if (permission.equals("test.node1")) {
+                return ImmutableMap.of("test.child1", value, "one.two.child", !value);
+            }
+            return ImmutableMap.of();
+        }
+    }
+
     @ParameterizedTest
     @CsvSource({
             "test, UNDEFINED",
@@ -246,4 +265,108 @@ public class PermissionCalculatorTest {
         assertSame(WildcardProcessor.class, overriddenResult.processorClass());
     }
 
+    @ParameterizedTest
+    @CsvSource({
+            "test", "test.node1", "test.node2", "test.child1", "one.two.child",
+            "one.two.three.four", "one.two.three.test", "one.two.three.*", "one.two.three",
+            "one.two.test", "one.two", "one.test", "one", "test.other", "*",
+            "hello1", "regexps4", "helloo", "overridetest.test", ".one.test", "one..test", "one.",
+    })
+    public void testCompiled(String node) {
+        PermissionProcessor[][] stacks = {
+                {new DirectProcessor(), new RegexProcessor(), new WildcardProcessor(), new SpongeWildcardProcessor()},
+                {new DirectProcessor(), new SpongeWildcardProcessor(), new WildcardProcessor()},
+                {new DirectProcessor(), new TestChildProcessor(), new RegexProcessor(), new WildcardProcessor()},
+                {new DirectProcessor(), new WildcardProcessor(), new TestChildProcessor()},
+        };
+        PermissionProcessor[][] compiledStacks = {
+                {new DirectProcessor(), new RegexProcessor(), new WildcardProcessor(), new SpongeWildcardProcessor()},
+                {new DirectProcessor(), new SpongeWildcardProcessor(), new WildcardProcessor()},
+                {new DirectProcessor(), new TestChildProcessor(), new RegexProcessor(), new WildcardProcessor()},
+                {new DirectProcessor(), new WildcardProcessor(), new TestChildProcessor()},
+        };
+
+        for (int i = 0; i < stacks.length; i++) {
+            PermissionCalculator calculator = createCalculator(stacks[i]);
+            calculator.setSourcePermissions(EXAMPLE_PERMISSIONS);
+            PermissionCalculator compiledCalculator = createCompiledCalculator(compiledStacks[i]);
+            compiledCalculator.setSourcePermissions(EXAMPLE_PERMISSIONS);
+
+            TristateResult expected = calculator.checkPermission(node, CheckOrigin.INTERNAL);
+            TristateResult result = compiledCalculator.checkPermission(node, CheckOrigin.INTERNAL);
+            assertEquals(expected.result(), result.result());
+            assertEquals(expected.node(), result.node());
+            assertSame(expected.processorClass(), result.processorClass());
+        }
+    }
+
+    @Test
+    public void testCompiledOverrideWildcard() {
+        AbstractOverrideWildcardProcessor overrideProcessor = new AbstractOverrideWildcardProcessor(true) {
+            @Override
+            protected TristateResult hasPermission(String permission) {
+                if (permission.equals("overridetest.test")) {
+                    return new TristateResult.Factory(AbstractOverrideWildcardProcessor.class)
+                            .result(Tristate.FALSE);
+                }
+                return TristateResult.UNDEFINED;
+            }
+        };
+
+        PermissionCalculator calculator = createCompiledCalculator(new DirectProcessor(), new WildcardProcessor(), overrideProcessor);
+        calculator.setSourcePermissions(EXAMPLE_PERMISSIONS);
+
+        TristateResult result = calculator.checkPermission("overridetest.test", CheckOrigin.INTERNAL);
+        assertEquals(Tristate.FALSE, result.result());
+        assertSame(AbstractOverrideWildcardProcessor.class, result.processorClass());
+
+        TristateResult overriddenResult = result.overriddenResult();
+        assertNotNull(overriddenResult);
+        assertSame(WildcardProcessor.class, overriddenResult.processorClass());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"false", "true"})
+    public void testChildPermissionsRefreshedIncrementally(boolean compile) {
+        Map<String, String> children = new HashMap<>();
+        children.put("test.node1", "test.child1");
+        children.put("test.node2", "test.child2");
+
+        Set<String> changed = new HashSet<>();
+        Set<String> resolved = new HashSet<>();
+        AbstractChildProcessor childProcessor = new AbstractChildProcessor() {
+            @Override
+            protected Map<String, Boolean> resolveChildPermissions(String permission, boolean value) {
+                resolved.add(permission);
+                String child = children.get(permission);
+                return child == null ? ImmutableMap.of() : ImmutableMap.of(child, value);
+            }
+
+            @Override
+            protected Set<String> getChangedPermissions() {
+                Set<String> ret = new HashSet<>(changed);
+                changed.clear();
+                return ret;
+            }
+        };
+
+        PermissionCalculator calculator = compile
+                ? createCompiledCalculator(new DirectProcessor(), childProcessor)
+                : createCalculator(new DirectProcessor(), childProcessor);
+        calculator.setSourcePermissions(EXAMPLE_PERMISSIONS);
+        assertEquals(Tristate.TRUE, calculator.checkPermission("test.child1", CheckOrigin.INTERNAL).result());
+        assertEquals(Tristate.FALSE, calculator.checkPermission("test.child2", CheckOrigin.INTERNAL).result());
+
+        // only the changed permission is resolved again
+        children.put("test.node1", "test.child3");
+        changed.add("test.node1");
+        resolved.clear();
+        calculator.invalidateCache();
+
+        assertEquals(Tristate.UNDEFINED, calculator.checkPermission("test.child1", CheckOrigin.INTERNAL).result());
+        assertEquals(Tristate.TRUE, calculator.checkPermission("test.child3", CheckOrigin.INTERNAL).result());
+        assertEquals(Tristate.FALSE, calculator.checkPermission("test.child2", CheckOrigin.INTERNAL).result());
+        assertEquals(ImmutableSet.of("test.node1"), resolved);
+    }
+
 }
@@ -26,9 +26,11 @@
 package me.lucko.luckperms.common.context;
 
 import com.google.common.collect.ImmutableSet;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
 import net.luckperms.api.context.Context;
 import net.luckperms.api.context.ContextSatisfyMode;
 import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.query.QueryOptions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -38,6 +40,8 @@ import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ImmutableContextSetTest {
@@ -170,4 +174,21 @@ public class ImmutableContextSetTest {
         );
     }
 
+    @Test
+    public void testIntern() {
+        ImmutableContextSet first = new ImmutableContextSetImpl.BuilderImpl().add("world", "nether").add("server", "survival").build();
+        ImmutableContextSet second = new ImmutableContextSetImpl.BuilderImpl().add("server", "survival").add("world", "nether").build();
+        assertNotSame(first, second);
+
+        ImmutableContextSet interned = ImmutableContextSetImpl.intern(first);
+        assertSame(interned, ImmutableContextSetImpl.intern(second));
+        assertSame(ImmutableContextSetImpl.EMPTY, ImmutableContextSetImpl.intern(new ImmutableContextSetImpl.BuilderImpl().build()));
+
+        QueryOptions firstOptions = QueryOptionsImpl.DEFAULT_CONTEXTUAL.toBuilder().context(first).build();
+        QueryOptions secondOptions = QueryOptionsImpl.DEFAULT_CONTEXTUAL.toBuilder().context(second).build();
+        QueryOptions internedOptions = QueryOptionsImpl.intern(firstOptions);
+        assertSame(internedOptions, QueryOptionsImpl.intern(secondOptions));
+        assertSame(interned, internedOptions.context());
+    }
+
 }
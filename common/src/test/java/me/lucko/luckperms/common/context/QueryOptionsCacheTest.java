@@ -0,0 +1,175 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.context;
+
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.context.manager.ContextManager;
+import me.lucko.luckperms.common.context.manager.QueryOptionsCache;
+import me.lucko.luckperms.common.context.manager.QueryOptionsSupplier;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import net.luckperms.api.context.ContextCalculator;
+import net.luckperms.api.context.ContextConsumer;
+import net.luckperms.api.context.ContextUpdateTrigger;
+import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.query.QueryOptions;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+public class QueryOptionsCacheTest {
+
+    @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsConfiguration configuration;
+
+    private TestContextManager contextManager;
+    private QueryOptionsCache<String> cache;
+
+    @BeforeEach
+    public void setupMocks() {
+        lenient().when(this.plugin.getConfiguration()).thenReturn(this.configuration);
+        lenient().when(this.configuration.get(ConfigKeys.DISABLED_CONTEXT_CALCULATORS)).thenReturn(Collections.emptySet());
+        lenient().when(this.configuration.get(ConfigKeys.EVENT_DRIVEN_CONTEXTS)).thenReturn(true);
+
+        this.contextManager = new TestContextManager(this.plugin);
+        this.cache = new QueryOptionsCache<>("subject", this.contextManager);
+    }
+
+    @Test
+    public void testEventDrivenWhenAllCalculatorsDeclareTriggers() throws Exception {
+        CountingCalculator calculator = new CountingCalculator(EnumSet.of(ContextUpdateTrigger.WORLD_CHANGE));
+        this.contextManager.registerCalculator(calculator);
+
+        assertTrue(this.contextManager.isEventDriven());
+        assertTrue(this.contextManager.isUpdateTriggerDeclared(ContextUpdateTrigger.WORLD_CHANGE));
+        assertFalse(this.contextManager.isUpdateTriggerDeclared(ContextUpdateTrigger.GAMEMODE_CHANGE));
+
+        this.cache.getQueryOptions();
+        Thread.sleep(100);
+        this.cache.getQueryOptions();
+        assertEquals(1, calculator.calculations.get());
+
+        // recalculated once signalled
+        this.cache.invalidate();
+        this.cache.getQueryOptions();
+        assertEquals(2, calculator.calculations.get());
+
+        // recalculated once all caches are invalidated
+        this.contextManager.invalidateAllCaches();
+        this.cache.getQueryOptions();
+        assertEquals(3, calculator.calculations.get());
+    }
+
+    @Test
+    public void testFallsBackToPollingForUndeclaredCalculators() throws Exception {
+        CountingCalculator declared = new CountingCalculator(Collections.emptySet());
+        this.contextManager.registerCalculator(declared);
+        this.cache.getQueryOptions();
+
+        // registering a new calculator invalidates existing results
+        CountingCalculator undeclared = new CountingCalculator(null);
+        this.contextManager.registerCalculator(undeclared);
+        assertFalse(this.contextManager.isEventDriven());
+
+        this.cache.getQueryOptions();
+        assertEquals(2, declared.calculations.get());
+        assertEquals(1, undeclared.calculations.get());
+
+        Thread.sleep(100);
+        this.cache.getQueryOptions();
+        assertEquals(3, declared.calculations.get());
+    }
+
+    @Test
+    public void testDisabledInConfig() {
+        lenient().when(this.configuration.get(ConfigKeys.EVENT_DRIVEN_CONTEXTS)).thenReturn(false);
+        this.contextManager.registerCalculator(new CountingCalculator(Collections.emptySet()));
+        assertFalse(this.contextManager.isEventDriven());
+    }
+
+    private static final class CountingCalculator implements ContextCalculator<String> {
+        private final Set<ContextUpdateTrigger> triggers;
+        private final AtomicInteger calculations = new AtomicInteger();
+
+        CountingCalculator(Set<ContextUpdateTrigger> triggers) {
+            this.triggers = triggers;
+        }
+
+        @Override
+        public void calculate(@NonNull String target, @NonNull ContextConsumer consumer) {
+            this.calculations.incrementAndGet();
+            consumer.accept("calculations", Integer.toString(this.calculations.get()));
+        }
+
+        @Override
+        public Set<ContextUpdateTrigger> getUpdateTriggers() {
+            return this.triggers;
+        }
+    }
+
+    private static final class TestContextManager extends ContextManager<String, String> {
+        TestContextManager(LuckPermsPlugin plugin) {
+            super(plugin, String.class, String.class);
+        }
+
+        @Override
+        public UUID getUniqueId(String player) {
+            return UUID.nameUUIDFromBytes(player.getBytes());
+        }
+
+        @Override
+        public QueryOptionsSupplier getCacheFor(String subject) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public QueryOptions formQueryOptions(String subject, ImmutableContextSet contextSet) {
+            return QueryOptionsImpl.DEFAULT_CONTEXTUAL.toBuilder().context(contextSet).build();
+        }
+
+        @Override
+        protected void invalidateCache(String subject) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.inheritance;
+
+import com.google.common.collect.ImmutableSet;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.PermissionHolderIdentifier;
+import me.lucko.luckperms.common.model.manager.group.GroupManager;
+import me.lucko.luckperms.common.model.manager.group.StandardGroupManager;
+import me.lucko.luckperms.common.node.types.Inheritance;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import net.luckperms.api.context.ContextSatisfyMode;
+import net.luckperms.api.model.data.DataType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(MockitoExtension.class)
+public class InheritanceDependencyIndexTest {
+
+    @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsConfiguration configuration;
+
+    private StandardGroupManager groupManager;
+    private InheritanceDependencyIndex index;
+
+    @BeforeEach
+    public void setupMocks() {
+        this.groupManager = new StandardGroupManager(this.plugin);
+        this.index = new InheritanceDependencyIndex(this.plugin);
+
+        //noinspection unchecked,rawtypes
+        lenient().when(this.plugin.getGroupManager()).thenReturn((GroupManager) this.groupManager);
+        lenient().when(this.plugin.getInheritanceDependencyIndex()).thenReturn(this.index);
+        lenient().when(this.plugin.getConfiguration()).thenReturn(this.configuration);
+        lenient().when(this.configuration.get(ConfigKeys.CACHE_REFRESH_AHEAD_MILLIS)).thenReturn(0);
+        lenient().when(this.configuration.get(ConfigKeys.PARALLEL_INHERITANCE_THRESHOLD)).thenReturn(0);
+        lenient().when(this.plugin.getEventDispatcher()).thenReturn(mock(EventDispatcher.class));
+        lenient().when(this.configuration.get(ConfigKeys.CONTEXT_SATISFY_MODE)).thenReturn(ContextSatisfyMode.AT_LEAST_ONE_VALUE_PER_KEY);
+    }
+
+    private Group createGroup(String name, String... parents) {
+        Group group = this.groupManager.getOrMake(name);
+        for (String parent : parents) {
+            group.setNode(DataType.NORMAL, Inheritance.builder(parent).build(), false);
+        }
+        return group;
+    }
+
+    private Set<String> dependents(String group) {
+        return this.index.getDependents(Collections.singleton(group)).stream()
+                .map(PermissionHolderIdentifier::getName)
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testTransitiveDependents() {
+        createGroup("member");
+        createGroup("helper", "member");
+        createGroup("mod", "helper");
+        createGroup("vip", "member");
+        createGroup("staff");
+        createGroup("admin", "mod", "staff");
+
+        assertEquals(ImmutableSet.of("helper", "mod", "admin", "vip"), dependents("member"));
+        assertEquals(ImmutableSet.of("mod", "admin"), dependents("helper"));
+        assertEquals(ImmutableSet.of("admin"), dependents("staff"));
+        assertTrue(dependents("admin").isEmpty());
+    }
+
+    @Test
+    public void testContextualInheritance() {
+        createGroup("member");
+        Group builder = createGroup("builder");
+        builder.setNode(DataType.TRANSIENT, Inheritance.builder("member").withContext("server", "creative").build(), false);
+
+        assertEquals(ImmutableSet.of("builder"), dependents("member"));
+    }
+
+    @Test
+    public void testUpdateAndRemove() {
+        createGroup("member");
+        Group helper = createGroup("helper", "member");
+        assertEquals(ImmutableSet.of("helper"), dependents("member"));
+
+        helper.unsetNode(DataType.NORMAL, Inheritance.builder("member").build());
+        assertTrue(dependents("member").isEmpty());
+
+        helper.setNode(DataType.NORMAL, Inheritance.builder("member").build(), false);
+        assertEquals(ImmutableSet.of("helper"), dependents("member"));
+
+        this.index.remove(helper.getIdentifier());
+        assertTrue(dependents("member").isEmpty());
+    }
+
+    @Test
+    public void testUnloadedGroupsAreRemoved() {
+        createGroup("member");
+        createGroup("helper", "member");
+        createGroup("vip", "member");
+        assertEquals(ImmutableSet.of("helper", "vip"), dependents("member"));
+
+        this.groupManager.unload("helper");
+        assertEquals(ImmutableSet.of("vip"), dependents("member"));
+
+        this.groupManager.retainAll(ImmutableSet.of("member"));
+        assertTrue(dependents("member").isEmpty());
+    }
+
+    @Test
+    public void testCycle() {
+        createGroup("a", "b");
+        createGroup("b", "a");
+
+        assertEquals(ImmutableSet.of("a", "b"), dependents("a"));
+    }
+
+}
@@ -216,6 +216,8 @@ public class MessageTest {
             return "stub";
         } else if (clazz == Integer.class) {
             return 0;
+        } else if (clazz == Long.class) {
+            return 0L;
         } else if (clazz == Boolean.class) {
             return false;
         } else if (clazz == Double.class) {
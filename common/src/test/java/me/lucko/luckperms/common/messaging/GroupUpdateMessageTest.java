@@ -0,0 +1,118 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.messaging;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.JsonObject;
+import me.lucko.luckperms.common.event.AbstractEventBus;
+import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.inheritance.InheritanceDependencyIndex;
+import me.lucko.luckperms.common.messaging.message.GroupUpdateMessageImpl;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.storage.Storage;
+import me.lucko.luckperms.common.util.gson.GsonProvider;
+import net.luckperms.api.messenger.Messenger;
+import net.luckperms.api.messenger.MessengerProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class GroupUpdateMessageTest {
+
+    @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsBootstrap bootstrap;
+    @Mock private Storage storage;
+    @Mock private InheritanceDependencyIndex inheritanceDependencyIndex;
+
+    @BeforeEach
+    public void setupMocks() {
+        lenient().when(this.plugin.getBootstrap()).thenReturn(this.bootstrap);
+        lenient().when(this.bootstrap.getScheduler()).thenReturn(mock(SchedulerAdapter.class));
+        lenient().when(this.plugin.getLogger()).thenReturn(mock(PluginLogger.class));
+        lenient().when(this.plugin.getEventDispatcher()).thenReturn(new EventDispatcher(mock(AbstractEventBus.class)));
+        lenient().when(this.plugin.getStorage()).thenReturn(this.storage);
+        lenient().when(this.plugin.getInheritanceDependencyIndex()).thenReturn(this.inheritanceDependencyIndex);
+        lenient().when(this.storage.loadGroup(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        UUID id = UUID.randomUUID();
+        GroupUpdateMessageImpl message = new GroupUpdateMessageImpl(id, ImmutableSet.of("admin", "mod"));
+
+        JsonObject json = GsonProvider.normal().fromJson(message.asEncodedString(), JsonObject.class);
+        assertEquals(id.toString(), json.get("id").getAsString());
+        assertEquals(GroupUpdateMessageImpl.TYPE, json.get("type").getAsString());
+
+        GroupUpdateMessageImpl decoded = GroupUpdateMessageImpl.decode(json.get("content"), id);
+        assertEquals(id, decoded.getId());
+        assertEquals(ImmutableSet.of("admin", "mod"), decoded.getGroupNames());
+    }
+
+    @Test
+    public void testReceiverInvalidatesOnlyNamedGroups() {
+        MessengerProvider provider = mock(MessengerProvider.class);
+        when(provider.obtain(any())).thenReturn(mock(Messenger.class));
+        LuckPermsMessagingService service = new LuckPermsMessagingService(this.plugin, provider);
+        String encoded = new GroupUpdateMessageImpl(UUID.randomUUID(), ImmutableSet.of("admin", "mod")).asEncodedString();
+
+        assertTrue(service.consumeIncomingMessageAsString(encoded));
+
+        verify(this.storage).loadGroup("admin");
+        verify(this.storage).loadGroup("mod");
+        verify(this.storage, never()).loadAllGroups();
+        verifyNoMoreInteractions(this.storage);
+        verify(this.inheritanceDependencyIndex).invalidate(ImmutableSet.of("admin", "mod"));
+        verifyNoMoreInteractions(this.inheritanceDependencyIndex);
+
+        // the same message is only processed once
+        assertFalse(service.consumeIncomingMessageAsString(encoded));
+        verify(this.inheritanceDependencyIndex, times(1)).invalidate(ImmutableSet.of("admin", "mod"));
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import me.lucko.luckperms.common.cache.LoadingMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MetricRegistryTest {
+
+    @Test
+    public void testRegistrationIsIdempotent() {
+        Counter counter = MetricRegistry.counter("test_counter", "test", "type", "a");
+        assertSame(counter, MetricRegistry.counter("test_counter", "test", "type", "a"));
+        assertSame(MetricRegistry.cache("test_cache"), MetricRegistry.cache("test_cache"));
+        assertThrows(IllegalArgumentException.class, () -> MetricRegistry.timer("test_timer", "test", "type"));
+    }
+
+    @Test
+    public void testLoadingMapRecordsHitsAndMisses() {
+        CacheMetrics metrics = MetricRegistry.cache("test_loading_map");
+        LoadingMap<String, Integer> map = LoadingMap.of(String::length, metrics);
+
+        map.get("a");
+        map.get("a");
+        map.get("bb");
+        map.get("a");
+
+        assertEquals(2, metrics.hits());
+        assertEquals(2, metrics.misses());
+        assertEquals(0.5, metrics.hitRate());
+    }
+
+    @Test
+    public void testTimerBuckets() {
+        Timer timer = MetricRegistry.timer("test_timer", "test", "type", "buckets");
+        timer.record(TimeUnit.MICROSECONDS.toNanos(1));
+        timer.record(TimeUnit.MICROSECONDS.toNanos(3));
+        timer.record(TimeUnit.MILLISECONDS.toNanos(2));
+        timer.record(TimeUnit.SECONDS.toNanos(20));
+
+        assertEquals(4, timer.count());
+        long[] counts = timer.cumulativeCounts();
+        assertArrayEquals(new long[]{1, 2, 2, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 3, 3, 4}, counts);
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(5), timer.percentileNanos(0.5));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), timer.percentileNanos(0.75));
+        assertEquals(-1, timer.percentileNanos(0.99));
+    }
+
+}
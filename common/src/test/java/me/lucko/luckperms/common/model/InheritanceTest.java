@@ -29,15 +29,19 @@ import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.config.LuckPermsConfiguration;
 import me.lucko.luckperms.common.event.EventDispatcher;
 import me.lucko.luckperms.common.graph.TraversalAlgorithm;
+import me.lucko.luckperms.common.inheritance.InheritanceDependencyIndex;
 import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
 import me.lucko.luckperms.common.model.manager.group.GroupManager;
 import me.lucko.luckperms.common.model.manager.group.StandardGroupManager;
 import me.lucko.luckperms.common.node.types.Inheritance;
+import me.lucko.luckperms.common.node.types.Permission;
 import me.lucko.luckperms.common.node.types.Weight;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.query.QueryOptionsImpl;
 import net.luckperms.api.context.ContextSatisfyMode;
+import net.luckperms.api.node.Node;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
@@ -50,6 +54,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -69,7 +74,10 @@ public class InheritanceTest {
         //noinspection unchecked,rawtypes
         lenient().when(this.plugin.getGroupManager()).thenReturn((GroupManager) this.groupManager);
         lenient().when(this.plugin.getInheritanceGraphFactory()).thenReturn(new InheritanceGraphFactory(this.plugin));
+        lenient().when(this.plugin.getInheritanceDependencyIndex()).thenReturn(new InheritanceDependencyIndex(this.plugin));
         lenient().when(this.plugin.getConfiguration()).thenReturn(this.configuration);
+        lenient().when(this.configuration.get(ConfigKeys.CACHE_REFRESH_AHEAD_MILLIS)).thenReturn(0);
+        lenient().when(this.configuration.get(ConfigKeys.PARALLEL_INHERITANCE_THRESHOLD)).thenReturn(0);
         lenient().when(this.plugin.getEventDispatcher()).thenReturn(mock(EventDispatcher.class));
         lenient().when(this.configuration.get(ConfigKeys.CONTEXT_SATISFY_MODE)).thenReturn(ContextSatisfyMode.AT_LEAST_ONE_VALUE_PER_KEY);
         lenient().when(this.configuration.get(ConfigKeys.GROUP_WEIGHTS)).thenReturn(Collections.emptyMap());
@@ -126,6 +134,56 @@ public class InheritanceTest {
         assertEquals(expectedList, groups);
     }
 
+    @Test
+    public void testInheritanceOrderIsCached() {
+        when(this.configuration.get(ConfigKeys.INHERITANCE_TRAVERSAL_ALGORITHM)).thenReturn(TraversalAlgorithm.DEPTH_FIRST_PRE_ORDER);
+        when(this.configuration.get(ConfigKeys.POST_TRAVERSAL_INHERITANCE_SORT)).thenReturn(false);
+
+        Group member = this.groupManager.getOrMake("member");
+        Group vip = createGroup("vip", 5, member);
+
+        Group testHolder = this.groupManager.getOrMake("test");
+        testHolder.normalData().add(Inheritance.builder().group(vip.getName()).build());
+
+        List<PermissionHolder> order = testHolder.getCachedData().getInheritanceOrder(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+        assertEquals(Arrays.asList(testHolder, vip, member), order);
+        assertSame(order, testHolder.getCachedData().getInheritanceOrder(QueryOptionsImpl.DEFAULT_CONTEXTUAL));
+
+        // a change to the holders data discards the cached order
+        Group staff = this.groupManager.getOrMake("staff");
+        testHolder.normalData().add(Inheritance.builder().group(staff.getName()).build());
+        testHolder.getCachedData().invalidate();
+        assertEquals(Arrays.asList(testHolder, vip, member, staff), testHolder.getCachedData().getInheritanceOrder(QueryOptionsImpl.DEFAULT_CONTEXTUAL));
+
+        // as does reloading a group in the order
+        this.groupManager.unload("member");
+        Group reloadedMember = this.groupManager.getOrMake("member");
+        List<PermissionHolder> reloadedOrder = testHolder.getCachedData().getInheritanceOrder(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+        assertSame(reloadedMember, reloadedOrder.get(2));
+    }
+
+    @Test
+    public void testParallelInheritedNodes() {
+        when(this.configuration.get(ConfigKeys.INHERITANCE_TRAVERSAL_ALGORITHM)).thenReturn(TraversalAlgorithm.DEPTH_FIRST_PRE_ORDER);
+        when(this.configuration.get(ConfigKeys.POST_TRAVERSAL_INHERITANCE_SORT)).thenReturn(false);
+
+        Group parent = this.groupManager.getOrMake("group0");
+        parent.normalData().add(Permission.builder().permission("perm.0").build());
+        for (int i = 1; i < 20; i++) {
+            Group group = createGroup("group" + i, i, parent);
+            group.normalData().add(Permission.builder().permission("perm." + i).value(i % 2 == 0).build());
+            parent = group;
+        }
+
+        List<Node> sequential = parent.resolveInheritedNodes(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+
+        lenient().when(this.configuration.get(ConfigKeys.PARALLEL_INHERITANCE_THRESHOLD)).thenReturn(2);
+        List<Node> parallel = parent.resolveInheritedNodes(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+
+        assertEquals(sequential, parallel);
+        assertEquals(20 + 19 * 2, parallel.size());
+    }
+
     private Group createGroup(String name, int weight, Group parent) {
         Group group = this.groupManager.getOrMake(name);
         group.normalData().add(Inheritance.builder().group(parent.getName()).build());
@@ -48,6 +48,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -59,6 +60,8 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -168,13 +171,16 @@ public class NodeMapTest {
         }
     }
 
-    @Test
-    public void testRemove() {
-        NodeMapMutable map = new NodeMapMutable(this.mockHolder, DataType.NORMAL);
-        map.add(makeNode("test1"));
-        map.add(makeNode("test2").toBuilder().value(false).build());
-        map.add(makeNode("test3").toBuilder().expiry(1, TimeUnit.HOURS).build());
-        map.add(makeNode("test4").toBuilder().withContext("hello", "world").build());
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testRemove(boolean compact) {
+        NodeMapMutable map = new NodeMapMutable(this.mockHolder, DataType.NORMAL, compact);
+        map.setContent(ImmutableList.of(
+                makeNode("test1"),
+                makeNode("test2").toBuilder().value(false).build(),
+                makeNode("test3").toBuilder().expiry(1, TimeUnit.HOURS).build(),
+                makeNode("test4").toBuilder().withContext("hello", "world").build()
+        ));
 
         assertEquals(4, map.size());
 
@@ -194,13 +200,16 @@ public class NodeMapTest {
         assertEquals(0, map.size());
     }
 
-    @Test
-    public void testRemoveExact() {
-        NodeMapMutable map = new NodeMapMutable(this.mockHolder, DataType.NORMAL);
-        map.add(makeNode("test1"));
-        map.add(makeNode("test2").toBuilder().value(false).build());
-        map.add(makeNode("test3").toBuilder().expiry(1, TimeUnit.HOURS).build());
-        map.add(makeNode("test4").toBuilder().withContext("hello", "world").build());
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testRemoveExact(boolean compact) {
+        NodeMapMutable map = new NodeMapMutable(this.mockHolder, DataType.NORMAL, compact);
+        map.setContent(ImmutableList.of(
+                makeNode("test1"),
+                makeNode("test2").toBuilder().value(false).build(),
+                makeNode("test3").toBuilder().expiry(1, TimeUnit.HOURS).build(),
+                makeNode("test4").toBuilder().withContext("hello", "world").build()
+        ));
 
         assertEquals(4, map.size());
 
@@ -226,6 +235,30 @@ public class NodeMapTest {
         assertEquals(0, map.size());
     }
 
+    @Test
+    public void testCompact() {
+        NodeMapMutable map = new NodeMapMutable(this.mockHolder, DataType.NORMAL, true);
+        Node parent = makeNode("group.parent").toBuilder().withContext("server", "survival").build();
+        Node permission = makeNode("test").toBuilder().withContext("server", "survival").build();
+
+        map.setContent(ImmutableList.of(parent, permission, makeNode("other")));
+        assertEquals(3, map.size());
+        assertEquals(ImmutableSet.of(parent, permission), ImmutableSet.copyOf(map.nodesInContext(parent.getContexts())));
+        assertEquals(ImmutableList.of(parent), map.inheritanceAsList());
+
+        // the contexts of nodes in the same context are shared
+        List<Node> nodes = map.asList();
+        assertSame(nodes.get(0).getContexts(), nodes.get(1).getContexts());
+
+        map.remove(parent);
+        assertEquals(2, map.size());
+        assertEquals(ImmutableList.of(), map.inheritanceAsList());
+
+        map.clear(parent.getContexts());
+        assertEquals(ImmutableList.of(makeNode("other")), map.asList());
+        assertFalse(map.isEmpty());
+    }
+
     @ParameterizedTest(name = "s={0} w={1} is={2} iw={3}")
     @CsvSource({
             "true, true, true, true, 8, 4",
@@ -0,0 +1,194 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.model;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import me.lucko.luckperms.common.model.manager.user.OfflineUserCache;
+import me.lucko.luckperms.common.model.manager.user.UserHousekeeper;
+import me.lucko.luckperms.common.model.manager.user.UserManager;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.storage.Storage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class OfflineUserCacheTest {
+
+    @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsBootstrap bootstrap;
+    @Mock private SchedulerAdapter scheduler;
+    @Mock private Storage storage;
+    @Mock private UserManager userManager;
+    @Mock private UserHousekeeper housekeeper;
+
+    @BeforeEach
+    public void setupMocks() {
+        lenient().when(this.plugin.getBootstrap()).thenReturn(this.bootstrap);
+        lenient().when(this.bootstrap.getScheduler()).thenReturn(this.scheduler);
+        lenient().when(this.plugin.getStorage()).thenReturn(this.storage);
+        lenient().when(this.plugin.getUserManager()).thenReturn(this.userManager);
+        lenient().when(this.userManager.getHouseKeeper()).thenReturn(this.housekeeper);
+    }
+
+    private Runnable captureBatch() {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(this.scheduler).asyncLater(task.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        return task.getValue();
+    }
+
+    @Test
+    public void testLookupsAreBatched() throws Exception {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        User firstUser = mock(User.class);
+        User secondUser = mock(User.class);
+        when(this.storage.loadUsers(anySet())).thenReturn(CompletableFuture.completedFuture(ImmutableMap.of(first, firstUser, second, secondUser)));
+
+        OfflineUserCache cache = new OfflineUserCache(this.plugin, 10, 60);
+        CompletableFuture<User> firstFuture = cache.load(first);
+        CompletableFuture<User> secondFuture = cache.load(second);
+        assertSame(firstFuture, cache.load(first));
+
+        // only one batch is scheduled for lookups made within the window
+        captureBatch().run();
+
+        ArgumentCaptor<Set<UUID>> loaded = ArgumentCaptor.forClass(Set.class);
+        verify(this.storage, times(1)).loadUsers(loaded.capture());
+        assertEquals(ImmutableSet.of(first, second), loaded.getValue());
+
+        assertSame(firstUser, firstFuture.get());
+        assertSame(secondUser, secondFuture.get());
+        verify(this.housekeeper).registerApiUsage(first);
+        verify(this.housekeeper).registerApiUsage(second);
+    }
+
+    @Test
+    public void testFailedBatchCompletesExceptionally() {
+        UUID uuid = UUID.randomUUID();
+        CompletableFuture<Map<UUID, User>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RuntimeException("storage unavailable"));
+        when(this.storage.loadUsers(anySet())).thenReturn(failed);
+
+        OfflineUserCache cache = new OfflineUserCache(this.plugin, 10, 60);
+        CompletableFuture<User> future = cache.load(uuid);
+        captureBatch().run();
+
+        assertThrows(ExecutionException.class, future::get);
+        verify(this.housekeeper, never()).registerApiUsage(uuid);
+    }
+
+    @Test
+    public void testUnknownUserCompletesWithNull() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        when(this.storage.loadUsers(anySet())).thenReturn(CompletableFuture.completedFuture(Collections.emptyMap()));
+
+        OfflineUserCache cache = new OfflineUserCache(this.plugin, 10, 60);
+        CompletableFuture<User> future = cache.load(uuid);
+        captureBatch().run();
+
+        assertNull(future.get());
+    }
+
+    @Test
+    public void testExpiredUserIsReleased() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        when(this.storage.loadUsers(anySet())).thenReturn(CompletableFuture.completedFuture(ImmutableMap.of(uuid, mock(User.class))));
+
+        OfflineUserCache cache = new OfflineUserCache(this.plugin, 10, 1);
+        cache.load(uuid);
+        captureBatch().run();
+
+        Thread.sleep(1500);
+        cache.getIfLoaded(uuid); // triggers maintenance of the expired entry
+
+        verify(this.housekeeper, timeout(2000)).clearApiUsage(uuid);
+    }
+
+    @Test
+    public void testEvictedUserIsReleased() throws Exception {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(this.storage.loadUsers(anySet())).thenReturn(CompletableFuture.completedFuture(ImmutableMap.of(first, mock(User.class), second, mock(User.class))));
+
+        OfflineUserCache cache = new OfflineUserCache(this.plugin, 1, 60);
+        cache.load(first);
+        cache.load(second);
+        captureBatch().run();
+
+        verify(this.housekeeper, timeout(2000)).clearApiUsage(any(UUID.class));
+    }
+
+    @Test
+    public void testUnloadedUserFallsBackToLoad() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        User user = mock(User.class);
+        when(this.storage.loadUsers(anySet())).thenReturn(CompletableFuture.completedFuture(ImmutableMap.of(uuid, user)));
+
+        OfflineUserCache cache = new OfflineUserCache(this.plugin, 10, 60);
+        cache.load(uuid);
+        captureBatch().run();
+
+        when(this.userManager.getIfLoaded(uuid)).thenReturn(user);
+        assertSame(user, cache.getIfLoaded(uuid));
+
+        // once the user manager unloads the user, the cached instance is discarded
+        when(this.userManager.getIfLoaded(uuid)).thenReturn(null);
+        assertNull(cache.getIfLoaded(uuid));
+        verify(this.housekeeper, timeout(2000)).clearApiUsage(uuid);
+    }
+
+}
@@ -26,7 +26,10 @@
 package me.lucko.luckperms.common.model;
 
 import com.google.common.collect.ImmutableList;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
 import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.inheritance.InheritanceDependencyIndex;
 import me.lucko.luckperms.common.node.types.Permission;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import net.luckperms.api.model.data.DataMutateResult;
@@ -47,6 +50,7 @@ import java.util.concurrent.TimeUnit;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -54,10 +58,15 @@ import static org.mockito.Mockito.when;
 public class PermissionHolderTest {
 
     @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsConfiguration configuration;
 
     @BeforeEach
     public void setupMocks() {
         when(this.plugin.getEventDispatcher()).thenReturn(mock(EventDispatcher.class));
+        lenient().when(this.plugin.getInheritanceDependencyIndex()).thenReturn(new InheritanceDependencyIndex(this.plugin));
+        lenient().when(this.plugin.getConfiguration()).thenReturn(this.configuration);
+        lenient().when(this.configuration.get(ConfigKeys.CACHE_REFRESH_AHEAD_MILLIS)).thenReturn(0);
+        lenient().when(this.configuration.get(ConfigKeys.PARALLEL_INHERITANCE_THRESHOLD)).thenReturn(0);
     }
 
     @Test
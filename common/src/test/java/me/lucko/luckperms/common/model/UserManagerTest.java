@@ -29,6 +29,7 @@ import com.google.common.collect.ImmutableList;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.config.LuckPermsConfiguration;
 import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.inheritance.InheritanceDependencyIndex;
 import me.lucko.luckperms.common.model.manager.user.StandardUserManager;
 import me.lucko.luckperms.common.node.types.Inheritance;
 import me.lucko.luckperms.common.node.types.Permission;
@@ -61,7 +62,10 @@ public class UserManagerTest {
     public void setupMocks() {
         lenient().when(this.plugin.getBootstrap()).thenReturn(this.bootstrap);
         lenient().when(this.plugin.getConfiguration()).thenReturn(this.configuration);
+        lenient().when(this.configuration.get(ConfigKeys.CACHE_REFRESH_AHEAD_MILLIS)).thenReturn(0);
+        lenient().when(this.configuration.get(ConfigKeys.PARALLEL_INHERITANCE_THRESHOLD)).thenReturn(0);
         lenient().when(this.plugin.getEventDispatcher()).thenReturn(mock(EventDispatcher.class));
+        lenient().when(this.plugin.getInheritanceDependencyIndex()).thenReturn(new InheritanceDependencyIndex(this.plugin));
         lenient().when(this.bootstrap.getScheduler()).thenReturn(mock(SchedulerAdapter.class));
         lenient().when(this.configuration.get(ConfigKeys.PRIMARY_GROUP_CALCULATION)).thenReturn(PrimaryGroupHolder.AllParentsByWeight::new);
         lenient().when(this.configuration.get(ConfigKeys.PRIMARY_GROUP_CALCULATION_METHOD)).thenReturn("parents-by-weight");
@@ -0,0 +1,58 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.node;
+
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.node.utils.PermissionSymbols;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class PermissionSymbolsTest {
+
+    @Test
+    public void testCaseVariantsShareCanonicalForm() {
+        String canonical = PermissionSymbols.canonical("symbols.test.One");
+        assertEquals("symbols.test.one", canonical);
+        assertSame(canonical, PermissionSymbols.canonical(new String("symbols.test.one")));
+        assertSame(canonical, PermissionSymbols.canonical("SYMBOLS.TEST.ONE"));
+        assertSame(canonical, PermissionSymbols.canonical(new String("Symbols.Test.One")));
+    }
+
+    @Test
+    public void testPermissionNodeKeysAreShared() {
+        String key = new String("symbols.test.node");
+        Permission first = Permission.builder().permission(key).build();
+        Permission second = Permission.builder().permission(new String(key)).build();
+        assertSame(first.getKey(), second.getKey());
+
+        // keys which aren't lowercase are left as they are
+        Permission upper = Permission.builder().permission("Symbols.Test.Node").build();
+        assertEquals("Symbols.Test.Node", upper.getKey());
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.plugin.util;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
+import net.luckperms.api.model.PlayerSaveResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class LoginBatcherTest {
+
+    @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsBootstrap bootstrap;
+    @Mock private LuckPermsConfiguration configuration;
+    @Mock private SchedulerAdapter scheduler;
+
+    // the batches passed to each phase
+    private final List<Set<UUID>> saves = new ArrayList<>();
+    private final List<Set<UUID>> loads = new ArrayList<>();
+
+    @BeforeEach
+    public void setupMocks() {
+        lenient().when(this.plugin.getBootstrap()).thenReturn(this.bootstrap);
+        lenient().when(this.plugin.getConfiguration()).thenReturn(this.configuration);
+        lenient().when(this.plugin.getLogger()).thenReturn(mock(PluginLogger.class));
+        lenient().when(this.bootstrap.getScheduler()).thenReturn(this.scheduler);
+        lenient().when(this.configuration.get(ConfigKeys.LOGIN_BATCH_MILLIS)).thenReturn(50);
+        lenient().when(this.scheduler.asyncLater(any(), anyLong(), any())).thenReturn(mock(SchedulerTask.class));
+    }
+
+    private Map<UUID, PlayerSaveResult> save(Map<UUID, String> usernames, Set<UUID> failing) {
+        this.saves.add(ImmutableSet.copyOf(usernames.keySet()));
+        Map<UUID, PlayerSaveResult> results = new HashMap<>();
+        for (UUID uniqueId : usernames.keySet()) {
+            if (failing.contains(uniqueId)) {
+                throw new RuntimeException("Unable to save " + uniqueId);
+            }
+            results.put(uniqueId, mock(PlayerSaveResult.class));
+        }
+        return results;
+    }
+
+    private Map<UUID, User> load(Map<UUID, String> usernames, Set<UUID> failing) {
+        this.loads.add(ImmutableSet.copyOf(usernames.keySet()));
+        for (UUID uniqueId : usernames.keySet()) {
+            if (failing.contains(uniqueId)) {
+                throw new RuntimeException("Unable to load " + uniqueId);
+            }
+        }
+
+        Map<UUID, User> results = new HashMap<>();
+        for (UUID uniqueId : usernames.keySet()) {
+            User user = mock(User.class);
+            lenient().when(user.getUniqueId()).thenReturn(uniqueId);
+            results.put(uniqueId, user);
+        }
+        return results;
+    }
+
+    private LoginBatcher batcher(Set<UUID> failingSaves, Set<UUID> failingLoads) {
+        return new LoginBatcher(this.plugin, usernames -> save(usernames, failingSaves), usernames -> load(usernames, failingLoads));
+    }
+
+    @Test
+    public void testLoginsAreBatched() throws Exception {
+        LoginBatcher batcher = batcher(ImmutableSet.of(), ImmutableSet.of());
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        CompletableFuture<User> firstFuture = batcher.login(first, "first");
+        CompletableFuture<User> secondFuture = batcher.login(second, "second");
+        assertSame(firstFuture, batcher.login(first, "first"));
+
+        // a single flush is scheduled for the window
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(this.scheduler, times(1)).asyncLater(flush.capture(), eq(50L), eq(TimeUnit.MILLISECONDS));
+        flush.getValue().run();
+
+        assertEquals(ImmutableList.of(ImmutableSet.of(first, second)), this.saves);
+        assertEquals(ImmutableList.of(ImmutableSet.of(first, second)), this.loads);
+        assertEquals(first, firstFuture.get().getUniqueId());
+        assertEquals(second, secondFuture.get().getUniqueId());
+    }
+
+    @Test
+    public void testLoadFailureIsIsolated() throws Exception {
+        UUID good = UUID.randomUUID();
+        UUID bad = UUID.randomUUID();
+        UUID alsoGood = UUID.randomUUID();
+        LoginBatcher batcher = batcher(ImmutableSet.of(), ImmutableSet.of(bad));
+
+        CompletableFuture<User> goodFuture = batcher.login(good, "good");
+        CompletableFuture<User> badFuture = batcher.login(bad, "bad");
+        CompletableFuture<User> alsoGoodFuture = batcher.login(alsoGood, "alsoGood");
+        batcher.flush();
+
+        // player data is only saved once, and only the loads are retried individually
+        assertEquals(ImmutableList.of(ImmutableSet.of(good, bad, alsoGood)), this.saves);
+        assertEquals(4, this.loads.size());
+
+        assertEquals(good, goodFuture.get().getUniqueId());
+        assertEquals(alsoGood, alsoGoodFuture.get().getUniqueId());
+        assertThrows(ExecutionException.class, badFuture::get);
+    }
+
+    @Test
+    public void testSaveFailureIsIsolated() throws Exception {
+        UUID good = UUID.randomUUID();
+        UUID bad = UUID.randomUUID();
+        LoginBatcher batcher = batcher(ImmutableSet.of(bad), ImmutableSet.of());
+
+        CompletableFuture<User> goodFuture = batcher.login(good, "good");
+        CompletableFuture<User> badFuture = batcher.login(bad, "bad");
+        batcher.flush();
+
+        // the failed login isn't loaded, and the rest are still loaded together
+        assertEquals(3, this.saves.size());
+        assertEquals(ImmutableList.of(ImmutableSet.of(good)), this.loads);
+
+        assertEquals(good, goodFuture.get().getUniqueId());
+        assertThrows(ExecutionException.class, badFuture::get);
+    }
+
+}
@@ -0,0 +1,220 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.bulkupdate.BulkUpdateBuilder;
+import me.lucko.luckperms.common.bulkupdate.action.UpdateAction;
+import me.lucko.luckperms.common.bulkupdate.comparison.Constraint;
+import me.lucko.luckperms.common.bulkupdate.comparison.StandardComparison;
+import me.lucko.luckperms.common.bulkupdate.query.Query;
+import me.lucko.luckperms.common.bulkupdate.query.QueryField;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.inheritance.InheritanceDependencyIndex;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.PrimaryGroupHolder;
+import me.lucko.luckperms.common.model.Track;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.model.manager.group.GroupManager;
+import me.lucko.luckperms.common.model.manager.group.StandardGroupManager;
+import me.lucko.luckperms.common.model.manager.track.StandardTrackManager;
+import me.lucko.luckperms.common.model.manager.track.TrackManager;
+import me.lucko.luckperms.common.model.manager.user.StandardUserManager;
+import me.lucko.luckperms.common.model.manager.user.UserManager;
+import me.lucko.luckperms.common.node.matcher.StandardNodeMatchers;
+import me.lucko.luckperms.common.node.types.Inheritance;
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.storage.implementation.binary.BinaryStorage;
+import me.lucko.luckperms.common.storage.misc.NodeEntry;
+import net.luckperms.api.node.Node;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(MockitoExtension.class)
+public class BinaryStorageTest {
+
+    @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsConfiguration configuration;
+    @Mock private LuckPermsBootstrap bootstrap;
+    @Mock(answer = Answers.RETURNS_MOCKS) private SchedulerAdapter scheduler;
+
+    @TempDir
+    Path directory;
+
+    private BinaryStorage storage;
+
+    @BeforeEach
+    public void setupMocksAndStorage() throws Exception {
+        lenient().when(this.plugin.getBootstrap()).thenReturn(this.bootstrap);
+        lenient().when(this.bootstrap.getDataDirectory()).thenReturn(this.directory);
+        lenient().when(this.bootstrap.getScheduler()).thenReturn(this.scheduler);
+        lenient().when(this.plugin.getLogger()).thenReturn(mock(PluginLogger.class));
+        lenient().when(this.plugin.getEventDispatcher()).thenReturn(mock(EventDispatcher.class));
+        lenient().when(this.plugin.getInheritanceDependencyIndex()).thenReturn(new InheritanceDependencyIndex(this.plugin));
+        lenient().when(this.plugin.getConfiguration()).thenReturn(this.configuration);
+        lenient().when(this.configuration.get(ConfigKeys.CACHE_REFRESH_AHEAD_MILLIS)).thenReturn(0);
+        lenient().when(this.configuration.get(ConfigKeys.PARALLEL_INHERITANCE_THRESHOLD)).thenReturn(0);
+        lenient().when(this.configuration.get(ConfigKeys.PRIMARY_GROUP_CALCULATION)).thenReturn(PrimaryGroupHolder.AllParentsByWeight::new);
+        lenient().when(this.configuration.get(ConfigKeys.PRIMARY_GROUP_CALCULATION_METHOD)).thenReturn("parents-by-weight");
+        setupManagers();
+
+        this.storage = new BinaryStorage(this.plugin, "binary-storage");
+        this.storage.init();
+    }
+
+    @AfterEach
+    public void shutdownStorage() {
+        this.storage.shutdown();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void setupManagers() {
+        UserManager userManager = new StandardUserManager(this.plugin);
+        GroupManager groupManager = new StandardGroupManager(this.plugin);
+        TrackManager trackManager = new StandardTrackManager(this.plugin);
+        lenient().when(this.plugin.getUserManager()).thenReturn(userManager);
+        lenient().when(this.plugin.getGroupManager()).thenReturn(groupManager);
+        lenient().when(this.plugin.getTrackManager()).thenReturn(trackManager);
+    }
+
+    /**
+     * Reopens the storage with fresh managers, so data can only come from disk.
+     */
+    private void reopen() throws Exception {
+        this.storage.shutdown();
+        setupManagers();
+        this.storage = new BinaryStorage(this.plugin, "binary-storage");
+        this.storage.init();
+    }
+
+    @Test
+    public void testSaveAndLoadUser() throws Exception {
+        UUID uniqueId = UUID.randomUUID();
+        User user = this.storage.loadUser(uniqueId, "Test");
+        user.normalData().add(Permission.builder().permission("test.1").withContext("server", "test").build());
+        user.normalData().add(Permission.builder().permission("test.2").expiry(1, TimeUnit.HOURS).build());
+        user.getPrimaryGroup().setStoredValue("default");
+        Set<Node> nodes = user.normalData().asSet();
+
+        this.storage.saveUser(user);
+        reopen();
+
+        User loaded = this.storage.loadUser(uniqueId, null);
+        assertNotSame(user, loaded);
+        assertEquals(nodes, loaded.normalData().asSet());
+        assertEquals("Test", loaded.getUsername().orElse(null));
+        assertEquals(ImmutableSet.of(uniqueId), this.storage.getUniqueUsers());
+
+        // users with only default data are not stored
+        loaded.normalData().clear();
+        this.plugin.getUserManager().giveDefaultIfNeeded(loaded);
+        this.storage.saveUser(loaded);
+        assertTrue(this.storage.getUniqueUsers().isEmpty());
+    }
+
+    @Test
+    public void testSaveAndLoadGroupsAndTracks() throws Exception {
+        Group group = this.storage.createAndLoadGroup("test");
+        group.normalData().add(Permission.builder().permission("test.1").build());
+        group.normalData().add(Inheritance.builder("other").build());
+        Set<Node> nodes = group.normalData().asSet();
+        this.storage.saveGroup(group);
+        this.storage.createAndLoadGroup("other");
+        this.storage.deleteGroup(this.storage.createAndLoadGroup("deleted"));
+
+        Track track = this.storage.createAndLoadTrack("staff");
+        track.setGroups(ImmutableList.of("other", "test"));
+        this.storage.saveTrack(track);
+
+        reopen();
+
+        this.storage.loadAllGroups();
+        this.storage.loadAllTracks();
+        assertEquals(ImmutableSet.of("test", "other"), this.plugin.getGroupManager().getAll().keySet());
+        assertEquals(nodes, this.plugin.getGroupManager().getIfLoaded("test").normalData().asSet());
+        assertEquals(ImmutableList.of("other", "test"), this.plugin.getTrackManager().getIfLoaded("staff").getGroups());
+        assertFalse(this.storage.loadGroup("deleted").isPresent());
+    }
+
+    @Test
+    public void testBulkUpdateAndSearch() throws Exception {
+        UUID uniqueId = UUID.randomUUID();
+        User user = this.storage.loadUser(uniqueId, "Test");
+        user.normalData().add(Permission.builder().permission("hello.user").build());
+        this.storage.saveUser(user);
+
+        Group group = this.storage.createAndLoadGroup("test");
+        group.normalData().add(Permission.builder().permission("hello.group").build());
+        group.normalData().add(Permission.builder().permission("other").build());
+        this.storage.saveGroup(group);
+
+        BulkUpdate update = BulkUpdateBuilder.create()
+                .action(UpdateAction.of(QueryField.SERVER, "foo"))
+                .query(Query.of(QueryField.PERMISSION, Constraint.of(StandardComparison.SIMILAR, "hello.%")))
+                .build();
+        this.storage.applyBulkUpdate(update);
+
+        Node userNode = Permission.builder().permission("hello.user").withContext("server", "foo").build();
+        Node groupNode = Permission.builder().permission("hello.group").withContext("server", "foo").build();
+
+        List<NodeEntry<UUID, Node>> users = this.storage.searchUserNodes(StandardNodeMatchers.keyStartsWith("hello."));
+        assertEquals(ImmutableList.of(NodeEntry.of(uniqueId, userNode)), users);
+
+        List<NodeEntry<String, Node>> groups = this.storage.searchGroupNodes(StandardNodeMatchers.keyStartsWith("hello."));
+        assertEquals(ImmutableList.of(NodeEntry.of("test", groupNode)), groups);
+
+        reopen();
+        assertTrue(this.storage.loadGroup("test").get().normalData().asSet().contains(groupNode));
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LoggedAction;
+import me.lucko.luckperms.common.actionlog.PageParameters;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.storage.implementation.file.FileActionLogger;
+import net.luckperms.api.actionlog.Action;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+public class FileActionLoggerTest {
+
+    @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsBootstrap bootstrap;
+    @Mock(answer = Answers.RETURNS_MOCKS) private SchedulerAdapter scheduler;
+
+    @TempDir
+    Path directory;
+
+    private FileActionLogger logger;
+
+    @BeforeEach
+    public void setupLogger() {
+        lenient().when(this.plugin.getBootstrap()).thenReturn(this.bootstrap);
+        lenient().when(this.bootstrap.getScheduler()).thenReturn(this.scheduler);
+
+        this.logger = new FileActionLogger(this.plugin);
+        this.logger.init(this.directory.resolve("actions.txt"), this.directory.resolve("actions.json"));
+    }
+
+    private static LoggedAction action(long time, UUID source, Action.Target.Type type, String target, String description) {
+        return LoggedAction.build()
+                .timestamp(Instant.ofEpochSecond(time))
+                .source(source)
+                .sourceName("Source")
+                .targetType(type)
+                .target(type == Action.Target.Type.USER ? UUID.nameUUIDFromBytes(target.getBytes(StandardCharsets.UTF_8)) : null)
+                .targetName(target)
+                .description(description)
+                .build();
+    }
+
+    @Test
+    public void testLogPage() throws Exception {
+        UUID source = UUID.randomUUID();
+        for (int i = 0; i < 15; i++) {
+            this.logger.logAction(action(1000 + i, source, Action.Target.Type.GROUP, i % 3 == 0 ? "admin" : "default", "entry " + i));
+        }
+
+        LogPage page = this.logger.getLogPage(LogFilter.any(), new PageParameters(4, 1));
+        assertEquals(15, page.getTotalEntries());
+        assertEquals(4, page.getMaxPage());
+        assertEquals("entry 14", page.getContent().get(0).getDescription());
+        assertEquals("entry 11", page.getContent().get(3).getDescription());
+
+        page = this.logger.getLogPage(LogFilter.group("admin"), null);
+        assertEquals(5, page.getTotalEntries());
+        assertEquals("entry 12", page.getContent().get(0).getDescription());
+
+        // entries appended after the index was built are picked up
+        this.logger.logAction(action(2000, source, Action.Target.Type.GROUP, "admin", "latest"));
+        page = this.logger.getLogPage(LogFilter.group("admin"), new PageParameters(2, 1));
+        assertEquals(6, page.getTotalEntries());
+        assertEquals("latest", page.getContent().get(0).getDescription());
+
+        // out of order entries are sorted into place
+        this.logger.logAction(action(500, source, Action.Target.Type.GROUP, "admin", "earliest"));
+        page = this.logger.getLogPage(LogFilter.group("admin"), new PageParameters(2, 4));
+        assertEquals(7, page.getTotalEntries());
+        assertEquals("earliest", page.getContent().get(0).getDescription());
+
+        assertEquals(1, this.logger.getLogPage(LogFilter.search("ENTRY 13"), null).getTotalEntries());
+        assertEquals(0, this.logger.getLogPage(LogFilter.source(UUID.randomUUID()), null).getTotalEntries());
+    }
+
+    @Test
+    public void testLogPageSkipsInvalidLines() throws Exception {
+        UUID user = UUID.nameUUIDFromBytes("Player".getBytes(StandardCharsets.UTF_8));
+        this.logger.logAction(action(1000, UUID.randomUUID(), Action.Target.Type.USER, "Player", "first"));
+        this.logger.flush();
+
+        Files.write(this.directory.resolve("actions.txt"), Collections.singletonList("not json"), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        this.logger.logAction(action(1001, UUID.randomUUID(), Action.Target.Type.USER, "Player", "second"));
+
+        LogPage page = this.logger.getLogPage(LogFilter.user(user), null);
+        assertEquals(2, page.getTotalEntries());
+        assertEquals("second", page.getContent().get(0).getDescription());
+        assertEquals("first", page.getContent().get(1).getDescription());
+    }
+
+}
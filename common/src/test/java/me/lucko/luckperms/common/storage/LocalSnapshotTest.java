@@ -0,0 +1,137 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.inheritance.InheritanceDependencyIndex;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.manager.group.GroupManager;
+import me.lucko.luckperms.common.model.manager.group.StandardGroupManager;
+import me.lucko.luckperms.common.model.manager.track.StandardTrackManager;
+import me.lucko.luckperms.common.model.manager.track.TrackManager;
+import me.lucko.luckperms.common.node.types.Inheritance;
+import me.lucko.luckperms.common.node.types.Meta;
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import net.luckperms.api.node.Node;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(MockitoExtension.class)
+public class LocalSnapshotTest {
+
+    @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsConfiguration configuration;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void setupMocks() {
+        lenient().when(this.plugin.getLogger()).thenReturn(mock(PluginLogger.class));
+        lenient().when(this.plugin.getEventDispatcher()).thenReturn(mock(EventDispatcher.class));
+        lenient().when(this.plugin.getInheritanceDependencyIndex()).thenReturn(new InheritanceDependencyIndex(this.plugin));
+        lenient().when(this.plugin.getConfiguration()).thenReturn(this.configuration);
+        lenient().when(this.configuration.get(ConfigKeys.CACHE_REFRESH_AHEAD_MILLIS)).thenReturn(0);
+        lenient().when(this.configuration.get(ConfigKeys.PARALLEL_INHERITANCE_THRESHOLD)).thenReturn(0);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void setupManagers() {
+        lenient().when(this.plugin.getGroupManager()).thenReturn((GroupManager) new StandardGroupManager(this.plugin));
+        lenient().when(this.plugin.getTrackManager()).thenReturn((TrackManager) new StandardTrackManager(this.plugin));
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        setupManagers();
+
+        Set<Node> nodes = ImmutableSet.of(
+                Permission.builder().permission("test.1").build(),
+                Permission.builder().permission("test.2").value(false).withContext("server", "test").withContext("world", "nether").build(),
+                Permission.builder().permission("test.3").expiry(4102444800L).build(),
+                Inheritance.builder("admin").build(),
+                Meta.builder("hello", "world").build()
+        );
+
+        Group group = this.plugin.getGroupManager().getOrMake("test");
+        group.normalData().bypass().setContent(nodes);
+        this.plugin.getGroupManager().getOrMake("admin");
+        this.plugin.getTrackManager().getOrMake("staff").setGroups(ImmutableList.of("test", "admin"));
+
+        Path file = this.directory.resolve("local-snapshot.bin");
+        new LocalSnapshot(this.plugin, file).save();
+        assertTrue(Files.exists(file));
+
+        // load into fresh managers, with a stale group which should be removed
+        setupManagers();
+        this.plugin.getGroupManager().getOrMake("stale");
+
+        assertTrue(new LocalSnapshot(this.plugin, file).load());
+        assertEquals(ImmutableSet.of("test", "admin"), this.plugin.getGroupManager().getAll().keySet());
+        assertEquals(nodes, this.plugin.getGroupManager().getIfLoaded("test").normalData().asImmutableSet());
+        assertTrue(this.plugin.getGroupManager().getIfLoaded("admin").normalData().asImmutableSet().isEmpty());
+        assertEquals(ImmutableList.of("test", "admin"), this.plugin.getTrackManager().getIfLoaded("staff").getGroups());
+    }
+
+    @Test
+    public void testCorruptSnapshotIgnored() throws Exception {
+        setupManagers();
+        this.plugin.getGroupManager().getOrMake("test").normalData().bypass().setContent(ImmutableSet.of(Permission.builder().permission("test.1").build()));
+
+        Path file = this.directory.resolve("local-snapshot.bin");
+        new LocalSnapshot(this.plugin, file).save();
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0xFF;
+        Files.write(file, bytes);
+
+        setupManagers();
+        assertFalse(new LocalSnapshot(this.plugin, file).load());
+        assertTrue(this.plugin.getGroupManager().getAll().isEmpty());
+        assertFalse(new LocalSnapshot(this.plugin, this.directory.resolve("missing.bin")).load());
+    }
+
+}
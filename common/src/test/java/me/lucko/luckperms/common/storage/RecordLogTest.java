@@ -0,0 +1,184 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.storage.implementation.binary.RecordLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class RecordLogTest {
+
+    @TempDir
+    Path directory;
+
+    private RecordLog open() throws IOException {
+        RecordLog log = new RecordLog(mock(PluginLogger.class), this.directory.resolve("test.dat"), this.directory.resolve("test.idx"));
+        log.open();
+        return log;
+    }
+
+    private static String read(RecordLog log, String key) throws IOException {
+        DataInput in = log.read(key);
+        return in == null ? null : in.readUTF();
+    }
+
+    @Test
+    public void testWriteReadDelete() throws IOException {
+        RecordLog log = open();
+        log.write("a", out -> out.writeUTF("1"));
+        log.write("b", out -> out.writeUTF("2"));
+        log.write("a", out -> out.writeUTF("3"));
+        log.delete("b");
+
+        assertEquals("3", read(log, "a"));
+        assertNull(read(log, "b"));
+        assertEquals(Collections.singleton("a"), log.keys());
+        log.close();
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        RecordLog log = open();
+        log.write("a", out -> out.writeUTF("1"));
+        log.write("b", out -> out.writeUTF("2"));
+        log.close();
+
+        // from the index, then replaying records appended after it was written
+        log = open();
+        assertEquals("1", read(log, "a"));
+        log.write("a", out -> out.writeUTF("3"));
+        log.delete("b");
+        log.write("c", out -> out.writeUTF("4"));
+
+        // as if the log was not closed cleanly
+        RecordLog reopened = new RecordLog(mock(PluginLogger.class), this.directory.resolve("test.dat"), this.directory.resolve("test.idx"));
+        reopened.open();
+        assertEquals("3", read(reopened, "a"));
+        assertNull(read(reopened, "b"));
+        assertEquals("4", read(reopened, "c"));
+        reopened.close();
+        log.close();
+
+        // without an index, by scanning the whole log
+        Files.delete(this.directory.resolve("test.idx"));
+        log = open();
+        assertEquals("3", read(log, "a"));
+        assertFalse(log.contains("b"));
+        assertEquals("4", read(log, "c"));
+        log.close();
+    }
+
+    @Test
+    public void testPartialRecordDiscarded() throws IOException {
+        RecordLog log = open();
+        log.write("a", out -> out.writeUTF("1"));
+        log.write("b", out -> out.writeUTF("2"));
+        log.close();
+        Files.delete(this.directory.resolve("test.idx"));
+
+        Path file = this.directory.resolve("test.dat");
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 2);
+        }
+
+        log = open();
+        assertEquals("1", read(log, "a"));
+        assertFalse(log.contains("b"));
+
+        // the log can still be appended to
+        log.write("b", out -> out.writeUTF("3"));
+        log.close();
+        Files.delete(this.directory.resolve("test.idx"));
+
+        log = open();
+        assertEquals("3", read(log, "b"));
+        log.close();
+    }
+
+    @Test
+    public void testCorruptRecordNotDiscarded() throws IOException {
+        RecordLog log = open();
+        log.write("a", out -> out.writeUTF("1"));
+        log.write("b", out -> out.writeUTF("2"));
+        log.write("c", out -> out.writeUTF("3"));
+        log.close();
+        Files.delete(this.directory.resolve("test.idx"));
+
+        // corrupt the body of the first record
+        Path file = this.directory.resolve("test.dat");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 3] ^= 0xFF;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, this::open);
+        assertArrayEquals(bytes, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        RecordLog log = open();
+        for (int i = 0; i < 10000; i++) {
+            int value = i;
+            log.write("key" + (i % 10), out -> out.writeInt(value));
+        }
+
+        // superseded records are removed once they outweigh the live ones
+        assertTrue(Files.size(this.directory.resolve("test.dat")) < 64 * 1024 * 2);
+
+        log.compact();
+        for (int i = 0; i < 10; i++) {
+            DataInput in = log.read("key" + i);
+            assertNotNull(in);
+            assertEquals(9990 + i, in.readInt());
+        }
+        log.close();
+
+        log = open();
+        assertEquals(10, log.keys().size());
+        assertEquals(9999, log.read("key9").readInt());
+        log.close();
+    }
+
+}
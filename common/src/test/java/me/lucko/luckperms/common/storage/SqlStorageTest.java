@@ -27,8 +27,14 @@ package me.lucko.luckperms.common.storage;
 
 import com.google.common.collect.ImmutableSet;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogFilter;
+import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
+import me.lucko.luckperms.common.actionlog.PageParameters;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
 import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.inheritance.InheritanceDependencyIndex;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.manager.group.GroupManager;
 import me.lucko.luckperms.common.model.manager.group.StandardGroupManager;
@@ -51,7 +57,15 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -61,6 +75,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.AdditionalAnswers.answer;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -71,6 +86,7 @@ import static org.mockito.Mockito.mock;
 public class SqlStorageTest {
 
     @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsConfiguration configuration;
     @Mock private LuckPermsBootstrap bootstrap;
 
     private SqlStorage storage;
@@ -81,6 +97,10 @@ public class SqlStorageTest {
         lenient().when(this.bootstrap.getResourceStream(anyString()))
                 .then(answer((String path) -> SqlStorageTest.class.getClassLoader().getResourceAsStream(path)));
         lenient().when(this.plugin.getEventDispatcher()).thenReturn(mock(EventDispatcher.class));
+        lenient().when(this.plugin.getInheritanceDependencyIndex()).thenReturn(new InheritanceDependencyIndex(this.plugin));
+        lenient().when(this.plugin.getConfiguration()).thenReturn(this.configuration);
+        lenient().when(this.configuration.get(ConfigKeys.CACHE_REFRESH_AHEAD_MILLIS)).thenReturn(0);
+        lenient().when(this.configuration.get(ConfigKeys.PARALLEL_INHERITANCE_THRESHOLD)).thenReturn(0);
 
         this.storage = new SqlStorage(this.plugin, new TestH2ConnectionFactory(), "luckperms_");
         this.storage.init();
@@ -109,6 +129,113 @@ public class SqlStorageTest {
         assertEquals(action, log.getContent().first());
     }
 
+    @Test
+    public void testActionLogPage() throws Exception {
+        UUID source = UUID.randomUUID();
+        UUID target = UUID.randomUUID();
+
+        for (int i = 0; i < 25; i++) {
+            this.storage.logAction(LoggedAction.build()
+                    .timestamp(Instant.ofEpochSecond(1000 + i))
+                    .source(i % 2 == 0 ? source : UUID.randomUUID())
+                    .sourceName("Source " + i)
+                    .targetType(Action.Target.Type.USER)
+                    .target(target)
+                    .targetName("Target")
+                    .description("set test." + i + " true")
+                    .build());
+        }
+        this.storage.logAction(LoggedAction.build()
+                .timestamp(Instant.ofEpochSecond(2000))
+                .source(source)
+                .sourceName("Source")
+                .targetType(Action.Target.Type.GROUP)
+                .targetName("admin")
+                .description("Hello World")
+                .build());
+
+        // most recent entries first
+        LogPage page = this.storage.getLogPage(LogFilter.any(), new PageParameters(10, 1));
+        assertEquals(26, page.getTotalEntries());
+        assertEquals(3, page.getMaxPage());
+        assertEquals(10, page.getContent().size());
+        assertEquals(Instant.ofEpochSecond(2000), page.getContent().get(0).getTimestamp());
+        assertEquals(Instant.ofEpochSecond(1024), page.getContent().get(1).getTimestamp());
+
+        page = this.storage.getLogPage(LogFilter.any(), new PageParameters(10, 3));
+        assertEquals(6, page.getContent().size());
+        assertEquals(21, page.getNumberedContent().get(0).position());
+        assertEquals(Instant.ofEpochSecond(1000), page.getContent().get(5).getTimestamp());
+
+        // past the last page
+        page = this.storage.getLogPage(LogFilter.any(), new PageParameters(10, 4));
+        assertEquals(26, page.getTotalEntries());
+        assertTrue(page.getContent().isEmpty());
+
+        assertEquals(14, this.storage.getLogPage(LogFilter.source(source), null).getTotalEntries());
+        assertEquals(25, this.storage.getLogPage(LogFilter.user(target), null).getTotalEntries());
+        assertEquals(1, this.storage.getLogPage(LogFilter.group("admin"), null).getTotalEntries());
+        assertEquals(0, this.storage.getLogPage(LogFilter.track("admin"), null).getTotalEntries());
+        assertEquals(1, this.storage.getLogPage(LogFilter.search("hello world"), null).getTotalEntries());
+        assertEquals(11, this.storage.getLogPage(LogFilter.search("TEST.1"), null).getTotalEntries());
+
+        // wildcards in the search are matched literally
+        assertEquals(0, this.storage.getLogPage(LogFilter.search("test_1"), null).getTotalEntries());
+        assertEquals(0, this.storage.getLogPage(LogFilter.search("%"), null).getTotalEntries());
+        assertEquals(0, this.storage.getLogPage(LogFilter.search("test\\1"), null).getTotalEntries());
+
+        LogFilter range = LogFilter.builder()
+                .source(source)
+                .after(Instant.ofEpochSecond(1010))
+                .before(Instant.ofEpochSecond(1020))
+                .build();
+        page = this.storage.getLogPage(range, null);
+        assertEquals(5, page.getTotalEntries());
+        assertEquals(Instant.ofEpochSecond(1018), page.getContent().get(0).getTimestamp());
+
+        // the native query should agree with filtering the full log
+        Log log = this.storage.getLog();
+        for (LogFilter filter : new LogFilter[]{LogFilter.any(), LogFilter.source(source), LogFilter.search("test.2"), LogFilter.search("test_2"), range}) {
+            assertEquals(log.getPage(filter, new PageParameters(4, 2)).getContent(), this.storage.getLogPage(filter, new PageParameters(4, 2)).getContent());
+        }
+    }
+
+    @Test
+    public void testActionIndexesCreatedOnUpgrade() throws Exception {
+        Connection c = this.storage.getConnectionFactory().getConnection();
+        assertEquals(4, countActionIndexes(c));
+
+        // simulate a table created before the indexes were added
+        try (Statement s = c.createStatement()) {
+            s.execute("DROP TABLE `luckperms_actions`");
+            s.execute("CREATE TABLE `luckperms_actions` (`id` INT AUTO_INCREMENT NOT NULL, `time` BIGINT NOT NULL, `actor_uuid` VARCHAR(36) NOT NULL, " +
+                    "`actor_name` VARCHAR(100) NOT NULL, `type` CHAR(1) NOT NULL, `acted_uuid` VARCHAR(36) NOT NULL, `acted_name` VARCHAR(36) NOT NULL, " +
+                    "`action` VARCHAR(300) NOT NULL, PRIMARY KEY (`id`))");
+        }
+        assertEquals(0, countActionIndexes(c));
+
+        this.storage.init();
+        assertEquals(4, countActionIndexes(c));
+
+        // no duplicates are created on subsequent startups
+        this.storage.init();
+        assertEquals(4, countActionIndexes(c));
+    }
+
+    private static int countActionIndexes(Connection c) throws SQLException {
+        Set<String> indexes = new HashSet<>();
+        // h2 upper-cases the table name
+        try (ResultSet rs = c.getMetaData().getIndexInfo(c.getCatalog(), null, "LUCKPERMS_ACTIONS", false, true)) {
+            while (rs.next()) {
+                if (!rs.getBoolean("NON_UNIQUE")) {
+                    continue; // primary key
+                }
+                indexes.add(rs.getString("INDEX_NAME"));
+            }
+        }
+        return indexes.size();
+    }
+
     @Test
     public void testSavePlayerData() throws Exception {
         UUID uniqueId = UUID.randomUUID();
@@ -140,6 +267,43 @@ public class SqlStorageTest {
         assertNull(r2.getPreviousUsername());
     }
 
+    @Test
+    public void testSavePlayerDataInBatch() throws Exception {
+        UUID existing = UUID.randomUUID();
+        UUID renamed = UUID.randomUUID();
+        this.storage.savePlayerData(existing, "Player1");
+        this.storage.savePlayerData(renamed, "Player2");
+
+        UUID fresh = UUID.randomUUID();
+        UUID conflicting = UUID.randomUUID();
+
+        Map<UUID, String> usernames = new HashMap<>();
+        usernames.put(existing, "Player1");
+        usernames.put(renamed, "Player3");
+        usernames.put(fresh, "Player4");
+        usernames.put(conflicting, "Player2");
+
+        Map<UUID, PlayerSaveResult> results = this.storage.savePlayerData(usernames);
+        assertEquals(4, results.size());
+        assertEquals(ImmutableSet.of(Outcome.NO_CHANGE), results.get(existing).getOutcomes());
+        assertEquals(ImmutableSet.of(Outcome.USERNAME_UPDATED), results.get(renamed).getOutcomes());
+        assertEquals(ImmutableSet.of(Outcome.CLEAN_INSERT), results.get(fresh).getOutcomes());
+
+        // the rename of the other player happens in the same batch, so "player2" is no longer taken
+        assertEquals(ImmutableSet.of(Outcome.CLEAN_INSERT), results.get(conflicting).getOutcomes());
+
+        assertEquals(conflicting, this.storage.getPlayerUniqueId("Player2"));
+        assertEquals(renamed, this.storage.getPlayerUniqueId("Player3"));
+        assertEquals(fresh, this.storage.getPlayerUniqueId("Player4"));
+
+        // changed uuid
+        UUID newUniqueId = UUID.randomUUID();
+        results = this.storage.savePlayerData(Collections.singletonMap(newUniqueId, "Player4"));
+        assertEquals(ImmutableSet.of(Outcome.CLEAN_INSERT, Outcome.OTHER_UNIQUE_IDS_PRESENT_FOR_USERNAME), results.get(newUniqueId).getOutcomes());
+        assertEquals(ImmutableSet.of(fresh), results.get(newUniqueId).getOtherUniqueIds());
+        assertEquals(newUniqueId, this.storage.getPlayerUniqueId("Player4"));
+    }
+
     @Test
     public void testGetPlayerUniqueIdAndName() throws Exception {
         UUID uniqueId = UUID.randomUUID();
@@ -197,6 +361,59 @@ public class SqlStorageTest {
         assertEquals(nodes, loaded.normalData().asSet());
     }
 
+    @Test
+    public void testSaveGroupsInBatch() throws Exception {
+        StandardGroupManager groupManager = new StandardGroupManager(this.plugin);
+
+        //noinspection unchecked,rawtypes
+        lenient().when(this.plugin.getGroupManager()).thenReturn((GroupManager) groupManager);
+
+        Group first = this.storage.createAndLoadGroup("first");
+        Group second = this.storage.createAndLoadGroup("second");
+        first.normalData().add(Permission.builder().permission("test.1").build());
+        first.normalData().add(Permission.builder().permission("test.2").build());
+        second.normalData().add(Permission.builder().permission("test.3").build());
+
+        this.storage.saveGroups(Arrays.asList(first, second));
+        groupManager.unload("first");
+        groupManager.unload("second");
+
+        Group loadedFirst = this.storage.loadGroup("first").orElse(null);
+        Group loadedSecond = this.storage.loadGroup("second").orElse(null);
+        assertNotNull(loadedFirst);
+        assertNotNull(loadedSecond);
+        assertEquals(2, loadedFirst.normalData().size());
+        assertEquals(1, loadedSecond.normalData().size());
+    }
+
+    @Test
+    public void testFailedBatchRestoresChanges() throws Exception {
+        StandardGroupManager groupManager = new StandardGroupManager(this.plugin);
+
+        //noinspection unchecked,rawtypes
+        lenient().when(this.plugin.getGroupManager()).thenReturn((GroupManager) groupManager);
+
+        Group first = this.storage.createAndLoadGroup("first");
+        Group second = this.storage.createAndLoadGroup("second");
+        first.normalData().add(Permission.builder().permission("test.1").build());
+
+        // too long for the permission column, so the batch fails
+        Node invalid = Permission.builder().permission(String.join("", Collections.nCopies(300, "a"))).build();
+        second.normalData().add(invalid);
+
+        assertThrows(SQLException.class, () -> this.storage.saveGroups(Arrays.asList(first, second)));
+
+        // the changes of every group in the rolled back batch are kept, and written by the next save
+        second.normalData().remove(invalid);
+        second.normalData().add(Permission.builder().permission("test.2").build());
+        this.storage.saveGroups(Arrays.asList(first, second));
+
+        groupManager.unload("first");
+        groupManager.unload("second");
+        assertEquals(1, this.storage.loadGroup("first").get().normalData().size());
+        assertEquals(1, this.storage.loadGroup("second").get().normalData().size());
+    }
+
     private static class TestH2ConnectionFactory implements ConnectionFactory {
         private final NonClosableConnection connection;
 
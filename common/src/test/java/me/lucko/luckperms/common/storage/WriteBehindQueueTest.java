@@ -0,0 +1,172 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class WriteBehindQueueTest {
+
+    @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsBootstrap bootstrap;
+    @Mock(answer = Answers.RETURNS_MOCKS) private SchedulerAdapter scheduler;
+    @Mock private PluginLogger logger;
+    @Mock private StorageImplementation implementation;
+
+    private WriteBehindQueue queue;
+
+    @BeforeEach
+    public void setupQueue() {
+        lenient().when(this.plugin.getBootstrap()).thenReturn(this.bootstrap);
+        lenient().when(this.plugin.getLogger()).thenReturn(this.logger);
+        lenient().when(this.bootstrap.getScheduler()).thenReturn(this.scheduler);
+
+        this.queue = new WriteBehindQueue(this.plugin, this.implementation, 500);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSavesAreCoalesced() throws Exception {
+        User user = mock(User.class);
+        User otherUser = mock(User.class);
+
+        CompletableFuture<Void> first = this.queue.saveUser(user);
+        CompletableFuture<Void> second = this.queue.saveUser(user);
+        this.queue.saveUser(otherUser);
+
+        assertSame(first, second);
+        assertTrue(this.queue.hasPending());
+        assertFalse(first.isDone());
+        verify(this.scheduler, times(1)).asyncLater(any(Runnable.class), anyLong(), any(TimeUnit.class));
+
+        this.queue.flush();
+
+        ArgumentCaptor<List<User>> captor = ArgumentCaptor.forClass(List.class);
+        verify(this.implementation, times(1)).saveUsers(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        verify(this.implementation, never()).saveGroups(anyList());
+
+        assertTrue(first.isDone());
+        assertFalse(first.isCompletedExceptionally());
+        assertFalse(this.queue.hasPending());
+    }
+
+    @Test
+    public void testSavesAreBatched() throws Exception {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            futures.add(this.queue.saveGroup(mock(Group.class)));
+        }
+
+        this.queue.flush();
+
+        verify(this.implementation, times(3)).saveGroups(anyList());
+        for (CompletableFuture<Void> future : futures) {
+            assertTrue(future.isDone());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFlushOnlyMatchingUsers() throws Exception {
+        User user = mock(User.class);
+        User otherUser = mock(User.class);
+
+        CompletableFuture<Void> first = this.queue.saveUser(user);
+        CompletableFuture<Void> second = this.queue.saveUser(otherUser);
+        CompletableFuture<Void> group = this.queue.saveGroup(mock(Group.class));
+
+        this.queue.flushUsers(u -> u == user);
+
+        ArgumentCaptor<List<User>> captor = ArgumentCaptor.forClass(List.class);
+        verify(this.implementation, times(1)).saveUsers(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertSame(user, captor.getValue().get(0));
+        verify(this.implementation, never()).saveGroups(anyList());
+
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        assertFalse(group.isDone());
+        assertTrue(this.queue.hasPending());
+    }
+
+    @Test
+    public void testFailedSave() throws Exception {
+        doThrow(new RuntimeException("test")).when(this.implementation).saveUsers(anyList());
+
+        CompletableFuture<Void> future = this.queue.saveUser(mock(User.class));
+        this.queue.flush();
+
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        CompletableFuture<Void> future = this.queue.saveGroup(mock(Group.class));
+        this.queue.close();
+
+        assertTrue(future.isDone());
+        verify(this.implementation, times(1)).saveGroups(anyList());
+
+        // once closed, saves are no longer queued
+        assertNull(this.queue.saveGroup(mock(Group.class)));
+        assertFalse(this.queue.hasPending());
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.verbose;
+
+import me.lucko.luckperms.common.cacheddata.result.StringResult;
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.verbose.event.CheckOrigin;
+import me.lucko.luckperms.common.verbose.event.PermissionCheckEvent;
+import me.lucko.luckperms.common.verbose.event.VerboseEvent;
+import me.lucko.luckperms.common.verbose.event.VerboseEventType;
+import net.luckperms.api.util.Tristate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(MockitoExtension.class)
+public class VerboseHandlerTest {
+
+    private static final VerboseCheckTarget TARGET = VerboseCheckTarget.of(VerboseCheckTarget.USER_TYPE, "Player1");
+
+    @Mock private SchedulerAdapter scheduler;
+    @Mock private Sender sender;
+
+    @BeforeEach
+    public void setupMocks() {
+        lenient().when(this.scheduler.asyncRepeating(any(), anyLong(), any())).thenReturn(mock(SchedulerTask.class));
+        lenient().when(this.sender.getUniqueId()).thenReturn(UUID.randomUUID());
+    }
+
+    private static void offerPermission(VerboseHandler handler, String permission) {
+        handler.offerPermissionCheckEvent(CheckOrigin.INTERNAL, TARGET, QueryOptionsImpl.DEFAULT_CONTEXTUAL, permission, TristateResult.forMonitoredResult(Tristate.TRUE));
+    }
+
+    @Test
+    public void testFilterAppliedBeforeRecording() throws InvalidFilterException {
+        VerboseHandler handler = new VerboseHandler(this.scheduler, 2);
+        handler.registerListener(this.sender, VerboseFilter.compile("luckperms"), false);
+
+        // these don't match the filter, so shouldn't take up space in the buffer
+        for (int i = 0; i < 10; i++) {
+            offerPermission(handler, "other.permission." + i);
+        }
+        offerPermission(handler, "luckperms.user.info");
+        handler.offerMetaCheckEvent(CheckOrigin.INTERNAL, TARGET, QueryOptionsImpl.DEFAULT_CONTEXTUAL, "luckperms-meta", StringResult.of("value"));
+
+        VerboseListener listener = handler.unregisterListener(this.sender);
+        assertEquals(2, listener.getMatchedCount());
+        assertEquals(0, listener.getDroppedCount());
+    }
+
+    @Test
+    public void testDropsWhenFull() {
+        VerboseHandler handler = new VerboseHandler(this.scheduler, 4);
+        handler.registerListener(this.sender, VerboseFilter.acceptAll(), false);
+
+        for (int i = 0; i < 10; i++) {
+            offerPermission(handler, "test.permission." + i);
+        }
+
+        // the buffer is reusable once it has been flushed
+        handler.flush();
+        offerPermission(handler, "test.permission");
+
+        VerboseListener listener = handler.unregisterListener(this.sender);
+        assertEquals(11, listener.getMatchedCount());
+        assertEquals(6, listener.getDroppedCount());
+    }
+
+    @Test
+    public void testNotListening() {
+        VerboseHandler handler = new VerboseHandler(this.scheduler, 4);
+        offerPermission(handler, "test.permission");
+
+        handler.registerListener(this.sender, VerboseFilter.acceptAll(), false);
+        VerboseListener listener = handler.unregisterListener(this.sender);
+        assertEquals(0, listener.getMatchedCount());
+    }
+
+    @Test
+    public void testRingBufferOrder() {
+        VerboseRingBuffer buffer = new VerboseRingBuffer(4);
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                long pos = buffer.claim();
+                assertTrue(pos >= 0);
+                buffer.slot(pos).set(VerboseEventType.PERMISSION, CheckOrigin.INTERNAL, TARGET, QueryOptionsImpl.DEFAULT_CONTEXTUAL, 0, null, Thread.currentThread(), "perm" + i, TristateResult.UNDEFINED);
+                buffer.publish(pos);
+            }
+            assertEquals(-1, buffer.claim());
+
+            List<VerboseEvent> events = new ArrayList<>();
+            assertEquals(4, buffer.drain(events::add));
+            for (int i = 0; i < 4; i++) {
+                PermissionCheckEvent event = (PermissionCheckEvent) events.get(i);
+                assertEquals("perm" + i, event.getPermission());
+                assertFalse(event.hasCheckTrace());
+                assertEquals(0, event.getCheckTrace().length);
+            }
+        }
+    }
+
+    @Test
+    public void testRingBufferUnpublishedSlot() {
+        VerboseRingBuffer buffer = new VerboseRingBuffer(4);
+
+        long first = buffer.claim();
+        long second = buffer.claim();
+        fill(buffer, second);
+        buffer.publish(second);
+
+        // the second slot can't be read until the first has been published
+        assertEquals(0, buffer.drain(e -> {}));
+        fill(buffer, first);
+        buffer.publish(first);
+        assertEquals(2, buffer.drain(e -> {}));
+    }
+
+    @Test
+    public void testRingBufferConcurrentProducers() throws InterruptedException {
+        VerboseRingBuffer buffer = new VerboseRingBuffer(1024);
+        int threads = 4;
+        int perThread = 10000;
+
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    long pos = buffer.claim();
+                    if (pos == -1) {
+                        rejected.incrementAndGet();
+                        continue;
+                    }
+                    fill(buffer, pos);
+                    buffer.publish(pos);
+                }
+                done.countDown();
+            }).start();
+        }
+
+        int drained = 0;
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            drained += buffer.drain(e -> {});
+        }
+        drained += buffer.drain(e -> {});
+
+        assertEquals(threads * perThread, drained + rejected.get());
+    }
+
+    private static void fill(VerboseRingBuffer buffer, long pos) {
+        buffer.slot(pos).set(VerboseEventType.PERMISSION, CheckOrigin.INTERNAL, TARGET, QueryOptionsImpl.DEFAULT_CONTEXTUAL, 0, null, Thread.currentThread(), "perm", TristateResult.UNDEFINED);
+    }
+
+}
@@ -71,6 +71,7 @@ public class FabricCalculatorFactory implements CalculatorFactory {
             processors.add(ServerOwnerProcessor.INSTANCE);
         }
 
-        return new PermissionCalculator(this.plugin, metadata, processors);
+        boolean compile = this.plugin.getConfiguration().get(ConfigKeys.COMPILE_PERMISSION_CALCULATORS);
+        return new PermissionCalculator(this.plugin, metadata, processors, compile);
     }
 }
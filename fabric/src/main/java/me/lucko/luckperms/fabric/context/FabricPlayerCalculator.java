@@ -34,6 +34,7 @@ import net.luckperms.api.context.Context;
 import net.luckperms.api.context.ContextCalculator;
 import net.luckperms.api.context.ContextConsumer;
 import net.luckperms.api.context.ContextSet;
+import net.luckperms.api.context.ContextUpdateTrigger;
 import net.luckperms.api.context.DefaultContextKeys;
 import net.luckperms.api.context.ImmutableContextSet;
 import net.minecraft.server.MinecraftServer;
@@ -42,8 +43,10 @@ import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
 import net.minecraft.world.GameMode;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.EnumSet;
 import java.util.Optional;
 import java.util.Set;
 
@@ -118,8 +121,17 @@ public class FabricPlayerCalculator implements ContextCalculator<ServerPlayerEnt
         return key.toString();
     }
 
+    @Override
+    public @Nullable Set<ContextUpdateTrigger> getUpdateTriggers() {
+        // gamemode changes aren't signalled on this platform
+        if (this.gamemode) {
+            return null;
+        }
+        return this.world ? EnumSet.of(ContextUpdateTrigger.WORLD_CHANGE) : EnumSet.noneOf(ContextUpdateTrigger.class);
+    }
+
     private void onWorldChange(ServerWorld origin, ServerWorld destination, ServerPlayerEntity player) {
-        if (this.world) {
+        if (this.world || this.plugin.getContextManager().isUpdateTriggerDeclared(ContextUpdateTrigger.WORLD_CHANGE)) {
             this.plugin.getContextManager().invalidateCache(player);
             this.plugin.getContextManager().signalContextUpdate(player);
         }
@@ -26,7 +26,6 @@
 package me.lucko.luckperms.fabric.mixin;
 
 import me.lucko.luckperms.common.cacheddata.type.MetaCache;
-import me.lucko.luckperms.common.cacheddata.type.PermissionCache;
 import me.lucko.luckperms.common.context.manager.QueryOptionsCache;
 import me.lucko.luckperms.common.locale.TranslationManager;
 import me.lucko.luckperms.common.model.User;
@@ -131,8 +130,7 @@ public abstract class ServerPlayerEntityMixin implements MixinUser {
             return Tristate.UNDEFINED;
         }
 
-        PermissionCache data = user.getCachedData().getPermissionData(queryOptions);
-        return data.checkPermission(permission, CheckOrigin.PLATFORM_API_HAS_PERMISSION).result();
+        return user.getCachedData().checkPermission(queryOptions, permission, CheckOrigin.PLATFORM_API_HAS_PERMISSION).result();
     }
 
     @Override
@@ -71,7 +71,8 @@ public class ForgeCalculatorFactory implements CalculatorFactory {
             processors.add(ServerOwnerProcessor.INSTANCE);
         }
 
-        return new PermissionCalculator(this.plugin, metadata, processors);
+        boolean compile = this.plugin.getConfiguration().get(ConfigKeys.COMPILE_PERMISSION_CALCULATORS);
+        return new PermissionCalculator(this.plugin, metadata, processors, compile);
     }
 
 }
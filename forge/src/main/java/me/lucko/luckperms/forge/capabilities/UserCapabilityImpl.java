@@ -25,7 +25,6 @@
 
 package me.lucko.luckperms.forge.capabilities;
 
-import me.lucko.luckperms.common.cacheddata.type.PermissionCache;
 import me.lucko.luckperms.common.context.manager.QueryOptionsCache;
 import me.lucko.luckperms.common.locale.TranslationManager;
 import me.lucko.luckperms.common.model.User;
@@ -130,8 +129,7 @@ public class UserCapabilityImpl implements UserCapability {
             throw new NullPointerException("queryOptions");
         }
 
-        PermissionCache cache = this.user.getCachedData().getPermissionData(queryOptions);
-        return cache.checkPermission(permission, CheckOrigin.PLATFORM_API_HAS_PERMISSION).result();
+        return this.user.getCachedData().checkPermission(queryOptions, permission, CheckOrigin.PLATFORM_API_HAS_PERMISSION).result();
     }
 
     public User getUser() {
@@ -32,11 +32,13 @@ import net.luckperms.api.context.Context;
 import net.luckperms.api.context.ContextCalculator;
 import net.luckperms.api.context.ContextConsumer;
 import net.luckperms.api.context.ContextSet;
+import net.luckperms.api.context.ContextUpdateTrigger;
 import net.luckperms.api.context.DefaultContextKeys;
 import net.luckperms.api.context.ImmutableContextSet;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.TickTask;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.level.GameType;
@@ -45,6 +47,7 @@ import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.util.EnumSet;
 import java.util.Set;
 
 public class ForgePlayerCalculator implements ContextCalculator<ServerPlayer> {
@@ -126,9 +129,21 @@ public class ForgePlayerCalculator implements ContextCalculator<ServerPlayer> {
         return key.toString();
     }
 
+    @Override
+    public @NonNull Set<ContextUpdateTrigger> getUpdateTriggers() {
+        Set<ContextUpdateTrigger> triggers = EnumSet.noneOf(ContextUpdateTrigger.class);
+        if (this.gamemode) {
+            triggers.add(ContextUpdateTrigger.GAMEMODE_CHANGE);
+        }
+        if (this.world || this.dimensionType) {
+            triggers.add(ContextUpdateTrigger.WORLD_CHANGE);
+        }
+        return triggers;
+    }
+
     @SubscribeEvent
     public void onPlayerChangedDimension(PlayerEvent.PlayerChangedDimensionEvent event) {
-        if (!(this.world || this.dimensionType)) {
+        if (!this.plugin.getContextManager().isUpdateTriggerDeclared(ContextUpdateTrigger.WORLD_CHANGE)) {
             return;
         }
 
@@ -137,11 +152,16 @@ public class ForgePlayerCalculator implements ContextCalculator<ServerPlayer> {
 
     @SubscribeEvent
     public void onPlayerChangeGameMode(PlayerEvent.PlayerChangeGameModeEvent event) {
-        if (!this.gamemode || event.getNewGameMode().getId() == GAME_MODE_NOT_SET) {
+        if (!this.plugin.getContextManager().isUpdateTriggerDeclared(ContextUpdateTrigger.GAMEMODE_CHANGE) || event.getNewGameMode().getId() == GAME_MODE_NOT_SET) {
             return;
         }
 
-        this.plugin.getContextManager().signalContextUpdate((ServerPlayer) event.getEntity());
+        // the event is called before the gamemode is changed, so signal on the next tick
+        // to avoid a cached lookup made in between outliving the change. the task is queued
+        // directly as MinecraftServer#execute would run it immediately on the server thread
+        ServerPlayer player = (ServerPlayer) event.getEntity();
+        MinecraftServer server = player.getServer();
+        server.tell(new TickTask(server.getTickCount(), () -> this.plugin.getContextManager().signalContextUpdate(player)));
     }
 
 }
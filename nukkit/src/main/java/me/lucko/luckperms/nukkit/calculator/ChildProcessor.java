@@ -25,54 +25,24 @@
 
 package me.lucko.luckperms.nukkit.calculator;
 
-import me.lucko.luckperms.common.cacheddata.result.TristateResult;
-import me.lucko.luckperms.common.calculator.processor.AbstractSourceBasedProcessor;
+import me.lucko.luckperms.common.calculator.processor.AbstractChildProcessor;
 import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
 import me.lucko.luckperms.nukkit.LPNukkitPlugin;
-import net.luckperms.api.util.Tristate;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Permission Processor for Nukkits "child" permission system.
  */
-public class ChildProcessor extends AbstractSourceBasedProcessor implements PermissionProcessor {
-    private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(ChildProcessor.class);
-
+public class ChildProcessor extends AbstractChildProcessor implements PermissionProcessor {
     private final LPNukkitPlugin plugin;
-    private final AtomicBoolean needsRefresh = new AtomicBoolean(false);
-    private Map<String, TristateResult> childPermissions = Collections.emptyMap();
 
     public ChildProcessor(LPNukkitPlugin plugin) {
         this.plugin = plugin;
     }
 
     @Override
-    public TristateResult hasPermission(String permission) {
-        if (this.needsRefresh.compareAndSet(true, false)) {
-            refresh();
-        }
-        return this.childPermissions.getOrDefault(permission, TristateResult.UNDEFINED);
-    }
-
-    @Override
-    public void refresh() {
-        Map<String, TristateResult> childPermissions = new HashMap<>();
-        this.sourceMap.forEach((key, node) -> {
-            Map<String, Boolean> children = this.plugin.getPermissionMap().getChildPermissions(key, node.getValue());
-            children.forEach((childKey, childValue) -> {
-                childPermissions.put(childKey, RESULT_FACTORY.resultWithOverride(node, Tristate.of(childValue)));
-            });
-        });
-        this.childPermissions = childPermissions;
-        this.needsRefresh.set(false);
-    }
-
-    @Override
-    public void invalidate() {
-        this.needsRefresh.set(true);
+    protected Map<String, Boolean> resolveChildPermissions(String permission, boolean value) {
+        return this.plugin.getPermissionMap().getChildPermissions(permission, value);
     }
 }
@@ -40,10 +40,12 @@ import net.luckperms.api.context.Context;
 import net.luckperms.api.context.ContextCalculator;
 import net.luckperms.api.context.ContextConsumer;
 import net.luckperms.api.context.ContextSet;
+import net.luckperms.api.context.ContextUpdateTrigger;
 import net.luckperms.api.context.DefaultContextKeys;
 import net.luckperms.api.context.ImmutableContextSet;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
+import java.util.EnumSet;
 import java.util.Locale;
 import java.util.Set;
 
@@ -122,18 +124,35 @@ public class NukkitPlayerCalculator implements ContextCalculator<Player>, Listen
         }
     }
 
+    @Override
+    public @NonNull Set<ContextUpdateTrigger> getUpdateTriggers() {
+        Set<ContextUpdateTrigger> triggers = EnumSet.noneOf(ContextUpdateTrigger.class);
+        if (this.gamemode) {
+            triggers.add(ContextUpdateTrigger.GAMEMODE_CHANGE);
+        }
+        if (this.world || this.dimensionType) {
+            triggers.add(ContextUpdateTrigger.WORLD_CHANGE);
+        }
+        return triggers;
+    }
+
     @EventHandler(priority = EventPriority.LOWEST)
     public void onWorldChange(EntityLevelChangeEvent e) {
-        if ((this.world || this.dimensionType) && e.getEntity() instanceof Player) {
-            Player player = (Player) e.getEntity();
-            this.plugin.getContextManager().signalContextUpdate(player);
+        if (e.getEntity() instanceof Player && this.plugin.getContextManager().isUpdateTriggerDeclared(ContextUpdateTrigger.WORLD_CHANGE)) {
+            signalNextTick((Player) e.getEntity());
         }
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onGameModeChange(PlayerGameModeChangeEvent e) {
-        if (this.gamemode) {
-            this.plugin.getContextManager().signalContextUpdate(e.getPlayer());
+        if (this.plugin.getContextManager().isUpdateTriggerDeclared(ContextUpdateTrigger.GAMEMODE_CHANGE)) {
+            signalNextTick(e.getPlayer());
         }
     }
+
+    private void signalNextTick(Player player) {
+        // both events are called before the change is applied, so signal on the next tick
+        // to avoid a cached lookup made in between outliving the change
+        this.plugin.getBootstrap().getScheduler().executeSync(() -> this.plugin.getContextManager().signalContextUpdate(player));
+    }
 }
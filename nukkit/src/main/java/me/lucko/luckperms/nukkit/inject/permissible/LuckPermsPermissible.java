@@ -140,7 +140,7 @@ public class LuckPermsPermissible extends PermissibleBase {
         }
 
         QueryOptions queryOptions = this.queryOptionsSupplier.getQueryOptions();
-        TristateResult result = this.user.getCachedData().getPermissionData(queryOptions).checkPermission(permission, CheckOrigin.PLATFORM_API_HAS_PERMISSION_SET);
+        TristateResult result = this.user.getCachedData().checkPermission(queryOptions, permission, CheckOrigin.PLATFORM_API_HAS_PERMISSION_SET);
         if (result.result() == Tristate.UNDEFINED) {
             return false;
         }
@@ -170,7 +170,7 @@ public class LuckPermsPermissible extends PermissibleBase {
         }
 
         QueryOptions queryOptions = this.queryOptionsSupplier.getQueryOptions();
-        return this.user.getCachedData().getPermissionData(queryOptions).checkPermission(permission, CheckOrigin.PLATFORM_API_HAS_PERMISSION).result().asBoolean();
+        return this.user.getCachedData().checkPermission(queryOptions, permission, CheckOrigin.PLATFORM_API_HAS_PERMISSION).result().asBoolean();
     }
 
     @Override
@@ -180,7 +180,7 @@ public class LuckPermsPermissible extends PermissibleBase {
         }
 
         QueryOptions queryOptions = this.queryOptionsSupplier.getQueryOptions();
-        TristateResult result = this.user.getCachedData().getPermissionData(queryOptions).checkPermission(permission.getName(), CheckOrigin.PLATFORM_API_HAS_PERMISSION);
+        TristateResult result = this.user.getCachedData().checkPermission(queryOptions, permission.getName(), CheckOrigin.PLATFORM_API_HAS_PERMISSION);
 
         // override default op handling using the Permission class we have
         if (result.processorClass() == OpProcessor.class && this.plugin.getConfiguration().get(ConfigKeys.APPLY_BUKKIT_DEFAULT_PERMISSIONS)) {
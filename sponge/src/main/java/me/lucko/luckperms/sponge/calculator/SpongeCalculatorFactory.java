@@ -76,6 +76,7 @@ public class SpongeCalculatorFactory implements CalculatorFactory {
             processors.add(new RootDefaultsProcessor(this.plugin.getService(), queryOptions, overrideWildcards));
         }
 
-        return new PermissionCalculator(this.plugin, metadata, processors);
+        boolean compile = this.plugin.getConfiguration().get(ConfigKeys.COMPILE_PERMISSION_CALCULATORS);
+        return new PermissionCalculator(this.plugin, metadata, processors, compile);
     }
 }
@@ -32,8 +32,8 @@ import me.lucko.luckperms.sponge.service.model.permissionholder.GroupSubject;
 public class SpongeGroup extends Group implements SpongePermissionHolder {
     private final GroupSubject spongeData;
 
-    public SpongeGroup(String name, LPSpongePlugin plugin) {
-        super(name, plugin);
+    public SpongeGroup(String name, LPSpongePlugin plugin, boolean compactNodeMap) {
+        super(name, plugin, compactNodeMap);
         this.spongeData = new GroupSubject(plugin, this);
     }
 
@@ -38,8 +38,8 @@ import java.util.UUID;
 public class SpongeUser extends User implements SpongePermissionHolder {
     private final UserSubject spongeData;
 
-    public SpongeUser(UUID uniqueId, LPSpongePlugin plugin) {
-        super(uniqueId, plugin);
+    public SpongeUser(UUID uniqueId, LPSpongePlugin plugin, boolean compactNodeMap) {
+        super(uniqueId, plugin, compactNodeMap);
         this.spongeData = new UserSubject(plugin, this);
     }
 
@@ -92,7 +92,7 @@ public class SpongeGroupManager extends AbstractGroupManager<SpongeGroup> implem
 
     @Override
     public SpongeGroup apply(String name) {
-        return new SpongeGroup(name, this.plugin);
+        return new SpongeGroup(name, this.plugin, this.plugin.isCompactNodeMaps());
     }
 
     @Override
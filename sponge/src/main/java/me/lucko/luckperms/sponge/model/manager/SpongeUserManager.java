@@ -96,7 +96,7 @@ public class SpongeUserManager extends AbstractUserManager<SpongeUser> implement
 
     @Override
     public SpongeUser apply(UUID id) {
-        return new SpongeUser(id, this.plugin);
+        return new SpongeUser(id, this.plugin, this.plugin.isCompactNodeMaps());
     }
 
     @Override
@@ -35,6 +35,7 @@ import me.lucko.luckperms.common.calculator.processor.DirectProcessor;
 import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
 import me.lucko.luckperms.common.calculator.processor.SpongeWildcardProcessor;
 import me.lucko.luckperms.common.calculator.processor.WildcardProcessor;
+import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.metastacking.SimpleMetaStackDefinition;
 import me.lucko.luckperms.common.metastacking.StandardStackElements;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
@@ -111,6 +112,7 @@ public class CalculatedSubjectCachedDataManager extends AbstractCachedDataManage
             processors.add(new RootDefaultsProcessor(this.subject.getService(), queryOptions, true));
         }
 
-        return new PermissionCalculator(getPlugin(), metadata, processors);
+        boolean compile = getPlugin().getConfiguration().get(ConfigKeys.COMPILE_PERMISSION_CALCULATORS);
+        return new PermissionCalculator(getPlugin(), metadata, processors, compile);
     }
 }
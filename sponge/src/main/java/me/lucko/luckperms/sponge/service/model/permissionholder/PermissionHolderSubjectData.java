@@ -57,6 +57,7 @@ import org.spongepowered.api.service.permission.PermissionService;
 import org.spongepowered.api.service.permission.SubjectData;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -359,8 +360,7 @@ public class PermissionHolderSubjectData implements LPSubjectData {
     private CompletableFuture<Void> save(PermissionHolder t) {
         // if the holder is a group, invalidate caches.
         if (t.getType() == HolderType.GROUP) {
-            this.service.getPlugin().getGroupManager().invalidateAllGroupCaches();
-            this.service.getPlugin().getUserManager().invalidateAllUserCaches();
+            this.service.getPlugin().getInheritanceDependencyIndex().invalidate(Collections.singleton(((Group) t).getName()));
         }
 
         // no further action required for transient types
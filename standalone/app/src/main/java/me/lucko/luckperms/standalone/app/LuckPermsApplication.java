@@ -78,7 +78,7 @@ public class LuckPermsApplication implements AutoCloseable {
         List<String> arguments = Arrays.asList(args);
         if (arguments.contains("--docker")) {
             this.dockerCommandSocket = DockerCommandSocket.createAndStart("/opt/luckperms/luckperms.sock", terminal);
-            this.heartbeatHttpServer = HeartbeatHttpServer.createAndStart(3001, this.healthReporter);
+            this.heartbeatHttpServer = HeartbeatHttpServer.createAndStart(3001, this.healthReporter, this.luckPermsApi);
         }
 
         terminal.start(); // blocking
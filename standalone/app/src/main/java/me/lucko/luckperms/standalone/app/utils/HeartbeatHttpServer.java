@@ -30,6 +30,7 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import me.lucko.luckperms.standalone.app.integration.HealthReporter;
+import net.luckperms.api.LuckPerms;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -41,7 +42,8 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
- * Provides a tiny http server indicating the current status of the app
+ * Provides a tiny http server indicating the current status of the app,
+ * and exposing its metrics to Prometheus
  */
 public class HeartbeatHttpServer implements HttpHandler, AutoCloseable {
     private static final Logger LOGGER = LogManager.getLogger(HeartbeatHttpServer.class);
@@ -52,11 +54,11 @@ public class HeartbeatHttpServer implements HttpHandler, AutoCloseable {
             .build()
     );
 
-    public static HeartbeatHttpServer createAndStart(int port, HealthReporter healthReporter) {
+    public static HeartbeatHttpServer createAndStart(int port, HealthReporter healthReporter, LuckPerms luckPerms) {
         HeartbeatHttpServer socket = null;
 
         try {
-            socket = new HeartbeatHttpServer(healthReporter, port);
+            socket = new HeartbeatHttpServer(healthReporter, luckPerms, port);
             LOGGER.info("Started healthcheck HTTP server on :" + port);
         } catch (Exception e) {
             LOGGER.error("Error starting Heartbeat HTTP server", e);
@@ -68,10 +70,11 @@ public class HeartbeatHttpServer implements HttpHandler, AutoCloseable {
     private final HealthReporter healthReporter;
     private final HttpServer server;
 
-    public HeartbeatHttpServer(HealthReporter healthReporter, int port) throws IOException {
+    public HeartbeatHttpServer(HealthReporter healthReporter, LuckPerms luckPerms, int port) throws IOException {
         this.healthReporter = healthReporter;
         this.server = HttpServer.create(new InetSocketAddress(port), 50);
         this.server.createContext("/health", this);
+        this.server.createContext("/metrics", new PrometheusMetricsHandler(luckPerms));
         this.server.setExecutor(EXECUTOR);
         this.server.start();
     }
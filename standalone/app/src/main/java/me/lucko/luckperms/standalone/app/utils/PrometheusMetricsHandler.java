@@ -0,0 +1,140 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.standalone.app.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import net.luckperms.api.LuckPerms;
+import net.luckperms.api.metrics.Counter;
+import net.luckperms.api.metrics.Metric;
+import net.luckperms.api.metrics.Metrics;
+import net.luckperms.api.metrics.Timer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exposes the plugin's metrics in the Prometheus text exposition format
+ */
+public class PrometheusMetricsHandler implements HttpHandler {
+    private static final String PREFIX = "luckperms_";
+
+    private final LuckPerms luckPerms;
+
+    public PrometheusMetricsHandler(LuckPerms luckPerms) {
+        this.luckPerms = luckPerms;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        byte[] response = render(this.luckPerms.getMetrics()).getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(response);
+        }
+    }
+
+    static String render(Metrics metrics) {
+        StringBuilder sb = new StringBuilder();
+
+        // the exposition format requires all samples of a metric to be grouped together
+        for (Map.Entry<String, List<Counter>> family : groupByName(metrics.getCounters(), "_total").entrySet()) {
+            String name = family.getKey();
+            appendDescription(sb, name, family.getValue().get(0), "counter");
+            for (Counter counter : family.getValue()) {
+                sb.append(name).append(labels(counter.getLabels(), null)).append(' ').append(counter.getCount()).append('\n');
+            }
+        }
+
+        for (Map.Entry<String, List<Timer>> family : groupByName(metrics.getTimers(), "_seconds").entrySet()) {
+            String name = family.getKey();
+            appendDescription(sb, name, family.getValue().get(0), "histogram");
+            for (Timer timer : family.getValue()) {
+                // the timer is a consistent snapshot, so its count is the +Inf bucket
+                long count = timer.getCount();
+                for (Map.Entry<Duration, Long> bucket : timer.getBuckets().entrySet()) {
+                    sb.append(name).append("_bucket").append(labels(timer.getLabels(), seconds(bucket.getKey()))).append(' ').append(bucket.getValue()).append('\n');
+                }
+                sb.append(name).append("_bucket").append(labels(timer.getLabels(), "+Inf")).append(' ').append(count).append('\n');
+                sb.append(name).append("_sum").append(labels(timer.getLabels(), null)).append(' ').append(seconds(timer.getTotalTime())).append('\n');
+                sb.append(name).append("_count").append(labels(timer.getLabels(), null)).append(' ').append(count).append('\n');
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static <T extends Metric> Map<String, List<T>> groupByName(Collection<T> metrics, String suffix) {
+        Map<String, List<T>> families = new LinkedHashMap<>();
+        for (T metric : metrics) {
+            families.computeIfAbsent(PREFIX + metric.getName() + suffix, name -> new ArrayList<>()).add(metric);
+        }
+        return families;
+    }
+
+    private static void appendDescription(StringBuilder sb, String name, Metric metric, String type) {
+        sb.append("# HELP ").append(name).append(' ').append(metric.getDescription().replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static String labels(Map<String, String> labels, String le) {
+        if (labels.isEmpty() && le == null) {
+            return "";
+        }
+
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            sb.append(label.getKey()).append("=\"").append(escape(label.getValue())).append('"');
+        }
+        if (le != null) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            sb.append("le=\"").append(le).append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String seconds(Duration duration) {
+        return Double.toString(duration.toNanos() / 1e9);
+    }
+}
@@ -37,11 +37,15 @@ import me.lucko.luckperms.velocity.LPVelocityPlugin;
 import net.luckperms.api.context.ContextCalculator;
 import net.luckperms.api.context.ContextConsumer;
 import net.luckperms.api.context.ContextSet;
+import net.luckperms.api.context.ContextUpdateTrigger;
 import net.luckperms.api.context.DefaultContextKeys;
 import net.luckperms.api.context.ImmutableContextSet;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public class VelocityPlayerCalculator implements ContextCalculator<Player> {
     private final LPVelocityPlugin plugin;
 
@@ -67,6 +71,11 @@ public class VelocityPlayerCalculator implements ContextCalculator<Player> {
         return builder.build();
     }
 
+    @Override
+    public @NonNull Set<ContextUpdateTrigger> getUpdateTriggers() {
+        return EnumSet.of(ContextUpdateTrigger.SERVER_SWITCH);
+    }
+
     @Subscribe(order = PostOrder.FIRST)
     public void onServerConnect(ServerConnectedEvent e) {
         this.plugin.getContextManager().signalContextUpdate(e.getPlayer());
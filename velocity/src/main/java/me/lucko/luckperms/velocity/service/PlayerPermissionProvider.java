@@ -55,6 +55,6 @@ public class PlayerPermissionProvider implements PermissionProvider, PermissionF
 
     @Override
     public @NonNull Tristate getPermissionValue(@NonNull String permission) {
-        return CompatibilityUtil.convertTristate(this.user.getCachedData().getPermissionData(this.queryOptionsSupplier.getQueryOptions()).checkPermission(permission, CheckOrigin.PLATFORM_API_HAS_PERMISSION).result());
+        return CompatibilityUtil.convertTristate(this.user.getCachedData().checkPermission(this.queryOptionsSupplier.getQueryOptions(), permission, CheckOrigin.PLATFORM_API_HAS_PERMISSION).result());
     }
 }